@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.common.buff;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of byte read and write buffer.
+ * (字节读写缓存的基准测试)
+ *
+ * @author xingshuang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteBuffBenchmark {
+
+    /**
+     * 960 words, the largest hold register area modbus tcp can read with 8 requests.
+     */
+    private static final int WORD_COUNT = 960;
+
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.data = new byte[WORD_COUNT * 2];
+        for (int i = 0; i < this.data.length; i++) {
+            this.data[i] = (byte) i;
+        }
+    }
+
+    @Benchmark
+    public void readInt16(Blackhole bh) {
+        ByteReadBuff buff = new ByteReadBuff(this.data);
+        for (int i = 0; i < WORD_COUNT; i++) {
+            bh.consume(buff.getInt16());
+        }
+    }
+
+    @Benchmark
+    public void readInt32(Blackhole bh) {
+        ByteReadBuff buff = new ByteReadBuff(this.data, EByteBuffFormat.BA_DC);
+        for (int i = 0; i < WORD_COUNT / 2; i++) {
+            bh.consume(buff.getInt32());
+        }
+    }
+
+    @Benchmark
+    public void readInt64(Blackhole bh) {
+        ByteReadBuff buff = new ByteReadBuff(this.data);
+        for (int i = 0; i < WORD_COUNT / 4; i++) {
+            bh.consume(buff.getInt64(i * 8));
+        }
+    }
+
+    @Benchmark
+    public void readFloat32(Blackhole bh) {
+        ByteReadBuff buff = new ByteReadBuff(this.data);
+        for (int i = 0; i < WORD_COUNT / 2; i++) {
+            bh.consume(buff.getFloat32());
+        }
+    }
+
+    @Benchmark
+    public byte[] writeShort() {
+        ByteWriteBuff buff = new ByteWriteBuff(WORD_COUNT * 2);
+        for (int i = 0; i < WORD_COUNT; i++) {
+            buff.putShort(i);
+        }
+        return buff.getData();
+    }
+
+    @Benchmark
+    public byte[] writeInteger() {
+        ByteWriteBuff buff = new ByteWriteBuff(WORD_COUNT * 2, EByteBuffFormat.BA_DC);
+        for (int i = 0; i < WORD_COUNT / 2; i++) {
+            buff.putInteger(i);
+        }
+        return buff.getData();
+    }
+
+    @Benchmark
+    public byte[] writeDouble() {
+        ByteWriteBuff buff = new ByteWriteBuff(WORD_COUNT * 2);
+        for (int i = 0; i < WORD_COUNT / 4; i++) {
+            buff.putDouble(i * 0.5);
+        }
+        return buff.getData();
+    }
+}
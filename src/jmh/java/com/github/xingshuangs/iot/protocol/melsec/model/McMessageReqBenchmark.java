@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.melsec.model;
+
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcFrameType;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcSeries;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of melsec 3E batch read request encoding and ack decoding.
+ * (三菱3E帧批量读请求编码以及响应解码的基准测试)
+ *
+ * @author xingshuang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class McMessageReqBenchmark {
+
+    private static final int WORD_COUNT = 960;
+
+    private byte[] ackBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // 3E帧响应：副帧头 + 访问路径 + 数据长度 + 结束代码 + 数据
+        this.ackBytes = ByteWriteBuff.newInstance(11 + WORD_COUNT * 2, true)
+                .putShort(EMcFrameType.FRAME_3E.getAckSubHeader())
+                .putByte(0x00)
+                .putByte(0xFF)
+                .putShort(0x03FF)
+                .putByte(0x00)
+                .putShort(2 + WORD_COUNT * 2)
+                .putShort(0x0000)
+                .putBytes(new byte[WORD_COUNT * 2])
+                .getData();
+    }
+
+    @Benchmark
+    public byte[] encodeReadDeviceBatchInWord() {
+        McHeaderReq header = McHeaderReq.createByFrameType(EMcFrameType.FRAME_3E,
+                McFrame4E3EAccessRoute.createDefault(), 0x000A);
+        return McReqBuilder.createReadDeviceBatchInWordReq(EMcSeries.QnA, header,
+                McDeviceAddress.createBy("D100", WORD_COUNT)).toByteArray();
+    }
+
+    @Benchmark
+    public McMessageAck decodeReadDeviceBatchInWord() {
+        return McMessageAck.fromBytes(this.ackBytes, EMcFrameType.FRAME_3E);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.modbus.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of modbus tcp request encoding and response decoding.
+ * (Modbus TCP请求编码以及响应解码的基准测试)
+ *
+ * @author xingshuang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MbTcpRequestBenchmark {
+
+    private int transactionId;
+
+    private byte[] responseBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MbReadHoldRegisterResponse pdu = new MbReadHoldRegisterResponse();
+        pdu.setCount(250);
+        pdu.setRegister(new byte[250]);
+        MbTcpResponse response = new MbTcpResponse(new MbapHeader(), pdu);
+        response.selfCheck();
+        this.responseBytes = response.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeReadHoldRegister() {
+        MbTcpRequest request = MbTcpRequest.createDefault(this.transactionId++ & 0xFFFF);
+        request.setPdu(new MbReadHoldRegisterRequest(100, 125));
+        request.selfCheck();
+        return request.toByteArray();
+    }
+
+    @Benchmark
+    public MbTcpResponse decodeReadHoldRegister() {
+        return MbTcpResponse.fromBytes(this.responseBytes);
+    }
+}
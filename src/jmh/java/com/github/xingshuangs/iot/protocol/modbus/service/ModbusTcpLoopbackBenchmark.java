@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.modbus.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback round trip benchmark of ModbusTcp against ModbusTcpServer, sample mode reports p99 latency.
+ * (ModbusTcp与ModbusTcpServer本地回环往返的基准测试，采样模式输出p99延迟)
+ *
+ * @author xingshuang
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModbusTcpLoopbackBenchmark {
+
+    private static final int PORT = 15020;
+
+    private ModbusTcpServer server;
+
+    private ModbusTcp modbusTcp;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.server = new ModbusTcpServer();
+        this.server.start(PORT);
+        this.modbusTcp = new ModbusTcp("127.0.0.1", PORT);
+        this.modbusTcp.connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.modbusTcp.close();
+        this.server.stop();
+    }
+
+    @Benchmark
+    public short readInt16() {
+        return this.modbusTcp.readInt16(0);
+    }
+
+    @Benchmark
+    public byte[] readHoldRegister125() {
+        return this.modbusTcp.readHoldRegister(0, 125);
+    }
+
+    @Benchmark
+    public void writeInt16() {
+        this.modbusTcp.writeInt16(0, (short) 1);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.service;
+
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of H264 depacketization, each operation assembles one FU-A fragmented IDR frame.
+ * (H264解包的基准测试，每次操作组装一个FU-A分片的IDR帧)
+ *
+ * @author xingshuang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class H264VideoParserBenchmark {
+
+    private static final int PAYLOAD_NUMBER = 96;
+
+    private static final int PAYLOAD_SIZE = 1400;
+
+    @Param({"8", "64"})
+    private int fragmentCount;
+
+    private List<byte[]> fragments;
+
+    private H264VideoParser parser;
+
+    private int sequenceNumber;
+
+    private long timestamp;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole bh) {
+        this.fragments = new ArrayList<>();
+        for (int i = 0; i < this.fragmentCount; i++) {
+            byte[] payload = new byte[PAYLOAD_SIZE];
+            // FU indicator: NRI = 3, type = 28(FU-A)
+            payload[0] = 0x7C;
+            // FU header: S/E bit + type = 5(IDR)
+            payload[1] = (byte) (i == 0 ? 0x85 : (i == this.fragmentCount - 1 ? 0x45 : 0x05));
+            // slice header: first_mb_in_slice = 0, slice_type = 7(I)
+            payload[2] = (byte) 0x88;
+            RtpHeader header = new RtpHeader();
+            header.setVersion(2);
+            header.setPayloadType(PAYLOAD_NUMBER);
+            header.setMarker(i == this.fragmentCount - 1);
+            header.setSsrc(0x12345678L);
+            RtpPackage rtp = new RtpPackage();
+            rtp.setHeader(header);
+            rtp.setPayload(payload);
+            this.fragments.add(rtp.toByteArray());
+        }
+        this.parser = new H264VideoParser(PAYLOAD_NUMBER);
+        this.parser.onFrameHandle(bh::consume);
+        this.timestamp = 3600;
+    }
+
+    @Benchmark
+    public void processFrame() {
+        this.timestamp += 3600;
+        for (byte[] data : this.fragments) {
+            // 改写序列号和时间戳，再按网络收包的方式解析
+            int seq = this.sequenceNumber++ & 0xFFFF;
+            data[2] = (byte) (seq >> 8);
+            data[3] = (byte) seq;
+            data[4] = (byte) (this.timestamp >> 24);
+            data[5] = (byte) (this.timestamp >> 16);
+            data[6] = (byte) (this.timestamp >> 8);
+            data[7] = (byte) this.timestamp;
+            this.parser.processPackage(RtpPackage.fromBytes(data));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.model;
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EDataVariableType;
+import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of S7 read request encoding and read response decoding.
+ * (S7读请求编码以及读响应解码的基准测试)
+ *
+ * @author xingshuang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class S7DataBenchmark {
+
+    @Param({"1", "10", "18"})
+    private int itemCount;
+
+    private List<RequestItem> requestItems;
+
+    private byte[] ackBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.requestItems = new ArrayList<>();
+        List<ReturnItem> returnItems = new ArrayList<>();
+        for (int i = 0; i < this.itemCount; i++) {
+            this.requestItems.add(AddressUtil.parseByte("DB1." + (i * 10), 10));
+            returnItems.add(DataItem.createAckBy(new byte[10], EDataVariableType.BYTE_WORD_DWORD));
+        }
+        S7Data req = S7Data.createReadRequest(this.requestItems);
+        this.ackBytes = S7Data.createReadWriteResponse(req, returnItems).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeReadRequest() {
+        return S7Data.createReadRequest(this.requestItems).toByteArray();
+    }
+
+    @Benchmark
+    public S7Data decodeReadResponse() {
+        return S7Data.fromBytes(this.ackBytes);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback round trip benchmark of S7PLC against S7PLCServer, sample mode reports p99 latency.
+ * (S7PLC与S7PLCServer本地回环往返的基准测试，采样模式输出p99延迟)
+ *
+ * @author xingshuang
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class S7PLCLoopbackBenchmark {
+
+    private static final int PORT = 18102;
+
+    private S7PLCServer server;
+
+    private S7PLC s7PLC;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.server = new S7PLCServer();
+        this.server.addDBArea(1);
+        this.server.start(PORT);
+        this.s7PLC = new S7PLC(EPlcType.S1200, "127.0.0.1", PORT);
+        this.s7PLC.connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.s7PLC.close();
+        this.server.stop();
+    }
+
+    @Benchmark
+    public short readInt16() {
+        return this.s7PLC.readInt16("DB1.0");
+    }
+
+    @Benchmark
+    public byte[] readByte200() {
+        return this.s7PLC.readByte("DB1.0", 200);
+    }
+
+    @Benchmark
+    public void writeInt16() {
+        this.s7PLC.writeInt16("DB1.0", (short) 1);
+    }
+}
@@ -148,6 +148,24 @@ public class ByteReadBuff {
         }
     }
 
+    /**
+     * Check condition by index and length.
+     * (根据索引和长度校验条件)
+     *
+     * @param index  index number
+     * @param length byte length
+     */
+    private void checkCondition(int index, int length) {
+        if (index < 0) {
+            // 索引不能小于0
+            throw new IndexOutOfBoundsException("Index less than 0");
+        }
+        if (index + length > data.length) {
+            // 超过字节数组最大容量
+            throw new IndexOutOfBoundsException("Exceeds the maximum capacity of the byte array");
+        }
+    }
+
     /**
      * Gets boolean type data.
      * (获取boolean类型数据)
@@ -259,13 +277,13 @@ public class ByteReadBuff {
 
     /**
      * Get one int64 data.
-     * (获取int32数据)
+     * (获取int64数据)
      *
      * @return int64 data
      */
     public long getInt64() {
         long res = this.getInt64(this.offset);
-        this.offset += 4;
+        this.offset += 8;
         return res;
     }
 
@@ -405,7 +423,7 @@ public class ByteReadBuff {
      * @return int16 data
      */
     public short getInt16(int index) {
-        this.checkCondition(index);
+        this.checkCondition(index, 2);
         return ShortUtil.toInt16(this.data, index, this.littleEndian);
     }
 
@@ -417,7 +435,7 @@ public class ByteReadBuff {
      * @return uint16 data
      */
     public int getUInt16(int index) {
-        this.checkCondition(index);
+        this.checkCondition(index, 2);
         return ShortUtil.toUInt16(this.data, index, this.littleEndian);
     }
 
@@ -429,8 +447,8 @@ public class ByteReadBuff {
      * @return int32 data
      */
     public int getInt32(int index) {
-        this.checkCondition(index);
-        return IntegerUtil.toInt32(this.format.formatIn4Bytes(this.data, index), 0, this.littleEndian);
+        this.checkCondition(index, 4);
+        return this.format.getInt32(this.data, index, this.littleEndian);
     }
 
     /**
@@ -441,8 +459,8 @@ public class ByteReadBuff {
      * @return uint32 data
      */
     public long getUInt32(int index) {
-        this.checkCondition(index);
-        return IntegerUtil.toUInt32(this.format.formatIn4Bytes(this.data, index), 0, this.littleEndian);
+        this.checkCondition(index, 4);
+        return this.format.getInt32(this.data, index, this.littleEndian) & 0xFFFFFFFFL;
     }
 
     /**
@@ -453,8 +471,8 @@ public class ByteReadBuff {
      * @return int64 data
      */
     public long getInt64(int index) {
-        this.checkCondition(index);
-        return LongUtil.toInt64(this.format.formatIn8Bytes(this.data, index), 0, this.littleEndian);
+        this.checkCondition(index, 8);
+        return this.format.getInt64(this.data, index, this.littleEndian);
     }
 
     /**
@@ -465,8 +483,8 @@ public class ByteReadBuff {
      * @return float32 data
      */
     public float getFloat32(int index) {
-        this.checkCondition(index);
-        return FloatUtil.toFloat32(this.format.formatIn4Bytes(this.data, index), 0, this.littleEndian);
+        this.checkCondition(index, 4);
+        return Float.intBitsToFloat(this.format.getInt32(this.data, index, this.littleEndian));
     }
 
     /**
@@ -477,8 +495,8 @@ public class ByteReadBuff {
      * @return float64 data
      */
     public double getFloat64(int index) {
-        this.checkCondition(index);
-        return FloatUtil.toFloat64(this.format.formatIn8Bytes(this.data, index), 0, this.littleEndian);
+        this.checkCondition(index, 8);
+        return Double.longBitsToDouble(this.format.getInt64(this.data, index, this.littleEndian));
     }
 
     /**
@@ -88,6 +88,23 @@ public class ByteWriteBuff {
         this.format = format;
     }
 
+    /**
+     * Construct by wrapping the caller-supplied array, writing from the offset, big endian.
+     * (包装调用方提供的字节数组，从偏移量开始写入，大端模式)
+     *
+     * @param data   byte array
+     * @param offset start offset
+     */
+    public ByteWriteBuff(byte[] data, int offset) {
+        if (offset < 0 || offset > data.length) {
+            throw new IndexOutOfBoundsException("offset");
+        }
+        this.littleEndian = false;
+        this.data = data;
+        this.offset = offset;
+        this.format = EByteBuffFormat.DC_BA;
+    }
+
     public static ByteWriteBuff newInstance(int capacity) {
         return new ByteWriteBuff(capacity);
     }
@@ -104,6 +121,10 @@ public class ByteWriteBuff {
         return new ByteWriteBuff(capacity, littleEndian, format);
     }
 
+    public static ByteWriteBuff newInstance(byte[] data, int offset) {
+        return new ByteWriteBuff(data, offset);
+    }
+
     /**
      * Get a byte by byte index.
      * (获取指定索引的字节)
@@ -132,6 +153,19 @@ public class ByteWriteBuff {
         }
     }
 
+    /**
+     * Move offset after writing. If destination index equal current offset, then offset moves forward by length.
+     * (写入后移动偏移量，当desIndex==this.offset时，才将this.offset进行偏移)
+     *
+     * @param desIndex     destination index
+     * @param targetLength target length
+     */
+    private void moveOffset(int desIndex, int targetLength) {
+        if (desIndex == this.offset) {
+            this.offset += targetLength;
+        }
+    }
+
     /**
      * Add a byte data.
      * (添加字节数据)
@@ -153,9 +187,7 @@ public class ByteWriteBuff {
     public ByteWriteBuff putByte(byte src, int desIndex) {
         this.checkCondition(desIndex, 1);
         this.data[desIndex] = src;
-        if (this.offset == desIndex) {
-            this.offset++;
-        }
+        this.moveOffset(desIndex, 1);
         return this;
     }
 
@@ -209,9 +241,7 @@ public class ByteWriteBuff {
         }
         this.checkCondition(desIndex, src.length - srcIndex);
         System.arraycopy(src, srcIndex, this.data, desIndex, src.length - srcIndex);
-        if (desIndex == this.offset) {
-            this.offset += src.length;
-        }
+        this.moveOffset(desIndex, src.length);
         return this;
     }
 
@@ -246,7 +276,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putShort(int src) {
-        return this.putBytes(ShortUtil.toByteArray(src, this.littleEndian));
+        return this.putShort(src, this.offset, this.littleEndian);
     }
 
     /**
@@ -258,7 +288,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putShort(int src, int desIndex) {
-        return this.putBytes(ShortUtil.toByteArray(src, this.littleEndian), 0, desIndex);
+        return this.putShort(src, desIndex, this.littleEndian);
     }
 
     /**
@@ -409,7 +439,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putShort(short src, int desIndex, boolean littleEndian) {
-        return this.putBytes(ShortUtil.toByteArray(src, littleEndian), 0, desIndex);
+        return this.putShort((int) src, desIndex, littleEndian);
     }
 
     /**
@@ -422,7 +452,16 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putShort(int src, int desIndex, boolean littleEndian) {
-        return this.putBytes(ShortUtil.toByteArray(src, littleEndian), 0, desIndex);
+        this.checkCondition(desIndex, 2);
+        if (littleEndian) {
+            this.data[desIndex] = (byte) src;
+            this.data[desIndex + 1] = (byte) (src >> 8);
+        } else {
+            this.data[desIndex] = (byte) (src >> 8);
+            this.data[desIndex + 1] = (byte) src;
+        }
+        this.moveOffset(desIndex, 2);
+        return this;
     }
 
     /**
@@ -435,7 +474,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putInteger(int src, int desIndex, boolean littleEndian) {
-        return this.putBytes(this.format.formatIn4Bytes(IntegerUtil.toByteArray(src, littleEndian)), 0, desIndex);
+        return this.putInteger(src, desIndex, littleEndian, this.format);
     }
 
     /**
@@ -448,7 +487,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putInteger(long src, int desIndex, boolean littleEndian) {
-        return this.putBytes(this.format.formatIn4Bytes(IntegerUtil.toByteArray((int) src, littleEndian)), 0, desIndex);
+        return this.putInteger(src, desIndex, littleEndian, this.format);
     }
 
     /**
@@ -462,7 +501,10 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putInteger(long src, int desIndex, boolean littleEndian, EByteBuffFormat format) {
-        return this.putBytes(format.formatIn4Bytes(IntegerUtil.toByteArray((int) src, littleEndian)), 0, desIndex);
+        this.checkCondition(desIndex, 4);
+        format.putInt32(this.data, desIndex, (int) src, littleEndian);
+        this.moveOffset(desIndex, 4);
+        return this;
     }
 
     /**
@@ -475,7 +517,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putLong(long src, int desIndex, boolean littleEndian) {
-        return this.putBytes(this.format.formatIn8Bytes(LongUtil.toByteArray(src, littleEndian)), 0, desIndex);
+        return this.putLong(src, desIndex, littleEndian, this.format);
     }
 
     /**
@@ -489,7 +531,10 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putLong(long src, int desIndex, boolean littleEndian, EByteBuffFormat format) {
-        return this.putBytes(format.formatIn8Bytes(LongUtil.toByteArray(src, littleEndian)), 0, desIndex);
+        this.checkCondition(desIndex, 8);
+        format.putInt64(this.data, desIndex, src, littleEndian);
+        this.moveOffset(desIndex, 8);
+        return this;
     }
 
     /**
@@ -502,7 +547,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putFloat(float src, int desIndex, boolean littleEndian) {
-        return this.putBytes(this.format.formatIn4Bytes(FloatUtil.toByteArray(src, littleEndian)), 0, desIndex);
+        return this.putFloat(src, desIndex, littleEndian, this.format);
     }
 
     /**
@@ -516,7 +561,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putFloat(float src, int desIndex, boolean littleEndian, EByteBuffFormat format) {
-        return this.putBytes(format.formatIn4Bytes(FloatUtil.toByteArray(src, littleEndian)), 0, desIndex);
+        return this.putInteger(Float.floatToIntBits(src), desIndex, littleEndian, format);
     }
 
     /**
@@ -529,7 +574,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putDouble(double src, int desIndex, boolean littleEndian) {
-        return this.putBytes(this.format.formatIn8Bytes(FloatUtil.toByteArray(src, littleEndian)), 0, desIndex);
+        return this.putDouble(src, desIndex, littleEndian, this.format);
     }
 
     /**
@@ -543,7 +588,7 @@ public class ByteWriteBuff {
      * @return ByteWriteBuff itself
      */
     public ByteWriteBuff putDouble(double src, int desIndex, boolean littleEndian, EByteBuffFormat format) {
-        return this.putBytes(format.formatIn8Bytes(FloatUtil.toByteArray(src, littleEndian)), 0, desIndex);
+        return this.putLong(Double.doubleToLongBits(src), desIndex, littleEndian, format);
     }
 
     /**
@@ -25,8 +25,6 @@
 package com.github.xingshuangs.iot.common.buff;
 
 
-import com.github.xingshuangs.iot.exceptions.HexParseException;
-
 /**
  * 4 - or 8-byte encoding format.
  * (字节缓存格式)
@@ -38,30 +36,72 @@ public enum EByteBuffFormat {
      * In the original order.
      * (按照原始顺序排列)
      */
-    AB_CD("AB_CD"),
+    AB_CD("AB_CD", new int[]{3, 2, 1, 0}, new int[]{7, 6, 5, 4, 3, 2, 1, 0}),
 
     /**
      * Invert as a single byte.
      * (按照单字节反转)
      */
-    BA_DC("BA_DC"),
+    BA_DC("BA_DC", new int[]{2, 3, 0, 1}, new int[]{6, 7, 4, 5, 2, 3, 0, 1}),
 
     /**
      * Reverse by double byte.
      * (按照双字节反转)
      */
-    CD_AB("CD_AB"),
+    CD_AB("CD_AB", new int[]{1, 0, 3, 2}, new int[]{1, 0, 3, 2, 5, 4, 7, 6}),
 
     /**
      * In reverse order.
      * (按照倒序排列)
      */
-    DC_BA("DC_BA");
+    DC_BA("DC_BA", new int[]{0, 1, 2, 3}, new int[]{0, 1, 2, 3, 4, 5, 6, 7});
 
     private final String code;
 
-    EByteBuffFormat(String code) {
+    /**
+     * Source index of each byte in 4-byte data.
+     * (4字节数据中每个字节的来源索引)
+     */
+    private final int[] order4;
+
+    /**
+     * Source index of each byte in 8-byte data.
+     * (8字节数据中每个字节的来源索引)
+     */
+    private final int[] order8;
+
+    /**
+     * Bit shift of each byte in 4-byte data, big endian and little endian.
+     * (4字节数据中每个字节对应的移位数，大端和小端)
+     */
+    private final int[] bigEndianShift4;
+
+    private final int[] littleEndianShift4;
+
+    /**
+     * Bit shift of each byte in 8-byte data, big endian and little endian.
+     * (8字节数据中每个字节对应的移位数，大端和小端)
+     */
+    private final int[] bigEndianShift8;
+
+    private final int[] littleEndianShift8;
+
+    EByteBuffFormat(String code, int[] order4, int[] order8) {
         this.code = code;
+        this.order4 = order4;
+        this.order8 = order8;
+        this.bigEndianShift4 = new int[4];
+        this.littleEndianShift4 = new int[4];
+        for (int i = 0; i < 4; i++) {
+            this.bigEndianShift4[i] = (3 - order4[i]) * 8;
+            this.littleEndianShift4[i] = order4[i] * 8;
+        }
+        this.bigEndianShift8 = new int[8];
+        this.littleEndianShift8 = new int[8];
+        for (int i = 0; i < 8; i++) {
+            this.bigEndianShift8[i] = (7 - order8[i]) * 8;
+            this.littleEndianShift8[i] = order8[i] * 8;
+        }
     }
 
     /**
@@ -80,39 +120,13 @@ public enum EByteBuffFormat {
      * (4字节数据按EByteBuffFormat重新格式化)
      *
      * @param data  byte array
-     * @param index index
+     * @param index byte index
      * @return new 4-byte array.
      */
     public byte[] formatIn4Bytes(byte[] data, int index) {
         byte[] res = new byte[4];
-        switch (this.code) {
-            case "AB_CD":
-                res[0] = data[index + 3];
-                res[1] = data[index + 2];
-                res[2] = data[index + 1];
-                res[3] = data[index + 0];
-                break;
-            case "BA_DC":
-                res[0] = data[index + 2];
-                res[1] = data[index + 3];
-                res[2] = data[index + 0];
-                res[3] = data[index + 1];
-                break;
-            case "CD_AB":
-                res[0] = data[index + 1];
-                res[1] = data[index + 0];
-                res[2] = data[index + 3];
-                res[3] = data[index + 2];
-                break;
-            case "DC_BA":
-                res[0] = data[index + 0];
-                res[1] = data[index + 1];
-                res[2] = data[index + 2];
-                res[3] = data[index + 3];
-                break;
-            default:
-                // 未实现该数据格式
-                throw new HexParseException("The data format is not implemented");
+        for (int i = 0; i < 4; i++) {
+            res[i] = data[index + this.order4[i]];
         }
         return res;
     }
@@ -121,7 +135,7 @@ public enum EByteBuffFormat {
      * The 8-byte data is reformatted in EByteBuffFormat.
      * (8字节数据按EByteBuffFormat重新格式化)
      *
-     * @param data 数据源
+     * @param data byte array
      * @return new 8-byte array.
      */
     public byte[] formatIn8Bytes(byte[] data) {
@@ -129,59 +143,113 @@ public enum EByteBuffFormat {
     }
 
     /**
-     * The 4-byte data is reformatted in EByteBuffFormat.
+     * The 8-byte data is reformatted in EByteBuffFormat.
      * (8字节数据按EByteBuffFormat重新格式化)
      *
      * @param data  byte array
-     * @param index index
+     * @param index byte index
      * @return new 8-byte array.
      */
     public byte[] formatIn8Bytes(byte[] data, int index) {
         byte[] res = new byte[8];
-        switch (this.code) {
-            case "AB_CD":
-                res[0] = data[index + 7];
-                res[1] = data[index + 6];
-                res[2] = data[index + 5];
-                res[3] = data[index + 4];
-                res[4] = data[index + 3];
-                res[5] = data[index + 2];
-                res[6] = data[index + 1];
-                res[7] = data[index + 0];
-                break;
-            case "BA_DC":
-                res[0] = data[index + 6];
-                res[1] = data[index + 7];
-                res[2] = data[index + 4];
-                res[3] = data[index + 5];
-                res[4] = data[index + 2];
-                res[5] = data[index + 3];
-                res[6] = data[index + 0];
-                res[7] = data[index + 1];
-                break;
-            case "CD_AB":
-                res[0] = data[index + 1];
-                res[1] = data[index + 0];
-                res[2] = data[index + 3];
-                res[3] = data[index + 2];
-                res[4] = data[index + 5];
-                res[5] = data[index + 4];
-                res[6] = data[index + 7];
-                res[7] = data[index + 6];
-                break;
-            case "DC_BA":
-                res[0] = data[index + 0];
-                res[1] = data[index + 1];
-                res[2] = data[index + 2];
-                res[3] = data[index + 3];
-                res[4] = data[index + 4];
-                res[5] = data[index + 5];
-                res[6] = data[index + 6];
-                res[7] = data[index + 7];
-                break;
-            default:
-                throw new HexParseException("The data format is not implemented");
+        for (int i = 0; i < 8; i++) {
+            res[i] = data[index + this.order8[i]];
         }
         return res;
     }
+
+    /**
+     * Read int32 from byte array in place, same result as IntegerUtil.toInt32(formatIn4Bytes(data, index)),
+     * without creating temporary array.
+     * (原地读取int32，结果与先formatIn4Bytes再转换一致，但不创建临时数组)
+     *
+     * @param data         byte array
+     * @param index        byte index
+     * @param littleEndian is little endian
+     * @return int32 data
+     */
+    public int getInt32(byte[] data, int index, boolean littleEndian) {
+        if (this == DC_BA) {
+            // 最常用的格式，直接移位
+            return littleEndian
+                    ? ((data[index + 3] & 0xFF) << 24) | ((data[index + 2] & 0xFF) << 16)
+                    | ((data[index + 1] & 0xFF) << 8) | (data[index] & 0xFF)
+                    : ((data[index] & 0xFF) << 24) | ((data[index + 1] & 0xFF) << 16)
+                    | ((data[index + 2] & 0xFF) << 8) | (data[index + 3] & 0xFF);
+        }
+        int[] shift = littleEndian ? this.littleEndianShift4 : this.bigEndianShift4;
+        return ((data[index] & 0xFF) << shift[0])
+                | ((data[index + 1] & 0xFF) << shift[1])
+                | ((data[index + 2] & 0xFF) << shift[2])
+                | ((data[index + 3] & 0xFF) << shift[3]);
+    }
+
+    /**
+     * Read int64 from byte array in place, same result as LongUtil.toInt64(formatIn8Bytes(data, index)),
+     * without creating temporary array.
+     * (原地读取int64，结果与先formatIn8Bytes再转换一致，但不创建临时数组)
+     *
+     * @param data         byte array
+     * @param index        byte index
+     * @param littleEndian is little endian
+     * @return int64 data
+     */
+    public long getInt64(byte[] data, int index, boolean littleEndian) {
+        int[] shift = littleEndian ? this.littleEndianShift8 : this.bigEndianShift8;
+        long res = 0;
+        for (int i = 0; i < 8; i++) {
+            res |= (long) (data[index + i] & 0xFF) << shift[i];
+        }
+        return res;
+    }
+
+    /**
+     * Write int32 to byte array in place, same result as formatIn4Bytes(IntegerUtil.toByteArray(src)),
+     * without creating temporary array.
+     * (原地写入int32，结果与先转换再formatIn4Bytes一致，但不创建临时数组)
+     *
+     * @param data         byte array
+     * @param index        byte index
+     * @param src          int32 data
+     * @param littleEndian is little endian
+     */
+    public void putInt32(byte[] data, int index, int src, boolean littleEndian) {
+        if (this == DC_BA) {
+            // 最常用的格式，直接移位
+            if (littleEndian) {
+                data[index] = (byte) src;
+                data[index + 1] = (byte) (src >> 8);
+                data[index + 2] = (byte) (src >> 16);
+                data[index + 3] = (byte) (src >> 24);
+            } else {
+                data[index] = (byte) (src >> 24);
+                data[index + 1] = (byte) (src >> 16);
+                data[index + 2] = (byte) (src >> 8);
+                data[index + 3] = (byte) src;
+            }
+            return;
+        }
+        int[] shift = littleEndian ? this.littleEndianShift4 : this.bigEndianShift4;
+        data[index] = (byte) (src >> shift[0]);
+        data[index + 1] = (byte) (src >> shift[1]);
+        data[index + 2] = (byte) (src >> shift[2]);
+        data[index + 3] = (byte) (src >> shift[3]);
+    }
+
+    /**
+     * Write int64 to byte array in place, same result as formatIn8Bytes(LongUtil.toByteArray(src)),
+     * without creating temporary array.
+     * (原地写入int64，结果与先转换再formatIn8Bytes一致，但不创建临时数组)
+     *
+     * @param data         byte array
+     * @param index        byte index
+     * @param src          int64 data
+     * @param littleEndian is little endian
+     */
+    public void putInt64(byte[] data, int index, long src, boolean littleEndian) {
+        int[] shift = littleEndian ? this.littleEndianShift8 : this.bigEndianShift8;
+        for (int i = 0; i < 8; i++) {
+            data[index + i] = (byte) (src >> shift[i]);
+        }
+    }
 }
@@ -0,0 +1,340 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.common.poll;
+
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cyclic polling engine, tags of all due groups are merged and read in one batch at every tick,
+ * the same tag watched by several groups is read only once, callbacks are fired only for changed values.
+ * All engines run on a shared scheduler with bounded threads.
+ * (周期轮询引擎，每个节拍将所有到期分组的点位合并后一次批量读取，多个分组关注的相同点位只读取一次，
+ * 只对变化的数据触发回调，所有引擎共享线程数量有限的调度器)
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class PollEngine {
+
+    /**
+     * Shared scheduler of all engines.
+     * (所有引擎共享的调度器)
+     */
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Poll reader.
+     * (轮询读取器)
+     */
+    private final IPollReader reader;
+
+    /**
+     * Group contexts, key is group name.
+     * (分组上下文，键为分组名称)
+     */
+    private final Map<String, GroupContext> groups = new ConcurrentHashMap<>();
+
+    /**
+     * Tick interval in milliseconds, the scan interval of group is rounded up to it.
+     * (节拍周期，毫秒，分组的扫描周期向上对齐到节拍)
+     */
+    private volatile long tickInterval = 100;
+
+    /**
+     * Whether a tick is running, the tick of the cancelled task may still be running after restart,
+     * so ticks must not overlap.
+     * (是否有节拍正在执行，重启后被取消任务的节拍可能仍在执行，节拍之间不能重叠)
+     */
+    private final AtomicBoolean ticking = new AtomicBoolean();
+
+    /**
+     * Future of tick task.
+     * (节拍任务)
+     */
+    private ScheduledFuture<?> future;
+
+    public PollEngine(IPollReader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException("reader");
+        }
+        this.reader = reader;
+    }
+
+    /**
+     * Get the shared scheduler, thread count is the processor count and at least 2.
+     * (获取共享调度器，线程数量为处理器数量，至少为2)
+     *
+     * @return scheduler
+     */
+    public static synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            AtomicInteger index = new AtomicInteger();
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                    Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread thread = new Thread(r, "poll-engine-" + index.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+
+    public long getTickInterval() {
+        return tickInterval;
+    }
+
+    public synchronized void setTickInterval(long tickInterval) {
+        if (tickInterval <= 0) {
+            throw new IllegalArgumentException("tickInterval must be greater than 0");
+        }
+        this.tickInterval = tickInterval;
+        if (this.isRunning()) {
+            this.stop();
+            this.start();
+        }
+    }
+
+    /**
+     * Add group, it is scanned at the next tick.
+     * (添加分组，下一个节拍开始扫描)
+     *
+     * @param group poll group
+     */
+    public void addGroup(PollGroup group) {
+        if (group == null || group.getName() == null || group.getName().isEmpty()) {
+            throw new IllegalArgumentException("group name is empty");
+        }
+        if (group.getInterval() <= 0) {
+            throw new IllegalArgumentException("group interval must be greater than 0");
+        }
+        if (group.getTags() == null || group.getTags().isEmpty()) {
+            throw new IllegalArgumentException("group tags is empty");
+        }
+        if (group.getOnChange() == null) {
+            throw new IllegalArgumentException("group onChange is null");
+        }
+        if (this.groups.putIfAbsent(group.getName(), new GroupContext(group)) != null) {
+            throw new IllegalArgumentException("group already exists: " + group.getName());
+        }
+    }
+
+    /**
+     * Remove group.
+     * (移除分组)
+     *
+     * @param name group name
+     */
+    public void removeGroup(String name) {
+        this.groups.remove(name);
+    }
+
+    /**
+     * Get group names.
+     * (获取分组名称)
+     *
+     * @return group names
+     */
+    public List<String> getGroupNames() {
+        return new ArrayList<>(this.groups.keySet());
+    }
+
+    /**
+     * Whether the engine is running.
+     * (引擎是否运行中)
+     *
+     * @return true: running, false: stopped
+     */
+    public synchronized boolean isRunning() {
+        return this.future != null && !this.future.isDone();
+    }
+
+    /**
+     * Start engine.
+     * (启动引擎)
+     */
+    public synchronized void start() {
+        if (this.isRunning()) {
+            return;
+        }
+        this.future = getScheduler().scheduleWithFixedDelay(this::tick, 0, this.tickInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop engine, the current scan is not interrupted, the next start skips ticks until it finishes.
+     * (停止引擎，不中断当前正在进行的扫描，再次启动后在其结束前跳过节拍)
+     */
+    public synchronized void stop() {
+        if (this.future != null) {
+            this.future.cancel(false);
+            this.future = null;
+        }
+    }
+
+    /**
+     * Tick, read the tags of all due groups in one batch and notify the changed values.
+     * (节拍，一次批量读取所有到期分组的点位并通知变化的数据)
+     */
+    private void tick() {
+        // 上一个节拍尚未结束则跳过本次节拍
+        if (!this.ticking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            List<GroupContext> due = new ArrayList<>();
+            for (GroupContext context : this.groups.values()) {
+                if (context.nextTime <= now) {
+                    due.add(context);
+                }
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+
+            // 合并所有到期分组的点位，相同点位只读取一次
+            Map<String, Integer> keyIndexes = new LinkedHashMap<>();
+            List<PollTag> tags = new ArrayList<>();
+            for (GroupContext context : due) {
+                context.nextTime = now + context.group.getInterval();
+                for (PollTag tag : context.tags) {
+                    keyIndexes.computeIfAbsent(tag.getKey(), k -> {
+                        tags.add(tag);
+                        return tags.size() - 1;
+                    });
+                }
+            }
+
+            List<Object> values;
+            try {
+                values = this.reader.read(tags);
+            } catch (Exception e) {
+                due.forEach(x -> x.notifyError(e));
+                return;
+            }
+            for (GroupContext context : due) {
+                context.update(values, keyIndexes, now);
+            }
+        } catch (Exception e) {
+            // 保证调度任务不会因异常而终止
+            log.error("poll engine tick error", e);
+        } finally {
+            this.ticking.set(false);
+        }
+    }
+
+    /**
+     * Whether the value is changed.
+     * (数据是否发生变化)
+     *
+     * @param oldValue old value
+     * @param newValue new value
+     * @param deadband deadband
+     * @return true: changed, false: not changed
+     */
+    public static boolean isChanged(Object oldValue, Object newValue, double deadband) {
+        if (oldValue == null || newValue == null) {
+            return oldValue != newValue;
+        }
+        if (deadband > 0 && oldValue instanceof Number && newValue instanceof Number) {
+            return Math.abs(((Number) newValue).doubleValue() - ((Number) oldValue).doubleValue()) > deadband;
+        }
+        if (oldValue instanceof byte[] && newValue instanceof byte[]) {
+            return !Arrays.equals((byte[]) oldValue, (byte[]) newValue);
+        }
+        return !Objects.equals(oldValue, newValue);
+    }
+
+    /**
+     * Group context, it keeps the last notified values.
+     * (分组上下文，保存最近一次通知的数据)
+     */
+    private static class GroupContext {
+
+        private final PollGroup group;
+
+        private final List<PollTag> tags;
+
+        private final Object[] lastValues;
+
+        private long nextTime = 0;
+
+        private GroupContext(PollGroup group) {
+            this.group = group;
+            this.tags = new ArrayList<>(group.getTags());
+            this.lastValues = new Object[this.tags.size()];
+        }
+
+        private void update(List<Object> values, Map<String, Integer> keyIndexes, long now) {
+            List<PollEvent> events = new ArrayList<>();
+            for (int i = 0; i < this.tags.size(); i++) {
+                PollTag tag = this.tags.get(i);
+                Object newValue = values.get(keyIndexes.get(tag.getKey()));
+                Object oldValue = this.lastValues[i];
+                if (!this.group.isChangeOnly() || isChanged(oldValue, newValue, tag.getDeadband())) {
+                    events.add(new PollEvent(this.group.getName(), tag, oldValue, newValue, now));
+                    this.lastValues[i] = newValue;
+                }
+            }
+            if (events.isEmpty()) {
+                return;
+            }
+            try {
+                this.group.getOnChange().accept(events);
+            } catch (Exception e) {
+                log.error("poll group [{}] callback error", this.group.getName(), e);
+            }
+        }
+
+        private void notifyError(Exception e) {
+            if (this.group.getOnError() == null) {
+                log.error("poll group [{}] read error", this.group.getName(), e);
+                return;
+            }
+            try {
+                this.group.getOnError().accept(e);
+            } catch (Exception ex) {
+                log.error("poll group [{}] error callback error", this.group.getName(), ex);
+            }
+        }
+    }
+}
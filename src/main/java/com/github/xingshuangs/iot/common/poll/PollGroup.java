@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.common.poll;
+
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Poll group, tags of one group are scanned at the same interval.
+ * (轮询分组，同一分组的点位按相同周期扫描)
+ *
+ * @author xingshuang
+ */
+@Data
+public class PollGroup {
+
+    /**
+     * Group name, unique in engine.
+     * (分组名称，在引擎中唯一)
+     */
+    private String name;
+
+    /**
+     * Scan interval in milliseconds.
+     * (扫描周期，毫秒)
+     */
+    private long interval = 1000;
+
+    /**
+     * Poll tags.
+     * (轮询点位)
+     */
+    private List<PollTag> tags = new ArrayList<>();
+
+    /**
+     * Only the changed values are notified, otherwise all values are notified at every scan.
+     * (只通知变化的数据，否则每次扫描都通知全部数据)
+     */
+    private boolean changeOnly = true;
+
+    /**
+     * Callback of changed values.
+     * (数据变化回调)
+     */
+    private Consumer<List<PollEvent>> onChange;
+
+    /**
+     * Callback of read error.
+     * (读取异常回调)
+     */
+    private Consumer<Exception> onError;
+
+    public PollGroup() {
+    }
+
+    public PollGroup(String name, long interval, Consumer<List<PollEvent>> onChange) {
+        this.name = name;
+        this.interval = interval;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Add tag.
+     * (添加点位)
+     *
+     * @param tag poll tag
+     * @return poll group
+     */
+    public PollGroup addTag(PollTag tag) {
+        this.tags.add(tag);
+        return this;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.common.poll;
+
+
+import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.common.enums.EDataType;
+import lombok.Data;
+
+/**
+ * Poll tag.
+ * (轮询点位)
+ *
+ * @author xingshuang
+ */
+@Data
+public class PollTag {
+
+    /**
+     * Address.
+     * (地址，格式由对应协议决定)
+     */
+    private String address = "";
+
+    /**
+     * Data type.
+     * (数据类型)
+     */
+    private EDataType dataType = EDataType.BYTE;
+
+    /**
+     * Data count, it is only used by byte and string, others must be 1.
+     * (数据个数，只对字节和字符串有效，其他必须为1)
+     */
+    private int count = 1;
+
+    /**
+     * Deadband, numeric value is considered changed only when the difference is greater than it, 0 means any change.
+     * (死区，数值变化量大于该值才认为发生变化，0表示任何变化)
+     */
+    private double deadband = 0;
+
+    public PollTag() {
+    }
+
+    public PollTag(String address, EDataType dataType) {
+        this(address, dataType, 1, 0);
+    }
+
+    public PollTag(String address, EDataType dataType, int count) {
+        this(address, dataType, count, 0);
+    }
+
+    public PollTag(String address, EDataType dataType, int count, double deadband) {
+        this.address = address;
+        this.dataType = dataType;
+        this.count = count;
+        this.deadband = deadband;
+    }
+
+    /**
+     * Key of tag, tags with the same key are read only once in one scan.
+     * (点位的键，同一次扫描中相同键的点位只读取一次)
+     *
+     * @return key
+     */
+    public String getKey() {
+        return this.address + "_" + this.dataType + "_" + this.count;
+    }
+
+    /**
+     * Total byte length of tag.
+     * (点位的总字节长度)
+     *
+     * @return byte length
+     */
+    public int getByteLength() {
+        return this.dataType == EDataType.BYTE || this.dataType == EDataType.STRING ?
+                this.count : this.dataType.getByteLength();
+    }
+
+    /**
+     * Parse the value of tag from byte buffer.
+     * (从字节缓存中解析点位数据)
+     *
+     * @param buff  byte buffer
+     * @param index start index
+     * @return value
+     */
+    public Object parseValue(ByteReadBuff buff, int index) {
+        switch (this.dataType) {
+            case BOOL:
+                return buff.getBoolean(index, 0);
+            case BYTE:
+                return buff.getBytes(index, this.count);
+            case UINT16:
+                return buff.getUInt16(index);
+            case INT16:
+                return buff.getInt16(index);
+            case UINT32:
+                return buff.getUInt32(index);
+            case INT32:
+                return buff.getInt32(index);
+            case INT64:
+                return buff.getInt64(index);
+            case FLOAT32:
+                return buff.getFloat32(index);
+            case FLOAT64:
+                return buff.getFloat64(index);
+            case STRING:
+                return buff.getString(index, this.count);
+            default:
+                throw new IllegalArgumentException("Data type can not be recognized: " + this.dataType);
+        }
+    }
+}
@@ -0,0 +1,547 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.common.pool;
+
+
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import com.github.xingshuangs.iot.exceptions.SocketTimeoutException;
+import com.github.xingshuangs.iot.net.client.TcpClientBasic;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Client pool of one endpoint, the clients are connected with protocol handshake once and then reused. The idle
+ * clients are borrowed in FIFO order, so the requests are spread across all connections. The background maintenance
+ * evicts the idle clients beyond min size, probes the idle clients and fills the pool up to min size. All pools
+ * share one scheduler.
+ * (单个端点的客户端连接池，客户端连接并完成协议握手后复用。空闲客户端按先进先出的顺序借出，请求分散到所有连接上。
+ * 后台维护回收超过最小数量的空闲客户端，对空闲客户端探活，并补足到最小数量。所有连接池共享一个调度器)
+ *
+ * @param <T> client type
+ * @author xingshuang
+ */
+@Slf4j
+public class ClientPool<T extends TcpClientBasic> implements Closeable {
+
+    /**
+     * Shared scheduler of all pools.
+     * (所有连接池共享的调度器)
+     */
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Config.
+     * (配置)
+     */
+    protected final ClientPoolConfig config;
+
+    /**
+     * Creator of client, the client is connected by the pool.
+     * (客户端的创建者，由连接池进行连接)
+     */
+    private final Supplier<T> creator;
+
+    /**
+     * Probe of client, a cheap request, throw exception if the client is dead.
+     * (客户端探活，一个开销小的请求，客户端失效的时候抛出异常)
+     */
+    private final Consumer<T> probe;
+
+    /**
+     * Locker.
+     * (锁)
+     */
+    private final ReentrantLock locker = new ReentrantLock();
+
+    /**
+     * Condition of client available.
+     * (客户端可用的条件)
+     */
+    private final Condition available = this.locker.newCondition();
+
+    /**
+     * Idle clients, borrowed from head and released to tail.
+     * (空闲的客户端，从头部借出，归还到尾部)
+     */
+    private final Deque<PooledClient<T>> idleClients = new ArrayDeque<>();
+
+    /**
+     * All clients, including idle, borrowed and probing ones.
+     * (所有的客户端，包括空闲、借出和探活中的)
+     */
+    private final Map<T, PooledClient<T>> allClients = new IdentityHashMap<>();
+
+    /**
+     * Count of clients being created.
+     * (正在创建的客户端数量)
+     */
+    private int creatingCount = 0;
+
+    /**
+     * Is closed.
+     * (是否已关闭)
+     */
+    private boolean closed = false;
+
+    /**
+     * Future of maintenance task.
+     * (维护任务)
+     */
+    private final ScheduledFuture<?> future;
+
+    public ClientPool(ClientPoolConfig config, Supplier<T> creator, Consumer<T> probe) {
+        if (config == null) {
+            throw new IllegalArgumentException("config is null");
+        }
+        if (creator == null) {
+            throw new IllegalArgumentException("creator is null");
+        }
+        if (config.getMinSize() < 0) {
+            throw new IllegalArgumentException("minSize < 0");
+        }
+        if (config.getMaxSize() <= 0 || config.getMaxSize() < config.getMinSize()) {
+            throw new IllegalArgumentException("maxSize must be greater than 0 and not less than minSize");
+        }
+        if (config.getBorrowTimeout() < 0) {
+            throw new IllegalArgumentException("borrowTimeout < 0");
+        }
+        if (config.getMaintenanceInterval() <= 0) {
+            throw new IllegalArgumentException("maintenanceInterval <= 0");
+        }
+        this.config = config;
+        this.creator = creator;
+        this.probe = probe;
+        this.future = getScheduler().scheduleWithFixedDelay(this::maintain, 0,
+                config.getMaintenanceInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the shared scheduler, thread count is the processor count and at least 2.
+     * (获取共享调度器，线程数量为处理器数量，至少为2)
+     *
+     * @return scheduler
+     */
+    public static synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            AtomicInteger index = new AtomicInteger();
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                    Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread thread = new Thread(r, "client-pool-" + index.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+
+    public ClientPoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Get total client count, including the ones being created.
+     * (获取客户端总数量，包括正在创建的)
+     *
+     * @return total count
+     */
+    public int getTotalSize() {
+        this.locker.lock();
+        try {
+            return this.allClients.size() + this.creatingCount;
+        } finally {
+            this.locker.unlock();
+        }
+    }
+
+    /**
+     * Get idle client count.
+     * (获取空闲的客户端数量)
+     *
+     * @return idle count
+     */
+    public int getIdleSize() {
+        this.locker.lock();
+        try {
+            return this.idleClients.size();
+        } finally {
+            this.locker.unlock();
+        }
+    }
+
+    /**
+     * Execute the function with a borrowed client, the client is invalidated if the socket fails, otherwise it
+     * is released to the pool.
+     * (借用一个客户端执行函数，socket异常的时候客户端作废，否则归还到连接池)
+     *
+     * @param function function
+     * @param <R>      result type
+     * @return result
+     */
+    public <R> R execute(Function<T, R> function) {
+        T client = this.borrow();
+        R res;
+        try {
+            res = function.apply(client);
+        } catch (SocketRuntimeException | SocketTimeoutException e) {
+            // 连接异常或者超时，连接上可能还有残留的响应，不能复用
+            this.invalidate(client);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            this.release(client);
+            throw e;
+        }
+        this.release(client);
+        return res;
+    }
+
+    /**
+     * Run the consumer with a borrowed client, the client is invalidated if the socket fails, otherwise it
+     * is released to the pool.
+     * (借用一个客户端执行，socket异常的时候客户端作废，否则归还到连接池)
+     *
+     * @param consumer consumer
+     */
+    public void run(Consumer<T> consumer) {
+        this.execute(client -> {
+            consumer.accept(client);
+            return null;
+        });
+    }
+
+    /**
+     * Borrow a client, it waits at most borrow timeout when all clients are in use.
+     * (借用客户端，所有客户端都在使用中的时候，最多等待借用超时时间)
+     *
+     * @return client
+     */
+    public T borrow() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.config.getBorrowTimeout());
+        this.locker.lock();
+        try {
+            while (true) {
+                if (this.closed) {
+                    throw new SocketRuntimeException("client pool is closed");
+                }
+                PooledClient<T> pooledClient = this.idleClients.pollFirst();
+                if (pooledClient != null) {
+                    pooledClient.lastUsedTime = System.currentTimeMillis();
+                    return pooledClient.client;
+                }
+                if (this.allClients.size() + this.creatingCount < this.config.getMaxSize()) {
+                    this.creatingCount++;
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException(String.format("borrow client timeout, all [%d] clients are in use", this.config.getMaxSize()));
+                }
+                this.available.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SocketRuntimeException(e);
+        } finally {
+            this.locker.unlock();
+        }
+        // 在锁外面创建并连接，连接和握手比较耗时
+        return this.createClient(false).client;
+    }
+
+    /**
+     * Release the borrowed client to the pool.
+     * (归还借用的客户端)
+     *
+     * @param client client
+     */
+    public void release(T client) {
+        this.locker.lock();
+        try {
+            PooledClient<T> pooledClient = this.allClients.get(client);
+            if (pooledClient == null) {
+                return;
+            }
+            if (!this.closed) {
+                pooledClient.lastUsedTime = System.currentTimeMillis();
+                this.idleClients.addLast(pooledClient);
+                this.available.signal();
+                return;
+            }
+            this.allClients.remove(client);
+        } finally {
+            this.locker.unlock();
+        }
+        this.destroyClient(client);
+    }
+
+    /**
+     * Invalidate the borrowed client, it is closed and removed from the pool.
+     * (作废借用的客户端，关闭并从连接池中移除)
+     *
+     * @param client client
+     */
+    public void invalidate(T client) {
+        this.locker.lock();
+        try {
+            if (this.allClients.remove(client) == null) {
+                return;
+            }
+            this.available.signal();
+        } finally {
+            this.locker.unlock();
+        }
+        this.destroyClient(client);
+    }
+
+    /**
+     * Close the pool, the idle clients are closed at once and the borrowed ones are closed when released.
+     * (关闭连接池，空闲的客户端立即关闭，借出的客户端在归还的时候关闭)
+     */
+    @Override
+    public void close() {
+        List<PooledClient<T>> clients;
+        this.locker.lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.future.cancel(false);
+            clients = new ArrayList<>(this.idleClients);
+            this.idleClients.clear();
+            clients.forEach(x -> this.allClients.remove(x.client));
+            this.available.signalAll();
+        } finally {
+            this.locker.unlock();
+        }
+        clients.forEach(x -> this.destroyClient(x.client));
+    }
+
+    /**
+     * Background maintenance, evict, probe and fill.
+     * (后台维护，回收、探活和补足)
+     */
+    private void maintain() {
+        try {
+            this.evictAndProbe();
+            this.fill();
+        } catch (Exception e) {
+            log.warn("Client pool maintenance failed, {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Evict the idle clients beyond min size, and probe the idle clients not used in the probe interval.
+     * (回收超过最小数量的空闲客户端，并对探活周期内没有使用过的空闲客户端探活)
+     */
+    private void evictAndProbe() {
+        List<PooledClient<T>> evicted = new ArrayList<>();
+        List<PooledClient<T>> probing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        this.locker.lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            int total = this.allClients.size() + this.creatingCount;
+            Iterator<PooledClient<T>> iterator = this.idleClients.iterator();
+            while (iterator.hasNext()) {
+                PooledClient<T> pooledClient = iterator.next();
+                if (this.config.getMaxIdleTime() > 0 && total > this.config.getMinSize()
+                        && now - pooledClient.lastUsedTime >= this.config.getMaxIdleTime()) {
+                    iterator.remove();
+                    this.allClients.remove(pooledClient.client);
+                    evicted.add(pooledClient);
+                    total--;
+                } else if (this.probe != null && this.config.getProbeInterval() > 0
+                        && now - Math.max(pooledClient.lastUsedTime, pooledClient.lastProbeTime) >= this.config.getProbeInterval()) {
+                    // 探活期间从空闲队列中移出，避免被借用
+                    iterator.remove();
+                    probing.add(pooledClient);
+                }
+            }
+        } finally {
+            this.locker.unlock();
+        }
+        evicted.forEach(x -> this.destroyClient(x.client));
+        for (PooledClient<T> pooledClient : probing) {
+            boolean alive;
+            try {
+                this.probe.accept(pooledClient.client);
+                alive = true;
+            } catch (Exception e) {
+                log.warn("Client pool probe failed, the client is closed, {}", e.getMessage());
+                alive = false;
+            }
+            this.locker.lock();
+            try {
+                pooledClient.lastProbeTime = System.currentTimeMillis();
+                if (alive && !this.closed) {
+                    this.idleClients.addLast(pooledClient);
+                } else {
+                    this.allClients.remove(pooledClient.client);
+                    alive = false;
+                }
+                this.available.signal();
+            } finally {
+                this.locker.unlock();
+            }
+            if (!alive) {
+                this.destroyClient(pooledClient.client);
+            }
+        }
+    }
+
+    /**
+     * Fill the pool up to min size.
+     * (补足到最小数量)
+     */
+    private void fill() {
+        while (true) {
+            this.locker.lock();
+            try {
+                if (this.closed || this.allClients.size() + this.creatingCount >= this.config.getMinSize()) {
+                    return;
+                }
+                this.creatingCount++;
+            } finally {
+                this.locker.unlock();
+            }
+            this.createClient(true);
+        }
+    }
+
+    /**
+     * Create and connect a client, the creating count must be increased by caller.
+     * (创建并连接客户端，调用者需要先增加正在创建的数量)
+     *
+     * @param idle true: put into idle queue, false: borrowed
+     * @return pooled client
+     */
+    private PooledClient<T> createClient(boolean idle) {
+        T client = null;
+        try {
+            client = this.creator.get();
+            // 连接并完成协议握手
+            client.connect();
+        } catch (RuntimeException e) {
+            this.locker.lock();
+            try {
+                this.creatingCount--;
+                this.available.signal();
+            } finally {
+                this.locker.unlock();
+            }
+            if (client != null) {
+                this.destroyClient(client);
+            }
+            throw e;
+        }
+        PooledClient<T> pooledClient = new PooledClient<>(client);
+        this.locker.lock();
+        try {
+            this.creatingCount--;
+            if (this.closed) {
+                throw new SocketRuntimeException("client pool is closed");
+            }
+            this.allClients.put(client, pooledClient);
+            if (idle) {
+                this.idleClients.addLast(pooledClient);
+                this.available.signal();
+            }
+        } catch (SocketRuntimeException e) {
+            this.destroyClient(client);
+            throw e;
+        } finally {
+            this.locker.unlock();
+        }
+        return pooledClient;
+    }
+
+    /**
+     * Destroy client.
+     * (销毁客户端)
+     *
+     * @param client client
+     */
+    private void destroyClient(T client) {
+        try {
+            client.close();
+        } catch (Exception e) {
+            log.debug("Client pool closes client failed, {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Pooled client.
+     * (池化的客户端)
+     *
+     * @param <T> client type
+     */
+    private static class PooledClient<T> {
+
+        /**
+         * Client.
+         * (客户端)
+         */
+        private final T client;
+
+        /**
+         * Last borrowed or released time, unit ms.
+         * (最后一次借出或归还的时间，单位ms)
+         */
+        private long lastUsedTime;
+
+        /**
+         * Last probe time, unit ms.
+         * (最后一次探活的时间，单位ms)
+         */
+        private long lastProbeTime;
+
+        private PooledClient(T client) {
+            this.client = client;
+            this.lastUsedTime = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.common.pool;
+
+
+import lombok.Data;
+
+/**
+ * Config of client pool, one pool serves one endpoint.
+ * (客户端连接池配置，一个连接池对应一个端点)
+ *
+ * @author xingshuang
+ */
+@Data
+public class ClientPoolConfig {
+
+    /**
+     * Min client count, the pool is filled up to it in the background.
+     * (最小客户端数量，后台补足到该数量)
+     */
+    private int minSize = 1;
+
+    /**
+     * Max client count, some PLCs only allow a few connections.
+     * (最大客户端数量，部分PLC只允许少量的连接)
+     */
+    private int maxSize = 4;
+
+    /**
+     * Max wait time of borrowing client, unit ms.
+     * (借用客户端的最大等待时间，单位ms)
+     */
+    private long borrowTimeout = 10_000;
+
+    /**
+     * Idle time after which the clients beyond min size are evicted, unit ms, less than or equal to 0 means never.
+     * (超过最小数量的客户端空闲多久后被回收，单位ms，小于等于0表示不回收)
+     */
+    private long maxIdleTime = 300_000;
+
+    /**
+     * Probe interval of idle clients, unit ms, less than or equal to 0 means no probe.
+     * (空闲客户端的探活周期，单位ms，小于等于0表示不探活)
+     */
+    private long probeInterval = 30_000;
+
+    /**
+     * Interval of background maintenance, eviction, probe and fill, unit ms.
+     * (后台维护周期，包括回收、探活和补足，单位ms)
+     */
+    private long maintenanceInterval = 5_000;
+}
@@ -27,6 +27,7 @@ package com.github.xingshuangs.iot.common.serializer;
 
 import lombok.Data;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 
 /**
@@ -49,6 +50,24 @@ public class ByteArrayParseData {
      */
     Field field;
 
+    /**
+     * Parameter converted from annotation.
+     * (由注解转换的参数)
+     */
+    ByteArrayParameter parameter;
+
+    /**
+     * Setter of field, type is (Object,Object)void.
+     * (字段的赋值句柄，类型为(Object,Object)void)
+     */
+    MethodHandle setter;
+
+    /**
+     * Getter of field, type is (Object)Object.
+     * (字段的取值句柄，类型为(Object)Object)
+     */
+    MethodHandle getter;
+
     public ByteArrayParseData() {
     }
 
@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.common.serializer;
+
+
+import lombok.Data;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+
+/**
+ * Compiled parse plan of a class, it is created once and reused by every conversion.
+ * (类的解析计划，只编译一次，每次转换时重复使用)
+ *
+ * @author xingshuang
+ */
+@Data
+public class ByteArrayParsePlan {
+
+    /**
+     * Constructor without parameters, type is ()Object, null if the class has no default constructor.
+     * (无参构造句柄，类型为()Object，类没有无参构造时为null)
+     */
+    private MethodHandle constructor;
+
+    /**
+     * Parse data list.
+     * (解析数据列表)
+     */
+    private List<ByteArrayParseData> parseDataList;
+
+    /**
+     * Max byte size of all fields.
+     * (所有字段所需的最大字节长度)
+     */
+    private int buffSize;
+}
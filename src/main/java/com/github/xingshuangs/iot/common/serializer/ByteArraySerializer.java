@@ -30,13 +30,17 @@ import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.exceptions.ByteArrayParseException;
 import com.github.xingshuangs.iot.utils.BooleanUtil;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.github.xingshuangs.iot.common.enums.EDataType.BOOL;
 import static com.github.xingshuangs.iot.common.enums.EDataType.STRING;
@@ -49,26 +53,33 @@ import static com.github.xingshuangs.iot.common.enums.EDataType.STRING;
  */
 public class ByteArraySerializer implements IByteArraySerializable {
 
+    /**
+     * Compiled parse plans of classes.
+     * (类的解析计划缓存)
+     */
+    private static final Map<Class<?>, ByteArrayParsePlan> PLAN_CACHE = new ConcurrentHashMap<>();
+
     public static ByteArraySerializer newInstance() {
         return new ByteArraySerializer();
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T toObject(final Class<T> targetClass, final byte[] src) {
         try {
-            final T bean = targetClass.newInstance();
-            for (final Field field : targetClass.getDeclaredFields()) {
-                final ByteArrayVariable variable = field.getAnnotation(ByteArrayVariable.class);
-                if (variable == null) {
-                    continue;
-                }
-                ByteArrayParameter parameter = new ByteArrayParameter(variable.byteOffset(), variable.bitOffset(),
-                        variable.count(), variable.type(), variable.littleEndian(), variable.format());
-                this.checkByteArrayVariable(parameter);
-                this.extractData(src, bean, field, parameter);
+            ByteArrayParsePlan plan = this.getParsePlan(targetClass);
+            if (plan.getConstructor() == null) {
+                throw new ByteArrayParseException("no default constructor in " + targetClass.getName());
+            }
+            final T bean = (T) plan.getConstructor().invokeExact();
+            for (ByteArrayParseData item : plan.getParseDataList()) {
+                item.getSetter().invokeExact((Object) bean, this.extractValue(src, item.getParameter()));
             }
             return bean;
-        } catch (Exception e) {
+        } catch (Error | ByteArrayParseException e) {
+            // Error和本身的异常不包装，直接抛出
+            throw e;
+        } catch (Throwable e) {
             // 解析成对象错误，原因：
             throw new ByteArrayParseException("parsing to object error, cause:" + e.getMessage(), e);
         }
@@ -102,8 +113,7 @@ public class ByteArraySerializer implements IByteArraySerializable {
                 }
 
                 this.checkByteArrayVariable(parameter);
-                Field field = parameter.getClass().getDeclaredField("value");
-                this.extractData(src, parameter, field, parameter);
+                parameter.setValue(this.extractValue(src, parameter));
             }
             return parameters;
         } catch (Exception e) {
@@ -114,31 +124,14 @@ public class ByteArraySerializer implements IByteArraySerializable {
     @Override
     public <T> byte[] toByteArray(final T targetBean) {
         try {
-            // 组装数据，同时计算最大的字节长度
-            int buffSize = 0;
-            List<ByteArrayParseData> parseDataList = new ArrayList<>();
-            for (final Field field : targetBean.getClass().getDeclaredFields()) {
-                final ByteArrayVariable variable = field.getAnnotation(ByteArrayVariable.class);
-                if (variable == null) {
-                    continue;
-                }
-                ByteArrayParameter parameter = new ByteArrayParameter(variable.byteOffset(), variable.bitOffset(),
-                        variable.count(), variable.type(), variable.littleEndian(), variable.format());
-                this.checkByteArrayVariable(parameter);
-                parseDataList.add(new ByteArrayParseData(variable, field));
-                int maxPos = variable.byteOffset() + variable.count() * variable.type().getByteLength();
-                if (maxPos > buffSize) {
-                    buffSize = maxPos;
-                }
-            }
-            if (buffSize == 0 || parseDataList.isEmpty()) {
+            ByteArrayParsePlan plan = this.getParsePlan(targetBean.getClass());
+            if (plan.getBuffSize() == 0 || plan.getParseDataList().isEmpty()) {
                 return new byte[0];
             }
             // 填充字节数组的内容
-            ByteWriteBuff buff = ByteWriteBuff.newInstance(buffSize);
-            for (ByteArrayParseData item : parseDataList) {
-                item.getField().setAccessible(true);
-                Object data = item.getField().get(targetBean);
+            ByteWriteBuff buff = ByteWriteBuff.newInstance(plan.getBuffSize());
+            for (ByteArrayParseData item : plan.getParseDataList()) {
+                Object data = item.getGetter().invokeExact((Object) targetBean);
                 if (data == null) {
                     continue;
                 }
@@ -149,86 +142,143 @@ public class ByteArraySerializer implements IByteArraySerializable {
                 }
             }
             return buff.getData();
-        } catch (Exception e) {
+        } catch (Error | ByteArrayParseException e) {
+            // Error和本身的异常不包装，直接抛出
+            throw e;
+        } catch (Throwable e) {
             throw new ByteArrayParseException("parsing to object error, cause:" + e.getMessage(), e);
         }
     }
 
     /**
-     * Extract target data by condition.
-     * (提取数据)
+     * Get the compiled parse plan of class, it is compiled for the first time and cached.
+     * (获取类的解析计划，首次编译后缓存)
+     *
+     * @param targetClass target class
+     * @return parse plan
+     */
+    private ByteArrayParsePlan getParsePlan(final Class<?> targetClass) {
+        ByteArrayParsePlan plan = PLAN_CACHE.get(targetClass);
+        if (plan == null) {
+            plan = PLAN_CACHE.computeIfAbsent(targetClass, this::compileBean);
+        }
+        return plan;
+    }
+
+    /**
+     * Compile the class into parse plan, fields are accessed by method handles.
+     * (将类编译为解析计划，字段通过方法句柄访问，同时计算最大的字节长度)
+     *
+     * @param targetClass target class
+     * @return parse plan
+     */
+    private ByteArrayParsePlan compileBean(final Class<?> targetClass) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            int buffSize = 0;
+            List<ByteArrayParseData> parseDataList = new ArrayList<>();
+            for (final Field field : targetClass.getDeclaredFields()) {
+                final ByteArrayVariable variable = field.getAnnotation(ByteArrayVariable.class);
+                if (variable == null) {
+                    continue;
+                }
+                ByteArrayParameter parameter = new ByteArrayParameter(variable.byteOffset(), variable.bitOffset(),
+                        variable.count(), variable.type(), variable.littleEndian(), variable.format());
+                this.checkByteArrayVariable(parameter);
+                field.setAccessible(true);
+                ByteArrayParseData item = new ByteArrayParseData(variable, field);
+                item.setParameter(parameter);
+                item.setSetter(lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                item.setGetter(lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class)));
+                parseDataList.add(item);
+                int maxPos = variable.byteOffset() + variable.count() * variable.type().getByteLength();
+                if (maxPos > buffSize) {
+                    buffSize = maxPos;
+                }
+            }
+            ByteArrayParsePlan plan = new ByteArrayParsePlan();
+            plan.setConstructor(this.findConstructor(lookup, targetClass));
+            plan.setParseDataList(Collections.unmodifiableList(parseDataList));
+            plan.setBuffSize(buffSize);
+            return plan;
+        } catch (IllegalAccessException e) {
+            throw new ByteArrayParseException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Find the constructor without parameters.
+     * (查找无参构造函数)
+     *
+     * @param lookup      lookup
+     * @param targetClass target class
+     * @return constructor handle, null if not found
+     */
+    private MethodHandle findConstructor(MethodHandles.Lookup lookup, final Class<?> targetClass) {
+        try {
+            Constructor<?> constructor = targetClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Extract target data by condition, single value if count is 1, otherwise list.
+     * (提取数据，个数为1时返回单个值，否则返回列表)
      *
      * @param src      byte array
-     * @param bean     bean object
-     * @param field    field
      * @param variable byte array parameter
-     * @param <T>      type
-     * @throws IllegalAccessException illegal access exception
+     * @return value
      */
-    private <T> void extractData(byte[] src, T bean, Field field, ByteArrayParameter variable) throws IllegalAccessException {
+    private Object extractValue(byte[] src, ByteArrayParameter variable) {
         ByteReadBuff buff = new ByteReadBuff(src, 0, variable.isLittleEndian(), variable.getFormat());
-        field.setAccessible(true);
+        if (variable.getType() == STRING) {
+            return buff.getString(variable.getByteOffset(), variable.getCount());
+        }
+        if (variable.getCount() == 1) {
+            return this.extractOneValue(buff, variable, 0);
+        }
+        List<Object> res = new ArrayList<>(variable.getCount());
+        for (int i = 0; i < variable.getCount(); i++) {
+            res.add(this.extractOneValue(buff, variable, i));
+        }
+        return res;
+    }
+
+    /**
+     * Extract one data.
+     * (提取一个数据)
+     *
+     * @param buff     read byte buffer
+     * @param variable byte array parameter
+     * @param index    target index
+     * @return value
+     */
+    private Object extractOneValue(ByteReadBuff buff, ByteArrayParameter variable, int index) {
+        int offset = variable.getByteOffset() + index * variable.getType().getByteLength();
         switch (variable.getType()) {
             case BOOL:
-                List<Boolean> booleans = IntStream.range(0, variable.getCount())
-                        .mapToObj(x -> {
-                            int byteAdd = variable.getByteOffset() + (variable.getBitOffset() + x) / 8;
-                            int bitAdd = (variable.getBitOffset() + x) % 8;
-                            return buff.getBoolean(byteAdd, bitAdd);
-                        }).collect(Collectors.toList());
-                field.set(bean, variable.getCount() == 1 ? booleans.get(0) : booleans);
-                break;
+                int byteAdd = variable.getByteOffset() + (variable.getBitOffset() + index) / 8;
+                int bitAdd = (variable.getBitOffset() + index) % 8;
+                return buff.getBoolean(byteAdd, bitAdd);
             case BYTE:
-                List<Byte> bytes = IntStream.range(0, variable.getCount())
-                        .mapToObj(x -> buff.getByte(variable.getByteOffset() + x * variable.getType().getByteLength()))
-                        .collect(Collectors.toList());
-                field.set(bean, variable.getCount() == 1 ? bytes.get(0) : bytes);
-                break;
+                return buff.getByte(offset);
             case UINT16:
-                List<Integer> uint16s = IntStream.range(0, variable.getCount())
-                        .mapToObj(x -> buff.getUInt16(variable.getByteOffset() + x * variable.getType().getByteLength()))
-                        .collect(Collectors.toList());
-                field.set(bean, variable.getCount() == 1 ? uint16s.get(0) : uint16s);
-                break;
+                return buff.getUInt16(offset);
             case INT16:
-                List<Short> int16s = IntStream.range(0, variable.getCount())
-                        .mapToObj(x -> buff.getInt16(variable.getByteOffset() + x * variable.getType().getByteLength()))
-                        .collect(Collectors.toList());
-                field.set(bean, variable.getCount() == 1 ? int16s.get(0) : int16s);
-                break;
+                return buff.getInt16(offset);
             case UINT32:
-                List<Long> uint32s = IntStream.range(0, variable.getCount())
-                        .mapToObj(x -> buff.getUInt32(variable.getByteOffset() + x * variable.getType().getByteLength()))
-                        .collect(Collectors.toList());
-                field.set(bean, variable.getCount() == 1 ? uint32s.get(0) : uint32s);
-                break;
+                return buff.getUInt32(offset);
             case INT32:
-                List<Integer> int32s = IntStream.range(0, variable.getCount())
-                        .mapToObj(x -> buff.getInt32(variable.getByteOffset() + x * variable.getType().getByteLength()))
-                        .collect(Collectors.toList());
-                field.set(bean, variable.getCount() == 1 ? int32s.get(0) : int32s);
-                break;
+                return buff.getInt32(offset);
             case INT64:
-                List<Long> int64s = IntStream.range(0, variable.getCount())
-                        .mapToObj(x -> buff.getInt64(variable.getByteOffset() + x * variable.getType().getByteLength()))
-                        .collect(Collectors.toList());
-                field.set(bean, variable.getCount() == 1 ? int64s.get(0) : int64s);
-                break;
+                return buff.getInt64(offset);
             case FLOAT32:
-                List<Float> float32s = IntStream.range(0, variable.getCount())
-                        .mapToObj(x -> buff.getFloat32(variable.getByteOffset() + x * variable.getType().getByteLength()))
-                        .collect(Collectors.toList());
-                field.set(bean, variable.getCount() == 1 ? float32s.get(0) : float32s);
-                break;
+                return buff.getFloat32(offset);
             case FLOAT64:
-                List<Double> float64s = IntStream.range(0, variable.getCount())
-                        .mapToObj(x -> buff.getFloat64(variable.getByteOffset() + x * variable.getType().getByteLength()))
-                        .collect(Collectors.toList());
-                field.set(bean, variable.getCount() == 1 ? float64s.get(0) : float64s);
-                break;
-            case STRING:
-                field.set(bean, buff.getString(variable.getByteOffset(), variable.getCount()));
-                break;
+                return buff.getFloat64(offset);
             default:
                 // 提取数据的时候无法识别数据类型
                 throw new ByteArrayParseException("The data type can not be recognized when extracting the data");
@@ -0,0 +1,755 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.net.client;
+
+
+import com.github.xingshuangs.iot.common.constant.GeneralConst;
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import com.github.xingshuangs.iot.exceptions.SocketTimeoutException;
+import com.github.xingshuangs.iot.utils.FutureUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static com.github.xingshuangs.iot.common.constant.GeneralConst.LOCALHOST;
+
+/**
+ * TCP client basic class based on asynchronous socket channel, it is the non-blocking counterpart of TcpClientBasic.
+ * All connections share a small group of I/O threads, several requests can be in flight on one connection,
+ * responses are matched by frame key, or in order of requests if the protocol has no key.
+ * (基于异步通道的TCP客户端基础类，TcpClientBasic的非阻塞版本，所有连接共享少量I/O线程，
+ * 同一连接上可同时存在多个请求，响应根据帧标识匹配，若协议无标识则按请求顺序匹配)
+ * <p>
+ * Futures are completed in I/O threads, so the dependent actions must not block.
+ * (future在I/O线程中完成，后续动作不可阻塞)
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class TcpAsyncClientBasic {
+
+    /**
+     * Shared channel group of all asynchronous clients.
+     * (所有异步客户端共享的通道组)
+     */
+    private static AsynchronousChannelGroup channelGroup;
+
+    /**
+     * Shared scheduler for timeout checking.
+     * (共享的超时检测调度器)
+     */
+    private static ScheduledExecutorService scheduler;
+
+    // region 私有对象
+
+    /**
+     * TAG name.
+     * (TAG名)
+     */
+    protected String tag = "";
+
+    /**
+     * Socket address.
+     * (socket地址)
+     */
+    protected final InetSocketAddress socketAddress;
+
+    /**
+     * Connect timeout, unit: ms.
+     * (连接超时时间，单位ms)
+     */
+    protected int connectTimeout = 10_000;
+
+    /**
+     * Receive timeout of every request, unit: ms.
+     * (每个请求的接收超时时间，单位ms)
+     */
+    protected int receiveTimeout = 10_000;
+
+    /**
+     * Max number of requests in flight, the others are waiting in queue.
+     * (同时在途的最大请求数量，其余请求排队等待)
+     */
+    protected int maxInFlight = 1;
+
+    /**
+     * Initial size of the read buffer.
+     * (读缓存的初始大小)
+     */
+    protected int readBufferSize = 4096;
+
+    /**
+     * Max length of one frame, the connection will be closed if exceeded.
+     * (单帧最大长度，超过则关闭连接)
+     */
+    protected int maxFrameLength = 1024 * 1024;
+
+    /**
+     * Communication callback, first parameter is tag, second is package content.
+     * (通信回调，第一个参数是tag标签，指示该报文含义；第二个参数是具体报文内容)
+     */
+    protected BiConsumer<String, byte[]> comCallback;
+
+    /**
+     * Locker of the states below.
+     * (以下状态的锁)
+     */
+    private final Object locker = new Object();
+
+    /**
+     * Channel.
+     * (通道)
+     */
+    private AsynchronousSocketChannel channel;
+
+    /**
+     * Connect future including the handshake, null means not connected.
+     * (包含握手的连接future，null表示未连接)
+     */
+    private CompletableFuture<Void> connectFuture;
+
+    /**
+     * Whether the handshake is finished, the waiting requests are sent only after it.
+     * (握手是否已完成，完成之后才发送等待中的请求)
+     */
+    private boolean ready = false;
+
+    /**
+     * Requests in flight with frame key.
+     * (有帧标识的在途请求)
+     */
+    private final Map<Integer, AsyncRequest> keyedInFlight = new HashMap<>();
+
+    /**
+     * Requests in flight without frame key, in order of sending.
+     * (无帧标识的在途请求，按发送顺序)
+     */
+    private final Deque<AsyncRequest> orderedInFlight = new ArrayDeque<>();
+
+    /**
+     * Requests waiting for the connection or a free slot, in order of submission.
+     * (等待连接或空闲位置的请求，按提交顺序)
+     */
+    private final Queue<AsyncRequest> waiting = new ArrayDeque<>();
+
+    /**
+     * Data waiting for writing.
+     * (等待写入的数据)
+     */
+    private final Queue<ByteBuffer> writeQueue = new ArrayDeque<>();
+
+    /**
+     * Writing or not.
+     * (是否正在写)
+     */
+    private boolean writing = false;
+
+    /**
+     * Read buffer, only accessed by the reading handler.
+     * (读缓存，只在读取回调中访问)
+     */
+    private ByteBuffer readBuffer;
+
+    public InetSocketAddress getSocketAddress() {
+        return socketAddress;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReceiveTimeout() {
+        return receiveTimeout;
+    }
+
+    public void setReceiveTimeout(int receiveTimeout) {
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Get the communication callback, it is read for every frame, so subclass can override it to follow the
+     * callback of the owner.
+     * (获取通信回调，每一帧都会读取，子类可重写以跟随所属对象的回调)
+     *
+     * @return communication callback
+     */
+    public BiConsumer<String, byte[]> getComCallback() {
+        return comCallback;
+    }
+
+    public void setComCallback(BiConsumer<String, byte[]> comCallback) {
+        this.comCallback = comCallback;
+    }
+
+    // endregion
+
+    // region 构造方法
+    public TcpAsyncClientBasic() {
+        this(LOCALHOST, 8088);
+    }
+
+    public TcpAsyncClientBasic(String host, int port) {
+        this.socketAddress = new InetSocketAddress(host, port);
+    }
+    // endregion
+
+    //region 共享资源
+
+    /**
+     * Get the shared channel group, the number of threads is the number of processors.
+     * (获取共享的通道组，线程数量为处理器数量)
+     *
+     * @return channel group
+     * @throws IOException IO exception
+     */
+    private static synchronized AsynchronousChannelGroup getChannelGroup() throws IOException {
+        if (channelGroup == null || channelGroup.isShutdown()) {
+            AtomicInteger index = new AtomicInteger();
+            ThreadFactory factory = r -> {
+                Thread thread = new Thread(r, "async-tcp-io-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            channelGroup = AsynchronousChannelGroup.withFixedThreadPool(Runtime.getRuntime().availableProcessors(), factory);
+        }
+        return channelGroup;
+    }
+
+    /**
+     * Get the shared scheduler.
+     * (获取共享的调度器)
+     *
+     * @return scheduler
+     */
+    private static synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "async-tcp-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+
+    //endregion
+
+    //region 公共方法
+
+    /**
+     * Whether the connection and handshake are finished.
+     * (连接和握手是否已完成)
+     *
+     * @return true: connected, false: not connected
+     */
+    public boolean checkConnected() {
+        synchronized (this.locker) {
+            return this.channel != null && this.channel.isOpen() && this.ready;
+        }
+    }
+
+    /**
+     * Connect to server asynchronously, the handshake is included, return the existing future if connecting or connected.
+     * (异步连接服务端，包含握手，若正在连接或已连接则返回已有的future)
+     *
+     * @return connect future
+     */
+    public CompletableFuture<Void> connectAsync() {
+        AsynchronousSocketChannel newChannel;
+        CompletableFuture<Void> future;
+        synchronized (this.locker) {
+            if (this.connectFuture != null && this.channel != null && this.channel.isOpen()) {
+                return this.connectFuture;
+            }
+            try {
+                newChannel = AsynchronousSocketChannel.open(getChannelGroup());
+                newChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                return FutureUtil.failed(new SocketRuntimeException(e));
+            }
+            future = new CompletableFuture<>();
+            this.channel = newChannel;
+            this.connectFuture = future;
+            this.ready = false;
+            this.readBuffer = ByteBuffer.allocate(this.readBufferSize);
+            this.writeQueue.clear();
+            this.writing = false;
+        }
+
+        ScheduledFuture<?> timeout = getScheduler().schedule(() -> this.closeChannel(newChannel,
+                        new SocketTimeoutException(String.format("Connect to %s server [%s] timeout", this.tag, this.socketAddress))),
+                this.connectTimeout, TimeUnit.MILLISECONDS);
+        newChannel.connect(this.socketAddress, null, new CompletionHandler<Void, Void>() {
+            @Override
+            public void completed(Void result, Void attachment) {
+                timeout.cancel(false);
+                log.debug("Create asynchronous channel and connect to {} server [{}] succeed", tag, socketAddress);
+                beginRead(newChannel);
+                CompletableFuture<Void> handshake;
+                try {
+                    handshake = doAfterConnectedAsync();
+                } catch (Exception e) {
+                    handshake = FutureUtil.failed(e);
+                }
+                handshake.whenComplete((v, ex) -> {
+                    if (ex == null) {
+                        synchronized (locker) {
+                            if (channel != newChannel) {
+                                return;
+                            }
+                            // 握手完成之后按提交顺序发送连接期间排队的请求
+                            ready = true;
+                            dispatchWaiting();
+                        }
+                        future.complete(null);
+                    } else {
+                        closeChannel(newChannel, FutureUtil.unwrap(ex));
+                    }
+                });
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                timeout.cancel(false);
+                closeChannel(newChannel, new SocketRuntimeException(exc));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Send data and receive the response asynchronously, connect first if not connected.
+     * (异步发送数据并接收响应，若未连接则先连接)
+     *
+     * @param data request frame
+     * @param key  frame key of the response, less than 0 means matching in order
+     * @return response frame future
+     */
+    public CompletableFuture<byte[]> sendAsync(byte[] data, int key) {
+        CompletableFuture<Void> connect = this.checkConnected() ? null : this.connectAsync();
+        if (connect != null && connect.isCompletedExceptionally()) {
+            return connect.thenApply(v -> null);
+        }
+        AsyncRequest request = new AsyncRequest(data, key);
+        synchronized (this.locker) {
+            // 连接中的请求也进入等待队列，而不是挂在连接future上，否则连接完成时的回调可能晚于后提交的请求，打乱发送顺序
+            if (this.channel == null || !this.channel.isOpen() || (connect != null && connect != this.connectFuture)) {
+                request.future.completeExceptionally(new SocketRuntimeException(String.format("The connection of %s server [%s] is closed", this.tag, this.socketAddress)));
+                return request.future;
+            }
+            this.waiting.add(request);
+            if (this.ready) {
+                this.dispatchWaiting();
+            }
+        }
+        return request.future;
+    }
+
+    /**
+     * Close the connection, all the requests not finished fail.
+     * (关闭连接，所有未完成的请求失败)
+     */
+    public void close() {
+        AsynchronousSocketChannel current;
+        synchronized (this.locker) {
+            current = this.channel;
+        }
+        if (current != null) {
+            this.closeChannel(current, new SocketRuntimeException(String.format("The connection of %s server [%s] is closed", this.tag, this.socketAddress)));
+        }
+    }
+
+    //endregion
+
+    //region 可重写方法
+
+    /**
+     * Do after connected, such as handshake, use doSendAsync to send the handshake frames.
+     * (连接成功之后要做的动作，如握手，使用doSendAsync发送握手报文)
+     *
+     * @return future of handshake
+     */
+    protected CompletableFuture<Void> doAfterConnectedAsync() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Get the length of the frame at the beginning of buffer.
+     * (获取缓存开头帧的长度)
+     *
+     * @param buffer read only buffer, position is the beginning of frame
+     * @return frame length, -1 means more data is needed
+     */
+    protected int getFrameLength(ByteBuffer buffer) {
+        return buffer.remaining();
+    }
+
+    /**
+     * Get the data of the oldest request in flight which is matched in order, it is used by the protocols whose
+     * response length depends on the request.
+     * (获取最早的按顺序匹配的在途请求数据，用于响应长度取决于请求的协议)
+     *
+     * @return request data, null if there is no request in flight
+     */
+    protected byte[] peekOrderedRequest() {
+        synchronized (this.locker) {
+            AsyncRequest request = this.orderedInFlight.peek();
+            return request == null ? null : request.data;
+        }
+    }
+
+    /**
+     * Get the key of response frame for matching the request.
+     * (获取响应帧的标识，用于匹配请求)
+     *
+     * @param frame response frame
+     * @return frame key, less than 0 means matching in order
+     */
+    protected int getFrameKey(byte[] frame) {
+        return -1;
+    }
+
+    //endregion
+
+    //region 请求处理
+
+    /**
+     * Send data without waiting for the connection and the queue, only used by handshake.
+     * (不等待连接完成和排队直接发送数据，只用于握手)
+     *
+     * @param data request frame
+     * @param key  frame key of the response, less than 0 means matching in order
+     * @return response frame future
+     */
+    protected CompletableFuture<byte[]> doSendAsync(byte[] data, int key) {
+        AsyncRequest request = new AsyncRequest(data, key);
+        synchronized (this.locker) {
+            if (this.channel == null || !this.channel.isOpen()) {
+                request.future.completeExceptionally(new SocketRuntimeException(String.format("The connection of %s server [%s] is closed", this.tag, this.socketAddress)));
+                return request.future;
+            }
+            this.dispatchRequest(request);
+        }
+        return request.future;
+    }
+
+    /**
+     * Number of requests in flight, the locker must be held by caller.
+     * (在途请求数量，调用方需持有锁)
+     *
+     * @return count
+     */
+    private int inFlightCount() {
+        return this.keyedInFlight.size() + this.orderedInFlight.size();
+    }
+
+    /**
+     * Register the request as in flight and write it, the locker must be held by caller.
+     * (将请求登记为在途并写入，调用方需持有锁)
+     *
+     * @param request request
+     */
+    private void dispatchRequest(AsyncRequest request) {
+        if (request.key >= 0) {
+            if (this.keyedInFlight.containsKey(request.key)) {
+                request.future.completeExceptionally(new SocketRuntimeException(String.format("The frame key [%d] is already in flight", request.key)));
+                return;
+            }
+            this.keyedInFlight.put(request.key, request);
+        } else {
+            this.orderedInFlight.add(request);
+        }
+        AsynchronousSocketChannel current = this.channel;
+        request.timeout = getScheduler().schedule(() -> this.onTimeout(current, request), this.receiveTimeout, TimeUnit.MILLISECONDS);
+        BiConsumer<String, byte[]> callback = this.getComCallback();
+        if (callback != null) {
+            callback.accept(GeneralConst.PACKAGE_REQ, request.data);
+        }
+        this.writeQueue.add(ByteBuffer.wrap(request.data));
+        if (!this.writing) {
+            this.writing = true;
+            this.beginWrite(current, this.writeQueue.peek());
+        }
+    }
+
+    /**
+     * Send the waiting requests if there are free slots, the locker must be held by caller.
+     * (若有空闲位置则发送等待中的请求，调用方需持有锁)
+     */
+    private void dispatchWaiting() {
+        while (this.ready && !this.waiting.isEmpty() && this.inFlightCount() < Math.max(1, this.maxInFlight)) {
+            this.dispatchRequest(this.waiting.poll());
+        }
+    }
+
+    /**
+     * Request timeout, requests without key cannot be matched any more, so the connection is closed.
+     * (请求超时，无标识的请求后续无法匹配，因此关闭连接)
+     *
+     * @param current channel of the request
+     * @param request request
+     */
+    private void onTimeout(AsynchronousSocketChannel current, AsyncRequest request) {
+        SocketTimeoutException exception = new SocketTimeoutException(String.format("Receive data from %s server [%s] timeout", this.tag, this.socketAddress));
+        if (request.key < 0) {
+            this.closeChannel(current, exception);
+            return;
+        }
+        synchronized (this.locker) {
+            if (this.keyedInFlight.get(request.key) != request) {
+                return;
+            }
+            this.keyedInFlight.remove(request.key);
+            this.dispatchWaiting();
+        }
+        request.future.completeExceptionally(exception);
+    }
+
+    /**
+     * Handle one complete response frame.
+     * (处理一帧完整的响应数据)
+     *
+     * @param frame response frame
+     */
+    private void onFrame(byte[] frame) {
+        BiConsumer<String, byte[]> callback = this.getComCallback();
+        if (callback != null) {
+            callback.accept(GeneralConst.PACKAGE_ACK, frame);
+        }
+        int key;
+        try {
+            key = this.getFrameKey(frame);
+        } catch (Exception e) {
+            log.warn("Failed to get the key of frame from {} server [{}]", this.tag, this.socketAddress, e);
+            return;
+        }
+        AsyncRequest request;
+        synchronized (this.locker) {
+            request = key >= 0 ? this.keyedInFlight.remove(key) : this.orderedInFlight.poll();
+            if (request != null) {
+                this.dispatchWaiting();
+            }
+        }
+        if (request == null) {
+            // 无法匹配的响应，直接丢弃
+            log.warn("Discard the response from {} server [{}] which can not be matched, key[{}]", this.tag, this.socketAddress, key);
+            return;
+        }
+        request.timeout.cancel(false);
+        request.future.complete(frame);
+    }
+
+    /**
+     * Close the channel and fail all the requests, do nothing if the channel is not the current one.
+     * (关闭通道并使所有请求失败，若不是当前通道则不处理)
+     *
+     * @param current channel
+     * @param cause   cause
+     */
+    private void closeChannel(AsynchronousSocketChannel current, Throwable cause) {
+        List<AsyncRequest> requests = new ArrayList<>();
+        CompletableFuture<Void> future;
+        synchronized (this.locker) {
+            if (this.channel != current) {
+                return;
+            }
+            requests.addAll(this.keyedInFlight.values());
+            requests.addAll(this.orderedInFlight);
+            requests.addAll(this.waiting);
+            this.keyedInFlight.clear();
+            this.orderedInFlight.clear();
+            this.waiting.clear();
+            this.writeQueue.clear();
+            this.writing = false;
+            future = this.connectFuture;
+            this.channel = null;
+            this.connectFuture = null;
+            this.ready = false;
+        }
+        try {
+            current.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the channel of {} server [{}]", this.tag, this.socketAddress, e);
+        }
+        if (future != null) {
+            future.completeExceptionally(cause);
+        }
+        for (AsyncRequest request : requests) {
+            if (request.timeout != null) {
+                request.timeout.cancel(false);
+            }
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    //endregion
+
+    //region 通道读写
+
+    /**
+     * Write the buffer, the next one in queue is written after completed.
+     * (写入缓存，完成后写入队列中的下一个)
+     *
+     * @param current channel
+     * @param buffer  buffer
+     */
+    private void beginWrite(AsynchronousSocketChannel current, ByteBuffer buffer) {
+        current.write(buffer, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer result, Void attachment) {
+                ByteBuffer next;
+                synchronized (locker) {
+                    if (channel != current) {
+                        return;
+                    }
+                    if (buffer.hasRemaining()) {
+                        next = buffer;
+                    } else {
+                        writeQueue.poll();
+                        next = writeQueue.peek();
+                        writing = next != null;
+                    }
+                }
+                if (next != null) {
+                    beginWrite(current, next);
+                }
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                closeChannel(current, new SocketRuntimeException(exc));
+            }
+        });
+    }
+
+    /**
+     * Read data continuously and split frames.
+     * (持续读取数据并拆分帧)
+     *
+     * @param current channel
+     */
+    private void beginRead(AsynchronousSocketChannel current) {
+        current.read(this.readBuffer, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer result, Void attachment) {
+                if (result < 0) {
+                    closeChannel(current, new SocketRuntimeException(String.format("The connection is closed by %s server [%s]", tag, socketAddress)));
+                    return;
+                }
+                try {
+                    extractFrames();
+                } catch (Exception e) {
+                    closeChannel(current, e);
+                    return;
+                }
+                if (current.isOpen()) {
+                    beginRead(current);
+                }
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                closeChannel(current, new SocketRuntimeException(exc));
+            }
+        });
+    }
+
+    /**
+     * Extract complete frames from read buffer, the buffer is in write mode before and after.
+     * (从读缓存中提取完整的帧，前后缓存都处于写模式)
+     */
+    private void extractFrames() {
+        this.readBuffer.flip();
+        while (this.readBuffer.hasRemaining()) {
+            int length = this.getFrameLength(this.readBuffer.slice().asReadOnlyBuffer());
+            if (length < 0) {
+                break;
+            }
+            if (length == 0 || length > this.maxFrameLength) {
+                throw new SocketRuntimeException(String.format("Invalid frame length [%d] from %s server [%s]", length, this.tag, this.socketAddress));
+            }
+            if (this.readBuffer.remaining() < length) {
+                if (length > this.readBuffer.capacity()) {
+                    ByteBuffer newBuffer = ByteBuffer.allocate(length);
+                    newBuffer.put(this.readBuffer);
+                    newBuffer.flip();
+                    this.readBuffer = newBuffer;
+                }
+                break;
+            }
+            byte[] frame = new byte[length];
+            this.readBuffer.get(frame);
+            this.onFrame(frame);
+        }
+        this.readBuffer.compact();
+    }
+
+    //endregion
+
+    /**
+     * Asynchronous request.
+     * (异步请求)
+     */
+    private static class AsyncRequest {
+
+        private final byte[] data;
+
+        private final int key;
+
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        private ScheduledFuture<?> timeout;
+
+        private AsyncRequest(byte[] data, int key) {
+            this.data = data;
+            this.key = key;
+        }
+    }
+}
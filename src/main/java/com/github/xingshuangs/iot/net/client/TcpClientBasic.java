@@ -148,7 +148,7 @@ public class TcpClientBasic implements ICommunicable {
      * @throws SocketRuntimeException Socket Runtime Exception
      */
     public void connect() {
-        this.close();
+        this.closeSocket();
         this.getAvailableSocket();
     }
 
@@ -170,7 +170,7 @@ public class TcpClientBasic implements ICommunicable {
             return this.socket;
         }
         // 未连接，表示已断开，需要手动关闭socket，创建新的socket
-        this.close();
+        this.closeSocket();
 
         try {
             // 重新创建对象，并连接
@@ -194,6 +194,17 @@ public class TcpClientBasic implements ICommunicable {
      * @throws SocketRuntimeException Socket Runtime Exception
      */
     public void close() {
+        this.closeSocket();
+    }
+
+    /**
+     * Close the blocking socket only, it is used by reconnection and the short connection mode after each
+     * communication, the other transports of subclass such as the asynchronous client are not affected.
+     * (只关闭阻塞式socket，用于重连和短连接模式下每次通信后的关闭，不影响子类的其他通道，例如异步客户端)
+     *
+     * @throws SocketRuntimeException Socket Runtime Exception
+     */
+    protected void closeSocket() {
         try {
             SocketUtils.close(this.socket);
         } catch (IOException e) {
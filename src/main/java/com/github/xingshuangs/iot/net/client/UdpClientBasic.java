@@ -30,6 +30,9 @@ import com.github.xingshuangs.iot.net.ICommunicable;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.function.Consumer;
 
 import static com.github.xingshuangs.iot.common.constant.GeneralConst.LOCALHOST;
 
@@ -47,11 +50,71 @@ public class UdpClientBasic implements ICommunicable {
     protected InetSocketAddress serverAddress;
 
     /**
-     * UDP socket object.
-     * (socket对象)
+     * Max size of one datagram.
+     * (单个数据报的最大长度)
+     */
+    public static final int MAX_DATAGRAM_SIZE = 65536;
+
+    /**
+     * Default max datagram count of one batch receive.
+     * (单次批量接收的默认最大数据报数量)
+     */
+    public static final int DEFAULT_BATCH_COUNT = 64;
+
+    /**
+     * Byte size of the pooled direct buffer for batch receive.
+     * (批量接收复用的直接缓存字节大小)
+     */
+    private static final int BATCH_BUFFER_SIZE = 4 * MAX_DATAGRAM_SIZE;
+
+    /**
+     * UDP socket object, it is the socket of datagram channel.
+     * (socket对象，由数据报通道提供)
      */
     protected DatagramSocket socket;
 
+    /**
+     * Datagram channel.
+     * (数据报通道)
+     */
+    protected DatagramChannel channel;
+
+    /**
+     * Receive buffer size of socket, SO_RCVBUF, 0 means system default.
+     * (socket的接收缓冲区大小，SO_RCVBUF，0表示系统默认)
+     */
+    private int receiveBufferSize = 0;
+
+    /**
+     * Current timeout of socket, -1 means not set.
+     * (socket当前的超时时间，-1表示还没有设置)
+     */
+    private int soTimeout = -1;
+
+    /**
+     * Max datagram count of one batch receive.
+     * (单次批量接收的最大数据报数量)
+     */
+    private int batchCount = DEFAULT_BATCH_COUNT;
+
+    /**
+     * Pooled direct buffer of batch receive, the datagrams are received one after another, reused by every batch.
+     * (批量接收复用的直接缓存，数据报依次存放，每个批次复用)
+     */
+    private ByteBuffer batchBuffer;
+
+    /**
+     * View of batch buffer handed to the handler, position and limit are set to one datagram.
+     * (交给处理器的批量缓存视图，position和limit对应一个数据报)
+     */
+    private ByteBuffer batchView;
+
+    /**
+     * End position of each datagram in the batch buffer.
+     * (每个数据报在批量缓存中的结束位置)
+     */
+    private int[] batchLimits;
+
     /**
      * Get local port number
      * (获取本地端口号)
@@ -77,10 +140,60 @@ public class UdpClientBasic implements ICommunicable {
         this.serverAddress = new InetSocketAddress(ip, port);
     }
 
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /**
+     * Set the receive buffer size of socket, SO_RCVBUF, a burst of datagrams such as an I-frame overflows a small
+     * buffer, the actual size may be limited by the system.
+     * (设置socket的接收缓冲区大小，SO_RCVBUF，突发的数据报（例如I帧）会导致小缓冲区溢出，实际大小可能受系统限制)
+     *
+     * @param receiveBufferSize receive buffer size, unit byte
+     */
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        if (receiveBufferSize <= 0) {
+            throw new IllegalArgumentException("receiveBufferSize <= 0");
+        }
+        this.receiveBufferSize = receiveBufferSize;
+        if (this.channel != null) {
+            try {
+                this.channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+            } catch (IOException e) {
+                throw new SocketRuntimeException(e);
+            }
+        }
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Set the max datagram count of one batch receive.
+     * (设置单次批量接收的最大数据报数量)
+     *
+     * @param batchCount max datagram count
+     */
+    public void setBatchCount(int batchCount) {
+        if (batchCount <= 0) {
+            throw new IllegalArgumentException("batchCount <= 0");
+        }
+        this.batchCount = batchCount;
+        this.batchLimits = null;
+    }
+
     public void close() {
         if (this.socket != null && !this.socket.isClosed()) {
             this.socket.close();
         }
+        if (this.channel != null && this.channel.isOpen()) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                // NOOP
+            }
+        }
     }
 
     /**
@@ -107,8 +220,14 @@ public class UdpClientBasic implements ICommunicable {
             return this.socket;
         }
         try {
-            // 重新创建对象，并连接
-            this.socket = new DatagramSocket();
+            // 重新创建对象，由数据报通道创建，这样既可以使用socket，也可以使用通道批量接收
+            this.channel = DatagramChannel.open();
+            // 在bind之前设置接收缓冲区大小
+            if (this.receiveBufferSize > 0) {
+                this.channel.setOption(StandardSocketOptions.SO_RCVBUF, this.receiveBufferSize);
+            }
+            this.channel.bind(null);
+            this.socket = this.channel.socket();
             // connect之后通信地址必须是这个地址
 //            this.socket.connect(this.serverAddress);
             return socket;
@@ -166,8 +285,9 @@ public class UdpClientBasic implements ICommunicable {
      */
     public void write(DatagramPacket packet) {
         try {
-            DatagramSocket availableSocket = this.getAvailableSocket();
-            availableSocket.send(packet);
+            this.getAvailableSocket();
+            // 通过通道发送，批量接收切换为非阻塞模式时也可以发送
+            this.channel.send(ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength()), packet.getSocketAddress());
         } catch (IOException e) {
             throw new SocketRuntimeException(e);
         }
@@ -316,11 +436,68 @@ public class UdpClientBasic implements ICommunicable {
     public DatagramPacket read(DatagramPacket packet, final int timeout) {
         try {
             DatagramSocket availableSocket = this.getAvailableSocket();
-            availableSocket.setSoTimeout(timeout);
+            // 超时时间改变的时候才设置，避免每次接收都有一次系统调用
+            if (this.soTimeout != timeout) {
+                availableSocket.setSoTimeout(timeout);
+                this.soTimeout = timeout;
+            }
             availableSocket.receive(packet);
             return packet;
         } catch (IOException e) {
             throw new SocketRuntimeException(e);
         }
     }
+
+    /**
+     * Receive several datagrams per wakeup into the pooled direct buffer, it blocks until the first datagram arrives,
+     * then drains the datagrams already arrived without blocking. The buffer handed to the handler is positioned at
+     * one datagram and only valid during the call, it is not thread safe.
+     * (每次唤醒接收多个数据报到复用的直接缓存中，阻塞直到第一个数据报到达，之后非阻塞地读取已经到达的数据报。
+     * 交给处理器的缓存position指向一个数据报，只在调用期间有效，非线程安全)
+     *
+     * @param handler datagram handler
+     * @return datagram count of this batch
+     * @throws SocketRuntimeException Socket Runtime Exception
+     */
+    public int receiveBatch(Consumer<ByteBuffer> handler) {
+        this.getAvailableSocket();
+        if (this.batchBuffer == null) {
+            this.batchBuffer = ByteBuffer.allocateDirect(BATCH_BUFFER_SIZE);
+            this.batchView = this.batchBuffer.duplicate();
+        }
+        if (this.batchLimits == null) {
+            this.batchLimits = new int[this.batchCount];
+        }
+        ByteBuffer buffer = this.batchBuffer;
+        buffer.clear();
+        int count = 0;
+        try {
+            // 阻塞等待第一个数据报
+            this.channel.receive(buffer);
+            this.batchLimits[count++] = buffer.position();
+            // 非阻塞地读取已经到达的数据报，直到没有数据、数量达到上限或者剩余空间可能放不下一个数据报
+            this.channel.configureBlocking(false);
+            try {
+                while (count < this.batchLimits.length && buffer.remaining() >= MAX_DATAGRAM_SIZE) {
+                    if (this.channel.receive(buffer) == null) {
+                        break;
+                    }
+                    this.batchLimits[count++] = buffer.position();
+                }
+            } finally {
+                this.channel.configureBlocking(true);
+            }
+        } catch (IOException e) {
+            throw new SocketRuntimeException(e);
+        }
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            this.batchView.clear();
+            this.batchView.limit(this.batchLimits[i]);
+            this.batchView.position(start);
+            handler.accept(this.batchView);
+            start = this.batchLimits[i];
+        }
+        return count;
+    }
 }
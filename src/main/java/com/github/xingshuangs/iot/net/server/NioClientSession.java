@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.net.server;
+
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Client session of the NIO TCP server, holding the frame accumulator and the pending queues of one connection.
+ * (NIO TCP服务端的客户端会话，保存单个连接的帧累加缓存和待处理队列)
+ *
+ * @author xingshuang
+ */
+@Getter
+public class NioClientSession {
+
+    /**
+     * Client socket channel.
+     * (客户端通道)
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Remote address of client.
+     * (客户端远程地址)
+     */
+    private final SocketAddress remoteAddress;
+
+    /**
+     * Selection key.
+     * (选择键)
+     */
+    private SelectionKey key;
+
+    /**
+     * Frame accumulator, read by the selector thread only.
+     * (帧累加缓存，仅由selector线程使用)
+     */
+    private ByteBuffer readBuffer;
+
+    /**
+     * Complete frames waiting for handling.
+     * (等待处理的完整帧)
+     */
+    private final Queue<byte[]> frames = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Data waiting for sending.
+     * (等待发送的数据)
+     */
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Flag, is a worker handling the frames of this session, keep frames of one connection in order.
+     * (是否有工作线程正在处理该会话的帧，保证同一连接的帧按顺序处理)
+     */
+    private final AtomicBoolean processing = new AtomicBoolean(false);
+
+    /**
+     * Flag, is closed.
+     * (是否已关闭)
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Flag, is handshake finished, for the protocol which need handshake.
+     * (握手是否完成，针对需要握手的协议)
+     */
+    @Setter
+    private volatile boolean handshake = false;
+
+    public NioClientSession(SocketChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.remoteAddress = channel.socket().getRemoteSocketAddress();
+        this.readBuffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Is the session open.
+     * (会话是否打开)
+     *
+     * @return true: open, false: closed
+     */
+    public boolean isOpen() {
+        return !this.closed.get() && this.channel.isOpen();
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Enlarge the frame accumulator and keep the content.
+     * (扩大帧累加缓存，保留已有内容)
+     *
+     * @param newSize new size
+     */
+    void growReadBuffer(int newSize) {
+        ByteBuffer newBuffer = ByteBuffer.allocate(newSize);
+        this.readBuffer.flip();
+        newBuffer.put(this.readBuffer);
+        this.readBuffer = newBuffer;
+    }
+}
@@ -0,0 +1,509 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.net.server;
+
+
+import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TCP server basic class based on NIO selector.
+ * One selector thread accepts connections, reads data into per-connection frame accumulators and sends responses,
+ * complete frames are handled by a small worker pool, frames of one connection are handled in order.
+ * (基于NIO Selector的TCP服务端基础类，单个selector线程负责连接、读取数据和发送数据，
+ * 完整的帧交给工作线程池处理，同一连接的帧按顺序处理)
+ *
+ * @author xingshuang
+ */
+@Data
+@Slf4j
+public class TcpNioServerBasic {
+
+    /**
+     * Server socket channel.
+     * (服务端通道)
+     */
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * Selector.
+     * (选择器)
+     */
+    private Selector selector;
+
+    /**
+     * Port Number.
+     * (端口号)
+     */
+    protected int port = 8088;
+
+    /**
+     * Number of worker threads for handling frames.
+     * (处理帧的工作线程数量)
+     */
+    protected int workerThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Initial size of the frame accumulator of each connection.
+     * (每个连接帧累加缓存的初始大小)
+     */
+    protected int readBufferSize = 4096;
+
+    /**
+     * Max length of one frame, the connection will be closed if exceeded.
+     * (单帧最大长度，超过则关闭连接)
+     */
+    protected int maxFrameLength = 1024 * 1024;
+
+    /**
+     * Worker thread pool.
+     * (工作线程池)
+     */
+    protected ExecutorService executorService;
+
+    /**
+     * All connected sessions.
+     * (所有连接的会话)
+     */
+    private final Set<NioClientSession> sessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Sessions which have data waiting for sending.
+     * (有待发送数据的会话)
+     */
+    private final Queue<NioClientSession> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    public TcpNioServerBasic() {
+        // NOOP
+    }
+
+    //region 服务端
+
+    /**
+     * start the server
+     * (启动)
+     *
+     * @throws SocketRuntimeException Socket Runtime Exception
+     */
+    public void start() {
+        this.start(this.port);
+    }
+
+    /**
+     * start the server
+     * (启动)
+     *
+     * @param port port number
+     * @throws SocketRuntimeException Socket Runtime Exception
+     */
+    public void start(int port) {
+        try {
+            this.port = port;
+            this.stop();
+            this.executorService = Executors.newFixedThreadPool(Math.max(1, this.workerThreads));
+            this.selector = Selector.open();
+            this.serverChannel = ServerSocketChannel.open();
+            this.serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            this.serverChannel.bind(new InetSocketAddress(port));
+            this.serverChannel.configureBlocking(false);
+            this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+            Thread thread = new Thread(this::eventLoop);
+            thread.setDaemon(true);
+            thread.start();
+        } catch (IOException e) {
+            throw new SocketRuntimeException(e);
+        }
+    }
+
+    /**
+     * Stop the server.
+     * (停止)
+     *
+     * @throws SocketRuntimeException Socket Runtime Exception
+     */
+    public void stop() {
+        try {
+            if (this.isAlive()) {
+                this.serverChannel.close();
+                this.sessions.forEach(this::closeSession);
+                this.selector.close();
+                this.executorService.shutdown();
+                // 关闭服务端，端口号[{}]
+                log.debug("Close the server, port number [{}]", this.port);
+            }
+        } catch (IOException e) {
+            throw new SocketRuntimeException(e);
+        }
+    }
+
+    /**
+     * Is the server alive.
+     * (是否活跃着)
+     *
+     * @return ture：alive，false：dead
+     */
+    public boolean isAlive() {
+        return this.serverChannel != null && this.serverChannel.isOpen();
+    }
+
+    /**
+     * Get the number of connected clients.
+     * (获取当前连接的客户端数量)
+     *
+     * @return client number
+     */
+    public int getClientCount() {
+        return this.sessions.size();
+    }
+
+    /**
+     * Selector event loop.
+     * (selector事件循环)
+     */
+    private void eventLoop() {
+        // 开启selector线程，等待客户端，端口号[{}]
+        log.debug("Open selector thread and waiting for clients, port number [{}]", this.port);
+        while (this.isAlive()) {
+            try {
+                this.selector.select();
+                this.flushPendingWrites();
+                Iterator<SelectionKey> iterator = this.selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    this.handleKey(key);
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                if (this.isAlive()) {
+                    log.error(e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Handle selection key.
+     * (处理选择键)
+     *
+     * @param key selection key
+     */
+    private void handleKey(SelectionKey key) {
+        try {
+            if (key.isValid() && key.isAcceptable()) {
+                this.doAccept();
+                return;
+            }
+            NioClientSession session = (NioClientSession) key.attachment();
+            if (key.isValid() && key.isReadable()) {
+                this.doRead(session);
+            }
+            if (key.isValid() && key.isWritable()) {
+                this.doWrite(session);
+            }
+        } catch (CancelledKeyException e) {
+            // NOOP
+        }
+    }
+
+    /**
+     * Accept new client.
+     * (接收新的客户端)
+     */
+    private void doAccept() {
+        SocketChannel client = null;
+        try {
+            client = this.serverChannel.accept();
+            if (client == null) {
+                return;
+            }
+            if (!this.checkClientValid(client)) {
+                client.close();
+                return;
+            }
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            NioClientSession session = new NioClientSession(client, this.readBufferSize);
+            session.setKey(client.register(this.selector, SelectionKey.OP_READ, session));
+            this.sessions.add(session);
+            // 有客户端[{}]连入
+            log.debug("The client [{}] is connected", session.getRemoteAddress());
+            this.clientConnected(session);
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            try {
+                if (client != null) {
+                    client.close();
+                }
+            } catch (IOException ex) {
+                // NOOP
+            }
+        }
+    }
+
+    /**
+     * Read data into the frame accumulator and split complete frames.
+     * (读取数据到帧累加缓存中，并拆分出完整的帧)
+     *
+     * @param session client session
+     */
+    private void doRead(NioClientSession session) {
+        ByteBuffer buffer = session.getReadBuffer();
+        int num;
+        try {
+            num = session.getChannel().read(buffer);
+        } catch (IOException e) {
+            this.closeSession(session);
+            return;
+        }
+        if (num < 0) {
+            // 客户端主动断开
+            this.closeSession(session);
+            return;
+        }
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            int length = this.getFrameLength(buffer.slice());
+            if (length == 0 || length > this.maxFrameLength) {
+                // 客户端[{}]帧长度[{}]无效
+                log.error("The client [{}] frame length [{}] is invalid", session.getRemoteAddress(), length);
+                this.closeSession(session);
+                return;
+            }
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] frame = new byte[length];
+            buffer.get(frame);
+            session.getFrames().add(frame);
+        }
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            if (buffer.capacity() >= this.maxFrameLength) {
+                this.closeSession(session);
+                return;
+            }
+            session.growReadBuffer(Math.min(buffer.capacity() * 2, this.maxFrameLength));
+        }
+        this.dispatch(session);
+    }
+
+    /**
+     * Dispatch the frames of session to the worker pool, only one worker handles one session at the same time.
+     * (将会话的帧分发给工作线程，同一时刻只有一个工作线程处理同一个会话)
+     *
+     * @param session client session
+     */
+    private void dispatch(NioClientSession session) {
+        if (session.getFrames().isEmpty() || !session.getProcessing().compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.executorService.execute(() -> this.processFrames(session));
+        } catch (Exception e) {
+            session.getProcessing().set(false);
+            this.closeSession(session);
+        }
+    }
+
+    /**
+     * Handle the frames of session in order.
+     * (按顺序处理会话的帧)
+     *
+     * @param session client session
+     */
+    private void processFrames(NioClientSession session) {
+        try {
+            byte[] frame;
+            while (session.isOpen() && (frame = session.getFrames().poll()) != null) {
+                this.doClientHandle(session, frame);
+            }
+        } catch (Exception e) {
+            if (session.isOpen()) {
+                log.error(e.getMessage());
+            }
+            this.closeSession(session);
+        } finally {
+            session.getProcessing().set(false);
+        }
+        // 处理期间可能有新的帧到达
+        if (session.isOpen()) {
+            this.dispatch(session);
+        }
+    }
+
+    /**
+     * Send the data waiting in queue, executed in selector thread.
+     * (发送队列中等待的数据，在selector线程中执行)
+     */
+    private void flushPendingWrites() {
+        NioClientSession session;
+        while ((session = this.pendingWrites.poll()) != null) {
+            if (session.isOpen()) {
+                this.doWrite(session);
+            }
+        }
+    }
+
+    /**
+     * Write data of session, register write interest if not finished.
+     * (写入会话数据，若未写完则注册写事件)
+     *
+     * @param session client session
+     */
+    private void doWrite(NioClientSession session) {
+        try {
+            Queue<ByteBuffer> queue = session.getWriteQueue();
+            ByteBuffer buffer;
+            while ((buffer = queue.peek()) != null) {
+                session.getChannel().write(buffer);
+                if (buffer.hasRemaining()) {
+                    break;
+                }
+                queue.poll();
+            }
+            session.getKey().interestOps(queue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException | CancelledKeyException e) {
+            this.closeSession(session);
+        }
+    }
+
+    /**
+     * Close session.
+     * (关闭会话)
+     *
+     * @param session client session
+     */
+    protected void closeSession(NioClientSession session) {
+        if (!session.getClosed().compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (session.getKey() != null) {
+                session.getKey().cancel();
+            }
+            session.getChannel().close();
+        } catch (IOException e) {
+            // NOOP
+        }
+        this.sessions.remove(session);
+        this.clientDisconnected(session);
+        // 有客户端[{}]断开
+        log.debug("The client [{}] is disconnected", session.getRemoteAddress());
+    }
+
+    //endregion
+
+    //region 客户端
+
+    /**
+     * Valid if the client can come in.
+     * (校验客户端是否允许连入)
+     *
+     * @param client client socket channel
+     * @return true: valid success，false：valid fail
+     */
+    protected boolean checkClientValid(SocketChannel client) {
+        return true;
+    }
+
+    /**
+     * client connected, can override
+     * (客户端连入)
+     *
+     * @param session client session
+     */
+    protected void clientConnected(NioClientSession session) {
+        // NOOP
+    }
+
+    /**
+     * Client disconnected, can override.
+     * (客户端断开)
+     *
+     * @param session client session
+     */
+    protected void clientDisconnected(NioClientSession session) {
+        // NOOP
+    }
+
+    /**
+     * Get the total length of the frame at the beginning of buffer, can override.
+     * The buffer is a view starts at the frame, return -1 if the header is not complete yet.
+     * (获取缓存开头的帧的总长度，可重写，缓存从帧开始位置起，若帧头还不完整则返回-1，默认将收到的数据全部作为一帧)
+     *
+     * @param buffer data buffer
+     * @return total frame length, -1: need more data
+     */
+    protected int getFrameLength(ByteBuffer buffer) {
+        return buffer.remaining();
+    }
+
+    /**
+     * Do client message handler with one complete frame, can override.
+     * (处理客户端的一帧完整数据，可重写)
+     *
+     * @param session client session
+     * @param data    frame data
+     */
+    protected void doClientHandle(NioClientSession session, byte[] data) {
+        log.debug(new String(data));
+    }
+
+    /**
+     * Write data by byte array, the data is sent by the selector thread.
+     * （写入数据，由selector线程发送）
+     *
+     * @param session client session
+     * @param data    byte array
+     */
+    protected void write(final NioClientSession session, final byte[] data) {
+        if (!session.isOpen()) {
+            throw new SocketRuntimeException("The client is disconnected.");
+        }
+        session.getWriteQueue().add(ByteBuffer.wrap(data));
+        this.pendingWrites.add(session);
+        this.selector.wakeup();
+    }
+
+    //endregion
+}
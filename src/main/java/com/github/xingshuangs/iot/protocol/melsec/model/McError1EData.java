@@ -78,8 +78,12 @@ public class McError1EData extends McData {
      * @return McErrorInformationData
      */
     public static McError1EData fromBytes(final byte[] data, final int offset) {
-        ByteReadBuff buff = new ByteReadBuff(data, offset, true);
         McError1EData res = new McError1EData();
+        // 只有结束代码为0x5B时才有异常代码
+        if (offset >= data.length) {
+            return res;
+        }
+        ByteReadBuff buff = new ByteReadBuff(data, offset, true);
         res.error = buff.getByteToInt();
         return res;
     }
@@ -29,6 +29,7 @@ import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
 import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.common.constant.GeneralConst;
 import com.github.xingshuangs.iot.exceptions.McCommException;
+import com.github.xingshuangs.iot.net.client.TcpAsyncClientBasic;
 import com.github.xingshuangs.iot.net.client.TcpClientBasic;
 import com.github.xingshuangs.iot.common.algorithm.LoopGroupAlg;
 import com.github.xingshuangs.iot.common.algorithm.LoopGroupItem;
@@ -37,12 +38,16 @@ import com.github.xingshuangs.iot.protocol.melsec.enums.EMcDeviceCode;
 import com.github.xingshuangs.iot.protocol.melsec.enums.EMcFrameType;
 import com.github.xingshuangs.iot.protocol.melsec.enums.EMcSeries;
 import com.github.xingshuangs.iot.protocol.melsec.model.*;
+import com.github.xingshuangs.iot.utils.FutureUtil;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
@@ -98,6 +103,38 @@ public class McNetwork extends TcpClientBasic {
      */
     protected EMcSeries series = EMcSeries.QnA;
 
+    /**
+     * Asynchronous client, created when the asynchronous methods are used for the first time, it keeps a long connection.
+     * (异步客户端，首次使用异步方法时创建，保持长连接)
+     */
+    private TcpAsyncClientBasic asyncClient;
+
+    /**
+     * Serial number allocator of 4E frame.
+     * (4E帧的序列号分配器)
+     */
+    private final AtomicInteger serialIndex = new AtomicInteger();
+
+    /**
+     * Default max number of requests in flight in multiplexed mode.
+     * (多路复用模式下默认同时在途的最大请求数量)
+     */
+    public static final int DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT = 8;
+
+    /**
+     * Multiplexed mode, only works in 4E frame, requests of all threads share the asynchronous connection and are matched
+     * by serial number, the groups of a large request are sent in parallel, short connection is not supported in this mode.
+     * (多路复用模式，只在4E帧下生效，所有线程的请求共享异步连接并根据序列号匹配，大请求拆分的各分组并行发送，该模式不支持短连接)
+     */
+    private boolean multiplexed = false;
+
+    /**
+     * Max number of requests in flight on the asynchronous connection of 4E frame, the other frames are always 1,
+     * 0 means not set, then it is DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT in multiplexed mode, otherwise 1.
+     * (4E帧异步连接上同时在途的最大请求数量，其他帧始终为1，0表示未设置，此时多路复用模式下为DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT，否则为1)
+     */
+    private int maxInFlight = 0;
+
     public McNetwork() {
         super();
     }
@@ -114,11 +151,65 @@ public class McNetwork extends TcpClientBasic {
             super.connect();
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
 
+    /**
+     * Set the multiplexed mode, the max number of requests in flight is DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT if not set.
+     * (设置多路复用模式，未设置同时在途的最大请求数量时为DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT)
+     *
+     * @param multiplexed multiplexed or not
+     */
+    public synchronized void setMultiplexed(boolean multiplexed) {
+        this.multiplexed = multiplexed;
+        if (this.asyncClient != null) {
+            this.asyncClient.setMaxInFlight(this.getAsyncMaxInFlight());
+        }
+    }
+
+    /**
+     * Get the max number of requests in flight actually used by 4E frame.
+     * (获取4E帧实际使用的同时在途的最大请求数量)
+     *
+     * @return max number of requests in flight
+     */
+    public int getMaxInFlight() {
+        if (this.maxInFlight > 0) {
+            return this.maxInFlight;
+        }
+        return this.multiplexed ? DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT : 1;
+    }
+
+    public synchronized void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight < 1");
+        }
+        this.maxInFlight = maxInFlight;
+        if (this.asyncClient != null) {
+            this.asyncClient.setMaxInFlight(this.getAsyncMaxInFlight());
+        }
+    }
+
+    /**
+     * Get the max number of requests in flight of asynchronous client, only 4E frame can be matched out of order.
+     * (获取异步客户端同时在途的最大请求数量，只有4E帧可以乱序匹配)
+     *
+     * @return max number of requests in flight
+     */
+    private int getAsyncMaxInFlight() {
+        return this.frameType == EMcFrameType.FRAME_4E ? this.getMaxInFlight() : 1;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (this.asyncClient != null) {
+            this.asyncClient.close();
+        }
+    }
+
     /**
      * Read data from server, core interaction.
      * (从服务器读取数据)
@@ -127,6 +218,9 @@ public class McNetwork extends TcpClientBasic {
      * @return McMessageAck
      */
     protected McMessageAck readFromServer(McMessageReq req) {
+        if (this.isPipelined()) {
+            return FutureUtil.join(this.readFromServerAsync(req));
+        }
         byte[] reqBytes = req.toByteArray();
         if (this.comCallback != null) {
             this.comCallback.accept(GeneralConst.PACKAGE_REQ, reqBytes);
@@ -145,6 +239,30 @@ public class McNetwork extends TcpClientBasic {
         return ack;
     }
 
+    /**
+     * Create request header, the serial number of 4E frame is auto-incrementing.
+     * (创建请求头，4E帧的序列号自动递增)
+     *
+     * @return request header
+     */
+    protected McHeaderReq createHeader() {
+        McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+        if (header instanceof McHeader4EReq) {
+            ((McHeader4EReq) header).setSerialNumber(this.serialIndex.getAndIncrement() & 0xFFFF);
+        }
+        return header;
+    }
+
+    /**
+     * Whether requests are pipelined on the asynchronous connection, only 4E frame has serial number for matching.
+     * (请求是否在异步连接上管道化发送，只有4E帧有用于匹配的序列号)
+     *
+     * @return true: pipelined, false: not pipelined
+     */
+    private boolean isPipelined() {
+        return this.multiplexed && this.frameType == EMcFrameType.FRAME_4E;
+    }
+
     /**
      * Read data from server of 1E.
      * (1E帧的通信交互)
@@ -231,6 +349,11 @@ public class McNetwork extends TcpClientBasic {
             throw new McCommException("1E frame type, the response sub header is inconsistent with the request sub header, error = 0x80" +
                     ", the request sub header：" + req.getHeader().getSubHeader() + ", the response sub header：" + ack.getHeader().getEndCode());
         }
+        if (this.frameType == EMcFrameType.FRAME_4E
+                && ((McHeader4EAck) ack.getHeader()).getSerialNumber() != ((McHeader4EReq) req.getHeader()).getSerialNumber()) {
+            // 4E帧类型，响应序列号和请求序列号不一致
+            throw new McCommException("4E frame type, the response serial number is inconsistent with the request serial number");
+        }
         if (ack.getHeader().getEndCode() != 0) {
             String errorContent = this.extractError(ack.getHeader().getEndCode());
             // 响应返回异常，异常码
@@ -311,7 +434,7 @@ public class McNetwork extends TcpClientBasic {
     public byte[] readDeviceBatchRaw(EMcCommand command, int subCommand, EMcDeviceCode deviceCode,
                                      int headDeviceNumber, int devicePointsCount) {
         try {
-            McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+            McHeaderReq header = this.createHeader();
             McDeviceAddress deviceAddress = new McDeviceAddress(deviceCode, headDeviceNumber, devicePointsCount);
             McReadDeviceBatchReqData data = new McReadDeviceBatchReqData();
             data.setSeries(this.series);
@@ -325,7 +448,7 @@ public class McNetwork extends TcpClientBasic {
             return ackData.getData();
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -344,7 +467,7 @@ public class McNetwork extends TcpClientBasic {
     public void writeDeviceBatchRaw(EMcCommand command, int subCommand, EMcDeviceCode deviceCode,
                                     int headDeviceNumber, int devicePointsCount, byte[] dataBytes) {
         try {
-            McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+            McHeaderReq header = this.createHeader();
             McDeviceContent deviceContent = new McDeviceContent(deviceCode, headDeviceNumber, devicePointsCount, dataBytes);
             McWriteDeviceBatchReqData data = new McWriteDeviceBatchReqData();
             data.setSeries(this.series);
@@ -356,7 +479,7 @@ public class McNetwork extends TcpClientBasic {
             this.readFromServer(req);
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -374,20 +497,11 @@ public class McNetwork extends TcpClientBasic {
      * @return device content
      */
     public McDeviceContent readDeviceBatchInWord(McDeviceAddress deviceAddress) {
-        if (deviceAddress == null) {
-            throw new NullPointerException("deviceAddress");
-        }
-        if (deviceAddress.getDevicePointsCount() < 1) {
-            throw new McCommException("1 < device point count");
-        }
-        if (deviceAddress.getDeviceCode() == EMcDeviceCode.LTS
-                || deviceAddress.getDeviceCode() == EMcDeviceCode.LTC
-                || deviceAddress.getDeviceCode() == EMcDeviceCode.LSTS
-                || deviceAddress.getDeviceCode() == EMcDeviceCode.LSTC
-                || deviceAddress.getDeviceCode() == EMcDeviceCode.LZ
-        ) {
-            throw new McCommException("restricted access LTS、LTC、LSTS、LSTC、LZ");
+        if (this.isPipelined()) {
+            return FutureUtil.join(this.readDeviceBatchInWordAsync(deviceAddress));
         }
+        this.checkReadDeviceBatchInWord(deviceAddress);
+
         try {
             int actualLength = deviceAddress.getDevicePointsCount();
             int maxLength = this.series.getDeviceBatchInWordPointsCount();
@@ -397,7 +511,7 @@ public class McNetwork extends TcpClientBasic {
             LoopGroupAlg.loopExecute(actualLength, maxLength, (off, len) -> {
                 McDeviceAddress newAddress = new McDeviceAddress(deviceAddress.getDeviceCode(),
                         deviceAddress.getHeadDeviceNumber() + off, len);
-                McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+                McHeaderReq header = this.createHeader();
                 McMessageReq req = McReqBuilder.createReadDeviceBatchInWordReq(this.series, header, newAddress);
                 McMessageAck ack = this.readFromServer(req);
                 buff.putBytes(((McAckData) ack.getData()).getData());
@@ -405,7 +519,7 @@ public class McNetwork extends TcpClientBasic {
             return McDeviceContent.createByAddress(deviceAddress, buff.getData());
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -422,22 +536,11 @@ public class McNetwork extends TcpClientBasic {
      * @param deviceContent device content
      */
     public void writeDeviceBatchInWord(McDeviceContent deviceContent) {
-        if (deviceContent == null) {
-            throw new NullPointerException("deviceContent");
-        }
-        if (deviceContent.getDevicePointsCount() < 1) {
-            throw new McCommException("1 < device point count");
-        }
-        if (deviceContent.getDeviceCode() == EMcDeviceCode.LTS
-                || deviceContent.getDeviceCode() == EMcDeviceCode.LTC
-                || deviceContent.getDeviceCode() == EMcDeviceCode.LTN
-                || deviceContent.getDeviceCode() == EMcDeviceCode.LSTS
-                || deviceContent.getDeviceCode() == EMcDeviceCode.LSTC
-                || deviceContent.getDeviceCode() == EMcDeviceCode.LSTN
-                || deviceContent.getDeviceCode() == EMcDeviceCode.LZ
-        ) {
-            throw new McCommException("restricted access LTS、LTC、LTN、LSTS、LSTC、LSTN、LZ");
+        if (this.isPipelined()) {
+            FutureUtil.join(this.writeDeviceBatchInWordAsync(deviceContent));
+            return;
         }
+        this.checkWriteDeviceBatchInWord(deviceContent);
 
         try {
             int actualLength = deviceContent.getDevicePointsCount();
@@ -449,13 +552,13 @@ public class McNetwork extends TcpClientBasic {
                 McDeviceContent newContent = new McDeviceContent(deviceContent.getDeviceCode(),
                         deviceContent.getHeadDeviceNumber() + off, len,
                         buff.getBytes(off * 2, len * 2));
-                McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+                McHeaderReq header = this.createHeader();
                 McMessageReq req = McReqBuilder.createWriteDeviceBatchInWordReq(this.series, header, newContent);
                 this.readFromServer(req);
             });
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -473,24 +576,10 @@ public class McNetwork extends TcpClientBasic {
      * @return device content
      */
     public McDeviceContent readDeviceBatchInBit(McDeviceAddress deviceAddress) {
-        if (deviceAddress == null) {
-            throw new NullPointerException("deviceAddress");
-        }
-        if (deviceAddress.getDevicePointsCount() < 1) {
-            throw new McCommException("1 < device point count");
-        }
-        if (!EMcDeviceCode.checkBitType(deviceAddress.getDeviceCode())) {
-            // 只能是位软元件
-            throw new McCommException("It can only be bit device code");
-        }
-        if (deviceAddress.getDeviceCode() == EMcDeviceCode.LTS
-                || deviceAddress.getDeviceCode() == EMcDeviceCode.LTC
-                || deviceAddress.getDeviceCode() == EMcDeviceCode.LSTS
-                || deviceAddress.getDeviceCode() == EMcDeviceCode.LSTC
-                || deviceAddress.getDeviceCode() == EMcDeviceCode.LZ
-        ) {
-            throw new McCommException("restricted access LTS、LTC、LSTS、LSTC、LZ");
+        if (this.isPipelined()) {
+            return FutureUtil.join(this.readDeviceBatchInBitAsync(deviceAddress));
         }
+        this.checkReadDeviceBatchInBit(deviceAddress);
 
         try {
             int maxLength = this.series.getDeviceBatchInBitPointsCount();
@@ -503,7 +592,7 @@ public class McNetwork extends TcpClientBasic {
             LoopGroupAlg.loopExecute(deviceAddress.getDevicePointsCount(), maxLength, (off, len) -> {
                 McDeviceAddress newAddress = new McDeviceAddress(deviceAddress.getDeviceCode(),
                         deviceAddress.getHeadDeviceNumber() + off, len);
-                McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+                McHeaderReq header = this.createHeader();
                 McMessageReq req = McReqBuilder.createReadDeviceBatchInBitReq(this.series, header, newAddress);
                 McMessageAck ack = this.readFromServer(req);
                 buff.putBytes(((McAckData) ack.getData()).getData());
@@ -511,7 +600,7 @@ public class McNetwork extends TcpClientBasic {
             return McDeviceContent.createByAddress(deviceAddress, buff.getData());
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -529,6 +618,120 @@ public class McNetwork extends TcpClientBasic {
      * @param deviceContent device content
      */
     public void writeDeviceBatchInBit(McDeviceContent deviceContent) {
+        if (this.isPipelined()) {
+            FutureUtil.join(this.writeDeviceBatchInBitAsync(deviceContent));
+            return;
+        }
+        this.checkWriteDeviceBatchInBit(deviceContent);
+
+        try {
+            int actualLength = deviceContent.getDevicePointsCount();
+            int maxLength = this.series.getDeviceBatchInBitPointsCount();
+//            int maxLength = 7168;
+            ByteReadBuff buff = new ByteReadBuff(deviceContent.getData());
+
+            LoopGroupAlg.loopExecute(actualLength, maxLength, (off, len) -> {
+                int length = len % 2 == 0 ? (len / 2) : ((len + 1) / 2);
+                McDeviceContent newContent = new McDeviceContent(deviceContent.getDeviceCode(),
+                        deviceContent.getHeadDeviceNumber() + off, len,
+                        buff.getBytes(off / 2, length));
+                McHeaderReq header = this.createHeader();
+                McMessageReq req = McReqBuilder.createWriteDeviceBatchInBitReq(this.series, header, newContent);
+                this.readFromServer(req);
+            });
+        } finally {
+            if (!this.persistence) {
+                this.closeSocket();
+            }
+        }
+    }
+
+    //endregion
+
+    //region 软元件批量读取和写入前置校验
+
+    /**
+     * Check the condition of device batch read in word.
+     * (软元件按字批量读取前置校验)
+     *
+     * @param deviceAddress device address
+     */
+    private void checkReadDeviceBatchInWord(McDeviceAddress deviceAddress) {
+        if (deviceAddress == null) {
+            throw new NullPointerException("deviceAddress");
+        }
+        if (deviceAddress.getDevicePointsCount() < 1) {
+            throw new McCommException("1 < device point count");
+        }
+        if (deviceAddress.getDeviceCode() == EMcDeviceCode.LTS
+                || deviceAddress.getDeviceCode() == EMcDeviceCode.LTC
+                || deviceAddress.getDeviceCode() == EMcDeviceCode.LSTS
+                || deviceAddress.getDeviceCode() == EMcDeviceCode.LSTC
+                || deviceAddress.getDeviceCode() == EMcDeviceCode.LZ
+        ) {
+            throw new McCommException("restricted access LTS、LTC、LSTS、LSTC、LZ");
+        }
+    }
+
+    /**
+     * Check the condition of device batch write in word.
+     * (软元件按字批量写入前置校验)
+     *
+     * @param deviceContent device content
+     */
+    private void checkWriteDeviceBatchInWord(McDeviceContent deviceContent) {
+        if (deviceContent == null) {
+            throw new NullPointerException("deviceContent");
+        }
+        if (deviceContent.getDevicePointsCount() < 1) {
+            throw new McCommException("1 < device point count");
+        }
+        if (deviceContent.getDeviceCode() == EMcDeviceCode.LTS
+                || deviceContent.getDeviceCode() == EMcDeviceCode.LTC
+                || deviceContent.getDeviceCode() == EMcDeviceCode.LTN
+                || deviceContent.getDeviceCode() == EMcDeviceCode.LSTS
+                || deviceContent.getDeviceCode() == EMcDeviceCode.LSTC
+                || deviceContent.getDeviceCode() == EMcDeviceCode.LSTN
+                || deviceContent.getDeviceCode() == EMcDeviceCode.LZ
+        ) {
+            throw new McCommException("restricted access LTS、LTC、LTN、LSTS、LSTC、LSTN、LZ");
+        }
+    }
+
+    /**
+     * Check the condition of device batch read in bit.
+     * (软元件按位批量读取前置校验)
+     *
+     * @param deviceAddress device address
+     */
+    private void checkReadDeviceBatchInBit(McDeviceAddress deviceAddress) {
+        if (deviceAddress == null) {
+            throw new NullPointerException("deviceAddress");
+        }
+        if (deviceAddress.getDevicePointsCount() < 1) {
+            throw new McCommException("1 < device point count");
+        }
+        if (!EMcDeviceCode.checkBitType(deviceAddress.getDeviceCode())) {
+            // 只能是位软元件
+            throw new McCommException("It can only be bit device code");
+        }
+        if (deviceAddress.getDeviceCode() == EMcDeviceCode.LTS
+                || deviceAddress.getDeviceCode() == EMcDeviceCode.LTC
+                || deviceAddress.getDeviceCode() == EMcDeviceCode.LSTS
+                || deviceAddress.getDeviceCode() == EMcDeviceCode.LSTC
+                || deviceAddress.getDeviceCode() == EMcDeviceCode.LZ
+        ) {
+            throw new McCommException("restricted access LTS、LTC、LSTS、LSTC、LZ");
+        }
+    }
+
+    /**
+     * Check the condition of device batch write in bit.
+     * (软元件按位批量写入前置校验)
+     *
+     * @param deviceContent device content
+     */
+    private void checkWriteDeviceBatchInBit(McDeviceContent deviceContent) {
         if (deviceContent == null) {
             throw new NullPointerException("deviceContent");
         }
@@ -551,26 +754,226 @@ public class McNetwork extends TcpClientBasic {
         ) {
             throw new McCommException("restricted access LTS、LTC、LTN、LSTS、LSTC、LSTN、LCN、LZ");
         }
+    }
 
-        try {
-            int actualLength = deviceContent.getDevicePointsCount();
-            int maxLength = this.series.getDeviceBatchInBitPointsCount();
-//            int maxLength = 7168;
-            ByteReadBuff buff = new ByteReadBuff(deviceContent.getData());
+    //endregion
 
-            LoopGroupAlg.loopExecute(actualLength, maxLength, (off, len) -> {
-                int length = len % 2 == 0 ? (len / 2) : ((len + 1) / 2);
-                McDeviceContent newContent = new McDeviceContent(deviceContent.getDeviceCode(),
-                        deviceContent.getHeadDeviceNumber() + off, len,
-                        buff.getBytes(off / 2, length));
-                McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
-                McMessageReq req = McReqBuilder.createWriteDeviceBatchInBitReq(this.series, header, newContent);
-                this.readFromServer(req);
-            });
-        } finally {
-            if (!this.persistence) {
-                this.close();
+    //region 软元件批量异步读取和写入
+
+    /**
+     * Get the asynchronous client, create it if not exist.
+     * (获取异步客户端，不存在则创建)
+     *
+     * @return asynchronous client
+     */
+    public synchronized TcpAsyncClientBasic getAsyncClient() {
+        if (this.asyncClient == null) {
+            this.asyncClient = new McAsyncClient();
+            this.asyncClient.setConnectTimeout(this.connectTimeout);
+            this.asyncClient.setReceiveTimeout(this.receiveTimeout);
+            this.asyncClient.setMaxInFlight(this.getAsyncMaxInFlight());
+        }
+        return this.asyncClient;
+    }
+
+    /**
+     * Read data from server asynchronously, 4E responses are matched by serial number, the others in order.
+     * (异步从服务器读取数据，4E响应根据序列号匹配，其他按顺序匹配)
+     *
+     * @param req McMessageReq
+     * @return McMessageAck future
+     */
+    protected CompletableFuture<McMessageAck> readFromServerAsync(McMessageReq req) {
+        int key = this.frameType == EMcFrameType.FRAME_4E ? ((McHeader4EReq) req.getHeader()).getSerialNumber() : -1;
+        return this.getAsyncClient().sendAsync(req.toByteArray(), key).thenApply(total -> {
+            McMessageAck ack = McMessageAck.fromBytes(total, this.frameType);
+            this.checkResult(req, ack);
+            return ack;
+        });
+    }
+
+    /**
+     * Device access, batch read in word units asynchronously, the groups are sent together.
+     * (软元件按字异步批量读取，各分组一起发送)
+     *
+     * @param deviceAddress device address
+     * @return device content future
+     */
+    public CompletableFuture<McDeviceContent> readDeviceBatchInWordAsync(McDeviceAddress deviceAddress) {
+        this.checkReadDeviceBatchInWord(deviceAddress);
+
+        int maxLength = this.series.getDeviceBatchInWordPointsCount();
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        LoopGroupAlg.loopExecute(deviceAddress.getDevicePointsCount(), maxLength, (off, len) -> {
+            McDeviceAddress newAddress = new McDeviceAddress(deviceAddress.getDeviceCode(),
+                    deviceAddress.getHeadDeviceNumber() + off, len);
+            McHeaderReq header = this.createHeader();
+            McMessageReq req = McReqBuilder.createReadDeviceBatchInWordReq(this.series, header, newAddress);
+            futures.add(this.readFromServerAsync(req).thenApply(ack -> ((McAckData) ack.getData()).getData()));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> {
+            ByteWriteBuff buff = new ByteWriteBuff(deviceAddress.getDevicePointsCount() * 2);
+            x.forEach(buff::putBytes);
+            return McDeviceContent.createByAddress(deviceAddress, buff.getData());
+        });
+    }
+
+    /**
+     * Device access, batch write in word units asynchronously, the groups are sent together.
+     * (软元件按字异步批量写入，各分组一起发送)
+     *
+     * @param deviceContent device content
+     * @return future
+     */
+    public CompletableFuture<Void> writeDeviceBatchInWordAsync(McDeviceContent deviceContent) {
+        this.checkWriteDeviceBatchInWord(deviceContent);
+
+        int maxLength = this.series.getDeviceBatchInWordPointsCount();
+        ByteReadBuff buff = new ByteReadBuff(deviceContent.getData());
+        List<CompletableFuture<McMessageAck>> futures = new ArrayList<>();
+        LoopGroupAlg.loopExecute(deviceContent.getDevicePointsCount(), maxLength, (off, len) -> {
+            McDeviceContent newContent = new McDeviceContent(deviceContent.getDeviceCode(),
+                    deviceContent.getHeadDeviceNumber() + off, len,
+                    buff.getBytes(off * 2, len * 2));
+            McHeaderReq header = this.createHeader();
+            McMessageReq req = McReqBuilder.createWriteDeviceBatchInWordReq(this.series, header, newContent);
+            futures.add(this.readFromServerAsync(req));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> null);
+    }
+
+    /**
+     * Device access, batch read in bit units asynchronously, the groups are sent together.
+     * (软元件按位异步批量读取，各分组一起发送)
+     *
+     * @param deviceAddress device address
+     * @return device content future
+     */
+    public CompletableFuture<McDeviceContent> readDeviceBatchInBitAsync(McDeviceAddress deviceAddress) {
+        this.checkReadDeviceBatchInBit(deviceAddress);
+
+        int maxLength = this.series.getDeviceBatchInBitPointsCount();
+        int length = deviceAddress.getDevicePointsCount() % 2 == 0 ?
+                (deviceAddress.getDevicePointsCount() / 2) :
+                ((deviceAddress.getDevicePointsCount() + 1) / 2);
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        LoopGroupAlg.loopExecute(deviceAddress.getDevicePointsCount(), maxLength, (off, len) -> {
+            McDeviceAddress newAddress = new McDeviceAddress(deviceAddress.getDeviceCode(),
+                    deviceAddress.getHeadDeviceNumber() + off, len);
+            McHeaderReq header = this.createHeader();
+            McMessageReq req = McReqBuilder.createReadDeviceBatchInBitReq(this.series, header, newAddress);
+            futures.add(this.readFromServerAsync(req).thenApply(ack -> ((McAckData) ack.getData()).getData()));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> {
+            ByteWriteBuff buff = new ByteWriteBuff(length);
+            x.forEach(buff::putBytes);
+            return McDeviceContent.createByAddress(deviceAddress, buff.getData());
+        });
+    }
+
+    /**
+     * Device access, batch write in bit units asynchronously, the groups are sent together.
+     * (软元件按位异步批量写入，各分组一起发送)
+     *
+     * @param deviceContent device content
+     * @return future
+     */
+    public CompletableFuture<Void> writeDeviceBatchInBitAsync(McDeviceContent deviceContent) {
+        this.checkWriteDeviceBatchInBit(deviceContent);
+
+        int maxLength = this.series.getDeviceBatchInBitPointsCount();
+        ByteReadBuff buff = new ByteReadBuff(deviceContent.getData());
+        List<CompletableFuture<McMessageAck>> futures = new ArrayList<>();
+        LoopGroupAlg.loopExecute(deviceContent.getDevicePointsCount(), maxLength, (off, len) -> {
+            int length = len % 2 == 0 ? (len / 2) : ((len + 1) / 2);
+            McDeviceContent newContent = new McDeviceContent(deviceContent.getDeviceCode(),
+                    deviceContent.getHeadDeviceNumber() + off, len,
+                    buff.getBytes(off / 2, length));
+            McHeaderReq header = this.createHeader();
+            McMessageReq req = McReqBuilder.createWriteDeviceBatchInBitReq(this.series, header, newContent);
+            futures.add(this.readFromServerAsync(req));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> null);
+    }
+
+    /**
+     * Asynchronous client of melsec, 4E and 3E frames are split by the data length of header, 1E frames are split by
+     * the end code and the command of request in flight, 4E responses are matched by serial number, the others in order.
+     * The communication callback follows the current one of the owner.
+     * (三菱异步客户端，4E和3E帧根据头中的数据长度拆分帧，1E帧根据结束代码和在途请求的指令拆分帧，4E响应根据序列号匹配，
+     * 其他按顺序匹配，通信回调跟随所属对象当前的回调)
+     */
+    private class McAsyncClient extends TcpAsyncClientBasic {
+
+        private McAsyncClient() {
+            super(McNetwork.this.socketAddress.getHostString(), McNetwork.this.socketAddress.getPort());
+            this.tag = McNetwork.this.tag;
+        }
+
+        @Override
+        public BiConsumer<String, byte[]> getComCallback() {
+            return McNetwork.this.comCallback;
+        }
+
+        @Override
+        protected int getFrameLength(ByteBuffer buffer) {
+            if (McNetwork.this.frameType == EMcFrameType.FRAME_1E) {
+                return this.getFrameLength1E(buffer);
+            }
+            // 数据长度之前的头长度，4E：13，3E：9，数据长度包含结束代码
+            int headerLength = McNetwork.this.frameType == EMcFrameType.FRAME_4E ? 13 : 9;
+            if (buffer.remaining() < headerLength) {
+                return -1;
+            }
+            int dataLength = (buffer.get(headerLength - 2) & 0xFF) | ((buffer.get(headerLength - 1) & 0xFF) << 8);
+            return headerLength + dataLength;
+        }
+
+        /**
+         * Get the frame length of 1E, it has no data length field, the length depends on the request in flight.
+         * (获取1E帧的长度，没有数据长度字段，长度取决于在途的请求)
+         *
+         * @param buffer read only buffer
+         * @return frame length, -1 means more data is needed
+         */
+        private int getFrameLength1E(ByteBuffer buffer) {
+            // 副帧头 + 结束代码
+            if (buffer.remaining() < 2) {
+                return -1;
+            }
+            int endCode = buffer.get(1) & 0xFF;
+            if (endCode == 0x5B) {
+                // 异常代码
+                return 3;
+            } else if (endCode != 0) {
+                return 2;
+            }
+            byte[] req = this.peekOrderedRequest();
+            if (req == null) {
+                throw new McCommException("1E frame type, there is no request in flight for the response");
+            }
+            if (req.length < 12) {
+                return 2;
+            }
+            // 点数位于副帧头(1) + PC号(1) + 监视定时器(2) + 起始软元件(4) + 软元件代码(2)之后，0表示256点
+            int points = req[10] & 0xFF;
+            points = points == 0 ? 256 : points;
+            int command = req[0] & 0xFF;
+            if (command == EMcCommand.DEVICE_ACCESS_BATCH_READ_IN_BIT.getCode()) {
+                return 2 + (points + 1) / 2;
+            } else if (command == EMcCommand.DEVICE_ACCESS_BATCH_READ_IN_WORD.getCode()) {
+                return 2 + points * 2;
+            }
+            return 2;
+        }
+
+        @Override
+        protected int getFrameKey(byte[] frame) {
+            // 4E帧的序列号位于副帧头之后，小端
+            if (McNetwork.this.frameType != EMcFrameType.FRAME_4E || frame.length < 4) {
+                return -1;
             }
+            return (frame[2] & 0xFF) | ((frame[3] & 0xFF) << 8);
         }
     }
 
@@ -618,7 +1021,7 @@ public class McNetwork extends TcpClientBasic {
             LoopGroupAlg.biLoopExecute(wordItem, dwordItem, biPredicate, (i1, i2) -> {
                 List<McDeviceAddress> newWords = wordAddresses.subList(i1.getOff(), i1.getOff() + i1.getLen());
                 List<McDeviceAddress> newDWords = dwordAddresses.subList(i2.getOff(), i2.getOff() + i2.getLen());
-                McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+                McHeaderReq header = this.createHeader();
                 McMessageReq req = McReqBuilder.createReadDeviceRandomInWordReq(this.series, header, newWords, newDWords);
                 McMessageAck ack = this.readFromServer(req);
 
@@ -633,7 +1036,7 @@ public class McNetwork extends TcpClientBasic {
             return result;
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -685,13 +1088,13 @@ public class McNetwork extends TcpClientBasic {
             LoopGroupAlg.biLoopExecute(wordItem, dwordItem, biPredicate, (i1, i2) -> {
                 List<McDeviceContent> newWord = wordContents.subList(i1.getOff(), i1.getOff() + i1.getLen());
                 List<McDeviceContent> newDWord = dwordContents.subList(i2.getOff(), i2.getOff() + i2.getLen());
-                McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+                McHeaderReq header = this.createHeader();
                 McMessageReq req = McReqBuilder.createWriteDeviceRandomInWordReq(this.series, header, newWord, newDWord);
                 this.readFromServer(req);
             });
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -717,13 +1120,13 @@ public class McNetwork extends TcpClientBasic {
             int maxLength = this.series.getDeviceRandomWriteInBitPointsCount();
 //            int maxLength = this.series == EMcSeries.Q_L ? 188 : 94;
             LoopGroupAlg.loopExecute(bitAddresses.size(), maxLength, (off, len) -> {
-                McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+                McHeaderReq header = this.createHeader();
                 McMessageReq req = McReqBuilder.createWriteDeviceRandomInBitReq(this.series, header, bitAddresses.subList(off, off + len));
                 this.readFromServer(req);
             });
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -765,7 +1168,7 @@ public class McNetwork extends TcpClientBasic {
             LoopGroupAlg.biLoopExecute(wordItem, bitItem, biPredicate, (i1, i2) -> {
                 List<McDeviceAddress> newWords = wordAddresses.subList(i1.getOff(), i1.getOff() + i1.getLen());
                 List<McDeviceAddress> newBits = bitAddresses.subList(i2.getOff(), i2.getOff() + i2.getLen());
-                McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+                McHeaderReq header = this.createHeader();
                 McMessageReq req = McReqBuilder.createReadDeviceBatchMultiBlocksReq(this.series, header, newWords, newBits);
                 McMessageAck ack = this.readFromServer(req);
 
@@ -780,7 +1183,7 @@ public class McNetwork extends TcpClientBasic {
             return result;
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -875,13 +1278,13 @@ public class McNetwork extends TcpClientBasic {
             LoopGroupAlg.biLoopExecute(wordItem, bitItem, biPredicate, (i1, i2) -> {
                 List<McDeviceContent> newWords = wordContents.subList(i1.getOff(), i1.getOff() + i1.getLen());
                 List<McDeviceContent> newBits = bitContents.subList(i2.getOff(), i2.getOff() + i2.getLen());
-                McHeaderReq header = McHeaderReq.createByFrameType(this.frameType, this.accessRoute, this.monitoringTimer);
+                McHeaderReq header = this.createHeader();
                 McMessageReq req = McReqBuilder.createWriteDeviceBatchMultiBlocksReq(this.series, header, newWords, newBits);
                 this.readFromServer(req);
             });
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -39,6 +39,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static com.github.xingshuangs.iot.common.constant.GeneralConst.LOCALHOST;
@@ -792,4 +793,263 @@ public class McPLC extends McNetwork {
     }
 
     //endregion
+
+    //region 软元件异步读写
+
+    /**
+     * Read boolean asynchronously.
+     * (异步读取booleans数据)
+     *
+     * @param address address
+     * @param count   boolean count
+     * @return boolean list future
+     */
+    public CompletableFuture<List<Boolean>> readBooleanAsync(String address, int count) {
+        // 三菱1个字节对应两个boolean
+        McDeviceAddress deviceAddress = McDeviceAddress.createBy(address, count);
+        return this.readDeviceBatchInBitAsync(deviceAddress)
+                .thenApply(x -> this.getBooleansBy(x.getData()).subList(0, count));
+    }
+
+    /**
+     * Read boolean asynchronously.
+     * (异步读取1个boolean数据)
+     *
+     * @param address address string
+     * @return boolean data future
+     */
+    public CompletableFuture<Boolean> readBooleanAsync(String address) {
+        return this.readBooleanAsync(address, 1).thenApply(x -> x.get(0));
+    }
+
+    /**
+     * Read bytes asynchronously.
+     * (异步读取字节数组数据)
+     *
+     * @param address address string
+     * @param count   byte count
+     * @return byte array future
+     */
+    public CompletableFuture<byte[]> readBytesAsync(String address, int count) {
+        // 三菱1个字占2个字节
+        int newCount = count % 2 == 0 ? (count / 2) : ((count + 1) / 2);
+        McDeviceAddress deviceAddress = McDeviceAddress.createBy(address, newCount);
+        return this.readDeviceBatchInWordAsync(deviceAddress)
+                .thenApply(x -> ByteReadBuff.newInstance(x.getData()).getBytes(count));
+    }
+
+    /**
+     * Read int16 asynchronously.
+     * (异步读取1个Int16数据)
+     *
+     * @param address address string
+     * @return Int16 data future
+     */
+    public CompletableFuture<Short> readInt16Async(String address) {
+        return this.readBytesAsync(address, 2).thenApply(x -> ByteReadBuff.newInstance(x, true).getInt16());
+    }
+
+    /**
+     * Read uint16 asynchronously.
+     * (异步读取1个UInt16数据)
+     *
+     * @param address address string
+     * @return UInt16 data future
+     */
+    public CompletableFuture<Integer> readUInt16Async(String address) {
+        return this.readBytesAsync(address, 2).thenApply(x -> ByteReadBuff.newInstance(x, true).getUInt16());
+    }
+
+    /**
+     * Read int32 asynchronously.
+     * (异步读取1个Int32数据)
+     *
+     * @param address address string
+     * @return Int32 data future
+     */
+    public CompletableFuture<Integer> readInt32Async(String address) {
+        return this.readBytesAsync(address, 4).thenApply(x -> ByteReadBuff.newInstance(x, EByteBuffFormat.AB_CD).getInt32());
+    }
+
+    /**
+     * Read uint32 asynchronously.
+     * (异步读取1个UInt32数据)
+     *
+     * @param address address string
+     * @return UInt32 data future
+     */
+    public CompletableFuture<Long> readUInt32Async(String address) {
+        return this.readBytesAsync(address, 4).thenApply(x -> ByteReadBuff.newInstance(x, EByteBuffFormat.AB_CD).getUInt32());
+    }
+
+    /**
+     * Read int64 asynchronously.
+     * (异步读取1个Int64数据)
+     *
+     * @param address address string
+     * @return Int64 data future
+     */
+    public CompletableFuture<Long> readInt64Async(String address) {
+        return this.readBytesAsync(address, 8).thenApply(x -> ByteReadBuff.newInstance(x, EByteBuffFormat.AB_CD).getInt64());
+    }
+
+    /**
+     * Read float32 asynchronously.
+     * (异步读取1个Float32数据)
+     *
+     * @param address address string
+     * @return Float32 data future
+     */
+    public CompletableFuture<Float> readFloat32Async(String address) {
+        return this.readBytesAsync(address, 4).thenApply(x -> ByteReadBuff.newInstance(x, EByteBuffFormat.AB_CD).getFloat32());
+    }
+
+    /**
+     * Read float64 asynchronously.
+     * (异步读取1个Float64数据)
+     *
+     * @param address address string
+     * @return Float64 data future
+     */
+    public CompletableFuture<Double> readFloat64Async(String address) {
+        return this.readBytesAsync(address, 8).thenApply(x -> ByteReadBuff.newInstance(x, EByteBuffFormat.AB_CD).getFloat64());
+    }
+
+    /**
+     * Write boolean list asynchronously.
+     * (异步写入boolean数据列表)
+     *
+     * @param address  address string
+     * @param booleans boolean list
+     * @return future
+     */
+    public CompletableFuture<Void> writeBooleanAsync(String address, List<Boolean> booleans) {
+        byte[] bytes = this.getBytesBy(booleans);
+        McDeviceContent deviceContent = McDeviceContent.createBy(address, booleans.size(), bytes);
+        return this.writeDeviceBatchInBitAsync(deviceContent);
+    }
+
+    /**
+     * Write boolean asynchronously.
+     * (异步写入1个boolean数据)
+     *
+     * @param address address string
+     * @param data    boolean data
+     * @return future
+     */
+    public CompletableFuture<Void> writeBooleanAsync(String address, boolean data) {
+        return this.writeBooleanAsync(address, Collections.singletonList(data));
+    }
+
+    /**
+     * Write bytes asynchronously.
+     * (异步写入字节数组)
+     *
+     * @param address address string
+     * @param data    byte array data
+     * @return future
+     */
+    public CompletableFuture<Void> writeBytesAsync(String address, byte[] data) {
+        // 三菱1个字占2个字节
+        byte[] newData = data;
+        if (data.length % 2 != 0) {
+            newData = ByteWriteBuff.newInstance(data.length + 1, true).putBytes(data).getData();
+        }
+        // 软元件按字批量写入，是字的个数，而不是字节个数
+        McDeviceContent deviceContent = McDeviceContent.createBy(address, newData.length / 2, newData);
+        return this.writeDeviceBatchInWordAsync(deviceContent);
+    }
+
+    /**
+     * Write int16 asynchronously.
+     * (异步写入1个Int16数据)
+     *
+     * @param address address string
+     * @param data    short data
+     * @return future
+     */
+    public CompletableFuture<Void> writeInt16Async(String address, short data) {
+        byte[] bytes = ByteWriteBuff.newInstance(2, true).putShort(data).getData();
+        return this.writeBytesAsync(address, bytes);
+    }
+
+    /**
+     * Write uint16 asynchronously.
+     * (异步写入1个UInt16数据)
+     *
+     * @param address address string
+     * @param data    int data
+     * @return future
+     */
+    public CompletableFuture<Void> writeUInt16Async(String address, int data) {
+        byte[] bytes = ByteWriteBuff.newInstance(2, true).putShort(data).getData();
+        return this.writeBytesAsync(address, bytes);
+    }
+
+    /**
+     * Write int32 asynchronously.
+     * (异步写入1个Int32数据)
+     *
+     * @param address address string
+     * @param data    int data
+     * @return future
+     */
+    public CompletableFuture<Void> writeInt32Async(String address, int data) {
+        byte[] bytes = ByteWriteBuff.newInstance(4, EByteBuffFormat.AB_CD).putInteger(data).getData();
+        return this.writeBytesAsync(address, bytes);
+    }
+
+    /**
+     * Write uint32 asynchronously.
+     * (异步写入1个UInt32数据)
+     *
+     * @param address address string
+     * @param data    long data
+     * @return future
+     */
+    public CompletableFuture<Void> writeUInt32Async(String address, long data) {
+        byte[] bytes = ByteWriteBuff.newInstance(4, EByteBuffFormat.AB_CD).putInteger(data).getData();
+        return this.writeBytesAsync(address, bytes);
+    }
+
+    /**
+     * Write int64 asynchronously.
+     * (异步写入1个Int64数据)
+     *
+     * @param address address string
+     * @param data    long data
+     * @return future
+     */
+    public CompletableFuture<Void> writeInt64Async(String address, long data) {
+        byte[] bytes = ByteWriteBuff.newInstance(8, EByteBuffFormat.AB_CD).putLong(data).getData();
+        return this.writeBytesAsync(address, bytes);
+    }
+
+    /**
+     * Write float32 asynchronously.
+     * (异步写入1个Float32数据)
+     *
+     * @param address address string
+     * @param data    float data
+     * @return future
+     */
+    public CompletableFuture<Void> writeFloat32Async(String address, float data) {
+        byte[] bytes = ByteWriteBuff.newInstance(4, EByteBuffFormat.AB_CD).putFloat(data).getData();
+        return this.writeBytesAsync(address, bytes);
+    }
+
+    /**
+     * Write float64 asynchronously.
+     * (异步写入1个Float64数据)
+     *
+     * @param address address string
+     * @param data    double data
+     * @return future
+     */
+    public CompletableFuture<Void> writeFloat64Async(String address, double data) {
+        byte[] bytes = ByteWriteBuff.newInstance(8, EByteBuffFormat.AB_CD).putDouble(data).getData();
+        return this.writeBytesAsync(address, bytes);
+    }
+
+    //endregion
 }
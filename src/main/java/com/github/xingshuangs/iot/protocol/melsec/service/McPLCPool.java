@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.melsec.service;
+
+
+import com.github.xingshuangs.iot.common.pool.ClientPool;
+import com.github.xingshuangs.iot.common.pool.ClientPoolConfig;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcSeries;
+
+import java.util.function.Supplier;
+
+/**
+ * Melsec PLC client pool, the probe reads one word of the probe address, it is D0 by default.
+ * (三菱PLC客户端连接池，探活读取探活地址的一个字，默认为D0)
+ *
+ * @author xingshuang
+ */
+public class McPLCPool extends ClientPool<McPLC> {
+
+    /**
+     * Default probe address.
+     * (默认探活地址)
+     */
+    public static final String DEFAULT_PROBE_ADDRESS = "D0";
+
+    public McPLCPool(EMcSeries series, String host, int port) {
+        this(series, host, port, new ClientPoolConfig());
+    }
+
+    public McPLCPool(EMcSeries series, String host, int port, ClientPoolConfig config) {
+        this(config, () -> new McPLC(series, host, port), DEFAULT_PROBE_ADDRESS);
+    }
+
+    public McPLCPool(ClientPoolConfig config, Supplier<McPLC> creator, String probeAddress) {
+        super(config, () -> {
+            McPLC plc = creator.get();
+            plc.setPersistence(true);
+            return plc;
+        }, plc -> plc.readInt16(probeAddress));
+    }
+}
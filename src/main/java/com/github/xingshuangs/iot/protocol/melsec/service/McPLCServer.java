@@ -0,0 +1,969 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.melsec.service;
+
+
+import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.exceptions.McCommException;
+import com.github.xingshuangs.iot.net.server.NioClientSession;
+import com.github.xingshuangs.iot.net.server.TcpNioServerBasic;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcCommand;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcDeviceCode;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcFrameType;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcSeries;
+import com.github.xingshuangs.iot.protocol.melsec.model.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Melsec MC protocol server, supports 1E, 3E and 4E frames in binary, the access route is ignored.
+ * Every device code has its own memory area, the bit device is stored by bit, the word device is stored by word.
+ * (三菱MC协议服务端，支持二进制的1E，3E和4E帧，忽略访问路径；每个软元件都有独立的存储区，位软元件按位存储，字软元件按字存储)
+ *
+ * @author xingshuang
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Slf4j
+public class McPLCServer extends TcpNioServerBasic {
+
+    /**
+     * Default points count of each device.
+     * (每个软元件默认的点数)
+     */
+    public static final int DEFAULT_SIZE = 8192;
+
+    /**
+     * Header length of 3E frame, including the monitoring timer.
+     * (3E帧头长度，包含监视定时器)
+     */
+    private static final int HEADER_3E_LENGTH = 11;
+
+    /**
+     * Header length of 4E frame, including the monitoring timer.
+     * (4E帧头长度，包含监视定时器)
+     */
+    private static final int HEADER_4E_LENGTH = 15;
+
+    /**
+     * Header length of 1E frame, including the monitoring timer.
+     * (1E帧头长度，包含监视定时器)
+     */
+    private static final int HEADER_1E_LENGTH = 4;
+
+    /**
+     * Device code of QnA and Q/L series.
+     * (QnA和Q/L系列的软元件代码)
+     */
+    private static final Map<Integer, EMcDeviceCode> DEVICE_CODES = new HashMap<>();
+
+    /**
+     * Device code of iQ-R series.
+     * (iQ-R系列的软元件代码)
+     */
+    private static final Map<Integer, EMcDeviceCode> DEVICE_CODES_IQR = new HashMap<>();
+
+    /**
+     * Device code of A series.
+     * (A系列的软元件代码)
+     */
+    private static final Map<Integer, EMcDeviceCode> DEVICE_CODES_1E = new HashMap<>();
+
+    static {
+        for (EMcDeviceCode item : EMcDeviceCode.values()) {
+            if (item.getBinaryCode() != 0) {
+                DEVICE_CODES.putIfAbsent(item.getBinaryCode() & 0xFF, item);
+            }
+            DEVICE_CODES_IQR.putIfAbsent(item.getBinaryCodeIqr(), item);
+            if (item.getBinaryCode1E() != 0) {
+                // M和L的1E代码相同，以M为准
+                DEVICE_CODES_1E.putIfAbsent(item.getBinaryCode1E(), item);
+            }
+        }
+    }
+
+    /**
+     * Read and write lock.
+     * (读写锁)
+     */
+    private ReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+    /**
+     * Device memory areas, the bit device is stored by bit, the word device is stored by word in little endian.
+     * (软元件存储区，位软元件按位存储，字软元件按小端字存储)
+     */
+    private Map<EMcDeviceCode, byte[]> deviceAreas = new EnumMap<>(EMcDeviceCode.class);
+
+    /**
+     * current connected client number.
+     * (客户端当前的连接数量)
+     */
+    private AtomicInteger connectedNumber = new AtomicInteger();
+
+    /**
+     * Max available number of client.
+     * (客户端连接的最大允许数量)
+     */
+    private Integer maxAvailableNumber;
+
+    public McPLCServer() {
+        this(6000, DEFAULT_SIZE);
+    }
+
+    public McPLCServer(int port) {
+        this(port, DEFAULT_SIZE);
+    }
+
+    public McPLCServer(int port, int size) {
+        this.port = port;
+        for (EMcDeviceCode item : EMcDeviceCode.values()) {
+            this.addDeviceArea(item, size);
+        }
+        this.maxAvailableNumber = 4096;
+    }
+
+    /**
+     * Add or replace the memory area of device, the old data is discarded.
+     * (添加或替换软元件的存储区，原有数据会被丢弃)
+     *
+     * @param deviceCode device code
+     * @param size       points count, bit count of bit device, word count of word device
+     */
+    public void addDeviceArea(EMcDeviceCode deviceCode, int size) {
+        if (deviceCode == null) {
+            throw new NullPointerException("deviceCode");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("size <= 0");
+        }
+        // 位软元件按16位对齐，保证按字访问不越界
+        int length = EMcDeviceCode.checkBitType(deviceCode) ? (size + 15) / 16 * 2 : size * 2;
+        try {
+            this.rwLock.writeLock().lock();
+            this.deviceAreas.put(deviceCode, new byte[length]);
+        } finally {
+            this.rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the memory area of device, the request of this device responds error.
+     * (移除软元件的存储区，访问该软元件的请求将返回错误)
+     *
+     * @param deviceCode device code
+     */
+    public void removeDeviceArea(EMcDeviceCode deviceCode) {
+        try {
+            this.rwLock.writeLock().lock();
+            this.deviceAreas.remove(deviceCode);
+        } finally {
+            this.rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Is the client valid.
+     * (校验客户端是否允许连入)
+     *
+     * @param client client socket channel.
+     * @return true: check success，false：check failed.
+     */
+    @Override
+    protected boolean checkClientValid(SocketChannel client) {
+        return this.connectedNumber.get() < this.maxAvailableNumber;
+    }
+
+    /**
+     * Client connected.
+     * (客户端连入)
+     *
+     * @param session client session.
+     */
+    @Override
+    protected void clientConnected(NioClientSession session) {
+        this.connectedNumber.getAndIncrement();
+    }
+
+    /**
+     * Client disconnected.
+     * (客户端断开)
+     *
+     * @param session client session.
+     */
+    @Override
+    protected void clientDisconnected(NioClientSession session) {
+        this.connectedNumber.getAndDecrement();
+    }
+
+    /**
+     * Get frame length, 3E and 4E frame by the data length field, 1E frame by the command and points count.
+     * (获取帧长度，3E和4E帧根据数据长度字段，1E帧根据指令和点数计算)
+     *
+     * @param buffer data buffer
+     * @return total frame length, -1: need more data, 0: invalid
+     */
+    @Override
+    protected int getFrameLength(ByteBuffer buffer) {
+        if (buffer.remaining() < 1) {
+            return -1;
+        }
+        int subHeader = buffer.get(0) & 0xFF;
+        if (subHeader == EMcFrameType.FRAME_3E.getReqSubHeader()) {
+            if (buffer.remaining() < HEADER_3E_LENGTH - 2) {
+                return -1;
+            }
+            return HEADER_3E_LENGTH - 2 + this.getUInt16(buffer, 7);
+        }
+        if (subHeader == EMcFrameType.FRAME_4E.getReqSubHeader()) {
+            if (buffer.remaining() < HEADER_4E_LENGTH - 2) {
+                return -1;
+            }
+            return HEADER_4E_LENGTH - 2 + this.getUInt16(buffer, 11);
+        }
+        if (subHeader > EMcCommand.DEVICE_ACCESS_RANDOM_WRITE_IN_WORD.getCode()) {
+            return 0;
+        }
+        // 1E帧没有长度字段，副帧头就是指令
+        if (subHeader == EMcCommand.DEVICE_ACCESS_RANDOM_WRITE_IN_BIT.getCode()
+                || subHeader == EMcCommand.DEVICE_ACCESS_RANDOM_WRITE_IN_WORD.getCode()) {
+            if (buffer.remaining() < HEADER_1E_LENGTH + 2) {
+                return -1;
+            }
+            // 地址6个字节 + 位数据1个字节或字数据2个字节
+            int itemLength = subHeader == EMcCommand.DEVICE_ACCESS_RANDOM_WRITE_IN_BIT.getCode() ? 7 : 8;
+            return HEADER_1E_LENGTH + 2 + this.getUInt16(buffer, HEADER_1E_LENGTH) * itemLength;
+        }
+        if (buffer.remaining() < HEADER_1E_LENGTH + 8) {
+            return -1;
+        }
+        int points = this.getPoints1E(this.getUInt16(buffer, HEADER_1E_LENGTH + 6));
+        if (subHeader == EMcCommand.DEVICE_ACCESS_BATCH_WRITE_IN_BIT.getCode()) {
+            return HEADER_1E_LENGTH + 8 + (points + 1) / 2;
+        } else if (subHeader == EMcCommand.DEVICE_ACCESS_BATCH_WRITE_IN_WORD.getCode()) {
+            return HEADER_1E_LENGTH + 8 + points * 2;
+        } else {
+            return HEADER_1E_LENGTH + 8;
+        }
+    }
+
+    @Override
+    protected void doClientHandle(NioClientSession session, byte[] data) {
+        int subHeader = data[0] & 0xFF;
+        byte[] ack;
+        if (subHeader == EMcFrameType.FRAME_3E.getReqSubHeader()) {
+            ack = this.handle4E3E(EMcFrameType.FRAME_3E, data);
+        } else if (subHeader == EMcFrameType.FRAME_4E.getReqSubHeader()) {
+            ack = this.handle4E3E(EMcFrameType.FRAME_4E, data);
+        } else {
+            ack = this.handle1E(data);
+        }
+        if (ack.length > 0) {
+            this.write(session, ack);
+        }
+    }
+
+    //region 帧处理
+
+    /**
+     * Handle the request of 4E and 3E frame.
+     * (处理4E和3E帧的请求)
+     *
+     * @param frameType frame type
+     * @param data      request data
+     * @return response data, empty if the request is too short to respond
+     */
+    private byte[] handle4E3E(EMcFrameType frameType, byte[] data) {
+        int headerLength = frameType == EMcFrameType.FRAME_4E ? HEADER_4E_LENGTH : HEADER_3E_LENGTH;
+        if (data.length < headerLength + 4) {
+            log.warn("The {} frame is too short, length[{}]", frameType.getCode(), data.length);
+            return new byte[0];
+        }
+        ByteReadBuff buff = new ByteReadBuff(data, 2, true);
+        McHeader3EAck header;
+        if (frameType == EMcFrameType.FRAME_4E) {
+            McHeader4EAck header4E = new McHeader4EAck();
+            header4E.setSerialNumber(buff.getUInt16());
+            header4E.setFixedNumber(buff.getUInt16());
+            header = header4E;
+        } else {
+            header = new McHeader3EAck();
+        }
+        header.setSubHeader(frameType.getAckSubHeader());
+        header.setAccessRoute(McFrame4E3EAccessRoute.fromBytes(buff.getBytes(5)));
+        // 跳过数据长度和监视定时器
+        buff.getBytes(4);
+        int command = buff.getUInt16();
+        int subcommand = buff.getUInt16();
+
+        McAckData ackData = new McAckData();
+        try {
+            ackData.setData(this.execute4E3E(command, subcommand, buff));
+        } catch (McEndCodeException e) {
+            log.debug("[{}] command[0x{}], subcommand[0x{}], {}", frameType.getCode(),
+                    Integer.toHexString(command), Integer.toHexString(subcommand), e.getMessage());
+            header.setEndCode(e.getEndCode());
+            ackData.setData(this.createErrorData4E3E(header.getAccessRoute(), command, subcommand));
+        } catch (IndexOutOfBoundsException e) {
+            // 请求数据长度与实际的数据数不一致
+            header.setEndCode(0xC061);
+            ackData.setData(this.createErrorData4E3E(header.getAccessRoute(), command, subcommand));
+        }
+        McMessageAck ack = new McMessageAck();
+        ack.setHeader(header);
+        ack.setData(ackData);
+        ack.selfCheck();
+        return ack.toByteArray();
+    }
+
+    /**
+     * Create the error data of 4E and 3E frame.
+     * (创建4E和3E帧的错误信息)
+     *
+     * @param accessRoute access route
+     * @param command     command
+     * @param subcommand  subcommand
+     * @return error data
+     */
+    private byte[] createErrorData4E3E(McAccessRoute accessRoute, int command, int subcommand) {
+        return ByteWriteBuff.newInstance(4 + accessRoute.byteArrayLength(), true)
+                .putBytes(accessRoute.toByteArray())
+                .putShort(command)
+                .putShort(subcommand)
+                .getData();
+    }
+
+    /**
+     * Handle the request of 1E frame.
+     * (处理1E帧的请求)
+     *
+     * @param data request data
+     * @return response data, empty if the request is too short to respond
+     */
+    private byte[] handle1E(byte[] data) {
+        if (data.length < HEADER_1E_LENGTH + 2) {
+            log.warn("The 1E frame is too short, length[{}]", data.length);
+            return new byte[0];
+        }
+        int command = data[0] & 0xFF;
+        McHeader1EAck header = new McHeader1EAck();
+        header.setSubHeader(command + 0x80);
+        McAckData ackData = new McAckData();
+        try {
+            ackData.setData(this.execute1E(command, new ByteReadBuff(data, HEADER_1E_LENGTH, true)));
+        } catch (McEndCodeException e) {
+            log.debug("[1E] command[0x{}], {}", Integer.toHexString(command), e.getMessage());
+            header.setEndCode(e.getEndCode1E());
+        } catch (IndexOutOfBoundsException e) {
+            // 点数错误
+            header.setEndCode(0x57);
+        }
+        McMessageAck ack = new McMessageAck();
+        ack.setHeader(header);
+        ack.setData(ackData);
+        return ack.toByteArray();
+    }
+
+    /**
+     * Execute the command of 4E and 3E frame, bit 0 of the subcommand means bit units, bit 1 means iQ-R series.
+     * (执行4E和3E帧的指令，子指令的第0位表示位单位，第1位表示iQ-R系列)
+     *
+     * @param command    command
+     * @param subcommand subcommand
+     * @param buff       request data, the offset is at the beginning of the request data
+     * @return response data
+     */
+    private byte[] execute4E3E(int command, int subcommand, ByteReadBuff buff) {
+        EMcSeries series = (subcommand & 0x0002) != 0 ? EMcSeries.IQ_R : EMcSeries.Q_L;
+        boolean bitUnits = (subcommand & 0x0001) != 0;
+        EMcCommand mcCommand = EMcCommand.from(command);
+        if (mcCommand == null) {
+            throw new McEndCodeException(0xC059, 0x50, "unsupported command");
+        }
+        switch (mcCommand) {
+            case DEVICE_ACCESS_BATCH_READ_IN_UNITS:
+                return this.readDeviceBatch(this.readDeviceAddress(buff, series), bitUnits);
+            case DEVICE_ACCESS_BATCH_WRITE_IN_UNITS:
+                this.writeDeviceBatch(this.readDeviceContent(buff, series, bitUnits), bitUnits);
+                return new byte[0];
+            case DEVICE_ACCESS_RANDOM_READ_IN_UNITS:
+                return this.readDeviceRandomInWord(buff, series);
+            case DEVICE_ACCESS_RANDOM_WRITE_IN_UNITS:
+                if (bitUnits) {
+                    this.writeDeviceRandomInBit(buff, series, buff.getByteToInt());
+                } else {
+                    this.writeDeviceRandomInWord(buff, series);
+                }
+                return new byte[0];
+            case DEVICE_ACCESS_BATCH_READ_MULTIPLE_BLOCKS:
+                return this.readDeviceBatchMultiBlocks(buff, series);
+            case DEVICE_ACCESS_BATCH_WRITE_MULTIPLE_BLOCKS:
+                this.writeDeviceBatchMultiBlocks(buff, series);
+                return new byte[0];
+            default:
+                throw new McEndCodeException(0xC059, 0x50, "unsupported command");
+        }
+    }
+
+    /**
+     * Execute the command of 1E frame.
+     * (执行1E帧的指令)
+     *
+     * @param command command
+     * @param buff    request data, the offset is at the beginning of the request data
+     * @return response data
+     */
+    private byte[] execute1E(int command, ByteReadBuff buff) {
+        switch (command) {
+            case 0x00:
+                return this.readDeviceBatch(this.readDeviceAddress(buff, EMcSeries.A), true);
+            case 0x01:
+                return this.readDeviceBatch(this.readDeviceAddress(buff, EMcSeries.A), false);
+            case 0x02:
+                this.writeDeviceBatch(this.readDeviceContent(buff, EMcSeries.A, true), true);
+                return new byte[0];
+            case 0x03:
+                this.writeDeviceBatch(this.readDeviceContent(buff, EMcSeries.A, false), false);
+                return new byte[0];
+            case 0x04:
+                this.writeDeviceRandomInBit(buff, EMcSeries.A, buff.getUInt16());
+                return new byte[0];
+            case 0x05:
+                this.writeDeviceRandomInWord(buff, EMcSeries.A);
+                return new byte[0];
+            default:
+                throw new McEndCodeException(0xC059, 0x50, "unsupported command");
+        }
+    }
+
+    //endregion
+
+    //region 指令处理
+
+    /**
+     * Device access, batch read.
+     * (软元件批量读取)
+     *
+     * @param address  device address
+     * @param bitUnits true: bit units, false: word units
+     * @return response data
+     */
+    private byte[] readDeviceBatch(McDeviceAddress address, boolean bitUnits) {
+        log.debug("[BATCH_READ] device[{}], head[{}], points[{}], bit[{}]", address.getDeviceCode(),
+                address.getHeadDeviceNumber(), address.getDevicePointsCount(), bitUnits);
+        try {
+            this.rwLock.readLock().lock();
+            return bitUnits ? this.readBits(address) : this.readWords(address);
+        } finally {
+            this.rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Device access, batch write.
+     * (软元件批量写入)
+     *
+     * @param content  device content
+     * @param bitUnits true: bit units, false: word units
+     */
+    private void writeDeviceBatch(McDeviceContent content, boolean bitUnits) {
+        log.debug("[BATCH_WRITE] device[{}], head[{}], points[{}], bit[{}]", content.getDeviceCode(),
+                content.getHeadDeviceNumber(), content.getDevicePointsCount(), bitUnits);
+        try {
+            this.rwLock.writeLock().lock();
+            if (bitUnits) {
+                this.checkBits(content);
+                this.writeBits(content);
+            } else {
+                this.checkWords(content);
+                this.writeWords(content);
+            }
+        } finally {
+            this.rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Device access, random read in word units.
+     * (软元件按字随机读取)
+     *
+     * @param buff   request data
+     * @param series series
+     * @return response data
+     */
+    private byte[] readDeviceRandomInWord(ByteReadBuff buff, EMcSeries series) {
+        int wordCount = buff.getByteToInt();
+        int dwordCount = buff.getByteToInt();
+        List<McDeviceAddress> addresses = new ArrayList<>(wordCount + dwordCount);
+        for (int i = 0; i < wordCount + dwordCount; i++) {
+            McDeviceAddress address = this.readDeviceAddress(buff, series, false);
+            address.setDevicePointsCount(i < wordCount ? 1 : 2);
+            addresses.add(address);
+        }
+        log.debug("[RANDOM_READ] word[{}], dword[{}]", wordCount, dwordCount);
+        ByteWriteBuff res = new ByteWriteBuff(wordCount * 2 + dwordCount * 4);
+        try {
+            this.rwLock.readLock().lock();
+            for (McDeviceAddress address : addresses) {
+                res.putBytes(this.readWords(address));
+            }
+        } finally {
+            this.rwLock.readLock().unlock();
+        }
+        return res.getData();
+    }
+
+    /**
+     * Device access, random write in word units.
+     * (软元件按字随机写入)
+     *
+     * @param buff   request data
+     * @param series series
+     */
+    private void writeDeviceRandomInWord(ByteReadBuff buff, EMcSeries series) {
+        int wordCount;
+        int dwordCount;
+        if (series == EMcSeries.A) {
+            wordCount = buff.getUInt16();
+            dwordCount = 0;
+        } else {
+            wordCount = buff.getByteToInt();
+            dwordCount = buff.getByteToInt();
+        }
+        List<McDeviceContent> contents = new ArrayList<>(wordCount + dwordCount);
+        for (int i = 0; i < wordCount + dwordCount; i++) {
+            McDeviceAddress address = this.readDeviceAddress(buff, series, false);
+            int points = i < wordCount ? 1 : 2;
+            contents.add(new McDeviceContent(address.getDeviceCode(), address.getHeadDeviceNumber(), points,
+                    buff.getBytes(points * 2)));
+        }
+        log.debug("[RANDOM_WRITE] word[{}], dword[{}]", wordCount, dwordCount);
+        try {
+            this.rwLock.writeLock().lock();
+            // 先全部校验再写入，避免写入一半
+            contents.forEach(this::checkWords);
+            contents.forEach(this::writeWords);
+        } finally {
+            this.rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Device access, random write in bit units, the size of ON/OFF data is the rest of each item.
+     * (软元件按位随机写入，每项的ON/OFF数据长度为地址之后的剩余长度)
+     *
+     * @param buff   request data
+     * @param series series
+     * @param count  bit count
+     */
+    private void writeDeviceRandomInBit(ByteReadBuff buff, EMcSeries series, int count) {
+        if (count < 1) {
+            throw new McEndCodeException(0xC051, 0x57, "bit count < 1");
+        }
+        int itemLength = buff.getRemainSize() / count;
+        int addressLength = series.getDeviceCodeByteLength() + series.getHeadDeviceNumberByteLength();
+        if (itemLength <= addressLength) {
+            throw new McEndCodeException(0xC061, 0x57, "the data length of bit is inconsistent");
+        }
+        List<McDeviceContent> contents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            McDeviceAddress address = this.readDeviceAddress(buff, series, false);
+            int value = buff.getByteToInt();
+            buff.getBytes(itemLength - addressLength - 1);
+            // 位数据按半字节存储，ON为0x10
+            contents.add(new McDeviceContent(address.getDeviceCode(), address.getHeadDeviceNumber(), 1,
+                    new byte[]{(byte) (value != 0 ? 0x10 : 0x00)}));
+        }
+        log.debug("[RANDOM_WRITE] bit[{}]", count);
+        try {
+            this.rwLock.writeLock().lock();
+            contents.forEach(this::checkBits);
+            contents.forEach(this::writeBits);
+        } finally {
+            this.rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Device access, batch read multiple blocks, the points of bit block is word count.
+     * (软元件多块批量读取，位软元件块的点数为字的数量)
+     *
+     * @param buff   request data
+     * @param series series
+     * @return response data
+     */
+    private byte[] readDeviceBatchMultiBlocks(ByteReadBuff buff, EMcSeries series) {
+        int wordCount = buff.getByteToInt();
+        int bitCount = buff.getByteToInt();
+        List<McDeviceAddress> addresses = new ArrayList<>(wordCount + bitCount);
+        int length = 0;
+        for (int i = 0; i < wordCount + bitCount; i++) {
+            McDeviceAddress address = this.readDeviceAddress(buff, series);
+            if (i >= wordCount && !EMcDeviceCode.checkBitType(address.getDeviceCode())) {
+                throw new McEndCodeException(0xC05C, 0x56, "the bit block must be bit device");
+            }
+            length += address.getDevicePointsCount() * 2;
+            addresses.add(address);
+        }
+        log.debug("[MULTI_BLOCKS_READ] word[{}], bit[{}]", wordCount, bitCount);
+        ByteWriteBuff res = new ByteWriteBuff(length);
+        try {
+            this.rwLock.readLock().lock();
+            for (McDeviceAddress address : addresses) {
+                res.putBytes(this.readWords(address));
+            }
+        } finally {
+            this.rwLock.readLock().unlock();
+        }
+        return res.getData();
+    }
+
+    /**
+     * Device access, batch write multiple blocks, the points of bit block is word count.
+     * (软元件多块批量写入，位软元件块的点数为字的数量)
+     *
+     * @param buff   request data
+     * @param series series
+     */
+    private void writeDeviceBatchMultiBlocks(ByteReadBuff buff, EMcSeries series) {
+        int wordCount = buff.getByteToInt();
+        int bitCount = buff.getByteToInt();
+        List<McDeviceContent> contents = new ArrayList<>(wordCount + bitCount);
+        for (int i = 0; i < wordCount + bitCount; i++) {
+            McDeviceContent content = this.readDeviceContent(buff, series, false);
+            if (i >= wordCount && !EMcDeviceCode.checkBitType(content.getDeviceCode())) {
+                throw new McEndCodeException(0xC05C, 0x56, "the bit block must be bit device");
+            }
+            contents.add(content);
+        }
+        log.debug("[MULTI_BLOCKS_WRITE] word[{}], bit[{}]", wordCount, bitCount);
+        try {
+            this.rwLock.writeLock().lock();
+            contents.forEach(this::checkWords);
+            contents.forEach(this::writeWords);
+        } finally {
+            this.rwLock.writeLock().unlock();
+        }
+    }
+
+    //endregion
+
+    //region 请求解析
+
+    /**
+     * Read device address with points count.
+     * (读取带点数的软元件地址)
+     *
+     * @param buff   request data
+     * @param series series
+     * @return device address
+     */
+    private McDeviceAddress readDeviceAddress(ByteReadBuff buff, EMcSeries series) {
+        return this.readDeviceAddress(buff, series, true);
+    }
+
+    /**
+     * Read device address, 3 bytes head + 1 byte code of Q/L series, 4 bytes head + 2 bytes code of iQ-R and A series.
+     * (读取软元件地址，Q/L系列为3字节起始编号 + 1字节代码，iQ-R和A系列为4字节起始编号 + 2字节代码)
+     *
+     * @param buff       request data
+     * @param series     series
+     * @param withPoints whether the points count follows
+     * @return device address
+     */
+    private McDeviceAddress readDeviceAddress(ByteReadBuff buff, EMcSeries series, boolean withPoints) {
+        int head;
+        EMcDeviceCode deviceCode;
+        if (series == EMcSeries.IQ_R) {
+            head = buff.getInt32();
+            deviceCode = DEVICE_CODES_IQR.get(buff.getUInt16());
+        } else if (series == EMcSeries.A) {
+            head = buff.getInt32();
+            deviceCode = DEVICE_CODES_1E.get(buff.getUInt16());
+        } else {
+            head = buff.getUInt16() | (buff.getByteToInt() << 16);
+            deviceCode = DEVICE_CODES.get(buff.getByteToInt());
+        }
+        if (deviceCode == null) {
+            throw new McEndCodeException(0xC05B, 0x56, "unknown device code");
+        }
+        int points = 1;
+        if (withPoints) {
+            points = buff.getUInt16();
+            if (series == EMcSeries.A) {
+                points = this.getPoints1E(points);
+            }
+        }
+        return new McDeviceAddress(deviceCode, head, points);
+    }
+
+    /**
+     * Read device content, the bit data is 2 points per byte, the word data is 2 bytes per point.
+     * (读取软元件内容，位数据每个字节2个点，字数据每个点2个字节)
+     *
+     * @param buff     request data
+     * @param series   series
+     * @param bitUnits true: bit units, false: word units
+     * @return device content
+     */
+    private McDeviceContent readDeviceContent(ByteReadBuff buff, EMcSeries series, boolean bitUnits) {
+        McDeviceAddress address = this.readDeviceAddress(buff, series);
+        int points = address.getDevicePointsCount();
+        byte[] data = buff.getBytes(bitUnits ? (points + 1) / 2 : points * 2);
+        return McDeviceContent.createByAddress(address, data);
+    }
+
+    /**
+     * Get the points count of 1E frame, 0 means 256.
+     * (获取1E帧的点数，0表示256点)
+     *
+     * @param points points in request
+     * @return points count
+     */
+    private int getPoints1E(int points) {
+        return points == 0 ? 256 : points;
+    }
+
+    /**
+     * Get uint16 in little endian by absolute index.
+     * (按绝对索引获取小端的uint16)
+     *
+     * @param buffer data buffer
+     * @param index  index
+     * @return uint16
+     */
+    private int getUInt16(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xFF) | ((buffer.get(index + 1) & 0xFF) << 8);
+    }
+
+    //endregion
+
+    //region 存储区读写，调用方持有锁
+
+    /**
+     * Get the memory area of device.
+     * (获取软元件的存储区)
+     *
+     * @param deviceCode device code
+     * @return memory area
+     */
+    private byte[] getDeviceArea(EMcDeviceCode deviceCode) {
+        byte[] area = this.deviceAreas.get(deviceCode);
+        if (area == null) {
+            throw new McEndCodeException(0xC05B, 0x56, "device area not exist, " + deviceCode);
+        }
+        return area;
+    }
+
+    /**
+     * Check the range of access.
+     * (校验访问范围)
+     *
+     * @param head     head number
+     * @param length   access length
+     * @param capacity capacity of area
+     */
+    private void checkRange(int head, int length, int capacity) {
+        if (length < 1) {
+            throw new McEndCodeException(0xC051, 0x57, "points count < 1");
+        }
+        if (head < 0 || (long) head + length > capacity) {
+            throw new McEndCodeException(0xC056, 0x58, "exceeded the maximum address");
+        }
+    }
+
+    /**
+     * Check the bit access, only bit device can be accessed in bit units.
+     * (校验按位访问，只有位软元件可以按位访问)
+     *
+     * @param address device address
+     */
+    private void checkBits(McDeviceAddress address) {
+        byte[] area = this.getDeviceArea(address.getDeviceCode());
+        if (!EMcDeviceCode.checkBitType(address.getDeviceCode())) {
+            // 对字软元件进行了以位为单位的访问
+            throw new McEndCodeException(0xC05C, 0x56, "word device accessed in bit units");
+        }
+        this.checkRange(address.getHeadDeviceNumber(), address.getDevicePointsCount(), area.length * 8);
+    }
+
+    /**
+     * Check the word access, the bit device is accessed as 16 points per word.
+     * (校验按字访问，位软元件每个字16个点)
+     *
+     * @param address device address
+     */
+    private void checkWords(McDeviceAddress address) {
+        byte[] area = this.getDeviceArea(address.getDeviceCode());
+        if (EMcDeviceCode.checkBitType(address.getDeviceCode())) {
+            this.checkRange(address.getHeadDeviceNumber(), address.getDevicePointsCount() * 16, area.length * 8);
+        } else {
+            this.checkRange(address.getHeadDeviceNumber(), address.getDevicePointsCount(), area.length / 2);
+        }
+    }
+
+    /**
+     * Read bits, 2 points per byte, the high 4 bits is the former one.
+     * (读取位数据，每个字节2个点，高4位为前一个点)
+     *
+     * @param address device address
+     * @return bit data
+     */
+    private byte[] readBits(McDeviceAddress address) {
+        this.checkBits(address);
+        byte[] area = this.getDeviceArea(address.getDeviceCode());
+        int head = address.getHeadDeviceNumber();
+        int points = address.getDevicePointsCount();
+        byte[] res = new byte[(points + 1) / 2];
+        for (int i = 0; i < points; i++) {
+            int index = head + i;
+            if ((area[index >> 3] & (1 << (index & 0x07))) != 0) {
+                res[i >> 1] |= (i & 0x01) == 0 ? 0x10 : 0x01;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Write bits, 2 points per byte, the high 4 bits is the former one.
+     * (写入位数据，每个字节2个点，高4位为前一个点)
+     *
+     * @param content device content
+     */
+    private void writeBits(McDeviceContent content) {
+        byte[] area = this.getDeviceArea(content.getDeviceCode());
+        int head = content.getHeadDeviceNumber();
+        byte[] data = content.getData();
+        for (int i = 0; i < content.getDevicePointsCount(); i++) {
+            int index = head + i;
+            int value = (i & 0x01) == 0 ? (data[i >> 1] & 0xF0) : (data[i >> 1] & 0x0F);
+            if (value != 0) {
+                area[index >> 3] |= (byte) (1 << (index & 0x07));
+            } else {
+                area[index >> 3] &= (byte) ~(1 << (index & 0x07));
+            }
+        }
+    }
+
+    /**
+     * Read words in little endian, the bit device is read as 16 points per word, the lowest bit is the first point.
+     * (读取小端字数据，位软元件每个字16个点，最低位为第一个点)
+     *
+     * @param address device address
+     * @return word data
+     */
+    private byte[] readWords(McDeviceAddress address) {
+        this.checkWords(address);
+        byte[] area = this.getDeviceArea(address.getDeviceCode());
+        int head = address.getHeadDeviceNumber();
+        byte[] res = new byte[address.getDevicePointsCount() * 2];
+        if (!EMcDeviceCode.checkBitType(address.getDeviceCode())) {
+            System.arraycopy(area, head * 2, res, 0, res.length);
+        } else if ((head & 0x07) == 0) {
+            // 起始地址按字节对齐，直接拷贝
+            System.arraycopy(area, head >> 3, res, 0, res.length);
+        } else {
+            for (int i = 0; i < res.length * 8; i++) {
+                int index = head + i;
+                if ((area[index >> 3] & (1 << (index & 0x07))) != 0) {
+                    res[i >> 3] |= (byte) (1 << (i & 0x07));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Write words in little endian, the bit device is written as 16 points per word, the lowest bit is the first point.
+     * (写入小端字数据，位软元件每个字16个点，最低位为第一个点)
+     *
+     * @param content device content
+     */
+    private void writeWords(McDeviceContent content) {
+        byte[] area = this.getDeviceArea(content.getDeviceCode());
+        int head = content.getHeadDeviceNumber();
+        byte[] data = content.getData();
+        int length = content.getDevicePointsCount() * 2;
+        if (!EMcDeviceCode.checkBitType(content.getDeviceCode())) {
+            System.arraycopy(data, 0, area, head * 2, length);
+        } else if ((head & 0x07) == 0) {
+            System.arraycopy(data, 0, area, head >> 3, length);
+        } else {
+            for (int i = 0; i < length * 8; i++) {
+                int index = head + i;
+                if ((data[i >> 3] & (1 << (i & 0x07))) != 0) {
+                    area[index >> 3] |= (byte) (1 << (index & 0x07));
+                } else {
+                    area[index >> 3] &= (byte) ~(1 << (index & 0x07));
+                }
+            }
+        }
+    }
+
+    //endregion
+
+    /**
+     * Exception with end code, the request is responded with the end code.
+     * (带结束代码的异常，请求以该结束代码响应)
+     */
+    private static class McEndCodeException extends McCommException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * End code of 4E and 3E frame.
+         * (4E和3E帧的结束代码)
+         */
+        private final int endCode;
+
+        /**
+         * End code of 1E frame.
+         * (1E帧的结束代码)
+         */
+        private final int endCode1E;
+
+        McEndCodeException(int endCode, int endCode1E, String message) {
+            super(message);
+            this.endCode = endCode;
+            this.endCode1E = endCode1E;
+        }
+
+        int getEndCode() {
+            return endCode;
+        }
+
+        int getEndCode1E() {
+            return endCode1E;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.melsec.service;
+
+
+import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.common.poll.IPollReader;
+import com.github.xingshuangs.iot.common.poll.PollTag;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcFrameType;
+import com.github.xingshuangs.iot.protocol.melsec.model.McDeviceAddress;
+import com.github.xingshuangs.iot.protocol.melsec.model.McDeviceContent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Melsec poll reader, 16 bits tags (bool, int16, uint16) and 32 bits tags (int32, uint32, float32) are read by
+ * one readDeviceRandomInWord, bool is the lowest bit of the word, others are read one by one.
+ * The tag address is the device address, such as D100, M10.
+ * (三菱轮询读取器，16位点位(bool，int16，uint16)和32位点位(int32，uint32，float32)通过一次按字随机读取获取，
+ * bool为字的最低位，其他点位逐个读取；点位地址为软元件地址，例如D100，M10)
+ *
+ * @author xingshuang
+ */
+public class McPollReader implements IPollReader {
+
+    private final McPLC mcPLC;
+
+    public McPollReader(McPLC mcPLC) {
+        this.mcPLC = mcPLC;
+    }
+
+    @Override
+    public List<Object> read(List<PollTag> tags) {
+        Object[] values = new Object[tags.size()];
+        // 1E帧不支持随机读取，只能逐个读取
+        boolean randomSupported = this.mcPLC.getSeries().getFrameType() != EMcFrameType.FRAME_1E;
+        List<Integer> wordIndexes = new ArrayList<>();
+        List<Integer> dwordIndexes = new ArrayList<>();
+        for (int i = 0; i < tags.size(); i++) {
+            PollTag tag = tags.get(i);
+            switch (tag.getDataType()) {
+                case BOOL:
+                case INT16:
+                case UINT16:
+                    if (randomSupported) {
+                        wordIndexes.add(i);
+                        continue;
+                    }
+                    break;
+                case INT32:
+                case UINT32:
+                case FLOAT32:
+                    if (randomSupported) {
+                        dwordIndexes.add(i);
+                        continue;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            values[i] = this.readOne(tag);
+        }
+        if (!wordIndexes.isEmpty() || !dwordIndexes.isEmpty()) {
+            this.readRandom(tags, wordIndexes, dwordIndexes, values);
+        }
+        return Arrays.asList(values);
+    }
+
+    /**
+     * Read words and dwords by one random read.
+     * (通过一次随机读取获取字和双字数据)
+     *
+     * @param tags         poll tags
+     * @param wordIndexes  indexes of word tags
+     * @param dwordIndexes indexes of dword tags
+     * @param values       values
+     */
+    private void readRandom(List<PollTag> tags, List<Integer> wordIndexes, List<Integer> dwordIndexes, Object[] values) {
+        List<McDeviceAddress> words = new ArrayList<>();
+        wordIndexes.forEach(x -> words.add(McDeviceAddress.createBy(tags.get(x).getAddress())));
+        List<McDeviceAddress> dwords = new ArrayList<>();
+        dwordIndexes.forEach(x -> dwords.add(McDeviceAddress.createBy(tags.get(x).getAddress())));
+        List<McDeviceContent> contents = this.mcPLC.readDeviceRandomInWord(words, dwords);
+        // 分批读取时结果按批次交替排列字和双字，因此通过数据长度区分
+        int wordOffset = 0;
+        int dwordOffset = 0;
+        for (McDeviceContent content : contents) {
+            int index = content.getData().length == 2 ? wordIndexes.get(wordOffset++) : dwordIndexes.get(dwordOffset++);
+            values[index] = tags.get(index).parseValue(ByteReadBuff.newInstance(content.getData(), true), 0);
+        }
+    }
+
+    /**
+     * Read one tag.
+     * (读取单个点位)
+     *
+     * @param tag poll tag
+     * @return value
+     */
+    private Object readOne(PollTag tag) {
+        switch (tag.getDataType()) {
+            case BOOL:
+                return this.mcPLC.readBoolean(tag.getAddress());
+            case STRING:
+                return this.mcPLC.readString(tag.getAddress(), tag.getCount());
+            default:
+                byte[] data = this.mcPLC.readBytes(tag.getAddress(), tag.getByteLength());
+                return tag.parseValue(ByteReadBuff.newInstance(data, true), 0);
+        }
+    }
+}
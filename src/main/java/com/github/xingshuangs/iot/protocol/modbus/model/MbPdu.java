@@ -116,6 +116,44 @@ public class MbPdu implements IObjectByteArray {
         }
     }
 
+    /**
+     * Gets the total length of response PDU by the function code and the byte count field,
+     * only the first 2 bytes are required.
+     * (根据功能码和字节数量字段获取响应PDU的总长度，只需要前2个字节)
+     *
+     * @param data   byte array
+     * @param offset index offset
+     * @return total length of response PDU
+     */
+    public static int getResponseLength(final byte[] data, final int offset) {
+        int code = data[offset] & 0xFF;
+        if ((code & 0x80) != 0) {
+            // 异常响应：功能码 + 异常码
+            return 2;
+        }
+        switch (code) {
+            case 0x01:
+            case 0x02:
+            case 0x03:
+            case 0x04:
+            case 0x14:
+            case 0x17:
+                // 功能码 + 字节数量 + 数据
+                return 2 + (data[offset + 1] & 0xFF);
+            case 0x05:
+            case 0x06:
+            case 0x0F:
+            case 0x10:
+                // 功能码 + 地址 + 数量或数值
+                return 5;
+            case 0x16:
+                // 功能码 + 地址 + AND掩码 + OR掩码
+                return 7;
+            default:
+                throw new ModbusCommException("Function code can not be recognized, " + code);
+        }
+    }
+
     /**
      * Parses byte array and converts it to object, convert to request object.
      *
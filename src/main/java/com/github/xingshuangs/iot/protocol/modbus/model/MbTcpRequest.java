@@ -93,8 +93,19 @@ public class MbTcpRequest implements IObjectByteArray {
      * @return MbTcpRequest
      */
     public static MbTcpRequest createDefault() {
+        return createDefault(MbapHeader.getNewNumber());
+    }
+
+    /**
+     * Create default request by transaction id.
+     * (根据事务标识创建默认请求对象)
+     *
+     * @param transactionId transaction id
+     * @return MbTcpRequest
+     */
+    public static MbTcpRequest createDefault(int transactionId) {
         MbTcpRequest request = new MbTcpRequest();
-        request.header = new MbapHeader(MbapHeader.getNewNumber());
+        request.header = new MbapHeader(transactionId);
         return request;
     }
 
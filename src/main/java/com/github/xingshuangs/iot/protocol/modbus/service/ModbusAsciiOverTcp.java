@@ -27,6 +27,7 @@ package com.github.xingshuangs.iot.protocol.modbus.service;
 
 import com.github.xingshuangs.iot.common.constant.GeneralConst;
 import com.github.xingshuangs.iot.exceptions.ModbusCommException;
+import com.github.xingshuangs.iot.net.client.TcpAsyncClientBasic;
 import com.github.xingshuangs.iot.protocol.modbus.model.MbAsciiRequest;
 import com.github.xingshuangs.iot.protocol.modbus.model.MbAsciiResponse;
 import com.github.xingshuangs.iot.protocol.modbus.model.MbErrorResponse;
@@ -34,7 +35,9 @@ import com.github.xingshuangs.iot.protocol.modbus.model.MbPdu;
 import com.github.xingshuangs.iot.utils.HexUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
 import static com.github.xingshuangs.iot.common.constant.GeneralConst.LOCALHOST;
@@ -49,6 +52,12 @@ import static com.github.xingshuangs.iot.common.constant.GeneralConst.MODBUS_POR
 @Slf4j
 public class ModbusAsciiOverTcp extends ModbusSkeletonAbstract<MbAsciiRequest, MbAsciiResponse> {
 
+    /**
+     * Response header length, ":" + hex chars of unit id + function code + byte count or exception code.
+     * (响应头长度，":" + 站号 + 功能码 + 字节数量或异常码的十六进制字符)
+     */
+    private static final int HEADER_LENGTH = 7;
+
     /**
      * Communication callback.
      * (通信回调)
@@ -95,21 +104,34 @@ public class ModbusAsciiOverTcp extends ModbusSkeletonAbstract<MbAsciiRequest, M
         if (this.comStringCallback != null) {
             this.comStringCallback.accept(GeneralConst.PACKAGE_REQ, reqStr);
         }
-        int len;
-        byte[] data = new byte[1024];
+        byte[] total;
         try {
             this.locker.lock();
             this.write(reqBytes);
-            len = this.read(data);
+            // 先读取":" + 站号 + 功能码 + 字节数量(或异常码)，再根据功能码计算剩余长度，只读取一帧，后续的帧留在通道中
+            byte[] header = new byte[HEADER_LENGTH];
+            int len = this.read(header, 0, header.length, true);
+            if (len < HEADER_LENGTH || header[0] != ':') {
+                // Modbus数据读取长度有误
+                throw new ModbusCommException("The length of Modbus data read is incorrect");
+            }
+            byte[] headerBytes = HexUtil.toHexArray(new String(header, 1, header.length - 1, StandardCharsets.US_ASCII));
+            // ":" + (站号 + PDU + LRC)的十六进制字符 + "\r\n"
+            total = new byte[1 + (1 + MbPdu.getResponseLength(headerBytes, 1) + 1) * 2 + 2];
+            System.arraycopy(header, 0, total, 0, header.length);
+            len = this.read(total, header.length, total.length - header.length, true);
+            if (len < total.length - header.length
+                    || total[total.length - 2] != '\r' || total[total.length - 1] != '\n') {
+                // Modbus数据读取长度有误
+                throw new ModbusCommException("The length of Modbus data read is incorrect");
+            }
+        } catch (RuntimeException e) {
+            // 帧解析失败时通道中可能残留该帧的剩余数据，标记通道异常，下一次通信重新连接
+            this.socketError.set(true);
+            throw e;
         } finally {
             this.locker.unlock();
         }
-        if (len <= 0) {
-            // Modbus数据读取长度有误
-            throw new ModbusCommException("The length of Modbus data read is incorrect");
-        }
-        byte[] total = new byte[len];
-        System.arraycopy(data, 0, total, 0, len);
         String ackStr = new String(total, StandardCharsets.UTF_8);
         if (this.comCallback != null) {
             this.comCallback.accept(GeneralConst.PACKAGE_ACK, total);
@@ -155,8 +177,63 @@ public class ModbusAsciiOverTcp extends ModbusSkeletonAbstract<MbAsciiRequest, M
             if (!this.persistence) {
                 // 由于短连接方式，通信完毕触发关闭连接通道，服务端IP
                 log.debug("Due to the short connection mode, the communication is completed and the connection channel is triggered to close, Server IP[{}]", this.socketAddress);
-                this.close();
+                this.closeSocket();
+            }
+        }
+    }
+
+    //region 异步数据通信部分
+
+    @Override
+    protected TcpAsyncClientBasic createAsyncClient() {
+        return new ModbusAsciiAsyncClient();
+    }
+
+    @Override
+    protected CompletableFuture<MbPdu> readModbusDataAsync(int unitId, MbPdu reqPdu) {
+        MbAsciiRequest request = new MbAsciiRequest(unitId, reqPdu);
+        String reqStr = ":" + HexUtil.toHexString(request.toByteArray(), "") + "\r\n";
+        if (this.comStringCallback != null) {
+            this.comStringCallback.accept(GeneralConst.PACKAGE_REQ, reqStr);
+        }
+        return this.getAsyncClient().sendAsync(reqStr.getBytes(StandardCharsets.US_ASCII), -1).thenApply(total -> {
+            String ackStr = new String(total, StandardCharsets.US_ASCII);
+            if (this.comStringCallback != null) {
+                this.comStringCallback.accept(GeneralConst.PACKAGE_ACK, ackStr);
+            }
+            MbAsciiResponse ack = MbAsciiResponse.fromBytes(HexUtil.toHexArray(ackStr.substring(1, ackStr.length() - 2)));
+            this.checkResult(request, ack);
+            return ack.getPdu();
+        });
+    }
+
+    /**
+     * Asynchronous client of modbus ascii over tcp, frames are split by the function code and byte count,
+     * responses are matched in order.
+     * (modbus ascii over tcp异步客户端，根据功能码和字节数量拆分帧，响应按顺序匹配)
+     */
+    private class ModbusAsciiAsyncClient extends ModbusAsyncClient {
+
+        @Override
+        protected int getFrameLength(ByteBuffer buffer) {
+            if (buffer.remaining() < HEADER_LENGTH) {
+                return -1;
             }
+            byte[] header = new byte[HEADER_LENGTH];
+            buffer.get(header);
+            if (header[0] != ':') {
+                throw new ModbusCommException("The start of Modbus ascii frame is not ':'");
+            }
+            byte[] headerBytes = HexUtil.toHexArray(new String(header, 1, header.length - 1, StandardCharsets.US_ASCII));
+            // ":" + (站号 + PDU + LRC)的十六进制字符 + "\r\n"
+            int length = 1 + (1 + MbPdu.getResponseLength(headerBytes, 1) + 1) * 2 + 2;
+            // 帧尾不是CR LF时抛出异常，关闭通道，不在通道中留下残余数据
+            if (buffer.limit() >= length && (buffer.get(length - 2) != '\r' || buffer.get(length - 1) != '\n')) {
+                throw new ModbusCommException("The end of Modbus ascii frame is not CR LF");
+            }
+            return length;
         }
     }
+
+    //endregion
 }
@@ -0,0 +1,443 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.modbus.service;
+
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Modbus data store, the coils and discrete inputs are packed in long array, the registers are stored in short array.
+ * The address space is divided into stripes, each stripe has its own stamped lock, reading is optimistic without lock
+ * and falls back to read lock when conflicting with writing, writing locks all stripes of the request in ascending order,
+ * so that every request is atomic.
+ * (Modbus数据存储，线圈和离散量输入按位压缩存储在long数组中，寄存器存储在short数组中；
+ * 地址空间按分段划分，每段有独立的StampedLock，读取时先乐观无锁读，与写入冲突时降级为读锁，
+ * 写入时按升序锁住请求涉及的所有分段，保证每个请求的原子性)
+ *
+ * @author xingshuang
+ */
+public class ModbusDataStore {
+
+    /**
+     * Max size of address space.
+     * (地址空间的最大数量)
+     */
+    public static final int MAX_SIZE = 65536;
+
+    /**
+     * Shift of stripe, 1024 addresses per stripe.
+     * (分段的移位数，每段1024个地址)
+     */
+    private static final int STRIPE_SHIFT = 10;
+
+    /**
+     * Address size of each area.
+     * (每个存储区的地址数量)
+     */
+    private final int size;
+
+    /**
+     * Coil data.
+     * (线圈)
+     */
+    private final BitArea coils;
+
+    /**
+     * Discrete input data.
+     * (离散量输入)
+     */
+    private final BitArea discreteInputs;
+
+    /**
+     * Input register data.
+     * (输入寄存器)
+     */
+    private final RegisterArea inputRegisters;
+
+    /**
+     * Hold register data.
+     * (保持寄存器)
+     */
+    private final RegisterArea holdRegisters;
+
+    public ModbusDataStore() {
+        this(MAX_SIZE);
+    }
+
+    public ModbusDataStore(int size) {
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be in [1, 65536]");
+        }
+        this.size = size;
+        this.coils = new BitArea(size);
+        this.discreteInputs = new BitArea(size);
+        this.inputRegisters = new RegisterArea(size);
+        this.holdRegisters = new RegisterArea(size);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Whether the address range is in the address space.
+     * (地址范围是否在地址空间内)
+     *
+     * @param address  start address
+     * @param quantity quantity
+     * @return true: valid, false: invalid
+     */
+    public boolean checkRange(int address, int quantity) {
+        return address >= 0 && quantity > 0 && address + quantity <= this.size;
+    }
+
+    //region 线圈和离散量输入
+
+    /**
+     * Read coils, 8 coils per byte, the first coil is the lowest bit.
+     * (读取线圈，每个字节8个线圈，第一个线圈在最低位)
+     *
+     * @param address  start address
+     * @param quantity quantity
+     * @return coil bytes
+     */
+    public byte[] readCoils(int address, int quantity) {
+        return this.coils.read(address, quantity);
+    }
+
+    /**
+     * Write coils, 8 coils per byte, the first coil is the lowest bit.
+     * (写入线圈，每个字节8个线圈，第一个线圈在最低位)
+     *
+     * @param address  start address
+     * @param quantity quantity
+     * @param values   coil bytes
+     */
+    public void writeCoils(int address, int quantity, byte[] values) {
+        this.coils.write(address, quantity, values);
+    }
+
+    /**
+     * Write single coil.
+     * (写入单个线圈)
+     *
+     * @param address address
+     * @param value   coil value
+     */
+    public void writeCoil(int address, boolean value) {
+        this.coils.write(address, 1, new byte[]{(byte) (value ? 0x01 : 0x00)});
+    }
+
+    /**
+     * Read discrete inputs, 8 inputs per byte, the first input is the lowest bit.
+     * (读取离散量输入，每个字节8个输入，第一个输入在最低位)
+     *
+     * @param address  start address
+     * @param quantity quantity
+     * @return discrete input bytes
+     */
+    public byte[] readDiscreteInputs(int address, int quantity) {
+        return this.discreteInputs.read(address, quantity);
+    }
+
+    /**
+     * Write discrete inputs, used to simulate the field signal.
+     * (写入离散量输入，用于模拟现场信号)
+     *
+     * @param address  start address
+     * @param quantity quantity
+     * @param values   discrete input bytes
+     */
+    public void writeDiscreteInputs(int address, int quantity, byte[] values) {
+        this.discreteInputs.write(address, quantity, values);
+    }
+
+    //endregion
+
+    //region 寄存器
+
+    /**
+     * Read hold registers in big endian.
+     * (读取大端的保持寄存器)
+     *
+     * @param address  start address
+     * @param quantity quantity
+     * @return register bytes
+     */
+    public byte[] readHoldRegisters(int address, int quantity) {
+        return this.holdRegisters.read(address, quantity);
+    }
+
+    /**
+     * Write hold registers in big endian.
+     * (写入大端的保持寄存器)
+     *
+     * @param address start address
+     * @param values  register bytes, 2 bytes per register
+     */
+    public void writeHoldRegisters(int address, byte[] values) {
+        this.holdRegisters.write(address, values);
+    }
+
+    /**
+     * Write single hold register.
+     * (写入单个保持寄存器)
+     *
+     * @param address address
+     * @param value   register value
+     */
+    public void writeHoldRegister(int address, int value) {
+        this.holdRegisters.write(address, new byte[]{(byte) (value >> 8), (byte) value});
+    }
+
+    /**
+     * Read input registers in big endian.
+     * (读取大端的输入寄存器)
+     *
+     * @param address  start address
+     * @param quantity quantity
+     * @return register bytes
+     */
+    public byte[] readInputRegisters(int address, int quantity) {
+        return this.inputRegisters.read(address, quantity);
+    }
+
+    /**
+     * Write input registers in big endian, used to simulate the field signal.
+     * (写入大端的输入寄存器，用于模拟现场信号)
+     *
+     * @param address start address
+     * @param values  register bytes, 2 bytes per register
+     */
+    public void writeInputRegisters(int address, byte[] values) {
+        this.inputRegisters.write(address, values);
+    }
+
+    //endregion
+
+    /**
+     * Storage area divided into stripes.
+     * (按分段划分的存储区)
+     */
+    private abstract static class StripedArea {
+
+        /**
+         * Lock of each stripe.
+         * (每个分段的锁)
+         */
+        private final StampedLock[] locks;
+
+        StripedArea(int size) {
+            this.locks = new StampedLock[((size - 1) >> STRIPE_SHIFT) + 1];
+            for (int i = 0; i < this.locks.length; i++) {
+                this.locks[i] = new StampedLock();
+            }
+        }
+
+        /**
+         * Check the address range.
+         * (校验地址范围)
+         *
+         * @param address  start address
+         * @param quantity quantity
+         * @param size     size of area
+         */
+        void checkRange(int address, int quantity, int size) {
+            if (address < 0 || quantity <= 0 || address + quantity > size) {
+                throw new IndexOutOfBoundsException(String.format("address[%d], quantity[%d], size[%d]", address, quantity, size));
+            }
+        }
+
+        /**
+         * Read optimistically, fall back to read lock if the stripes are written during reading.
+         * The reader must tolerate inconsistent data, it is discarded when validation fails.
+         * (乐观读，读取期间分段被写入则降级为读锁；读取函数需容忍不一致的数据，校验失败时会被丢弃)
+         *
+         * @param address  start address
+         * @param quantity quantity
+         * @param reader   reader
+         * @param <T>      type of result
+         * @return result
+         */
+        <T> T read(int address, int quantity, Supplier<T> reader) {
+            int first = address >> STRIPE_SHIFT;
+            int last = (address + quantity - 1) >> STRIPE_SHIFT;
+            long[] stamps = new long[last - first + 1];
+            boolean valid = true;
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = this.locks[first + i].tryOptimisticRead();
+                valid &= stamps[i] != 0;
+            }
+            if (valid) {
+                T res = reader.get();
+                for (int i = 0; i < stamps.length && valid; i++) {
+                    valid = this.locks[first + i].validate(stamps[i]);
+                }
+                if (valid) {
+                    return res;
+                }
+            }
+            // 乐观读失败，按升序加读锁
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = this.locks[first + i].readLock();
+            }
+            try {
+                return reader.get();
+            } finally {
+                for (int i = stamps.length - 1; i >= 0; i--) {
+                    this.locks[first + i].unlockRead(stamps[i]);
+                }
+            }
+        }
+
+        /**
+         * Write with the write locks of all stripes, locked in ascending order to avoid deadlock.
+         * (持有所有分段的写锁写入，按升序加锁避免死锁)
+         *
+         * @param address  start address
+         * @param quantity quantity
+         * @param writer   writer
+         */
+        void write(int address, int quantity, Runnable writer) {
+            int first = address >> STRIPE_SHIFT;
+            int last = (address + quantity - 1) >> STRIPE_SHIFT;
+            long[] stamps = new long[last - first + 1];
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = this.locks[first + i].writeLock();
+            }
+            try {
+                writer.run();
+            } finally {
+                for (int i = stamps.length - 1; i >= 0; i--) {
+                    this.locks[first + i].unlockWrite(stamps[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bit area packed in long array.
+     * (按位压缩在long数组中的存储区)
+     */
+    private static class BitArea extends StripedArea {
+
+        private final int size;
+
+        private final long[] bits;
+
+        BitArea(int size) {
+            super(size);
+            this.size = size;
+            this.bits = new long[(size + 63) >> 6];
+        }
+
+        byte[] read(int address, int quantity) {
+            this.checkRange(address, quantity, this.size);
+            return this.read(address, quantity, () -> {
+                byte[] res = new byte[(quantity + 7) >> 3];
+                for (int i = 0; i < res.length; i++) {
+                    res[i] = this.getByte(address + (i << 3));
+                }
+                // 清除超出数量的位
+                if ((quantity & 0x07) != 0) {
+                    res[res.length - 1] &= (byte) ((1 << (quantity & 0x07)) - 1);
+                }
+                return res;
+            });
+        }
+
+        void write(int address, int quantity, byte[] values) {
+            this.checkRange(address, quantity, this.size);
+            if (values.length < (quantity + 7) >> 3) {
+                throw new IllegalArgumentException("values is not enough for quantity");
+            }
+            this.write(address, quantity, () -> {
+                for (int i = 0; i < quantity; i++) {
+                    int index = address + i;
+                    if ((values[i >> 3] & (1 << (i & 0x07))) != 0) {
+                        this.bits[index >> 6] |= 1L << index;
+                    } else {
+                        this.bits[index >> 6] &= ~(1L << index);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Get 8 bits from the index, the bits out of array are 0.
+         * (从索引处获取8个位，超出数组的位为0)
+         *
+         * @param index bit index
+         * @return 8 bits
+         */
+        private byte getByte(int index) {
+            int word = index >> 6;
+            int offset = index & 0x3F;
+            long value = this.bits[word] >>> offset;
+            if (offset > 56 && word + 1 < this.bits.length) {
+                value |= this.bits[word + 1] << (64 - offset);
+            }
+            return (byte) value;
+        }
+    }
+
+    /**
+     * Register area stored in short array.
+     * (存储在short数组中的寄存器区)
+     */
+    private static class RegisterArea extends StripedArea {
+
+        private final short[] registers;
+
+        RegisterArea(int size) {
+            super(size);
+            this.registers = new short[size];
+        }
+
+        byte[] read(int address, int quantity) {
+            this.checkRange(address, quantity, this.registers.length);
+            return this.read(address, quantity, () -> {
+                byte[] res = new byte[quantity * 2];
+                for (int i = 0; i < quantity; i++) {
+                    short value = this.registers[address + i];
+                    res[i * 2] = (byte) (value >> 8);
+                    res[i * 2 + 1] = (byte) value;
+                }
+                return res;
+            });
+        }
+
+        void write(int address, byte[] values) {
+            int quantity = values.length / 2;
+            this.checkRange(address, quantity, this.registers.length);
+            this.write(address, quantity, () -> {
+                for (int i = 0; i < quantity; i++) {
+                    this.registers[address + i] = (short) (((values[i * 2] & 0xFF) << 8) | (values[i * 2 + 1] & 0xFF));
+                }
+            });
+        }
+    }
+}
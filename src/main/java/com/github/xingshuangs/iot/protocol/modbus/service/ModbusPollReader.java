@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.modbus.service;
+
+
+import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.common.buff.EByteBuffFormat;
+import com.github.xingshuangs.iot.common.enums.EDataType;
+import com.github.xingshuangs.iot.common.poll.IPollReader;
+import com.github.xingshuangs.iot.common.poll.PollTag;
+import com.github.xingshuangs.iot.exceptions.ModbusCommException;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Modbus poll reader, bool tags are read from coils, others are read from hold registers,
+ * neighbouring addresses are coalesced into ranged reads when the gap is not greater than the threshold.
+ * The tag address is the decimal coil or register address, such as 100.
+ * (Modbus轮询读取器，bool点位读取线圈，其他点位读取保持寄存器，间隙不超过阀值的相邻地址合并为连续读取；点位地址为十进制线圈或寄存器地址，例如100)
+ *
+ * @author xingshuang
+ */
+@Data
+public class ModbusPollReader implements IPollReader {
+
+    /**
+     * Max coil count of one request.
+     * (单次请求的最大线圈数量)
+     */
+    private static final int MAX_COIL_QUANTITY = 2000;
+
+    /**
+     * Max register count of one request.
+     * (单次请求的最大寄存器数量)
+     */
+    private static final int MAX_REGISTER_QUANTITY = 125;
+
+    /**
+     * Modbus client.
+     * (modbus客户端)
+     */
+    private final ModbusSkeletonAbstract<?, ?> client;
+
+    /**
+     * Max gap of registers when coalescing.
+     * (合并时允许的最大寄存器间隙)
+     */
+    private int registerGap = 8;
+
+    /**
+     * Max gap of coils when coalescing.
+     * (合并时允许的最大线圈间隙)
+     */
+    private int coilGap = 64;
+
+    /**
+     * Little endian or not.
+     * (是否小端模式)
+     */
+    private boolean littleEndian = false;
+
+    /**
+     * Byte format of 4 or 8 bytes data.
+     * (4字节或8字节数据的格式)
+     */
+    private EByteBuffFormat format = EByteBuffFormat.BA_DC;
+
+    public ModbusPollReader(ModbusSkeletonAbstract<?, ?> client) {
+        this.client = client;
+    }
+
+    @Override
+    public List<Object> read(List<PollTag> tags) {
+        Object[] values = new Object[tags.size()];
+        List<int[]> coils = new ArrayList<>();
+        List<int[]> registers = new ArrayList<>();
+        for (int i = 0; i < tags.size(); i++) {
+            PollTag tag = tags.get(i);
+            int address = Integer.parseInt(tag.getAddress().trim());
+            if (tag.getDataType() == EDataType.BOOL) {
+                coils.add(new int[]{i, address, 1});
+            } else {
+                registers.add(new int[]{i, address, (tag.getByteLength() + 1) / 2});
+            }
+        }
+        for (List<int[]> range : this.coalesce(coils, this.coilGap, MAX_COIL_QUANTITY)) {
+            int start = range.get(0)[1];
+            int end = range.stream().mapToInt(x -> x[1] + x[2]).max().orElse(start);
+            List<Boolean> data = this.client.readCoil(start, end - start);
+            range.forEach(x -> values[x[0]] = data.get(x[1] - start));
+        }
+        for (List<int[]> range : this.coalesce(registers, this.registerGap, MAX_REGISTER_QUANTITY)) {
+            int start = range.get(0)[1];
+            int end = range.stream().mapToInt(x -> x[1] + x[2]).max().orElse(start);
+            byte[] data = this.client.readHoldRegister(start, end - start);
+            ByteReadBuff buff = new ByteReadBuff(data, 0, this.littleEndian, this.format);
+            range.forEach(x -> values[x[0]] = tags.get(x[0]).parseValue(buff, (x[1] - start) * 2));
+        }
+        return Arrays.asList(values);
+    }
+
+    /**
+     * Coalesce items into ranges, the item is [index, address, quantity].
+     * (将数据项合并为连续区间，数据项格式为[索引, 地址, 数量])
+     *
+     * @param items       items
+     * @param gap         max gap
+     * @param maxQuantity max quantity of one range
+     * @return ranges
+     */
+    private List<List<int[]>> coalesce(List<int[]> items, int gap, int maxQuantity) {
+        items.sort(Comparator.comparingInt(x -> x[1]));
+        List<List<int[]>> res = new ArrayList<>();
+        List<int[]> range = null;
+        int start = 0;
+        int end = 0;
+        for (int[] item : items) {
+            if (item[2] > maxQuantity) {
+                throw new ModbusCommException("The data length of the poll tag exceeds the limit, address: " + item[1]);
+            }
+            int newEnd = Math.max(end, item[1] + item[2]);
+            if (range == null || item[1] > end + gap || newEnd - start > maxQuantity) {
+                range = new ArrayList<>();
+                res.add(range);
+                start = item[1];
+                newEnd = item[1] + item[2];
+            }
+            range.add(item);
+            end = newEnd;
+        }
+        return res;
+    }
+}
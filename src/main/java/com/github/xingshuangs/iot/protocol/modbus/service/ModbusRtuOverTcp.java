@@ -27,12 +27,16 @@ package com.github.xingshuangs.iot.protocol.modbus.service;
 
 import com.github.xingshuangs.iot.common.constant.GeneralConst;
 import com.github.xingshuangs.iot.exceptions.ModbusCommException;
+import com.github.xingshuangs.iot.net.client.TcpAsyncClientBasic;
 import com.github.xingshuangs.iot.protocol.modbus.model.MbErrorResponse;
 import com.github.xingshuangs.iot.protocol.modbus.model.MbPdu;
 import com.github.xingshuangs.iot.protocol.modbus.model.MbRtuRequest;
 import com.github.xingshuangs.iot.protocol.modbus.model.MbRtuResponse;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
 import static com.github.xingshuangs.iot.common.constant.GeneralConst.LOCALHOST;
 import static com.github.xingshuangs.iot.common.constant.GeneralConst.MODBUS_PORT;
 
@@ -45,6 +49,12 @@ import static com.github.xingshuangs.iot.common.constant.GeneralConst.MODBUS_POR
 @Slf4j
 public class ModbusRtuOverTcp extends ModbusSkeletonAbstract<MbRtuRequest, MbRtuResponse> {
 
+    /**
+     * Response header length, unit id + function code + byte count or exception code.
+     * (响应头长度，站号 + 功能码 + 字节数量或异常码)
+     */
+    private static final int HEADER_LENGTH = 3;
+
     public ModbusRtuOverTcp() {
         this(1, LOCALHOST, MODBUS_PORT);
     }
@@ -76,21 +86,31 @@ public class ModbusRtuOverTcp extends ModbusSkeletonAbstract<MbRtuRequest, MbRtu
         if (this.comCallback != null) {
             this.comCallback.accept(GeneralConst.PACKAGE_REQ, reqBytes);
         }
-        int len;
-        byte[] data = new byte[1024];
+        byte[] total;
         try {
             this.locker.lock();
             this.write(reqBytes);
-            len = this.read(data);
-        }finally {
+            // 先读取站号 + 功能码 + 字节数量(或异常码)，再根据功能码计算剩余长度，只读取一帧，后续的帧留在通道中
+            byte[] header = new byte[HEADER_LENGTH];
+            int len = this.read(header, 0, header.length, true);
+            if (len < HEADER_LENGTH) {
+                // Modbus数据读取长度有误
+                throw new ModbusCommException("The length of Modbus data read is incorrect");
+            }
+            total = new byte[1 + MbPdu.getResponseLength(header, 1) + 2];
+            System.arraycopy(header, 0, total, 0, header.length);
+            len = this.read(total, header.length, total.length - header.length, true);
+            if (len < total.length - header.length) {
+                // Modbus数据读取长度有误
+                throw new ModbusCommException("The length of Modbus data read is incorrect");
+            }
+        } catch (RuntimeException e) {
+            // 帧解析失败时通道中可能残留该帧的剩余数据，标记通道异常，下一次通信重新连接
+            this.socketError.set(true);
+            throw e;
+        } finally {
             this.locker.unlock();
         }
-        if (len <= 0) {
-            // Modbus数据读取长度有误
-            throw new ModbusCommException("The length of Modbus data read is incorrect");
-        }
-        byte[] total = new byte[len];
-        System.arraycopy(data, 0, total, 0, len);
         if (this.comCallback != null) {
             this.comCallback.accept(GeneralConst.PACKAGE_ACK, total);
         }
@@ -129,8 +149,46 @@ public class ModbusRtuOverTcp extends ModbusSkeletonAbstract<MbRtuRequest, MbRtu
         } finally {
             if (!this.persistence) {
                 log.debug("Due to the short connection mode, the communication is triggered to close the connection channel, and the server IP[{}]", this.socketAddress);
-                this.close();
+                this.closeSocket();
+            }
+        }
+    }
+
+    //region 异步数据通信部分
+
+    @Override
+    protected TcpAsyncClientBasic createAsyncClient() {
+        return new ModbusRtuAsyncClient();
+    }
+
+    @Override
+    protected CompletableFuture<MbPdu> readModbusDataAsync(int unitId, MbPdu reqPdu) {
+        MbRtuRequest request = new MbRtuRequest(unitId, reqPdu);
+        return this.getAsyncClient().sendAsync(request.toByteArray(), -1).thenApply(total -> {
+            MbRtuResponse ack = MbRtuResponse.fromBytes(total);
+            this.checkResult(request, ack);
+            return ack.getPdu();
+        });
+    }
+
+    /**
+     * Asynchronous client of modbus rtu over tcp, frames are split by the function code and byte count,
+     * responses are matched in order.
+     * (modbus rtu over tcp异步客户端，根据功能码和字节数量拆分帧，响应按顺序匹配)
+     */
+    private class ModbusRtuAsyncClient extends ModbusAsyncClient {
+
+        @Override
+        protected int getFrameLength(ByteBuffer buffer) {
+            if (buffer.remaining() < HEADER_LENGTH) {
+                return -1;
             }
+            byte[] header = new byte[HEADER_LENGTH];
+            buffer.get(header);
+            // 站号 + PDU + CRC，无法识别的功能码抛出异常，关闭通道
+            return 1 + MbPdu.getResponseLength(header, 1) + 2;
         }
     }
+
+    //endregion
 }
@@ -29,20 +29,27 @@ import com.github.xingshuangs.iot.common.algorithm.LoopGroupAlg;
 import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
 import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.common.buff.EByteBuffFormat;
+import com.github.xingshuangs.iot.net.client.TcpAsyncClientBasic;
 import com.github.xingshuangs.iot.net.client.TcpClientBasic;
 import com.github.xingshuangs.iot.protocol.modbus.model.*;
 import com.github.xingshuangs.iot.utils.BooleanUtil;
 import com.github.xingshuangs.iot.utils.ByteUtil;
+import com.github.xingshuangs.iot.utils.FutureUtil;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 /**
  * Modbus communication basic skeleton, abstract class.
@@ -79,6 +86,14 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
      */
     protected boolean persistence = true;
 
+    /**
+     * Asynchronous client, created when the asynchronous methods are used for the first time, it keeps a long connection.
+     * (异步客户端，首次使用异步方法时创建，保持长连接)
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    protected TcpAsyncClientBasic asyncClient;
+
     public ModbusSkeletonAbstract() {
         super();
     }
@@ -94,11 +109,19 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
             super.connect();
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
 
+    @Override
+    public void close() {
+        super.close();
+        if (this.asyncClient != null) {
+            this.asyncClient.close();
+        }
+    }
+
     //region 底层数据通信部分
 
     /**
@@ -130,6 +153,67 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
      */
     protected abstract MbPdu readModbusData(int unitId, MbPdu reqPdu);
 
+    /**
+     * Read modbus data asynchronously by the asynchronous client.
+     * (通过异步客户端异步读取modbus数据)
+     *
+     * @param unitId unit id or slave id
+     * @param reqPdu request pdu.
+     * @return ack result future
+     */
+    protected abstract CompletableFuture<MbPdu> readModbusDataAsync(int unitId, MbPdu reqPdu);
+
+    /**
+     * Create the asynchronous client, the frames are split according to the protocol.
+     * (创建异步客户端，根据协议拆分帧)
+     *
+     * @return asynchronous client
+     */
+    protected abstract TcpAsyncClientBasic createAsyncClient();
+
+    /**
+     * Get the asynchronous client, create it if not exist.
+     * (获取异步客户端，不存在则创建)
+     *
+     * @return asynchronous client
+     */
+    public synchronized TcpAsyncClientBasic getAsyncClient() {
+        if (this.asyncClient == null) {
+            this.asyncClient = this.createAsyncClient();
+            this.asyncClient.setConnectTimeout(this.connectTimeout);
+            this.asyncClient.setReceiveTimeout(this.receiveTimeout);
+        }
+        return this.asyncClient;
+    }
+
+    /**
+     * Asynchronous client of modbus, the communication callback follows the current one of the owner.
+     * (modbus异步客户端，通信回调跟随所属对象当前的回调)
+     */
+    protected abstract class ModbusAsyncClient extends TcpAsyncClientBasic {
+
+        protected ModbusAsyncClient() {
+            super(ModbusSkeletonAbstract.this.socketAddress.getHostString(), ModbusSkeletonAbstract.this.socketAddress.getPort());
+            this.tag = ModbusSkeletonAbstract.this.tag;
+        }
+
+        @Override
+        public BiConsumer<String, byte[]> getComCallback() {
+            return ModbusSkeletonAbstract.this.comCallback;
+        }
+    }
+
+    /**
+     * Whether the groups of a large request are sent in parallel, if true, the synchronous methods send the groups
+     * by the asynchronous ones and wait for the results.
+     * (大请求拆分的各分组是否并行发送，若是，同步方法通过异步方法发送各分组并等待结果)
+     *
+     * @return true: parallel, false: one by one
+     */
+    protected boolean isGroupParallel() {
+        return false;
+    }
+
     //endregion
 
     //region 线圈和寄存器的读取
@@ -156,6 +240,9 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
      * @return boolean list
      */
     public List<Boolean> readCoil(int unitId, int address, int quantity) {
+        if (this.isGroupParallel()) {
+            return FutureUtil.join(this.readCoilAsync(unitId, address, quantity));
+        }
         if (address < 0 || address > 65535) {
             throw new IllegalArgumentException("address < 0 || address > 65535");
         }
@@ -221,6 +308,10 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
      * @param coilStatus coil status list
      */
     public void writeCoil(int unitId, int address, List<Boolean> coilStatus) {
+        if (this.isGroupParallel()) {
+            FutureUtil.join(this.writeCoilAsync(unitId, address, coilStatus));
+            return;
+        }
         if (address < 0 || address > 65535) {
             throw new IllegalArgumentException("address < 0 || address > 65535");
         }
@@ -258,6 +349,9 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
      * @return boolean list
      */
     public List<Boolean> readDiscreteInput(int unitId, int address, int quantity) {
+        if (this.isGroupParallel()) {
+            return FutureUtil.join(this.readDiscreteInputAsync(unitId, address, quantity));
+        }
         if (address < 0 || address > 65535) {
             throw new IllegalArgumentException("address < 0 || address > 65535");
         }
@@ -297,6 +391,9 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
      * @return byte array
      */
     public byte[] readHoldRegister(int unitId, int address, int quantity) {
+        if (this.isGroupParallel()) {
+            return FutureUtil.join(this.readHoldRegisterAsync(unitId, address, quantity));
+        }
         if (address < 0 || address > 65535) {
             throw new IllegalArgumentException("address < 0 || address > 65535");
         }
@@ -370,6 +467,10 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
      * @param values  value list
      */
     public void writeHoldRegister(int unitId, int address, byte[] values) {
+        if (this.isGroupParallel()) {
+            FutureUtil.join(this.writeHoldRegisterAsync(unitId, address, values));
+            return;
+        }
         if (address < 0 || address > 65535) {
             throw new IllegalArgumentException("address < 0 || address > 65535");
         }
@@ -436,6 +537,9 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
      * @return byte array
      */
     public byte[] readInputRegister(int unitId, int address, int quantity) {
+        if (this.isGroupParallel()) {
+            return FutureUtil.join(this.readInputRegisterAsync(unitId, address, quantity));
+        }
         if (address < 0 || address > 65535) {
             throw new IllegalArgumentException("address < 0 || address > 65535");
         }
@@ -453,6 +557,482 @@ public abstract class ModbusSkeletonAbstract<T, R> extends TcpClientBasic {
     }
     //endregion
 
+    //region 线圈和寄存器的异步读写
+
+    /**
+     * Read coil asynchronously.
+     * (异步读取线圈)
+     *
+     * @param address  modbus address
+     * @param quantity coil quantity
+     * @return boolean list future
+     */
+    public CompletableFuture<List<Boolean>> readCoilAsync(int address, int quantity) {
+        return this.readCoilAsync(this.unitId, address, quantity);
+    }
+
+    /**
+     * Read coil asynchronously, the groups are sent together.
+     * (异步读取线圈，各分组一起发送)
+     *
+     * @param unitId   unit id or slave id
+     * @param address  modbus address
+     * @param quantity coil quantity
+     * @return boolean list future
+     */
+    public CompletableFuture<List<Boolean>> readCoilAsync(int unitId, int address, int quantity) {
+        if (address < 0 || address > 65535) {
+            throw new IllegalArgumentException("address < 0 || address > 65535");
+        }
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity<1");
+        }
+
+        List<CompletableFuture<List<Boolean>>> futures = new ArrayList<>();
+        LoopGroupAlg.loopExecute(quantity, 2000, (off, len) -> {
+            MbReadCoilRequest reqPdu = new MbReadCoilRequest(address + off, len);
+            futures.add(this.readModbusDataAsync(unitId, reqPdu)
+                    .thenApply(x -> BooleanUtil.byteArrayToList(len, ((MbReadCoilResponse) x).getCoilStatus())));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> x.stream().flatMap(List::stream).collect(Collectors.toList()));
+    }
+
+    /**
+     * Write single coil asynchronously.
+     * (异步写单线圈)
+     *
+     * @param address    modbus address
+     * @param coilStatus coil status
+     * @return future
+     */
+    public CompletableFuture<Void> writeCoilAsync(int address, boolean coilStatus) {
+        return this.writeCoilAsync(this.unitId, address, coilStatus);
+    }
+
+    /**
+     * Write single coil asynchronously.
+     * (异步写单线圈)
+     *
+     * @param unitId     unit id or slave id
+     * @param address    modbus address
+     * @param coilStatus coil status
+     * @return future
+     */
+    public CompletableFuture<Void> writeCoilAsync(int unitId, int address, boolean coilStatus) {
+        if (address < 0 || address > 65535) {
+            throw new IllegalArgumentException("address < 0 || address > 65535");
+        }
+
+        MbWriteSingleCoilRequest reqPdu = new MbWriteSingleCoilRequest(address, coilStatus);
+        return this.readModbusDataAsync(unitId, reqPdu).thenApply(x -> null);
+    }
+
+    /**
+     * Write multiple coils asynchronously.
+     * (异步写多线圈)
+     *
+     * @param address    modbus address
+     * @param coilStatus coil status list
+     * @return future
+     */
+    public CompletableFuture<Void> writeCoilAsync(int address, List<Boolean> coilStatus) {
+        return this.writeCoilAsync(this.unitId, address, coilStatus);
+    }
+
+    /**
+     * Write multiple coils asynchronously.
+     * (异步写多线圈)
+     *
+     * @param unitId     unit id or slave id
+     * @param address    modbus address
+     * @param coilStatus coil status list
+     * @return future
+     */
+    public CompletableFuture<Void> writeCoilAsync(int unitId, int address, List<Boolean> coilStatus) {
+        if (address < 0 || address > 65535) {
+            throw new IllegalArgumentException("address < 0 || address > 65535");
+        }
+        if (coilStatus.isEmpty()) {
+            throw new IllegalArgumentException("coilStatus list is empty");
+        }
+
+        List<CompletableFuture<MbPdu>> futures = new ArrayList<>();
+        LoopGroupAlg.loopExecute(coilStatus.size(), 1968, (off, len) -> {
+            List<Boolean> booleanList = coilStatus.subList(off, off + len);
+            byte[] values = BooleanUtil.listToByteArray(booleanList);
+            MbWriteMultipleCoilRequest reqPdu = new MbWriteMultipleCoilRequest(address + off, len, values);
+            futures.add(this.readModbusDataAsync(unitId, reqPdu));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> null);
+    }
+
+    /**
+     * Read discrete input asynchronously.
+     * (异步读取离散输入)
+     *
+     * @param address  modbus address
+     * @param quantity quantity
+     * @return boolean list future
+     */
+    public CompletableFuture<List<Boolean>> readDiscreteInputAsync(int address, int quantity) {
+        return this.readDiscreteInputAsync(this.unitId, address, quantity);
+    }
+
+    /**
+     * Read discrete input asynchronously, the groups are sent together.
+     * (异步读取离散输入，各分组一起发送)
+     *
+     * @param unitId   unit id or slave id
+     * @param address  modbus address
+     * @param quantity quantity
+     * @return boolean list future
+     */
+    public CompletableFuture<List<Boolean>> readDiscreteInputAsync(int unitId, int address, int quantity) {
+        if (address < 0 || address > 65535) {
+            throw new IllegalArgumentException("address < 0 || address > 65535");
+        }
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity<1");
+        }
+
+        List<CompletableFuture<List<Boolean>>> futures = new ArrayList<>();
+        LoopGroupAlg.loopExecute(quantity, 2000, (off, len) -> {
+            MbReadDiscreteInputRequest reqPdu = new MbReadDiscreteInputRequest(address + off, len);
+            futures.add(this.readModbusDataAsync(unitId, reqPdu)
+                    .thenApply(x -> BooleanUtil.byteArrayToList(len, ((MbReadDiscreteInputResponse) x).getInputStatus())));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> x.stream().flatMap(List::stream).collect(Collectors.toList()));
+    }
+
+    /**
+     * Read multiple hold register asynchronously.
+     * (异步读取保持寄存器， modbus 1个寄存器占2个字节)
+     *
+     * @param address  modbus address
+     * @param quantity quantity of register
+     * @return byte array future
+     */
+    public CompletableFuture<byte[]> readHoldRegisterAsync(int address, int quantity) {
+        return this.readHoldRegisterAsync(this.unitId, address, quantity);
+    }
+
+    /**
+     * Read multiple hold register asynchronously, the groups are sent together.
+     * (异步读取保持寄存器，各分组一起发送， modbus 1个寄存器占2个字节)
+     *
+     * @param unitId   unit id or slave id
+     * @param address  modbus address
+     * @param quantity quantity of register
+     * @return byte array future
+     */
+    public CompletableFuture<byte[]> readHoldRegisterAsync(int unitId, int address, int quantity) {
+        if (address < 0 || address > 65535) {
+            throw new IllegalArgumentException("address < 0 || address > 65535");
+        }
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity < 1");
+        }
+
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        LoopGroupAlg.loopExecute(quantity, 125, (off, len) -> {
+            MbReadHoldRegisterRequest reqPdu = new MbReadHoldRegisterRequest(address + off, len);
+            futures.add(this.readModbusDataAsync(unitId, reqPdu).thenApply(x -> ((MbReadHoldRegisterResponse) x).getRegister()));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> {
+            ByteWriteBuff buff = ByteWriteBuff.newInstance(quantity * 2);
+            x.forEach(buff::putBytes);
+            return buff.getData();
+        });
+    }
+
+    /**
+     * Write single hold register asynchronously.
+     * (以数值形式异步写入单个保持寄存器， modbus 1个寄存器占2个字节)
+     *
+     * @param address modbus address
+     * @param value   value, 2 bytes
+     * @return future
+     */
+    public CompletableFuture<Void> writeHoldRegisterAsync(int address, int value) {
+        return this.writeHoldRegisterAsync(this.unitId, address, value);
+    }
+
+    /**
+     * Write single hold register asynchronously.
+     * (以数值形式异步写入单个保持寄存器， modbus 1个寄存器占2个字节)
+     *
+     * @param unitId  unit id or slave id
+     * @param address modbus address
+     * @param value   value, 2 bytes
+     * @return future
+     */
+    public CompletableFuture<Void> writeHoldRegisterAsync(int unitId, int address, int value) {
+        if (address < 0 || address > 65535) {
+            throw new IllegalArgumentException("address < 0 || address > 65535");
+        }
+        if (value < 0 || value > 65535) {
+            throw new IllegalArgumentException("value < 0 || value > 65535");
+        }
+
+        MbWriteSingleRegisterRequest reqPdu = new MbWriteSingleRegisterRequest(address, value);
+        return this.readModbusDataAsync(unitId, reqPdu).thenApply(x -> null);
+    }
+
+    /**
+     * Write multiple hold register asynchronously.
+     * (以byte array形式异步写入保持寄存器， modbus 1个寄存器占2个字节)
+     *
+     * @param address modbus address
+     * @param values  value list
+     * @return future
+     */
+    public CompletableFuture<Void> writeHoldRegisterAsync(int address, byte[] values) {
+        return this.writeHoldRegisterAsync(this.unitId, address, values);
+    }
+
+    /**
+     * Write multiple hold register asynchronously, the groups are sent together.
+     * (以byte array形式异步写入保持寄存器，各分组一起发送， modbus 1个寄存器占2个字节)
+     *
+     * @param unitId  unit id or slave id
+     * @param address modbus address
+     * @param values  value list
+     * @return future
+     */
+    public CompletableFuture<Void> writeHoldRegisterAsync(int unitId, int address, byte[] values) {
+        if (address < 0 || address > 65535) {
+            throw new IllegalArgumentException("address < 0 || address > 65535");
+        }
+        if (values.length % 2 != 0) {
+            throw new IllegalArgumentException("values must have an even length");
+        }
+
+        List<CompletableFuture<MbPdu>> futures = new ArrayList<>();
+        ByteReadBuff buff = ByteReadBuff.newInstance(values);
+        LoopGroupAlg.loopExecute(values.length / 2, 123, (off, len) -> {
+            byte[] bytes = buff.getBytes(off * 2, len * 2);
+            MbWriteMultipleRegisterRequest reqPdu = new MbWriteMultipleRegisterRequest(address + off, len, bytes);
+            futures.add(this.readModbusDataAsync(unitId, reqPdu));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> null);
+    }
+
+    /**
+     * Read multiple input register asynchronously.
+     * (异步读取输入寄存器， modbus 1个寄存器占2个字节)
+     *
+     * @param address  modbus address
+     * @param quantity register quantity
+     * @return byte array future
+     */
+    public CompletableFuture<byte[]> readInputRegisterAsync(int address, int quantity) {
+        return this.readInputRegisterAsync(this.unitId, address, quantity);
+    }
+
+    /**
+     * Read multiple input register asynchronously, the groups are sent together.
+     * (异步读取输入寄存器，各分组一起发送， modbus 1个寄存器占2个字节)
+     *
+     * @param unitId   unit id or slave id
+     * @param address  modbus address
+     * @param quantity register quantity
+     * @return byte array future
+     */
+    public CompletableFuture<byte[]> readInputRegisterAsync(int unitId, int address, int quantity) {
+        if (address < 0 || address > 65535) {
+            throw new IllegalArgumentException("address < 0 || address > 65535");
+        }
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity < 1");
+        }
+
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        LoopGroupAlg.loopExecute(quantity, 125, (off, len) -> {
+            MbReadInputRegisterRequest reqPdu = new MbReadInputRegisterRequest(address + off, len);
+            futures.add(this.readModbusDataAsync(unitId, reqPdu).thenApply(x -> ((MbReadInputRegisterResponse) x).getRegister()));
+        });
+        return FutureUtil.allOf(futures).thenApply(x -> {
+            ByteWriteBuff buff = ByteWriteBuff.newInstance(quantity * 2);
+            x.forEach(buff::putBytes);
+            return buff.getData();
+        });
+    }
+
+    /**
+     * Read Int16 from hold register asynchronously. Big endian default.
+     * (异步读取一个Int16 2字节数据，默认大端模式)
+     *
+     * @param address modbus address
+     * @return Int16 data future, 2 bytes
+     */
+    public CompletableFuture<Short> readInt16Async(int address) {
+        return this.readInt16Async(this.unitId, address, false);
+    }
+
+    /**
+     * Read Int16 from hold register asynchronously.
+     * (异步读取一个Int16 2字节数据)
+     *
+     * @param unitId       unit id or slave id
+     * @param address      modbus address
+     * @param littleEndian is little endian, true: yes, false: no.
+     * @return Int16 data future, 2 bytes
+     */
+    public CompletableFuture<Short> readInt16Async(int unitId, int address, boolean littleEndian) {
+        return this.readHoldRegisterAsync(unitId, address, 1).thenApply(x -> ByteReadBuff.newInstance(x, littleEndian).getInt16());
+    }
+
+    /**
+     * Read UInt16 from hold register asynchronously. Big endian default.
+     * (异步读取一个UInt16 2字节数据，默认大端模式)
+     *
+     * @param address modbus address
+     * @return UInt16 data future, 2 bytes
+     */
+    public CompletableFuture<Integer> readUInt16Async(int address) {
+        return this.readUInt16Async(this.unitId, address, false);
+    }
+
+    /**
+     * Read UInt16 from hold register asynchronously.
+     * (异步读取一个UInt16 2字节数据)
+     *
+     * @param unitId       unit id or slave id
+     * @param address      modbus address
+     * @param littleEndian is little endian, true: yes, false: no.
+     * @return UInt16 data future, 2 bytes
+     */
+    public CompletableFuture<Integer> readUInt16Async(int unitId, int address, boolean littleEndian) {
+        return this.readHoldRegisterAsync(unitId, address, 1).thenApply(x -> ByteReadBuff.newInstance(x, littleEndian).getUInt16());
+    }
+
+    /**
+     * Read Int32 from hold register asynchronously. BA_DC default.
+     * (异步读取一个Int32 4字节数据，默认BA_DC格式)
+     *
+     * @param address modbus address
+     * @return Int32 data future, 4 bytes
+     */
+    public CompletableFuture<Integer> readInt32Async(int address) {
+        return this.readInt32Async(this.unitId, address, false, EByteBuffFormat.BA_DC);
+    }
+
+    /**
+     * Read Int32 from hold register asynchronously.
+     * (异步读取一个Int32 4字节数据)
+     *
+     * @param unitId       unit id or slave id
+     * @param address      modbus address
+     * @param littleEndian is little endian, true: yes, false: no.
+     * @param format       format of 4 bytes
+     * @return Int32 data future, 4 bytes
+     */
+    public CompletableFuture<Integer> readInt32Async(int unitId, int address, boolean littleEndian, EByteBuffFormat format) {
+        return this.readHoldRegisterAsync(unitId, address, 2).thenApply(x -> ByteReadBuff.newInstance(x, 0, littleEndian, format).getInt32());
+    }
+
+    /**
+     * Read UInt32 from hold register asynchronously. BA_DC default.
+     * (异步读取一个UInt32 4字节数据，默认BA_DC格式)
+     *
+     * @param address modbus address
+     * @return UInt32 data future, 4 bytes
+     */
+    public CompletableFuture<Long> readUInt32Async(int address) {
+        return this.readUInt32Async(this.unitId, address, false, EByteBuffFormat.BA_DC);
+    }
+
+    /**
+     * Read UInt32 from hold register asynchronously.
+     * (异步读取一个UInt32 4字节数据)
+     *
+     * @param unitId       unit id or slave id
+     * @param address      modbus address
+     * @param littleEndian is little endian, true: yes, false: no.
+     * @param format       format of 4 bytes
+     * @return UInt32 data future, 4 bytes
+     */
+    public CompletableFuture<Long> readUInt32Async(int unitId, int address, boolean littleEndian, EByteBuffFormat format) {
+        return this.readHoldRegisterAsync(unitId, address, 2).thenApply(x -> ByteReadBuff.newInstance(x, 0, littleEndian, format).getUInt32());
+    }
+
+    /**
+     * Read Int64 from hold register asynchronously. BA_DC default.
+     * (异步读取一个Int64 8字节数据，默认BA_DC格式)
+     *
+     * @param address modbus address
+     * @return Int64 data future, 8 bytes
+     */
+    public CompletableFuture<Long> readInt64Async(int address) {
+        return this.readInt64Async(this.unitId, address, false, EByteBuffFormat.BA_DC);
+    }
+
+    /**
+     * Read Int64 from hold register asynchronously.
+     * (异步读取一个Int64 8字节数据)
+     *
+     * @param unitId       unit id or slave id
+     * @param address      modbus address
+     * @param littleEndian is little endian, true: yes, false: no.
+     * @param format       format of 8 bytes
+     * @return Int64 data future, 8 bytes
+     */
+    public CompletableFuture<Long> readInt64Async(int unitId, int address, boolean littleEndian, EByteBuffFormat format) {
+        return this.readHoldRegisterAsync(unitId, address, 4).thenApply(x -> ByteReadBuff.newInstance(x, 0, littleEndian, format).getInt64());
+    }
+
+    /**
+     * Read Float32 from hold register asynchronously. BA_DC default.
+     * (异步读取一个Float32 4字节数据，默认BA_DC格式)
+     *
+     * @param address modbus address
+     * @return Float32 data future, 4 bytes
+     */
+    public CompletableFuture<Float> readFloat32Async(int address) {
+        return this.readFloat32Async(this.unitId, address, false, EByteBuffFormat.BA_DC);
+    }
+
+    /**
+     * Read Float32 from hold register asynchronously.
+     * (异步读取一个Float32 4字节数据)
+     *
+     * @param unitId       unit id or slave id
+     * @param address      modbus address
+     * @param littleEndian is little endian, true: yes, false: no.
+     * @param format       format of 4 bytes
+     * @return Float32 data future, 4 bytes
+     */
+    public CompletableFuture<Float> readFloat32Async(int unitId, int address, boolean littleEndian, EByteBuffFormat format) {
+        return this.readHoldRegisterAsync(unitId, address, 2).thenApply(x -> ByteReadBuff.newInstance(x, 0, littleEndian, format).getFloat32());
+    }
+
+    /**
+     * Read Float64 from hold register asynchronously. BA_DC default.
+     * (异步读取一个Float64 8字节数据，默认BA_DC格式)
+     *
+     * @param address modbus address
+     * @return Float64 data future, 8 bytes
+     */
+    public CompletableFuture<Double> readFloat64Async(int address) {
+        return this.readFloat64Async(this.unitId, address, false, EByteBuffFormat.BA_DC);
+    }
+
+    /**
+     * Read Float64 from hold register asynchronously.
+     * (异步读取一个Float64 8字节数据)
+     *
+     * @param unitId       unit id or slave id
+     * @param address      modbus address
+     * @param littleEndian is little endian, true: yes, false: no.
+     * @param format       format of 8 bytes
+     * @return Float64 data future, 8 bytes
+     */
+    public CompletableFuture<Double> readFloat64Async(int unitId, int address, boolean littleEndian, EByteBuffFormat format) {
+        return this.readHoldRegisterAsync(unitId, address, 4).thenApply(x -> ByteReadBuff.newInstance(x, 0, littleEndian, format).getFloat64());
+    }
+
+    //endregion
+
     //region 通用保持寄存器 读取数据
 
     /**
@@ -27,9 +27,15 @@ package com.github.xingshuangs.iot.protocol.modbus.service;
 
 import com.github.xingshuangs.iot.common.constant.GeneralConst;
 import com.github.xingshuangs.iot.exceptions.ModbusCommException;
+import com.github.xingshuangs.iot.net.client.TcpAsyncClientBasic;
 import com.github.xingshuangs.iot.protocol.modbus.model.*;
+import com.github.xingshuangs.iot.utils.FutureUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.github.xingshuangs.iot.common.constant.GeneralConst.LOCALHOST;
 import static com.github.xingshuangs.iot.common.constant.GeneralConst.MODBUS_PORT;
 
@@ -42,6 +48,32 @@ import static com.github.xingshuangs.iot.common.constant.GeneralConst.MODBUS_POR
 @Slf4j
 public class ModbusTcp extends ModbusSkeletonAbstract<MbTcpRequest, MbTcpResponse> {
 
+    /**
+     * Transaction id allocator of this connection.
+     * (本连接的事务标识分配器)
+     */
+    private final AtomicInteger transactionIndex = new AtomicInteger();
+
+    /**
+     * Default max number of requests in flight in multiplexed mode.
+     * (多路复用模式下默认同时在途的最大请求数量)
+     */
+    public static final int DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT = 8;
+
+    /**
+     * Multiplexed mode, requests of all threads share the asynchronous connection and are matched by transaction id,
+     * the groups of a large request are sent in parallel, short connection is not supported in this mode.
+     * (多路复用模式，所有线程的请求共享异步连接并根据事务标识匹配，大请求拆分的各分组并行发送，该模式不支持短连接)
+     */
+    private boolean multiplexed = false;
+
+    /**
+     * Max number of requests in flight on the asynchronous connection, 1 means one by one, 0 means not set, then it is
+     * DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT in multiplexed mode, otherwise 1.
+     * (异步连接上同时在途的最大请求数量，1表示逐个发送，0表示未设置，此时多路复用模式下为DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT，否则为1)
+     */
+    private int maxInFlight = 0;
+
     public ModbusTcp() {
         this(1, LOCALHOST, MODBUS_PORT);
     }
@@ -67,6 +99,46 @@ public class ModbusTcp extends ModbusSkeletonAbstract<MbTcpRequest, MbTcpRespons
         this.tag = "ModbusTcp";
     }
 
+    public boolean isMultiplexed() {
+        return multiplexed;
+    }
+
+    /**
+     * Set the multiplexed mode, the max number of requests in flight is DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT if not set.
+     * (设置多路复用模式，未设置同时在途的最大请求数量时为DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT)
+     *
+     * @param multiplexed multiplexed or not
+     */
+    public synchronized void setMultiplexed(boolean multiplexed) {
+        this.multiplexed = multiplexed;
+        if (this.asyncClient != null) {
+            this.asyncClient.setMaxInFlight(this.getMaxInFlight());
+        }
+    }
+
+    /**
+     * Get the max number of requests in flight actually used.
+     * (获取实际使用的同时在途的最大请求数量)
+     *
+     * @return max number of requests in flight
+     */
+    public int getMaxInFlight() {
+        if (this.maxInFlight > 0) {
+            return this.maxInFlight;
+        }
+        return this.multiplexed ? DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT : 1;
+    }
+
+    public synchronized void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight < 1");
+        }
+        this.maxInFlight = maxInFlight;
+        if (this.asyncClient != null) {
+            this.asyncClient.setMaxInFlight(this.getMaxInFlight());
+        }
+    }
+
     //region 底层数据通信部分
 
     /**
@@ -151,18 +223,92 @@ public class ModbusTcp extends ModbusSkeletonAbstract<MbTcpRequest, MbTcpRespons
      */
     @Override
     protected MbPdu readModbusData(int unitId, MbPdu reqPdu) {
-        MbTcpRequest request = MbTcpRequest.createDefault();
-        request.getHeader().setUnitId(unitId);
-        request.setPdu(reqPdu);
-        request.selfCheck();
+        if (this.multiplexed) {
+            return FutureUtil.join(this.readModbusDataAsync(unitId, reqPdu));
+        }
+        MbTcpRequest request = this.createRequest(unitId, reqPdu);
         try {
             MbTcpResponse response = this.readFromServer(request);
             return response.getPdu();
         } finally {
             if (!this.persistence) {
                 log.debug("Due to the short connection mode, the communication is triggered to close the connection channel, and the server IP[{}]", this.socketAddress);
-                this.close();
+                this.closeSocket();
             }
         }
     }
+
+    /**
+     * Create request with the transaction id of this connection.
+     * (使用本连接的事务标识创建请求)
+     *
+     * @param unitId unit id or slave id
+     * @param reqPdu request pdu
+     * @return request
+     */
+    private MbTcpRequest createRequest(int unitId, MbPdu reqPdu) {
+        MbTcpRequest request = MbTcpRequest.createDefault(this.transactionIndex.getAndIncrement() & 0xFFFF);
+        request.getHeader().setUnitId(unitId);
+        request.setPdu(reqPdu);
+        request.selfCheck();
+        return request;
+    }
+
+    @Override
+    protected boolean isGroupParallel() {
+        return this.multiplexed;
+    }
+
+    //region 异步数据通信部分
+
+    @Override
+    protected TcpAsyncClientBasic createAsyncClient() {
+        ModbusTcpAsyncClient client = new ModbusTcpAsyncClient();
+        client.setMaxInFlight(this.getMaxInFlight());
+        return client;
+    }
+
+    /**
+     * Read data from server asynchronously, the response is matched by transaction id.
+     * (异步从服务器读取数据，根据事务标识匹配响应)
+     *
+     * @param req request data
+     * @return response data future
+     */
+    protected CompletableFuture<MbTcpResponse> readFromServerAsync(MbTcpRequest req) {
+        return this.getAsyncClient().sendAsync(req.toByteArray(), req.getHeader().getTransactionId()).thenApply(total -> {
+            MbTcpResponse ack = MbTcpResponse.fromBytes(total);
+            this.checkResult(req, ack);
+            return ack;
+        });
+    }
+
+    @Override
+    protected CompletableFuture<MbPdu> readModbusDataAsync(int unitId, MbPdu reqPdu) {
+        MbTcpRequest request = this.createRequest(unitId, reqPdu);
+        return this.readFromServerAsync(request).thenApply(MbTcpResponse::getPdu);
+    }
+
+    /**
+     * Asynchronous client of modbus tcp, frames are split by the length of MBAP header.
+     * (modbus tcp异步客户端，根据MBAP头的长度拆分帧)
+     */
+    private class ModbusTcpAsyncClient extends ModbusAsyncClient {
+
+        @Override
+        protected int getFrameLength(ByteBuffer buffer) {
+            // 长度字段包含unitId和PDU，6=2(transactionId)+2(protocolId)+2(length)
+            if (buffer.remaining() < MbapHeader.BYTE_LENGTH - 1) {
+                return -1;
+            }
+            return MbapHeader.BYTE_LENGTH - 1 + (buffer.getShort(4) & 0xFFFF);
+        }
+
+        @Override
+        protected int getFrameKey(byte[] frame) {
+            return ((frame[0] & 0xFF) << 8) | (frame[1] & 0xFF);
+        }
+    }
+
+    //endregion
 }
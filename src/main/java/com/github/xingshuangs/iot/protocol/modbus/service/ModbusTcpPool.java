@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.modbus.service;
+
+
+import com.github.xingshuangs.iot.common.pool.ClientPool;
+import com.github.xingshuangs.iot.common.pool.ClientPoolConfig;
+
+import java.util.function.Supplier;
+
+import static com.github.xingshuangs.iot.common.constant.GeneralConst.MODBUS_PORT;
+
+/**
+ * Modbus tcp client pool, the probe reads one hold register (FC03) of the probe address, it is 0 by default.
+ * (Modbus tcp客户端连接池，探活读取探活地址的一个保持寄存器（FC03），默认地址为0)
+ *
+ * @author xingshuang
+ */
+public class ModbusTcpPool extends ClientPool<ModbusTcp> {
+
+    public ModbusTcpPool(String ip) {
+        this(1, ip, MODBUS_PORT, new ClientPoolConfig());
+    }
+
+    public ModbusTcpPool(int unitId, String ip, int port, ClientPoolConfig config) {
+        this(config, () -> new ModbusTcp(unitId, ip, port), 0);
+    }
+
+    public ModbusTcpPool(ClientPoolConfig config, Supplier<ModbusTcp> creator, int probeAddress) {
+        super(config, () -> {
+            ModbusTcp modbusTcp = creator.get();
+            modbusTcp.setPersistence(true);
+            return modbusTcp;
+        }, modbusTcp -> modbusTcp.readHoldRegister(probeAddress, 1));
+    }
+}
@@ -25,29 +25,19 @@
 package com.github.xingshuangs.iot.protocol.modbus.service;
 
 
-import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
-import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
-import com.github.xingshuangs.iot.net.SocketUtils;
-import com.github.xingshuangs.iot.net.server.TcpServerBasic;
+import com.github.xingshuangs.iot.net.server.NioClientSession;
+import com.github.xingshuangs.iot.net.server.TcpNioServerBasic;
 import com.github.xingshuangs.iot.protocol.modbus.enums.EMbExceptionCode;
 import com.github.xingshuangs.iot.protocol.modbus.enums.EMbFunctionCode;
 import com.github.xingshuangs.iot.protocol.modbus.model.*;
-import com.github.xingshuangs.iot.utils.BooleanUtil;
 import com.github.xingshuangs.iot.utils.HexUtil;
-import com.github.xingshuangs.iot.utils.ShortUtil;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.Socket;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Modbus tcp server, ignore unitId.
@@ -58,38 +48,13 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Slf4j
-public class ModbusTcpServer extends TcpServerBasic {
+public class ModbusTcpServer extends TcpNioServerBasic {
 
     /**
-     * Read and write lock.
-     * (读写锁)
+     * Data store of coils, discrete inputs, input registers and hold registers.
+     * (线圈，离散量输入，输入寄存器和保持寄存器的数据存储)
      */
-    private ReadWriteLock rwLock = new ReentrantReadWriteLock();
-
-    /**
-     * Coil data.
-     * (线圈)
-     */
-    private List<Boolean> coils = new ArrayList<>();
-
-    /**
-     * Discrete input data.
-     * (离散量输入)
-     */
-    private List<Boolean> discreteInputs = new ArrayList<>();
-
-
-    /**
-     * Input register data.
-     * (输入寄存器)
-     */
-    private byte[] inputRegisters;
-
-    /**
-     * Hold register data.
-     * (保持寄存器)
-     */
-    private byte[] holdRegisters;
+    private ModbusDataStore dataStore;
 
     /**
      * current connected client number.
@@ -113,24 +78,19 @@ public class ModbusTcpServer extends TcpServerBasic {
 
     public ModbusTcpServer(int port, int size) {
         this.port = port;
-        for (int i = 0; i < size; i++) {
-            this.coils.add(false);
-            this.discreteInputs.add(false);
-        }
-        this.inputRegisters = new byte[size * 2];
-        this.holdRegisters = new byte[size * 2];
-        this.maxAvailableNumber = Runtime.getRuntime().availableProcessors();
+        this.dataStore = new ModbusDataStore(size);
+        this.maxAvailableNumber = 4096;
     }
 
     /**
      * Is the client valid.
      * (校验客户端是否允许连入)
      *
-     * @param client client socket.
+     * @param client client socket channel.
      * @return true: check success，false：check failed.
      */
     @Override
-    protected boolean checkClientValid(Socket client) {
+    protected boolean checkClientValid(SocketChannel client) {
         return this.connectedNumber.get() < this.maxAvailableNumber;
     }
 
@@ -138,10 +98,10 @@ public class ModbusTcpServer extends TcpServerBasic {
      * Client connected.
      * (客户端连入)
      *
-     * @param socket client socket.
+     * @param session client session.
      */
     @Override
-    protected void clientConnected(Socket socket) {
+    protected void clientConnected(NioClientSession session) {
         this.connectedNumber.getAndIncrement();
     }
 
@@ -149,16 +109,31 @@ public class ModbusTcpServer extends TcpServerBasic {
      * Client disconnected.
      * (客户端断开)
      *
-     * @param socket client socket.
+     * @param session client session.
      */
     @Override
-    protected void clientDisconnected(Socket socket) {
+    protected void clientDisconnected(NioClientSession session) {
         this.connectedNumber.getAndDecrement();
     }
 
+    /**
+     * Get frame length from MBAP header, the length field counts the unit id and pdu.
+     * (根据MBAP头获取帧长度，长度字段包含单元标识符和pdu)
+     *
+     * @param buffer data buffer
+     * @return total frame length, -1: need more data
+     */
+    @Override
+    protected int getFrameLength(ByteBuffer buffer) {
+        if (buffer.remaining() < MbapHeader.BYTE_LENGTH - 1) {
+            return -1;
+        }
+        return MbapHeader.BYTE_LENGTH - 1 + (buffer.getShort(4) & 0xFFFF);
+    }
+
     @Override
-    protected void doClientHandle(Socket socket) {
-        MbTcpRequest request = this.readModbusDataFromClient(socket);
+    protected void doClientHandle(NioClientSession session, byte[] data) {
+        MbTcpRequest request = MbTcpRequest.fromBytes(data);
         MbTcpResponse response;
         try {
             switch (request.getPdu().getFunctionCode()) {
@@ -191,53 +166,11 @@ public class ModbusTcpServer extends TcpServerBasic {
                     response = new MbTcpResponse(request.getHeader(), new MbErrorResponse(errorFunctionCode, EMbExceptionCode.ILLEGAL_FUNCTION));
                     break;
             }
-            this.write(socket, response.toByteArray());
+            this.write(session, response.toByteArray());
         } catch (Exception e) {
             EMbFunctionCode errorFunctionCode = EMbFunctionCode.from((byte) (request.getPdu().getFunctionCode().getCode() | ((byte) 0x80)));
             response = new MbTcpResponse(request.getHeader(), new MbErrorResponse(errorFunctionCode, EMbExceptionCode.SLAVE_DEVICE_FAILURE));
-            this.write(socket, response.toByteArray());
-        }
-    }
-
-    /**
-     * Read modbus data from client.
-     * (读取Modbus协议的数据)
-     *
-     * @param socket client socket
-     * @return MbTcpRequest
-     */
-    private MbTcpRequest readModbusDataFromClient(Socket socket) {
-        byte[] data = this.readClientData(socket);
-        return MbTcpRequest.fromBytes(data);
-    }
-
-    /**
-     * Override read client data function.
-     * (重写读取客户端数据，针对粘包粘包的数据处理)
-     *
-     * @param socket client socket.
-     * @return byte array
-     */
-    @Override
-    protected byte[] readClientData(Socket socket) {
-        try {
-            InputStream in = socket.getInputStream();
-            int firstByte = in.read();
-            if (firstByte == -1) {
-                SocketUtils.close(socket);
-                throw new SocketRuntimeException("The client is disconnected.");
-            }
-
-            byte[] headerBytes = new byte[MbapHeader.BYTE_LENGTH];
-            headerBytes[0] = (byte) firstByte;
-            this.read(socket, headerBytes, 1, MbapHeader.BYTE_LENGTH - 1, 1024, 0, true);
-            MbapHeader header = MbapHeader.fromBytes(headerBytes);
-            byte[] total = new byte[headerBytes.length + header.getLength() - 1];
-            System.arraycopy(headerBytes, 0, total, 0, headerBytes.length);
-            this.read(socket, total, headerBytes.length, header.getLength() - 1, 1024, 0, true);
-            return total;
-        } catch (IOException e) {
-            throw new SocketRuntimeException(e);
+            this.write(session, response.toByteArray());
         }
     }
 
@@ -251,23 +184,14 @@ public class ModbusTcpServer extends TcpServerBasic {
     private MbTcpResponse readCoil(MbTcpRequest request) {
         MbReadCoilRequest reqPdu = (MbReadCoilRequest) request.getPdu();
         log.debug("[READ_COIL] address[{}], quantity[{}]", reqPdu.getAddress(), reqPdu.getQuantity());
-        if (reqPdu.getQuantity() < 1 || reqPdu.getQuantity() > this.coils.size()) {
+        if (reqPdu.getQuantity() < 1 || reqPdu.getQuantity() > this.dataStore.getSize()) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_READ_COIL, EMbExceptionCode.ILLEGAL_DATA_VALUE));
         }
-        if (reqPdu.getAddress() < 0
-                || reqPdu.getAddress() > this.coils.size() - 1
-                || reqPdu.getAddress() + reqPdu.getQuantity() > this.coils.size() - 1) {
+        if (!this.dataStore.checkRange(reqPdu.getAddress(), reqPdu.getQuantity())) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_READ_COIL, EMbExceptionCode.ILLEGAL_DATA_ADDRESS));
         }
 
-        byte[] bytes;
-        try {
-            this.rwLock.readLock().lock();
-            List<Boolean> booleans = this.coils.subList(reqPdu.getAddress(), reqPdu.getAddress() + reqPdu.getQuantity());
-            bytes = BooleanUtil.listToByteArray(booleans);
-        } finally {
-            this.rwLock.readLock().unlock();
-        }
+        byte[] bytes = this.dataStore.readCoils(reqPdu.getAddress(), reqPdu.getQuantity());
 
         MbReadCoilResponse ackPdu = new MbReadCoilResponse();
         ackPdu.setCount(bytes.length);
@@ -285,23 +209,14 @@ public class ModbusTcpServer extends TcpServerBasic {
     private MbTcpResponse readDiscreteInput(MbTcpRequest request) {
         MbReadDiscreteInputRequest reqPdu = (MbReadDiscreteInputRequest) request.getPdu();
         log.debug("[READ_DISCRETE_INPUT] address[{}], quantity[{}]", reqPdu.getAddress(), reqPdu.getQuantity());
-        if (reqPdu.getQuantity() < 1 || reqPdu.getQuantity() > this.discreteInputs.size()) {
+        if (reqPdu.getQuantity() < 1 || reqPdu.getQuantity() > this.dataStore.getSize()) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_READ_DISCRETE_INPUT, EMbExceptionCode.ILLEGAL_DATA_VALUE));
         }
-        if (reqPdu.getAddress() < 0
-                || reqPdu.getAddress() > this.discreteInputs.size() - 1
-                || reqPdu.getAddress() + reqPdu.getQuantity() > this.discreteInputs.size() - 1) {
+        if (!this.dataStore.checkRange(reqPdu.getAddress(), reqPdu.getQuantity())) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_READ_DISCRETE_INPUT, EMbExceptionCode.ILLEGAL_DATA_ADDRESS));
         }
 
-        byte[] bytes;
-        try {
-            this.rwLock.readLock().lock();
-            List<Boolean> booleans = this.discreteInputs.subList(reqPdu.getAddress(), reqPdu.getAddress() + reqPdu.getQuantity());
-            bytes = BooleanUtil.listToByteArray(booleans);
-        } finally {
-            this.rwLock.readLock().unlock();
-        }
+        byte[] bytes = this.dataStore.readDiscreteInputs(reqPdu.getAddress(), reqPdu.getQuantity());
 
         MbReadDiscreteInputResponse ackPdu = new MbReadDiscreteInputResponse();
         ackPdu.setCount(bytes.length);
@@ -319,23 +234,14 @@ public class ModbusTcpServer extends TcpServerBasic {
     private MbTcpResponse readHoldRegister(MbTcpRequest request) {
         MbReadHoldRegisterRequest reqPdu = (MbReadHoldRegisterRequest) request.getPdu();
         log.debug("[READ_HOLD_REGISTER] address[{}], quantity[{}]", reqPdu.getAddress(), reqPdu.getQuantity());
-        if (reqPdu.getQuantity() < 1 || reqPdu.getQuantity() > (this.holdRegisters.length / 2)) {
+        if (reqPdu.getQuantity() < 1 || reqPdu.getQuantity() > this.dataStore.getSize()) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_READ_HOLD_REGISTER, EMbExceptionCode.ILLEGAL_DATA_VALUE));
         }
-        if (reqPdu.getAddress() < 0
-                || reqPdu.getAddress() > (this.holdRegisters.length / 2) - 1
-                || reqPdu.getAddress() + reqPdu.getQuantity() > (this.holdRegisters.length / 2) - 1) {
+        if (!this.dataStore.checkRange(reqPdu.getAddress(), reqPdu.getQuantity())) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_READ_HOLD_REGISTER, EMbExceptionCode.ILLEGAL_DATA_ADDRESS));
         }
 
-        byte[] bytes;
-        try {
-            this.rwLock.readLock().lock();
-            ByteReadBuff buff = ByteReadBuff.newInstance(this.holdRegisters);
-            bytes = buff.getBytes(reqPdu.getAddress() * 2, reqPdu.getQuantity() * 2);
-        } finally {
-            this.rwLock.readLock().unlock();
-        }
+        byte[] bytes = this.dataStore.readHoldRegisters(reqPdu.getAddress(), reqPdu.getQuantity());
 
         MbReadHoldRegisterResponse ackPdu = new MbReadHoldRegisterResponse();
         ackPdu.setCount(bytes.length);
@@ -353,23 +259,14 @@ public class ModbusTcpServer extends TcpServerBasic {
     private MbTcpResponse readInputRegister(MbTcpRequest request) {
         MbReadInputRegisterRequest reqPdu = (MbReadInputRegisterRequest) request.getPdu();
         log.debug("[READ_INPUT_REGISTER] address[{}], quantity[{}]", reqPdu.getAddress(), reqPdu.getQuantity());
-        if (reqPdu.getQuantity() < 1 || reqPdu.getQuantity() > (this.inputRegisters.length / 2)) {
+        if (reqPdu.getQuantity() < 1 || reqPdu.getQuantity() > this.dataStore.getSize()) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_READ_INPUT_REGISTER, EMbExceptionCode.ILLEGAL_DATA_VALUE));
         }
-        if (reqPdu.getAddress() < 0
-                || reqPdu.getAddress() > (this.inputRegisters.length / 2) - 1
-                || reqPdu.getAddress() + reqPdu.getQuantity() > (this.inputRegisters.length / 2) - 1) {
+        if (!this.dataStore.checkRange(reqPdu.getAddress(), reqPdu.getQuantity())) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_READ_INPUT_REGISTER, EMbExceptionCode.ILLEGAL_DATA_ADDRESS));
         }
 
-        byte[] bytes;
-        try {
-            this.rwLock.readLock().lock();
-            ByteReadBuff buff = ByteReadBuff.newInstance(this.inputRegisters);
-            bytes = buff.getBytes(reqPdu.getAddress() * 2, reqPdu.getQuantity() * 2);
-        } finally {
-            this.rwLock.readLock().unlock();
-        }
+        byte[] bytes = this.dataStore.readInputRegisters(reqPdu.getAddress(), reqPdu.getQuantity());
 
         MbReadInputRegisterResponse ackPdu = new MbReadInputRegisterResponse();
         ackPdu.setCount(bytes.length);
@@ -388,16 +285,11 @@ public class ModbusTcpServer extends TcpServerBasic {
         MbWriteSingleCoilRequest reqPdu = (MbWriteSingleCoilRequest) request.getPdu();
         log.debug("[WRITE_SINGLE_COIL] address[{}], value[{}]", reqPdu.getAddress(), reqPdu.isValue());
 
-        if (reqPdu.getAddress() < 0 || reqPdu.getAddress() > this.coils.size() - 1) {
+        if (!this.dataStore.checkRange(reqPdu.getAddress(), 1)) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_WRITE_SINGLE_COIL, EMbExceptionCode.ILLEGAL_DATA_ADDRESS));
         }
 
-        try {
-            this.rwLock.writeLock().lock();
-            this.coils.set(reqPdu.getAddress(), reqPdu.isValue());
-        } finally {
-            this.rwLock.writeLock().unlock();
-        }
+        this.dataStore.writeCoil(reqPdu.getAddress(), reqPdu.isValue());
 
         MbWriteSingleCoilResponse ackPdu = new MbWriteSingleCoilResponse();
         ackPdu.setAddress(reqPdu.getAddress());
@@ -418,17 +310,11 @@ public class ModbusTcpServer extends TcpServerBasic {
         if (reqPdu.getValue() < 0 || reqPdu.getValue() > 65535) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_WRITE_SINGLE_REGISTER, EMbExceptionCode.ILLEGAL_DATA_VALUE));
         }
-        if (reqPdu.getAddress() < 0 || reqPdu.getAddress() > (this.holdRegisters.length / 2) - 1) {
+        if (!this.dataStore.checkRange(reqPdu.getAddress(), 1)) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_WRITE_SINGLE_REGISTER, EMbExceptionCode.ILLEGAL_DATA_ADDRESS));
         }
 
-        try {
-            this.rwLock.writeLock().lock();
-            byte[] bytes = ShortUtil.toByteArray(reqPdu.getValue());
-            System.arraycopy(bytes, 0, this.holdRegisters, reqPdu.getAddress() * 2, bytes.length);
-        } finally {
-            this.rwLock.writeLock().unlock();
-        }
+        this.dataStore.writeHoldRegister(reqPdu.getAddress(), reqPdu.getValue());
 
         MbWriteSingleRegisterResponse ackPdu = new MbWriteSingleRegisterResponse();
         ackPdu.setAddress(reqPdu.getAddress());
@@ -445,28 +331,19 @@ public class ModbusTcpServer extends TcpServerBasic {
      */
     private MbTcpResponse writeMultipleCoil(MbTcpRequest request) {
         MbWriteMultipleCoilRequest reqPdu = (MbWriteMultipleCoilRequest) request.getPdu();
-        List<Boolean> booleans = BooleanUtil.byteArrayToList(reqPdu.getQuantity(), reqPdu.getValue());
-        log.debug("[WRITE_MULTIPLE_COIL] address[{}], quantity[{}], value[{}]", reqPdu.getAddress(), reqPdu.getQuantity(), Arrays.toString(booleans.toArray()));
+        log.debug("[WRITE_MULTIPLE_COIL] address[{}], quantity[{}], value[{}]", reqPdu.getAddress(), reqPdu.getQuantity(), HexUtil.toHexString(reqPdu.getValue()));
 
         if (reqPdu.getQuantity() < 1
-                || reqPdu.getQuantity() > this.coils.size()
-                || reqPdu.getCount() != reqPdu.getValue().length) {
+                || reqPdu.getQuantity() > this.dataStore.getSize()
+                || reqPdu.getCount() != reqPdu.getValue().length
+                || reqPdu.getValue().length < (reqPdu.getQuantity() + 7) / 8) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_WRITE_MULTIPLE_COIL, EMbExceptionCode.ILLEGAL_DATA_VALUE));
         }
-        if (reqPdu.getAddress() < 0
-                || reqPdu.getAddress() > this.coils.size() - 1
-                || reqPdu.getAddress() + reqPdu.getQuantity() > this.coils.size() - 1) {
+        if (!this.dataStore.checkRange(reqPdu.getAddress(), reqPdu.getQuantity())) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_WRITE_MULTIPLE_COIL, EMbExceptionCode.ILLEGAL_DATA_ADDRESS));
         }
 
-        try {
-            this.rwLock.writeLock().lock();
-            for (int i = 0; i < booleans.size(); i++) {
-                this.coils.set(reqPdu.getAddress() + i, booleans.get(i));
-            }
-        } finally {
-            this.rwLock.writeLock().unlock();
-        }
+        this.dataStore.writeCoils(reqPdu.getAddress(), reqPdu.getQuantity(), reqPdu.getValue());
 
         MbWriteMultipleCoilResponse ackPdu = new MbWriteMultipleCoilResponse();
         ackPdu.setAddress(reqPdu.getAddress());
@@ -485,22 +362,16 @@ public class ModbusTcpServer extends TcpServerBasic {
         MbWriteMultipleRegisterRequest reqPdu = (MbWriteMultipleRegisterRequest) request.getPdu();
         log.debug("[WRITE_MULTIPLE_REGISTER] address[{}], quantity[{}], value[{}]", reqPdu.getAddress(), reqPdu.getQuantity(), HexUtil.toHexString(reqPdu.getValue()));
         if (reqPdu.getQuantity() < 1
-                || reqPdu.getQuantity() > (this.holdRegisters.length / 2)
-                || reqPdu.getCount() != reqPdu.getQuantity() * 2) {
+                || reqPdu.getQuantity() > this.dataStore.getSize()
+                || reqPdu.getCount() != reqPdu.getQuantity() * 2
+                || reqPdu.getValue().length != reqPdu.getCount()) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_WRITE_MULTIPLE_REGISTER, EMbExceptionCode.ILLEGAL_DATA_VALUE));
         }
-        if (reqPdu.getAddress() < 0
-                || reqPdu.getAddress() > (this.holdRegisters.length / 2) - 1
-                || reqPdu.getAddress() + reqPdu.getQuantity() > (this.holdRegisters.length / 2) - 1) {
+        if (!this.dataStore.checkRange(reqPdu.getAddress(), reqPdu.getQuantity())) {
             return new MbTcpResponse(request.getHeader(), new MbErrorResponse(EMbFunctionCode.ERROR_WRITE_MULTIPLE_REGISTER, EMbExceptionCode.ILLEGAL_DATA_ADDRESS));
         }
 
-        try {
-            this.rwLock.writeLock().lock();
-            System.arraycopy(reqPdu.getValue(), 0, this.holdRegisters, reqPdu.getAddress() * 2, reqPdu.getCount());
-        } finally {
-            this.rwLock.writeLock().unlock();
-        }
+        this.dataStore.writeHoldRegisters(reqPdu.getAddress(), reqPdu.getValue());
 
         MbWriteMultipleRegisterResponse ackPdu = new MbWriteMultipleRegisterResponse();
         ackPdu.setAddress(reqPdu.getAddress());
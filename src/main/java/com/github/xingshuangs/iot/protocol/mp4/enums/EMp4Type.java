@@ -45,6 +45,8 @@ public enum EMp4Type {
     ESDS("esds"),
     FTYP("ftyp"),
     HDLR("hdlr"),
+    HVC1("hvc1"),
+    HVCC("hvcC"),
     MDAT("mdat"),
     MDHD("mdhd"),
     MDIA("mdia"),
@@ -26,6 +26,7 @@ package com.github.xingshuangs.iot.protocol.mp4.model;
 
 
 import com.github.xingshuangs.iot.common.IObjectByteArray;
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.protocol.mp4.enums.EMp4Type;
 
 /**
@@ -60,4 +61,14 @@ public class Mp4Box implements IObjectByteArray {
     public byte[] toByteArray() {
         return new byte[0];
     }
+
+    /**
+     * Write the box into the buff directly, the box which is not overridden writes its byte array.
+     * (将盒子直接写入缓存，没有重写的盒子写入自身的字节数组)
+     *
+     * @param buff byte write buff
+     */
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putBytes(this.toByteArray());
+    }
 }
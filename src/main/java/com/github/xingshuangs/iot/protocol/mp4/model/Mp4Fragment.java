@@ -0,0 +1,256 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.mp4.model;
+
+
+import com.github.xingshuangs.iot.common.IObjectByteArray;
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.mp4.enums.EMp4Type;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mp4 fragment, moof + mdat. The sizes are computed up front, and the whole fragment is written into one buffer,
+ * the sample data is referenced rather than copied until written.
+ * (Mp4片段，moof + mdat，预先计算长度，整个片段写入一个缓存，采样数据在写入前只引用不拷贝)
+ *
+ * @author xingshuang
+ */
+public class Mp4Fragment implements IObjectByteArray {
+
+    /**
+     * Movie Fragment Box(moof)
+     */
+    private final Mp4MoofBox moofBox;
+
+    /**
+     * Media Data Box(mdat)
+     */
+    private final Mp4MdatBox mdatBox;
+
+    /**
+     * Samples
+     * (采样数据)
+     */
+    private final List<Mp4SampleData> samples;
+
+    /**
+     * Sequence number.
+     * (序列号)
+     */
+    private final long sequenceNumber;
+
+    /**
+     * Base media decode time of the first track, unit is the timescale of the first track.
+     * (第一个轨道的基准解码时间，单位为第一个轨道的时间刻度)
+     */
+    private final long baseMediaDecodeTime;
+
+    /**
+     * Duration of the first track, unit is the timescale of the first track.
+     * (第一个轨道的持续时间，单位为第一个轨道的时间刻度)
+     */
+    private final long duration;
+
+    /**
+     * Whether the first sample is a key frame, the sample flags may be forced to sync for compatibility,
+     * so it is assigned by the producer.
+     * (第一个采样是否为关键帧，采样标识可能为了兼容性被强制为同步帧，所以由生产者赋值)
+     */
+    private boolean keyFrame = false;
+
+    public Mp4Fragment(long sequenceNumber, long baseMediaDecodeTime, Mp4TrackInfo trackInfo) {
+        this.sequenceNumber = sequenceNumber;
+        this.baseMediaDecodeTime = baseMediaDecodeTime;
+        this.duration = trackInfo.getSampleData().stream().mapToLong(Mp4SampleData::getDuration).sum();
+        this.samples = trackInfo.getSampleData();
+        this.moofBox = new Mp4MoofBox(sequenceNumber, baseMediaDecodeTime, trackInfo);
+        this.mdatBox = new Mp4MdatBox(this.samples);
+    }
+
+    /**
+     * Multiple tracks fragment, such as video + audio, the tracks without sample are skipped,
+     * the samples in mdat are in the order of tracks, and the base media decode time of each track is the dts of
+     * its first sample, the caller is responsible for the dts of all tracks being on the same time origin.
+     * (多轨道片段，例如视频 + 音频，跳过没有采样的轨道，mdat中的采样按轨道顺序排列，每个轨道的基准解码时间为其第一个采样的dts，
+     * 由调用者保证所有轨道的dts处于相同的时间起点)
+     *
+     * @param sequenceNumber sequence number
+     * @param trackInfos     track info list
+     */
+    public Mp4Fragment(long sequenceNumber, List<Mp4TrackInfo> trackInfos) {
+        List<Mp4TrackInfo> tracks = new ArrayList<>(trackInfos.size());
+        this.samples = new ArrayList<>();
+        for (Mp4TrackInfo trackInfo : trackInfos) {
+            if (!trackInfo.getSampleData().isEmpty()) {
+                tracks.add(trackInfo);
+                this.samples.addAll(trackInfo.getSampleData());
+            }
+        }
+        if (tracks.isEmpty()) {
+            throw new IllegalArgumentException("no track contains sample");
+        }
+        this.sequenceNumber = sequenceNumber;
+        this.baseMediaDecodeTime = tracks.get(0).getSampleData().get(0).getDts();
+        this.duration = tracks.get(0).getSampleData().stream().mapToLong(Mp4SampleData::getDuration).sum();
+        this.moofBox = new Mp4MoofBox(sequenceNumber, tracks);
+        this.mdatBox = new Mp4MdatBox(this.samples);
+    }
+
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public long getBaseMediaDecodeTime() {
+        return baseMediaDecodeTime;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public boolean isKeyFrame() {
+        return keyFrame;
+    }
+
+    public void setKeyFrame(boolean keyFrame) {
+        this.keyFrame = keyFrame;
+    }
+
+    @Override
+    public int byteArrayLength() {
+        return this.moofBox.byteArrayLength() + this.mdatBox.byteArrayLength();
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    /**
+     * Write the whole fragment into the buff.
+     * (将整个片段写入缓存)
+     *
+     * @param buff byte write buff
+     */
+    public void writeTo(ByteWriteBuff buff) {
+        this.moofBox.writeTo(buff);
+        this.mdatBox.writeTo(buff);
+    }
+
+    /**
+     * Write the whole fragment into the caller-supplied array, such as a pooled array.
+     * (将整个片段写入调用方提供的数组，例如池化的数组)
+     *
+     * @param dst    destination array
+     * @param offset destination offset
+     * @return written length
+     */
+    public int writeTo(byte[] dst, int offset) {
+        int length = this.byteArrayLength();
+        if (offset < 0 || offset + length > dst.length) {
+            throw new IndexOutOfBoundsException("offset + length");
+        }
+        this.writeTo(ByteWriteBuff.newInstance(dst, offset));
+        return length;
+    }
+
+    /**
+     * Write the whole fragment into the caller-supplied byte buffer, heap or direct, the position moves forward.
+     * (将整个片段写入调用方提供的ByteBuffer，堆内或直接内存，position向后移动)
+     *
+     * @param dst destination byte buffer
+     * @return written length
+     */
+    public int writeTo(ByteBuffer dst) {
+        int length = this.byteArrayLength();
+        if (dst.remaining() < length) {
+            throw new IndexOutOfBoundsException("remaining < length");
+        }
+        if (dst.hasArray()) {
+            this.writeTo(dst.array(), dst.arrayOffset() + dst.position());
+        } else {
+            dst.put(this.moofBox.toByteArray());
+            dst.putInt(this.mdatBox.byteArrayLength());
+            dst.put(EMp4Type.MDAT.getByteArray());
+            for (Mp4SampleData sample : this.samples) {
+                if (sample.isLengthPrefixed()) {
+                    dst.putInt(sample.getFrame().length);
+                }
+                dst.put(sample.getFrame());
+            }
+            return length;
+        }
+        dst.position(dst.position() + length);
+        return length;
+    }
+
+    /**
+     * Byte buffers for gathering write, the sample data is wrapped, not copied.
+     * The first buffer contains moof, mdat header and the length of first sample, the raw sample has no length.
+     * (用于聚集写的ByteBuffer数组，采样数据只包装不拷贝，第一个缓存包含moof，mdat头和第一个采样的长度，原始采样没有长度)
+     *
+     * @return byte buffers
+     */
+    public ByteBuffer[] toByteBuffers() {
+        int moofLength = this.moofBox.byteArrayLength();
+        int prefixedCount = (int) this.samples.stream().filter(Mp4SampleData::isLengthPrefixed).count();
+        int headLength = moofLength + 8 + 4 * prefixedCount;
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(headLength);
+        this.moofBox.writeTo(buff);
+        buff.putInteger(this.mdatBox.byteArrayLength())
+                .putBytes(EMp4Type.MDAT.getByteArray());
+        for (Mp4SampleData sample : this.samples) {
+            if (sample.isLengthPrefixed()) {
+                buff.putInteger(sample.getFrame().length);
+            }
+        }
+        byte[] head = buff.getData();
+        if (this.samples.isEmpty()) {
+            return new ByteBuffer[]{ByteBuffer.wrap(head)};
+        }
+
+        List<ByteBuffer> res = new ArrayList<>(this.samples.size() * 2);
+        int start = 0;
+        int offset = moofLength + 8;
+        for (Mp4SampleData sample : this.samples) {
+            if (sample.isLengthPrefixed()) {
+                offset += 4;
+            }
+            // 第一个长度和moof、mdat头合并在一起，原始采样前面没有长度
+            if (offset > start) {
+                res.add(ByteBuffer.wrap(head, start, offset - start));
+                start = offset;
+            }
+            res.add(ByteBuffer.wrap(sample.getFrame()));
+        }
+        return res.toArray(new ByteBuffer[0]);
+    }
+}
@@ -48,14 +48,24 @@ public class Mp4Header implements IObjectByteArray {
      */
     private final Mp4MoovBox moovBox;
 
+    /**
+     * Track info list.
+     * (轨道信息列表)
+     */
+    private final List<Mp4TrackInfo> trackInfos;
+
     public Mp4Header(Mp4TrackInfo trackInfo) {
-        this.ftypBox = new Mp4FtypBox();
-        this.moovBox = new Mp4MoovBox(Collections.singletonList(trackInfo));
+        this(Collections.singletonList(trackInfo));
     }
 
     public Mp4Header(List<Mp4TrackInfo> trackInfos) {
         this.ftypBox = new Mp4FtypBox();
         this.moovBox = new Mp4MoovBox(trackInfos);
+        this.trackInfos = trackInfos;
+    }
+
+    public List<Mp4TrackInfo> getTrackInfos() {
+        return trackInfos;
     }
 
     @Override
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.mp4.model;
+
+
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.mp4.enums.EMp4Type;
+import com.github.xingshuangs.iot.protocol.rtp.enums.EH265NaluType;
+import com.github.xingshuangs.iot.protocol.rtp.model.payload.H265SeqParameterSet;
+
+/**
+ * HEVC decoder configuration record (hvcC), ISO/IEC 14496-15, contains one VPS, one SPS and one PPS.
+ * (HEVC解码配置记录，包含一个VPS，一个SPS和一个PPS)
+ *
+ * @author xingshuang
+ */
+public class Mp4HvcCBox extends Mp4Box {
+
+    /**
+     * 1-bytes, version
+     */
+    private final int version;
+
+    /**
+     * 1-bytes, 2 bits profile space, 1 bit tier, 5 bits profile idc.
+     */
+    private final int profile;
+
+    /**
+     * 4-bytes, profile compatibility flags.
+     */
+    private final long profileCompatibility;
+
+    /**
+     * 6-bytes, constraint indicator flags.
+     */
+    private final byte[] constraintIndicator;
+
+    /**
+     * 1-bytes, level
+     */
+    private final int level;
+
+    /**
+     * 2-bytes, 4 bits reserved 1, 12 bits min spatial segmentation idc, set to 0.
+     */
+    private final int minSpatialSegmentation;
+
+    /**
+     * 1-bytes, 6 bits reserved 1, 2 bits parallelism type, set to 0.
+     */
+    private final int parallelismType;
+
+    /**
+     * 1-bytes, 6 bits reserved 1, 2 bits chroma format idc.
+     */
+    private final int chromaFormat;
+
+    /**
+     * 1-bytes, 5 bits reserved 1, 3 bits bit depth luma minus 8.
+     */
+    private final int bitDepthLuma;
+
+    /**
+     * 1-bytes, 5 bits reserved 1, 3 bits bit depth chroma minus 8.
+     */
+    private final int bitDepthChroma;
+
+    /**
+     * 2-bytes, average frame rate, 0 means unspecified.
+     */
+    private final int avgFrameRate;
+
+    /**
+     * 1-bytes, 2 bits constant frame rate, 3 bits num temporal layers, 1 bit temporal id nested,
+     * 2 bits length size minus one, we use 4 bytes to store the nalu size, so 3 here.
+     * (2位恒定帧率，3位时域层数，1位时域嵌套，2位nalu长度字节数减1，我们用4个字节存储nalu大小，所以为3)
+     */
+    private final int lengthSizeMinusOne;
+
+    /**
+     * vps content
+     */
+    private final byte[] vps;
+
+    /**
+     * sps content
+     */
+    private final byte[] sps;
+
+    /**
+     * pps content
+     */
+    private final byte[] pps;
+
+    public Mp4HvcCBox(Mp4TrackInfo trackInfo) {
+        H265SeqParameterSet seqParameterSet = H265SeqParameterSet.createSPS(trackInfo.getSps());
+        this.mp4Type = EMp4Type.HVCC;
+        this.version = 1;
+        this.profile = (seqParameterSet.getGeneralProfileSpace() << 6)
+                | (seqParameterSet.isGeneralTierFlag() ? 0x20 : 0)
+                | seqParameterSet.getGeneralProfileIdc();
+        this.profileCompatibility = seqParameterSet.getGeneralProfileCompatibilityFlags();
+        this.constraintIndicator = seqParameterSet.getGeneralConstraintIndicatorFlags();
+        this.level = seqParameterSet.getGeneralLevelIdc();
+        this.minSpatialSegmentation = 0xF000;
+        this.parallelismType = 0xFC;
+        this.chromaFormat = 0xFC | seqParameterSet.getChromaFormatIdc();
+        this.bitDepthLuma = 0xF8 | seqParameterSet.getBitDepthLumaMinus8();
+        this.bitDepthChroma = 0xF8 | seqParameterSet.getBitDepthChromaMinus8();
+        this.avgFrameRate = 0;
+        this.lengthSizeMinusOne = ((seqParameterSet.getMaxSubLayersMinus1() + 1) << 3)
+                | (seqParameterSet.isTemporalIdNestingFlag() ? 0x04 : 0)
+                | 0x03;
+        this.vps = trackInfo.getVps();
+        this.sps = trackInfo.getSps();
+        this.pps = trackInfo.getPps();
+    }
+
+    @Override
+    public int byteArrayLength() {
+        // 8字节头 + 23字节配置 + 3个数组，每个数组3字节头 + 2字节长度
+        return 46 + this.vps.length + this.sps.length + this.pps.length;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        int size = this.byteArrayLength();
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(size)
+                .putInteger(size)
+                .putBytes(this.mp4Type.getByteArray())
+                .putByte(this.version)
+                .putByte(this.profile)
+                .putInteger(this.profileCompatibility)
+                .putBytes(this.constraintIndicator)
+                .putByte(this.level)
+                .putShort(this.minSpatialSegmentation)
+                .putByte(this.parallelismType)
+                .putByte(this.chromaFormat)
+                .putByte(this.bitDepthLuma)
+                .putByte(this.bitDepthChroma)
+                .putShort(this.avgFrameRate)
+                .putByte(this.lengthSizeMinusOne)
+                .putByte(3);
+        this.putNaluArray(buff, EH265NaluType.VPS, this.vps);
+        this.putNaluArray(buff, EH265NaluType.SPS, this.sps);
+        this.putNaluArray(buff, EH265NaluType.PPS, this.pps);
+        return buff.getData();
+    }
+
+    /**
+     * Put nalu array, array completeness is 1, only one nalu.
+     * (写入nalu数组，数组完整标识为1，只有一个nalu)
+     *
+     * @param buff     byte write buff
+     * @param naluType nalu type
+     * @param nalu     nalu content
+     */
+    private void putNaluArray(ByteWriteBuff buff, EH265NaluType naluType, byte[] nalu) {
+        buff.putByte(0x80 | naluType.getCode())
+                .putShort(1)
+                .putShort(nalu.length)
+                .putBytes(nalu);
+    }
+}
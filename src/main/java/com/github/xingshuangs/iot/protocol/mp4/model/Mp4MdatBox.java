@@ -28,6 +28,8 @@ package com.github.xingshuangs.iot.protocol.mp4.model;
 import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.protocol.mp4.enums.EMp4Type;
 
+import java.util.List;
+
 /**
  * mdat box
  *
@@ -42,26 +44,53 @@ public class Mp4MdatBox extends Mp4Box {
      */
     private byte[] dataPackage = new byte[0];
 
+    /**
+     * Samples, the frame data is referenced and written directly, not concatenated first.
+     * (采样数据，直接引用帧数据写入，不预先拼接)
+     */
+    private List<Mp4SampleData> samples;
+
+    /**
+     * Data length.
+     * (数据长度)
+     */
+    private int dataLength = 0;
+
     public Mp4MdatBox() {
     }
 
     public Mp4MdatBox(byte[] dataPackage) {
         this.mp4Type = EMp4Type.MDAT;
         this.dataPackage = dataPackage;
+        this.dataLength = dataPackage.length;
+    }
+
+    public Mp4MdatBox(List<Mp4SampleData> samples) {
+        this.mp4Type = EMp4Type.MDAT;
+        this.samples = samples;
+        this.dataLength = samples.stream().mapToInt(Mp4SampleData::getSize).sum();
     }
 
     @Override
     public int byteArrayLength() {
-        return 8 + this.dataPackage.length;
+        return 8 + this.dataLength;
     }
 
     @Override
     public byte[] toByteArray() {
-        int size = this.byteArrayLength();
-        return ByteWriteBuff.newInstance(size)
-                .putInteger(size)
-                .putBytes(this.mp4Type.getByteArray())
-                .putBytes(this.dataPackage)
-                .getData();
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putInteger(this.byteArrayLength())
+                .putBytes(this.mp4Type.getByteArray());
+        if (this.samples == null) {
+            buff.putBytes(this.dataPackage);
+        } else {
+            this.samples.forEach(x -> x.writeTo(buff));
+        }
     }
 }
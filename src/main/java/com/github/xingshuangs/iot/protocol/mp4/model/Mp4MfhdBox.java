@@ -67,13 +67,17 @@ public class Mp4MfhdBox extends Mp4Box {
 
     @Override
     public byte[] toByteArray() {
-        int size = this.byteArrayLength();
-        return ByteWriteBuff.newInstance(size)
-                .putInteger(size)
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putInteger(this.byteArrayLength())
                 .putBytes(this.mp4Type.getByteArray())
                 .putByte(this.version)
                 .putBytes(this.flags)
-                .putInteger(this.sequenceNumber)
-                .getData();
+                .putInteger(this.sequenceNumber);
     }
 }
@@ -28,6 +28,10 @@ package com.github.xingshuangs.iot.protocol.mp4.model;
 import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.protocol.mp4.enums.EMp4Type;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * mdat box
  *
@@ -41,29 +45,59 @@ public class Mp4MoofBox extends Mp4Box {
     private final Mp4MfhdBox mfhdBox;
 
     /**
-     * Track Fragment Box(traf)
+     * Track Fragment Box(traf), one per track.
+     * (每个轨道一个)
      */
-    private final Mp4TrafBox trafBox;
+    private final List<Mp4TrafBox> trafBoxes;
 
     public Mp4MoofBox(long sequenceNumber, long baseMediaDecodeTime, Mp4TrackInfo trackInfo) {
         this.mp4Type = EMp4Type.MOOF;
         this.mfhdBox = new Mp4MfhdBox(sequenceNumber);
-        this.trafBox = new Mp4TrafBox(baseMediaDecodeTime, trackInfo);
+        this.trafBoxes = Collections.singletonList(new Mp4TrafBox(baseMediaDecodeTime, trackInfo));
+    }
+
+    /**
+     * Multiple tracks, the base media decode time of each track is the dts of its first sample, the samples in mdat
+     * are in the order of tracks.
+     * (多轨道，每个轨道的基准解码时间为其第一个采样的dts，mdat中的采样按轨道顺序排列)
+     *
+     * @param sequenceNumber sequence number
+     * @param trackInfos     track info list, every track contains sample
+     */
+    public Mp4MoofBox(long sequenceNumber, List<Mp4TrackInfo> trackInfos) {
+        this.mp4Type = EMp4Type.MOOF;
+        this.mfhdBox = new Mp4MfhdBox(sequenceNumber);
+        this.trafBoxes = new ArrayList<>(trackInfos.size());
+        for (Mp4TrackInfo trackInfo : trackInfos) {
+            this.trafBoxes.add(new Mp4TrafBox(trackInfo.getSampleData().get(0).getDts(), trackInfo, true));
+        }
+        // 数据偏移 = moof长度 + mdat头 + 前面轨道的采样数据长度
+        int dataOffset = this.byteArrayLength() + 8;
+        for (int i = 0; i < trackInfos.size(); i++) {
+            this.trafBoxes.get(i).setDataOffset(dataOffset);
+            dataOffset += trackInfos.get(i).getSampleData().stream().mapToInt(Mp4SampleData::getSize).sum();
+        }
     }
 
     @Override
     public int byteArrayLength() {
-        return 8 + this.mfhdBox.byteArrayLength() + this.trafBox.byteArrayLength();
+        return 8 + this.mfhdBox.byteArrayLength() + this.trafBoxes.stream().mapToInt(Mp4TrafBox::byteArrayLength).sum();
     }
 
     @Override
     public byte[] toByteArray() {
-        int size = this.byteArrayLength();
-        return ByteWriteBuff.newInstance(size)
-                .putInteger(size)
-                .putBytes(this.mp4Type.getByteArray())
-                .putBytes(this.mfhdBox.toByteArray())
-                .putBytes(this.trafBox.toByteArray())
-                .getData();
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putInteger(this.byteArrayLength())
+                .putBytes(this.mp4Type.getByteArray());
+        this.mfhdBox.writeTo(buff);
+        for (Mp4TrafBox trafBox : this.trafBoxes) {
+            trafBox.writeTo(buff);
+        }
     }
 }
@@ -26,7 +26,9 @@ package com.github.xingshuangs.iot.protocol.mp4.model;
 
 
 import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
 
 /**
  * Mp4 sample data.
@@ -42,11 +44,19 @@ public class Mp4SampleData {
     private long dts = 0;
 
     /**
-     * nalu length + nalu data.
-     * （数据，帧数据+长度）
+     * nalu length + nalu data, created only when it is queried.
+     * （数据，帧数据+长度，只在查询的时候创建）
      */
+    @Setter(AccessLevel.NONE)
     private byte[] data;
 
+    /**
+     * Frame data, nalu without length, referenced rather than copied.
+     * （帧数据，不带长度的nalu，直接引用不拷贝）
+     */
+    @Setter(AccessLevel.NONE)
+    private byte[] frame;
+
     /**
      * Data size.
      * 数据大小，表示sample对应的数据帧的实际大小size=224251，帧数据字节+长度字节
@@ -76,11 +86,53 @@ public class Mp4SampleData {
      */
     private Mp4SampleFlag flags = new Mp4SampleFlag();
 
+    /**
+     * Is the frame data prefixed with 4-bytes length, true for video nalu, false for raw audio sample, such as AAC.
+     * （帧数据是否带4字节长度前缀，视频nalu为true，原始音频样本为false，例如AAC）
+     */
+    @Setter(AccessLevel.NONE)
+    private boolean lengthPrefixed = true;
+
     public void setData(byte[] data) {
         this.size = 4 + data.length;
-        ByteWriteBuff buff = new ByteWriteBuff(4 + data.length);
-        buff.putInteger(data.length)
-                .putBytes(data);
-        this.data = buff.getData();
+        this.frame = data;
+        this.data = null;
+        this.lengthPrefixed = true;
+    }
+
+    /**
+     * Set the raw sample data without length, such as AAC raw data block.
+     * （设置不带长度的原始样本数据，例如AAC的原始数据块）
+     *
+     * @param data raw sample data
+     */
+    public void setRawData(byte[] data) {
+        this.size = data.length;
+        this.frame = data;
+        this.data = data;
+        this.lengthPrefixed = false;
+    }
+
+    public byte[] getData() {
+        if (this.data == null && this.frame != null) {
+            this.data = ByteWriteBuff.newInstance(this.size)
+                    .putInteger(this.frame.length)
+                    .putBytes(this.frame)
+                    .getData();
+        }
+        return this.data;
+    }
+
+    /**
+     * Write nalu length + nalu data into the buff directly, the raw sample data has no length.
+     * （将帧数据+长度直接写入缓存，原始样本数据没有长度）
+     *
+     * @param buff byte write buff
+     */
+    public void writeTo(ByteWriteBuff buff) {
+        if (this.lengthPrefixed) {
+            buff.putInteger(this.frame.length);
+        }
+        buff.putBytes(this.frame);
     }
 }
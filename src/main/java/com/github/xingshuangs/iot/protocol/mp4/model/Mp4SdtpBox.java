@@ -70,12 +70,16 @@ public class Mp4SdtpBox extends Mp4Box {
 
     @Override
     public byte[] toByteArray() {
-        int size = this.byteArrayLength();
-        return ByteWriteBuff.newInstance(size)
-                .putInteger(size)
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putInteger(this.byteArrayLength())
                 .putBytes(this.mp4Type.getByteArray())
                 .putBytes(this.reserved)
-                .putBytes(this.flags)
-                .getData();
+                .putBytes(this.flags);
     }
 }
@@ -62,7 +62,13 @@ public class Mp4StsdBox extends Mp4Box {
         this.version = 0;
         this.flags = new byte[3];
         this.entryCount = 1;
-        this.entryBox = trackInfo.getType().equals("video") ? new Mp4Avc1Box(trackInfo) : new Mp4Mp4aBox(trackInfo);
+        if (!trackInfo.getType().equals("video")) {
+            this.entryBox = new Mp4Mp4aBox(trackInfo);
+        } else if (trackInfo.getCodec() != null && trackInfo.getCodec().startsWith("hvc1")) {
+            this.entryBox = new Mp4Hvc1Box(trackInfo);
+        } else {
+            this.entryBox = new Mp4Avc1Box(trackInfo);
+        }
     }
 
     @Override
@@ -53,9 +53,21 @@ public class Mp4TfhdBox extends Mp4Box {
     private final int trackId;
 
     public Mp4TfhdBox(int trackId) {
+        this(trackId, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param trackId           track id
+     * @param defaultBaseIsMoof default-base-is-moof, the data offset of trun is relative to the start of moof for
+     *                          every track, required by multiple tracks
+     *                          (trun的数据偏移对每个轨道都相对moof的开头，多轨道需要)
+     */
+    public Mp4TfhdBox(int trackId, boolean defaultBaseIsMoof) {
         this.mp4Type = EMp4Type.TFHD;
         this.version = 0;
-        this.flags = new byte[3];
+        this.flags = defaultBaseIsMoof ? new byte[]{0x02, 0x00, 0x00} : new byte[3];
         this.trackId = trackId;
     }
 
@@ -66,13 +78,17 @@ public class Mp4TfhdBox extends Mp4Box {
 
     @Override
     public byte[] toByteArray() {
-        int size = this.byteArrayLength();
-        return ByteWriteBuff.newInstance(size)
-                .putInteger(size)
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putInteger(this.byteArrayLength())
                 .putBytes(this.mp4Type.getByteArray())
                 .putByte(this.version)
                 .putBytes(this.flags)
-                .putInteger(this.trackId)
-                .getData();
+                .putInteger(this.trackId);
     }
 }
@@ -131,7 +131,7 @@ public class Mp4TkhdBox extends Mp4Box {
         this.reserve2 = new byte[8];
         this.layer = trackInfo.getType().equals("video") ? 0 : 1;
         this.reserve3 = new byte[2];
-        this.volume = 0;
+        this.volume = trackInfo.getType().equals("video") ? 0 : 0x0100;
         this.reserve4 = new byte[2];
         this.unityMatrix = new byte[]{
                 0x00, 0x01, 0x00, 0x00,
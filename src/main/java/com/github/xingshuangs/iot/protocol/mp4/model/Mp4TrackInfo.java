@@ -54,6 +54,8 @@ public class Mp4TrackInfo {
 
     private int height;
 
+    private byte[] vps;
+
     private byte[] sps;
 
     private byte[] pps;
@@ -75,7 +77,7 @@ public class Mp4TrackInfo {
     public byte[] totalSampleData() {
         int sum = this.sampleData.stream().mapToInt(Mp4SampleData::getSize).sum();
         ByteWriteBuff buff = new ByteWriteBuff(sum);
-        sampleData.forEach(x -> buff.putBytes(x.getData()));
+        sampleData.forEach(x -> x.writeTo(buff));
         return buff.getData();
     }
 }
@@ -60,13 +60,27 @@ public class Mp4TrafBox extends Mp4Box {
     private final Mp4SdtpBox sdtpBox;
 
     public Mp4TrafBox(long baseMediaDecodeTime, Mp4TrackInfo trackInfo) {
+        this(baseMediaDecodeTime, trackInfo, false);
+    }
+
+    public Mp4TrafBox(long baseMediaDecodeTime, Mp4TrackInfo trackInfo, boolean defaultBaseIsMoof) {
         this.mp4Type = EMp4Type.TRAF;
-        this.tfhdBox = new Mp4TfhdBox(trackInfo.getId());
+        this.tfhdBox = new Mp4TfhdBox(trackInfo.getId(), defaultBaseIsMoof);
         this.tfdtBox = new Mp4TfdtBox(baseMediaDecodeTime);
         this.trunBox = new Mp4TrunBox(trackInfo.getSampleData());
         this.sdtpBox = new Mp4SdtpBox(trackInfo.getSampleData());
     }
 
+    /**
+     * Set the data offset of trun, relative to the start of moof.
+     * (设置trun的数据偏移，相对于moof的开头)
+     *
+     * @param dataOffset data offset
+     */
+    void setDataOffset(int dataOffset) {
+        this.trunBox.setOffset(dataOffset);
+    }
+
     @Override
     public int byteArrayLength() {
         return 8 + this.tfhdBox.byteArrayLength() + this.tfdtBox.byteArrayLength()
@@ -75,14 +89,18 @@ public class Mp4TrafBox extends Mp4Box {
 
     @Override
     public byte[] toByteArray() {
-        int size = this.byteArrayLength();
-        return ByteWriteBuff.newInstance(size)
-                .putInteger(size)
-                .putBytes(this.mp4Type.getByteArray())
-                .putBytes(this.tfhdBox.toByteArray())
-                .putBytes(this.tfdtBox.toByteArray())
-                .putBytes(this.trunBox.toByteArray())
-                .putBytes(this.sdtpBox.toByteArray())
-                .getData();
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
+        buff.putInteger(this.byteArrayLength())
+                .putBytes(this.mp4Type.getByteArray());
+        this.tfhdBox.writeTo(buff);
+        this.tfdtBox.writeTo(buff);
+        this.trunBox.writeTo(buff);
+        this.sdtpBox.writeTo(buff);
     }
 }
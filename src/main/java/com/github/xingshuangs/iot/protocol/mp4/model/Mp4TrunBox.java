@@ -54,7 +54,7 @@ public class Mp4TrunBox extends Mp4Box {
      * which is equal to the length of the entire moof + the head length of mdat
      * 4-bytes 表示和moof配套的mdat中实际数据位置距离moof开头有多少偏移，其等于整个moof的长度+mdat的头长度
      */
-    private final int offset;
+    private int offset;
 
     /**
      * 采样数据
@@ -77,6 +77,16 @@ public class Mp4TrunBox extends Mp4Box {
         this.samples = samples;
     }
 
+    /**
+     * Set the data offset, used when the moof contains multiple tracks.
+     * (设置数据偏移，moof包含多个轨道的时候使用)
+     *
+     * @param offset data offset from the start of moof
+     */
+    void setOffset(int offset) {
+        this.offset = offset;
+    }
+
     @Override
     public int byteArrayLength() {
         return 20 + 16 * this.samples.size();
@@ -84,11 +94,16 @@ public class Mp4TrunBox extends Mp4Box {
 
     @Override
     public byte[] toByteArray() {
-        int size = this.byteArrayLength();
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(this.byteArrayLength());
+        this.writeTo(buff);
+        return buff.getData();
+    }
+
+    @Override
+    public void writeTo(ByteWriteBuff buff) {
         // 表示sample数量
         int length = this.samples.size();
-        ByteWriteBuff buff = ByteWriteBuff.newInstance(size)
-                .putInteger(size)
+        buff.putInteger(this.byteArrayLength())
                 .putBytes(this.mp4Type.getByteArray())
                 .putByte(this.version)
                 .putBytes(this.flags)
@@ -107,6 +122,5 @@ public class Mp4TrunBox extends Mp4Box {
                     .putByte(flag.getDegradPrio() & (byte) 0x0F)
                     .putInteger(sample.getCts());
         }
-        return buff.getData();
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.rtcp.model;
+
+
+import lombok.Data;
+
+/**
+ * Snapshot of the receive statistics of one RTP stream, the rates are measured since the previous snapshot.
+ * (单个RTP流接收统计的快照，速率是从上一次快照开始计算的)
+ *
+ * @author xingshuang
+ */
+@Data
+public class RtcpStatisticsSnapshot {
+
+    /**
+     * Source id of the sender.
+     * (发送端的同步源)
+     */
+    private long sourceId;
+
+    /**
+     * Clock rate of rtp timestamp, unit Hz.
+     * (RTP时间戳的时钟频率，单位Hz)
+     */
+    private int clockRate;
+
+    /**
+     * Extended highest sequence number received, the high 16 bits are the cycles.
+     * (接收到的扩展最大序列号，高16位是循环次数)
+     */
+    private long extHighestSequenceNumber;
+
+    /**
+     * Packets expected since the stream is validated.
+     * (从流校验通过后期望接收的包数量)
+     */
+    private long packetsExpected;
+
+    /**
+     * Packets received since the stream is validated.
+     * (从流校验通过后实际接收的包数量)
+     */
+    private long packetsReceived;
+
+    /**
+     * Cumulative packets lost, negative means duplicates.
+     * (累计丢包数量，负数表示有重复包)
+     */
+    private long packetsLost;
+
+    /**
+     * Fraction lost since the previous snapshot, range [0, 1].
+     * (从上一次快照开始的丢包率，范围[0, 1])
+     */
+    private double fractionLost;
+
+    /**
+     * Interarrival jitter, unit is rtp timestamp.
+     * (到达间隔抖动，单位为RTP时间戳)
+     */
+    private long jitter;
+
+    /**
+     * Interarrival jitter, unit ms.
+     * (到达间隔抖动，单位ms)
+     */
+    private double jitterMs;
+
+    /**
+     * Bitrate since the previous snapshot, unit bit/s.
+     * (从上一次快照开始的码率，单位bit/s)
+     */
+    private double bitrate;
+
+    /**
+     * Frame rate since the previous snapshot, unit fps.
+     * (从上一次快照开始的帧率，单位fps)
+     */
+    private double frameRate;
+
+    /**
+     * Duration since the previous snapshot, unit ms.
+     * (距离上一次快照的时长，单位ms)
+     */
+    private long duration;
+}
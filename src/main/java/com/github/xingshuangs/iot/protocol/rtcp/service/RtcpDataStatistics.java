@@ -27,6 +27,7 @@ package com.github.xingshuangs.iot.protocol.rtcp.service;
 
 import com.github.xingshuangs.iot.protocol.rtcp.enums.ERtcpSdesItemType;
 import com.github.xingshuangs.iot.protocol.rtcp.model.*;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpHeader;
 import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -35,8 +36,8 @@ import java.util.List;
 import java.util.function.Consumer;
 
 /**
- * RTCP data statistics.
- * RTCP接收数据统计
+ * RTCP data statistics, the source validation, loss and interarrival jitter follow RFC 3550 appendix A.
+ * RTCP接收数据统计，源校验、丢包和到达间隔抖动按照RFC 3550附录A计算
  *
  * @author xingshuang
  */
@@ -44,12 +45,54 @@ import java.util.function.Consumer;
 @Data
 public class RtcpDataStatistics {
 
+    /**
+     * Sequence number modulus.
+     * (序列号的模)
+     */
+    private static final int RTP_SEQ_MOD = 1 << 16;
+
+    /**
+     * Max forward jump of sequence number which is treated as loss.
+     * (视为丢包的最大序列号前向跳变)
+     */
+    private static final int MAX_DROPOUT = 3000;
+
+    /**
+     * Max backward jump of sequence number which is treated as misorder.
+     * (视为乱序的最大序列号后向跳变)
+     */
+    private static final int MAX_MISORDER = 100;
+
+    /**
+     * Sequential packets required before a source is valid.
+     * (源校验通过需要的连续包数量)
+     */
+    private static final int MIN_SEQUENTIAL = 2;
+
+    /**
+     * Default clock rate of video, unit Hz.
+     * (视频默认时钟频率，单位Hz)
+     */
+    public static final int DEFAULT_CLOCK_RATE = 90000;
+
+    /**
+     * Report interval, unit ns.
+     * (报告间隔，单位ns)
+     */
+    private static final long REPORT_INTERVAL = 5_000_000_000L;
+
     /**
      * Source id.
      * (同步源（SSRC of sender）：32比特，SR包发送者的同步源标识符。与对应RTP包中的SSRC一样。)
      */
     private long sourceId;
 
+    /**
+     * Clock rate of rtp timestamp, unit Hz.
+     * (RTP时间戳的时钟频率，单位Hz)
+     */
+    private int clockRate = DEFAULT_CLOCK_RATE;
+
     /**
      * Highest sequence number
      * (接收的最大序号)
@@ -57,22 +100,22 @@ public class RtcpDataStatistics {
     private int highestSequenceNumber = 0;
 
     /**
-     * Packets received since last reset
-     * (从上一次重置之后的包接收数量)
+     * Base sequence number.
+     * (起始序列号)
      */
-    private int packetsReceivedSinceLastReset = 0;
+    private int baseSequenceNumber = 0;
 
     /**
-     * Packets lost since last reset.
-     * (从上一次重置之后的丢包数量)
+     * Last 'bad' sequence number + 1, two sequential packets after a large jump mean the sender restarted.
+     * (上一个异常序列号 + 1，大跳变之后连续的两个包表示发送端重启了)
      */
-    private int packetsLostSinceLastReset = 0;
+    private int badSequenceNumber = RTP_SEQ_MOD + 1;
 
     /**
-     * Cumulative packet lost.
-     * (累计丢包数量)
+     * Sequential packets till source is valid.
+     * (源校验通过之前还需要的连续包数量)
      */
-    private int cumulativePacketLost = 0;
+    private int probation = MIN_SEQUENTIAL;
 
     /**
      * Sequence number cycles.
@@ -81,10 +124,28 @@ public class RtcpDataStatistics {
     private int sequenceNumberCycles = 0;
 
     /**
-     * Sample timestamp sum.
-     * (采样总时间)
+     * Packets received since the source is valid.
+     * (源校验通过后接收的包数量)
+     */
+    private long packetsReceived = 0;
+
+    /**
+     * Packets expected at last report.
+     * (上一次报告时期望接收的包数量)
+     */
+    private long expectedPrior = 0;
+
+    /**
+     * Packets received at last report.
+     * (上一次报告时实际接收的包数量)
      */
-    private long sampleTimestampSum = 0;
+    private long receivedPrior = 0;
+
+    /**
+     * Estimated interarrival jitter, unit is rtp timestamp.
+     * (估算的到达间隔抖动，单位为RTP时间戳)
+     */
+    private double jitter = 0;
 
     /**
      * Last rtp timestamp.
@@ -92,6 +153,12 @@ public class RtcpDataStatistics {
      */
     private long lastRtpTimestamp = 0;
 
+    /**
+     * Arrival time of the package with last rtp timestamp, unit ns.
+     * (上一次RTP时间戳对应包的到达时间，单位ns)
+     */
+    private long lastArrivalTime = 0;
+
     /**
      * Last rtp ssrc.
      * （上一次RTP的SSRC）
@@ -99,27 +166,87 @@ public class RtcpDataStatistics {
     private long lastRtpSsrc = 0;
 
     /**
-     * Last ntp time sender report received.
-     * （上一次RTCP发送SR的NTP时间）
+     * Last ntp time sender report received, the middle 32 bits of ntp timestamp.
+     * （上一次RTCP发送SR的NTP时间，NTP时间戳的中间32位）
      */
     private long lastNtpTimeSenderReportReceived = 0;
 
     /**
-     * Last time rtcp report received.
-     * （上一次接收到的SR的时间）
+     * Last time rtcp report received, unit ns.
+     * （上一次接收到的SR的时间，单位ns）
      */
     private long lastTimeRtcpReportReceived = 0;
 
     /**
-     * Last local time receive rtp.
-     * (上一次接收到RTP的时间，本地当前的时间戳）
+     * Last time receiver report sent, unit ns.
+     * (上一次发送RR的时间，单位ns）
+     */
+    private long lastReportTime = 0;
+
+    /**
+     * Total bytes received.
+     * (接收的总字节数)
+     */
+    private long totalBytes = 0;
+
+    /**
+     * Total packets received, including the invalid ones.
+     * (接收的总包数，包含校验未通过的)
+     */
+    private long totalPackets = 0;
+
+    /**
+     * Total frames received, the packages with the same rtp timestamp belong to one frame.
+     * (接收的总帧数，RTP时间戳相同的包属于同一帧)
+     */
+    private long totalFrames = 0;
+
+    /**
+     * Time of last snapshot, unit ns.
+     * (上一次快照的时间，单位ns)
      */
-    private long lastLocalTimeReceiveRtp = 0;
+    private long snapshotTime = 0;
+
+    /**
+     * Total bytes at last snapshot.
+     * (上一次快照时的总字节数)
+     */
+    private long snapshotBytes = 0;
+
+    /**
+     * Total frames at last snapshot.
+     * (上一次快照时的总帧数)
+     */
+    private long snapshotFrames = 0;
+
+    /**
+     * Packets expected at last snapshot.
+     * (上一次快照时期望接收的包数量)
+     */
+    private long snapshotExpected = 0;
+
+    /**
+     * Packets received at last snapshot.
+     * (上一次快照时实际接收的包数量)
+     */
+    private long snapshotReceived = 0;
 
     public RtcpDataStatistics() {
         this.sourceId = System.currentTimeMillis();
     }
 
+    public RtcpDataStatistics(int clockRate) {
+        this();
+        this.setClockRate(clockRate);
+    }
+
+    public void setClockRate(int clockRate) {
+        if (clockRate <= 0) {
+            throw new IllegalArgumentException("clockRate <= 0");
+        }
+        this.clockRate = clockRate;
+    }
+
     /**
      * Process rtp package.
      * (处理RTP数据包)
@@ -128,47 +255,198 @@ public class RtcpDataStatistics {
      * @param send send callback by bytes
      */
     public void processRtpPackage(RtpPackage rtp, Consumer<byte[]> send) {
-        if (this.lastRtpSsrc > 0) {
-            this.sampleTimestampSum += rtp.getHeader().getTimestamp() - this.lastRtpTimestamp;
-            int delta = rtp.getHeader().getSequenceNumber() - this.highestSequenceNumber;
-            if (delta > 1) {
-                this.cumulativePacketLost += delta - 1;
-                this.packetsLostSinceLastReset += delta - 1;
+        this.processRtpPackage(rtp, System.nanoTime(), send);
+    }
+
+    /**
+     * Process rtp package with the arrival time, the clock is read only once per package.
+     * (根据到达时间处理RTP数据包，每个包只读取一次时钟)
+     *
+     * @param rtp  rtp package
+     * @param now  arrival time, unit ns, from System.nanoTime()
+     * @param send send callback by bytes
+     */
+    public synchronized void processRtpPackage(RtpPackage rtp, long now, Consumer<byte[]> send) {
+        RtpHeader header = rtp.getHeader();
+        int sequenceNumber = header.getSequenceNumber();
+        long timestamp = header.getTimestamp();
+
+        if (this.totalPackets == 0 || header.getSsrc() != this.lastRtpSsrc) {
+            // 第一次接收rtp数据或者SSRC改变，都是新的源，需要重新校验
+            this.initSource(header.getSsrc(), sequenceNumber, timestamp, now);
+            this.totalFrames++;
+        } else if (timestamp != this.lastRtpTimestamp) {
+            this.totalFrames++;
+            if (this.updateSequenceNumber(sequenceNumber)) {
+                this.updateJitter(timestamp, now);
             }
-            if (this.cumulativePacketLost > 0x7FFFFF) {
-                this.cumulativePacketLost = 0x7FFFFF;
+            this.lastRtpTimestamp = timestamp;
+            this.lastArrivalTime = now;
+        } else {
+            // 同一帧的多个包时间戳相同，发送时间间隔不是由时间戳决定的，不参与抖动计算
+            this.updateSequenceNumber(sequenceNumber);
+        }
+        this.totalPackets++;
+        this.totalBytes += rtp.byteArrayLength();
+
+        // 时间间隔超过5s的发一次RR数据，接收数据报告
+        if (now - this.lastReportTime > REPORT_INTERVAL) {
+            long lostInterval = (this.getExpected() - this.expectedPrior) - (this.packetsReceived - this.receivedPrior);
+            byte[] receiverAndByteContent = this.createReceiverAndSdesContent(now);
+            send.accept(receiverAndByteContent);
+            this.lastReportTime = now;
+            log.debug("Data Statistics: package lost number[{}], lost number since last report[{}], total number[{}], jitter[{}]",
+                    this.getCumulativePacketLost(), lostInterval, this.packetsReceived, (long) this.jitter);
+        }
+    }
+
+    /**
+     * Init a new source, it is valid after MIN_SEQUENTIAL sequential packets.
+     * (初始化新的源，连续收到MIN_SEQUENTIAL个包后校验通过)
+     *
+     * @param ssrc           ssrc
+     * @param sequenceNumber sequence number
+     * @param timestamp      rtp timestamp
+     * @param now            arrival time, unit ns
+     */
+    private void initSource(long ssrc, int sequenceNumber, long timestamp, long now) {
+        if (this.totalPackets == 0) {
+            this.lastReportTime = now;
+            this.snapshotTime = now;
+        }
+        this.initSequenceNumber(sequenceNumber);
+        this.highestSequenceNumber = (sequenceNumber - 1) & 0xFFFF;
+        this.probation = MIN_SEQUENTIAL;
+        this.jitter = 0;
+        this.lastRtpSsrc = ssrc;
+        this.lastRtpTimestamp = timestamp;
+        this.lastArrivalTime = now;
+        // 新的源，上一个源的SR不再有效
+        this.lastNtpTimeSenderReportReceived = 0;
+        this.lastTimeRtcpReportReceived = 0;
+        this.updateSequenceNumber(sequenceNumber);
+    }
+
+    /**
+     * Init sequence number, RFC 3550 A.1 init_seq.
+     * (初始化序列号)
+     *
+     * @param sequenceNumber sequence number
+     */
+    private void initSequenceNumber(int sequenceNumber) {
+        this.baseSequenceNumber = sequenceNumber;
+        this.highestSequenceNumber = sequenceNumber;
+        this.badSequenceNumber = RTP_SEQ_MOD + 1;
+        this.sequenceNumberCycles = 0;
+        this.packetsReceived = 0;
+        this.receivedPrior = 0;
+        this.expectedPrior = 0;
+        this.snapshotReceived = 0;
+        this.snapshotExpected = 0;
+    }
+
+    /**
+     * Update sequence number, RFC 3550 A.1 update_seq.
+     * (更新序列号)
+     *
+     * @param sequenceNumber sequence number
+     * @return true: valid package, false: invalid package
+     */
+    private boolean updateSequenceNumber(int sequenceNumber) {
+        int delta = (sequenceNumber - this.highestSequenceNumber) & 0xFFFF;
+        if (this.probation > 0) {
+            // 源还在校验期，需要连续的序列号
+            if (sequenceNumber == ((this.highestSequenceNumber + 1) & 0xFFFF)) {
+                this.probation--;
+                this.highestSequenceNumber = sequenceNumber;
+                if (this.probation == 0) {
+                    this.initSequenceNumber(sequenceNumber);
+                    this.packetsReceived++;
+                    return true;
+                }
+            } else {
+                this.probation = MIN_SEQUENTIAL - 1;
+                this.highestSequenceNumber = sequenceNumber;
             }
-            if (rtp.getHeader().getSequenceNumber() < this.highestSequenceNumber) {
+            return false;
+        } else if (delta < MAX_DROPOUT) {
+            // 按顺序，允许有间隔，只有回绕的时候才增加循环次数
+            if (sequenceNumber < this.highestSequenceNumber) {
                 this.sequenceNumberCycles++;
             }
+            this.highestSequenceNumber = sequenceNumber;
+        } else if (delta <= RTP_SEQ_MOD - MAX_MISORDER) {
+            // 序列号大跳变
+            if (sequenceNumber == this.badSequenceNumber) {
+                // 连续两个包，认为对端重启了，重新同步
+                log.debug("The sequence number jumps from [{}] to [{}], resynchronize the statistics", this.highestSequenceNumber, sequenceNumber);
+                this.initSequenceNumber(sequenceNumber);
+            } else {
+                this.badSequenceNumber = (sequenceNumber + 1) & 0xFFFF;
+                return false;
+            }
         }
-        this.packetsReceivedSinceLastReset++;
-        this.highestSequenceNumber = rtp.getHeader().getSequenceNumber();
-        this.lastRtpSsrc = rtp.getHeader().getSsrc();
-        this.lastRtpTimestamp = rtp.getHeader().getTimestamp();
-
-        // 第一次接收rtp数据
-        if (this.lastLocalTimeReceiveRtp == 0) {
-            this.lastLocalTimeReceiveRtp = System.currentTimeMillis();
-        }
+        // 其他情况为重复或者乱序的包
+        this.packetsReceived++;
+        return true;
+    }
 
-        // 时间间隔超过5s的发一次RR数据，接收数据报告
-        if (System.currentTimeMillis() - this.lastLocalTimeReceiveRtp > 5_000) {
-            byte[] receiverAndByteContent = this.createReceiverAndSdesContent();
-            send.accept(receiverAndByteContent);
-            this.lastLocalTimeReceiveRtp = System.currentTimeMillis();
-            int fractionLost = this.packetsLostSinceLastReset * 100 / this.packetsReceivedSinceLastReset;
-            log.debug("Data Statistics: package lost number[{}], totoal number[{}], fraction lost[{}%]", this.cumulativePacketLost, this.packetsReceivedSinceLastReset, fractionLost);
+    /**
+     * Update interarrival jitter, RFC 3550 A.8, the difference of transit time is calculated with the delta of
+     * arrival time and the delta of rtp timestamp, so that the 32 bits timestamp wraparound is handled.
+     * (更新到达间隔抖动，传输时间差由到达时间差和RTP时间戳差计算，这样可以处理32位时间戳的回绕)
+     *
+     * @param timestamp rtp timestamp
+     * @param now       arrival time, unit ns
+     */
+    private void updateJitter(long timestamp, long now) {
+        double arrivalDelta = (now - this.lastArrivalTime) * (double) this.clockRate / 1_000_000_000L;
+        int timestampDelta = (int) (timestamp - this.lastRtpTimestamp);
+        double d = Math.abs(arrivalDelta - timestampDelta);
+        this.jitter += (d - this.jitter) / 16;
+    }
+
+    /**
+     * Get extended highest sequence number, the high 16 bits are the cycles.
+     * (获取扩展最大序列号，高16位为循环次数)
+     *
+     * @return extended highest sequence number
+     */
+    public synchronized long getExtHighestSequenceNumber() {
+        return ((long) this.sequenceNumberCycles << 16) + this.highestSequenceNumber;
+    }
+
+    /**
+     * Get expected packet count.
+     * (获取期望接收的包数量)
+     *
+     * @return expected packet count
+     */
+    private long getExpected() {
+        if (this.probation > 0) {
+            return 0;
         }
+        return this.getExtHighestSequenceNumber() - this.baseSequenceNumber + 1;
+    }
+
+    /**
+     * Get cumulative packet lost, clamped to 24 bits signed integer.
+     * (获取累计丢包数量，限制在24位有符号整数范围内)
+     *
+     * @return cumulative packet lost
+     */
+    public synchronized int getCumulativePacketLost() {
+        long lost = this.getExpected() - this.packetsReceived;
+        return (int) Math.max(-0x800000, Math.min(0x7FFFFF, lost));
     }
 
     /**
-     * Reset state.
-     * (重置状态)
+     * Reset state, the fraction lost of next report starts from now.
+     * (重置状态，下一次报告的丢包率从现在开始计算)
      */
-    public void resetState() {
-        this.packetsLostSinceLastReset = 0;
-        this.packetsReceivedSinceLastReset = 0;
+    public synchronized void resetState() {
+        this.expectedPrior = this.getExpected();
+        this.receivedPrior = this.packetsReceived;
     }
 
     /**
@@ -177,12 +455,16 @@ public class RtcpDataStatistics {
      *
      * @param basePackages rtcp数据包列表
      */
-    public void processRtcpPackage(List<RtcpBasePackage> basePackages) {
+    public synchronized void processRtcpPackage(List<RtcpBasePackage> basePackages) {
+        long now = System.nanoTime();
         for (RtcpBasePackage rtcp : basePackages) {
             log.debug("RTCP receives [{}] data，{}", rtcp.getHeader().getPackageType(), rtcp);
             if (rtcp instanceof RtcpSenderReport) {
-                this.lastNtpTimeSenderReportReceived = ((RtcpSenderReport) rtcp).getSenderInfo().getMswTimestamp();
-                this.lastTimeRtcpReportReceived = System.currentTimeMillis();
+                RtcpSenderInfo senderInfo = ((RtcpSenderReport) rtcp).getSenderInfo();
+                // LSR取NTP时间戳的中间32位，高位秒的低16位和低位小数的高16位
+                this.lastNtpTimeSenderReportReceived = ((senderInfo.getMswTimestamp() & 0xFFFF) << 16)
+                        | ((senderInfo.getLswTimestamp() >>> 16) & 0xFFFF);
+                this.lastTimeRtcpReportReceived = now;
             }
         }
     }
@@ -194,31 +476,97 @@ public class RtcpDataStatistics {
      * @return RtcpReceiverReport
      */
     public RtcpReceiverReport createReceiverReport() {
-        // 丢包率（8bit）:丢包率需要转换为0-255的占比；如20%丢包=20%*255=51
+        return this.createReceiverReport(System.nanoTime());
+    }
+
+    /**
+     * Create receiver report, RFC 3550 A.3.
+     * (创建接收报告)
+     *
+     * @param now current time, unit ns
+     * @return RtcpReceiverReport
+     */
+    private synchronized RtcpReceiverReport createReceiverReport(long now) {
+        long expected = this.getExpected();
+        long expectedInterval = expected - this.expectedPrior;
+        long receivedInterval = this.packetsReceived - this.receivedPrior;
+        this.expectedPrior = expected;
+        this.receivedPrior = this.packetsReceived;
+        long lostInterval = expectedInterval - receivedInterval;
+        // 丢包率（8bit）:丢包率需要转换为0-255的占比；如20%丢包=20%*256=51
         int fractionLost = 0;
-        if (this.packetsReceivedSinceLastReset != 0) {
-            fractionLost = this.packetsLostSinceLastReset * 256 / this.packetsReceivedSinceLastReset;
+        if (expectedInterval != 0 && lostInterval > 0) {
+            fractionLost = (int) Math.min(255, (lostInterval << 8) / expectedInterval);
         }
-        // 期望接收的最大序列号，低16位存储期望最大序列号；高16为翻转次数统计
-        long extHighestSequenceNumberReceived = ((long) this.sequenceNumberCycles << 16) | this.highestSequenceNumber;
-        // 最后一次接收SR到发送的时延（32bit）:DLSR最后一次收到SR包后到发送中间的时延；
+        // 最后一次接收SR到发送的时延（32bit）:DLSR最后一次收到SR包后到发送中间的时延，单位1/65536秒；
         long delaySinceLastTimeSenderReportReceived = 0;
-        if (this.lastTimeRtcpReportReceived > 0) {
-            delaySinceLastTimeSenderReportReceived = (System.currentTimeMillis() - this.lastTimeRtcpReportReceived) / 1000 * 65536;
+        if (this.lastNtpTimeSenderReportReceived != 0) {
+            delaySinceLastTimeSenderReportReceived = ((now - this.lastTimeRtcpReportReceived) / 1000 * 65536 / 1_000_000) & 0xFFFFFFFFL;
         }
         RtcpReceiverReport receiverReport = new RtcpReceiverReport(this.sourceId);
         RtcpReportBlock reportBlock = new RtcpReportBlock();
         reportBlock.setSourceId(this.lastRtpSsrc);
         reportBlock.setFractionLost(fractionLost);
-        reportBlock.setCumulativePacketLost(this.cumulativePacketLost);
-        reportBlock.setExtHighestSequenceNumberReceived(extHighestSequenceNumberReceived);
-        reportBlock.setJitter(0);
+        reportBlock.setCumulativePacketLost(this.getCumulativePacketLost());
+        // 期望接收的最大序列号，低16位存储期望最大序列号；高16为翻转次数统计
+        reportBlock.setExtHighestSequenceNumberReceived(this.getExtHighestSequenceNumber() & 0xFFFFFFFFL);
+        reportBlock.setJitter((long) this.jitter);
         reportBlock.setLastNtpTimeSenderReportReceived(this.lastNtpTimeSenderReportReceived);
         reportBlock.setDelaySinceLastTimeSenderReportReceived(delaySinceLastTimeSenderReportReceived);
         receiverReport.addRtcpReportBlock(reportBlock);
         return receiverReport;
     }
 
+    /**
+     * Create the snapshot of statistics, the rates are measured since the previous snapshot.
+     * (创建统计快照，速率从上一次快照开始计算)
+     *
+     * @return snapshot
+     */
+    public RtcpStatisticsSnapshot snapshot() {
+        return this.snapshot(System.nanoTime());
+    }
+
+    /**
+     * Create the snapshot of statistics, the rates are measured since the previous snapshot.
+     * (创建统计快照，速率从上一次快照开始计算)
+     *
+     * @param now current time, unit ns, from System.nanoTime()
+     * @return snapshot
+     */
+    public synchronized RtcpStatisticsSnapshot snapshot(long now) {
+        long expected = this.getExpected();
+        RtcpStatisticsSnapshot res = new RtcpStatisticsSnapshot();
+        res.setSourceId(this.lastRtpSsrc);
+        res.setClockRate(this.clockRate);
+        res.setExtHighestSequenceNumber(this.getExtHighestSequenceNumber());
+        res.setPacketsExpected(expected);
+        res.setPacketsReceived(this.packetsReceived);
+        res.setPacketsLost(expected - this.packetsReceived);
+        res.setJitter((long) this.jitter);
+        res.setJitterMs(this.jitter * 1000 / this.clockRate);
+        if (this.totalPackets == 0) {
+            return res;
+        }
+        long expectedInterval = expected - this.snapshotExpected;
+        long lostInterval = expectedInterval - (this.packetsReceived - this.snapshotReceived);
+        if (expectedInterval > 0 && lostInterval > 0) {
+            res.setFractionLost((double) lostInterval / expectedInterval);
+        }
+        long duration = now - this.snapshotTime;
+        res.setDuration(duration / 1_000_000);
+        if (duration > 0) {
+            res.setBitrate((this.totalBytes - this.snapshotBytes) * 8 * 1e9 / duration);
+            res.setFrameRate((this.totalFrames - this.snapshotFrames) * 1e9 / duration);
+        }
+        this.snapshotTime = now;
+        this.snapshotBytes = this.totalBytes;
+        this.snapshotFrames = this.totalFrames;
+        this.snapshotExpected = expected;
+        this.snapshotReceived = this.packetsReceived;
+        return res;
+    }
+
     /**
      * Create sdes report.
      * (创建SDES报告)
@@ -254,7 +602,11 @@ public class RtcpDataStatistics {
      * @return byte array
      */
     public byte[] createReceiverAndSdesContent() {
-        RtcpReceiverReport receiverReport = this.createReceiverReport();
+        return this.createReceiverAndSdesContent(System.nanoTime());
+    }
+
+    private byte[] createReceiverAndSdesContent(long now) {
+        RtcpReceiverReport receiverReport = this.createReceiverReport(now);
         RtcpSdesReport sdesReport = this.createSdesReport();
 //        log.debug("RTCP发送[{}]，[{}]数据", receiverReport.getHeader().getPackageType(), sdesReport.getHeader().getPackageType());
         byte[] res = new byte[receiverReport.byteArrayLength() + sdesReport.byteArrayLength()];
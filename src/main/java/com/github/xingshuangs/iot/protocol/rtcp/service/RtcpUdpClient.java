@@ -81,6 +81,10 @@ public class RtcpUdpClient extends UdpClientBasic implements IRtspDataStream {
         this.commCallback = commCallback;
     }
 
+    public RtcpDataStatistics getStatistics() {
+        return statistics;
+    }
+
 
     public RtcpUdpClient() {
         this.executorService = Executors.newSingleThreadExecutor();
@@ -0,0 +1,251 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.enums;
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * H265 Nalu type, RFC 7798.
+ * (H265的Nalu类别)
+ *
+ * @author xingshuang
+ */
+public enum EH265NaluType {
+
+    /**
+     * Trail n.
+     * 非参考的普通帧
+     */
+    TRAIL_N(0),
+
+    /**
+     * Trail r.
+     * 参考的普通帧
+     */
+    TRAIL_R(1),
+
+    /**
+     * TSA n.
+     * 时域子层切换点
+     */
+    TSA_N(2),
+
+    /**
+     * TSA r.
+     * 时域子层切换点
+     */
+    TSA_R(3),
+
+    /**
+     * STSA n.
+     * 逐步时域子层切换点
+     */
+    STSA_N(4),
+
+    /**
+     * STSA r.
+     * 逐步时域子层切换点
+     */
+    STSA_R(5),
+
+    /**
+     * RADL n.
+     * 可解码的前置图像
+     */
+    RADL_N(6),
+
+    /**
+     * RADL r.
+     * 可解码的前置图像
+     */
+    RADL_R(7),
+
+    /**
+     * RASL n.
+     * 跳过的前置图像
+     */
+    RASL_N(8),
+
+    /**
+     * RASL r.
+     * 跳过的前置图像
+     */
+    RASL_R(9),
+
+    /**
+     * BLA w lp.
+     * 断点连接访问图像
+     */
+    BLA_W_LP(16),
+
+    /**
+     * BLA w radl.
+     * 断点连接访问图像
+     */
+    BLA_W_RADL(17),
+
+    /**
+     * BLA n lp.
+     * 断点连接访问图像
+     */
+    BLA_N_LP(18),
+
+    /**
+     * IDR w radl.
+     * IDR 图像
+     */
+    IDR_W_RADL(19),
+
+    /**
+     * IDR n lp.
+     * IDR 图像
+     */
+    IDR_N_LP(20),
+
+    /**
+     * CRA.
+     * 纯随机访问图像
+     */
+    CRA_NUT(21),
+
+    /**
+     * VPS.
+     * VPS（视频参数集）
+     */
+    VPS(32),
+
+    /**
+     * SPS.
+     * SPS（序列参数集）
+     */
+    SPS(33),
+
+    /**
+     * PPS.
+     * PPS（图像参数集）
+     */
+    PPS(34),
+
+    /**
+     * AUD.
+     * 分界符
+     */
+    AUD(35),
+
+    /**
+     * End of sequence.
+     * 序列结束
+     */
+    EOS(36),
+
+    /**
+     * End of bitstream.
+     * 码流结束
+     */
+    EOB(37),
+
+    /**
+     * Filler data.
+     * 填充
+     */
+    FD(38),
+
+    /**
+     * Prefix SEI.
+     * 前缀SEI（辅助增强信息）
+     */
+    PREFIX_SEI(39),
+
+    /**
+     * Suffix SEI.
+     * 后缀SEI（辅助增强信息）
+     */
+    SUFFIX_SEI(40),
+
+    /**
+     * AP.
+     * 聚合包，用于一个 RTP 包荷载多个 NALU
+     */
+    AP(48),
+
+    /**
+     * FU.
+     * 分片单元，用于将单个 NALU 分到多个 RTP 包
+     */
+    FU(49),
+
+    /**
+     * PACI.
+     * 负载内容信息
+     */
+    PACI(50),
+
+    ;
+
+    private static Map<Integer, EH265NaluType> map;
+
+    public static EH265NaluType from(int data) {
+        if (map == null) {
+            map = new HashMap<>();
+            for (EH265NaluType item : EH265NaluType.values()) {
+                map.put(item.code, item);
+            }
+        }
+        return map.get(data);
+    }
+
+    private final int code;
+
+    EH265NaluType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Is video coding layer, the slice of frame.
+     * (是否为视频编码层，即帧的slice)
+     *
+     * @return true：VCL，false：not VCL
+     */
+    public boolean isVcl() {
+        return this.code < 32;
+    }
+
+    /**
+     * Is intra random access point, the key frame.
+     * (是否为随机访问点，即关键帧)
+     *
+     * @return true：key frame，false：not key frame
+     */
+    public boolean isIrap() {
+        return this.code >= 16 && this.code <= 23;
+    }
+}
@@ -31,6 +31,8 @@ import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.utils.BooleanUtil;
 import lombok.Data;
 
+import java.nio.ByteBuffer;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -252,4 +254,47 @@ public class RtpHeader implements IObjectByteArray {
         }
         return res;
     }
+
+    /**
+     * Parses the header in place from byte buffer with absolute get, the position of buffer is not changed.
+     * (使用绝对位置从字节缓存中原地解析头，不改变缓存的position)
+     *
+     * @param buffer byte buffer, such as the direct buffer of datagram channel
+     * @param offset index offset
+     * @return RtpHeader
+     */
+    public static RtpHeader fromByteBuffer(final ByteBuffer buffer, final int offset) {
+        if (buffer.limit() - offset < 12) {
+            throw new IndexOutOfBoundsException("header, data length < 12");
+        }
+        RtpHeader res = new RtpHeader();
+        byte aByte = buffer.get(offset);
+        res.version = (aByte >> 6) & 0x03;
+        res.padding = BooleanUtil.getValue(aByte, 5);
+        res.extension = BooleanUtil.getValue(aByte, 4);
+        res.csrcCount = aByte & 0x0F;
+        byte bByte = buffer.get(offset + 1);
+        res.marker = BooleanUtil.getValue(bByte, 7);
+        res.payloadType = bByte & 0x7F;
+        res.sequenceNumber = buffer.getShort(offset + 2) & 0xFFFF;
+        res.timestamp = buffer.getInt(offset + 4) & 0xFFFFFFFFL;
+        res.ssrc = buffer.getInt(offset + 8) & 0xFFFFFFFFL;
+
+        int index = offset + 12;
+        for (int i = 0; i < res.csrcCount; i++) {
+            res.csrcList.add(buffer.getInt(index) & 0xFFFFFFFFL);
+            index += 4;
+        }
+        // 扩展头
+        if (res.extension) {
+            res.extensionHeaderId = buffer.getShort(index) & 0xFFFF;
+            res.extensionHeaderLength = (buffer.getShort(index + 2) & 0xFFFF) * 4;
+            index += 4;
+            res.extensionHeaderContent = new byte[res.extensionHeaderLength];
+            ByteBuffer content = buffer.duplicate();
+            content.position(index);
+            content.get(res.extensionHeaderContent);
+        }
+        return res;
+    }
 }
@@ -26,10 +26,12 @@ package com.github.xingshuangs.iot.protocol.rtp.model;
 
 
 import com.github.xingshuangs.iot.common.IObjectByteArray;
-import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
 import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import lombok.Data;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * Rtp package class.
  * (RTP数据包)
@@ -88,7 +90,20 @@ public class RtpPackage implements IObjectByteArray {
      * @return RtcpHeader
      */
     public static RtpPackage fromBytes(final byte[] data, final int offset) {
-        if (data.length < 12) {
+        return fromBytes(data, offset, data.length - offset);
+    }
+
+    /**
+     * Parses part of byte array and converts it to object, the header is parsed in place and only the payload is copied.
+     * (解析字节数组中的一段数据，头部原地解析，只拷贝负载)
+     *
+     * @param data   byte array
+     * @param offset index offset
+     * @param length byte length of rtp package
+     * @return RtpPackage
+     */
+    public static RtpPackage fromBytes(final byte[] data, final int offset, final int length) {
+        if (length < 12 || offset + length > data.length) {
             throw new IndexOutOfBoundsException("RtpPackage, data length < 12");
         }
         int index = offset;
@@ -97,11 +112,42 @@ public class RtpPackage implements IObjectByteArray {
         res.header = RtpHeader.fromBytes(data, offset);
         index += res.header.byteArrayLength();
         // 最后一个填充字节标识了总共需要忽略多少个填充字节（包括自己）
-        res.ignoreLength = res.header.isPadding() ? data[data.length - 1] & 0xFF : 0;
+        res.ignoreLength = res.header.isPadding() ? data[offset + length - 1] & 0xFF : 0;
         // 负载
-        ByteReadBuff buff = new ByteReadBuff(data, index);
-        int payloadLength = data.length - index - res.ignoreLength;
-        res.payload = buff.getBytes(payloadLength);
+        int payloadLength = offset + length - index - res.ignoreLength;
+        res.payload = Arrays.copyOfRange(data, index, index + payloadLength);
+        return res;
+    }
+
+    /**
+     * Parses the rtp package between position and limit of byte buffer, the header is parsed in place and only the
+     * payload is copied, the position of buffer is not changed.
+     * (解析字节缓存position到limit之间的RTP包，头部原地解析，只拷贝负载，不改变缓存的position)
+     *
+     * @param buffer byte buffer, such as the direct buffer of datagram channel
+     * @return RtpPackage
+     */
+    public static RtpPackage fromByteBuffer(final ByteBuffer buffer) {
+        int offset = buffer.position();
+        int length = buffer.remaining();
+        if (length < 12) {
+            throw new IndexOutOfBoundsException("RtpPackage, data length < 12");
+        }
+        RtpPackage res = new RtpPackage();
+        // 头
+        res.header = RtpHeader.fromByteBuffer(buffer, offset);
+        int index = offset + res.header.byteArrayLength();
+        // 最后一个填充字节标识了总共需要忽略多少个填充字节（包括自己）
+        res.ignoreLength = res.header.isPadding() ? buffer.get(offset + length - 1) & 0xFF : 0;
+        // 负载
+        int payloadLength = offset + length - index - res.ignoreLength;
+        if (payloadLength < 0) {
+            throw new IndexOutOfBoundsException("RtpPackage, payload length < 0");
+        }
+        res.payload = new byte[payloadLength];
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(index);
+        payload.get(res.payload);
         return res;
     }
 }
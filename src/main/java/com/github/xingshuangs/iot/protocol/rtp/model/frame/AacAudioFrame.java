@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.rtp.model.frame;
+
+
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.rtp.enums.EFrameType;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * AAC audio frame, the frame segment is one raw data block (access unit) without ADTS header.
+ * (AAC音频帧，帧内容为一个不带ADTS头的原始数据块（访问单元）)
+ *
+ * @author xingshuang
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AacAudioFrame extends RawFrame {
+
+    /**
+     * Samples per frame of AAC.
+     * (AAC每帧的采样数)
+     */
+    public static final int SAMPLES_PER_FRAME = 1024;
+
+    public AacAudioFrame(long timestamp, byte[] frameSegment) {
+        this.frameType = EFrameType.AUDIO;
+        this.timestamp = timestamp;
+        this.pts = timestamp;
+        this.dts = timestamp;
+        this.duration = SAMPLES_PER_FRAME;
+        this.frameSegment = frameSegment;
+    }
+
+    @Override
+    public int byteArrayLength() {
+        return 5 + this.frameSegment.length;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        return ByteWriteBuff.newInstance(this.byteArrayLength())
+                .putByte(this.frameType.getCode())
+                .putInteger(this.timestamp)
+                .putBytes(this.frameSegment)
+                .getData();
+    }
+}
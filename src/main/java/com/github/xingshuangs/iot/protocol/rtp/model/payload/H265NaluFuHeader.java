@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.model.payload;
+
+
+import com.github.xingshuangs.iot.common.IObjectByteArray;
+import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.protocol.rtp.enums.EH265NaluType;
+import com.github.xingshuangs.iot.utils.BooleanUtil;
+import lombok.Data;
+
+/**
+ * H265 Nalu的FU头
+ * +---------------+
+ * |0|1|2|3|4|5|6|7|
+ * +-+-+-+-+-+-+-+-+
+ * |S|E|  FuType   |
+ * +---------------+
+ *
+ * @author xingshuang
+ */
+@Data
+public class H265NaluFuHeader implements IObjectByteArray {
+
+    /**
+     * Start of the fragmented NAL unit.
+     * (开始位指示分片NAL单元的开始)
+     */
+    private boolean start;
+
+    /**
+     * End of the fragmented NAL unit.
+     * (结束位指示分片NAL单元的结束)
+     */
+    private boolean end;
+
+    /**
+     * Nalu type, 6 bits.
+     * (NALU 数据类型，6位)
+     */
+    private EH265NaluType type;
+
+    @Override
+    public int byteArrayLength() {
+        return 1;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        byte res = (byte) (BooleanUtil.setBit(7, this.start)
+                | BooleanUtil.setBit(6, this.end)
+                | (this.type.getCode() & 0x3F));
+        return new byte[]{res};
+    }
+
+    /**
+     * Parses byte array and converts it to object.
+     *
+     * @param data byte array
+     * @return H265NaluFuHeader
+     */
+    public static H265NaluFuHeader fromBytes(final byte[] data) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * Parses byte array and converts it to object.
+     *
+     * @param data   byte array
+     * @param offset index offset
+     * @return H265NaluFuHeader
+     */
+    public static H265NaluFuHeader fromBytes(final byte[] data, final int offset) {
+        if (data.length < 1) {
+            throw new IndexOutOfBoundsException("H265NaluFuHeader, data length < 1");
+        }
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
+        H265NaluFuHeader res = new H265NaluFuHeader();
+        byte aByte = buff.getByte();
+        res.start = BooleanUtil.getValue(aByte, 7);
+        res.end = BooleanUtil.getValue(aByte, 6);
+        res.type = EH265NaluType.from(aByte & 0x3F);
+        return res;
+    }
+}
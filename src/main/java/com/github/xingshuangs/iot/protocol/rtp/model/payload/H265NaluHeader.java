@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.model.payload;
+
+
+import com.github.xingshuangs.iot.common.IObjectByteArray;
+import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.protocol.rtp.enums.EH265NaluType;
+import com.github.xingshuangs.iot.utils.BooleanUtil;
+import lombok.Data;
+
+/**
+ * H265 Nalu的头
+ * +---------------+---------------+
+ * |0|1|2|3|4|5|6|7|0|1|2|3|4|5|6|7|
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |F|   Type    |  LayerId  | TID |
+ * +-------------+-----------------+
+ *
+ * @author xingshuang
+ */
+@Data
+public class H265NaluHeader implements IObjectByteArray {
+
+    /**
+     * Forbidden zero bit.
+     * (H265 规范要求该位为 0)
+     */
+    private boolean forbiddenZeroBit;
+
+    /**
+     * Nalu type, 6 bits, the reserved type is null.
+     * (NALU 数据类型，6位，保留的类型为null)
+     */
+    private EH265NaluType type;
+
+    /**
+     * Layer id, 6 bits.
+     * (层id，6位)
+     */
+    private int layerId;
+
+    /**
+     * Temporal id plus 1, 3 bits.
+     * (时域层id加1，3位)
+     */
+    private int tid;
+
+    @Override
+    public int byteArrayLength() {
+        return 2;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        byte res1 = (byte) (BooleanUtil.setBit(7, this.forbiddenZeroBit)
+                | ((this.type.getCode() << 1) & 0x7E)
+                | ((this.layerId >> 5) & 0x01));
+        byte res2 = (byte) (((this.layerId << 3) & 0xF8) | (this.tid & 0x07));
+        return new byte[]{res1, res2};
+    }
+
+    /**
+     * Parses byte array and converts it to object.
+     *
+     * @param data byte array
+     * @return H265NaluHeader
+     */
+    public static H265NaluHeader fromBytes(final byte[] data) {
+        return fromBytes(data, 0);
+    }
+
+    /**
+     * Parses byte array and converts it to object.
+     *
+     * @param data   byte array
+     * @param offset index offset
+     * @return H265NaluHeader
+     */
+    public static H265NaluHeader fromBytes(final byte[] data, final int offset) {
+        if (data.length < 2) {
+            throw new IndexOutOfBoundsException("H265NaluHeader, data length < 2");
+        }
+        ByteReadBuff buff = new ByteReadBuff(data, offset);
+        H265NaluHeader res = new H265NaluHeader();
+        byte aByte = buff.getByte();
+        byte bByte = buff.getByte();
+        res.forbiddenZeroBit = BooleanUtil.getValue(aByte, 7);
+        res.type = EH265NaluType.from((aByte >> 1) & 0x3F);
+        res.layerId = ((aByte & 0x01) << 5) | ((bByte >> 3) & 0x1F);
+        res.tid = bByte & 0x07;
+        return res;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.model.payload;
+
+
+import com.github.xingshuangs.iot.utils.HexUtil;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * H265 sps信息，只解析到宽高和位深
+ *
+ * @author xingshuang
+ */
+@Getter
+public class H265SeqParameterSet {
+    private int videoParameterSetId;
+    private int maxSubLayersMinus1;
+    private boolean temporalIdNestingFlag;
+    private int generalProfileSpace;
+    private boolean generalTierFlag;
+    private int generalProfileIdc;
+    private long generalProfileCompatibilityFlags;
+    private byte[] generalConstraintIndicatorFlags;
+    private int generalLevelIdc;
+    private int seqParameterSetId;
+    private int chromaFormatIdc;
+    private boolean separateColourPlaneFlag;
+    private int picWidthInLumaSamples;
+    private int picHeightInLumaSamples;
+    private boolean conformanceWindowFlag;
+    private int confWinLeftOffset;
+    private int confWinRightOffset;
+    private int confWinTopOffset;
+    private int confWinBottomOffset;
+    private int bitDepthLumaMinus8;
+    private int bitDepthChromaMinus8;
+
+    /**
+     * Video width.
+     * (视频宽度)
+     *
+     * @return 宽度
+     */
+    public int getWidth() {
+        int subWidthC = this.chromaFormatIdc == 1 || this.chromaFormatIdc == 2 ? 2 : 1;
+        return this.picWidthInLumaSamples - subWidthC * (this.confWinLeftOffset + this.confWinRightOffset);
+    }
+
+    /**
+     * Video height.
+     * (视频高度)
+     *
+     * @return 高度
+     */
+    public int getHeight() {
+        int subHeightC = this.chromaFormatIdc == 1 ? 2 : 1;
+        return this.picHeightInLumaSamples - subHeightC * (this.confWinTopOffset + this.confWinBottomOffset);
+    }
+
+    /**
+     * Codec string of RFC 6381, e.g. hvc1.1.6.L120.90
+     * (RFC 6381的codec字符串，例如hvc1.1.6.L120.90)
+     *
+     * @return codec
+     */
+    public String getCodec() {
+        StringBuilder sb = new StringBuilder("hvc1.");
+        if (this.generalProfileSpace > 0) {
+            sb.append((char) ('A' + this.generalProfileSpace - 1));
+        }
+        sb.append(this.generalProfileIdc).append('.');
+        // 兼容标识按位反序
+        sb.append(Long.toHexString(Integer.reverse((int) this.generalProfileCompatibilityFlags) & 0xFFFFFFFFL).toUpperCase());
+        sb.append('.').append(this.generalTierFlag ? 'H' : 'L').append(this.generalLevelIdc);
+        // 约束标识去掉末尾的0字节
+        int length = this.generalConstraintIndicatorFlags.length;
+        while (length > 0 && this.generalConstraintIndicatorFlags[length - 1] == 0) {
+            length--;
+        }
+        for (int i = 0; i < length; i++) {
+            sb.append('.').append(HexUtil.toHexString(new byte[]{this.generalConstraintIndicatorFlags[i]}, "", true));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Create sps by byte array.
+     * (根据字节数组构建sps)
+     *
+     * @param data 字节数组，包含2字节的nalu头
+     * @return sps
+     */
+    public static H265SeqParameterSet createSPS(byte[] data) {
+        H265SeqParameterSet sps = new H265SeqParameterSet();
+        ExpGolomb expGolomb = new ExpGolomb(removeEmulationPrevention(data));
+        // filter header
+        expGolomb.skipBit(16);
+        sps.videoParameterSetId = (int) expGolomb.readNBit(4);
+        sps.maxSubLayersMinus1 = (int) expGolomb.readNBit(3);
+        sps.temporalIdNestingFlag = expGolomb.readBoolean();
+
+        profileTierLevelHandle(sps, expGolomb);
+
+        sps.seqParameterSetId = expGolomb.readUE();
+        sps.chromaFormatIdc = expGolomb.readUE();
+        if (sps.chromaFormatIdc == 3) {
+            sps.separateColourPlaneFlag = expGolomb.readBoolean();
+        }
+        sps.picWidthInLumaSamples = expGolomb.readUE();
+        sps.picHeightInLumaSamples = expGolomb.readUE();
+        sps.conformanceWindowFlag = expGolomb.readBoolean();
+        if (sps.conformanceWindowFlag) {
+            sps.confWinLeftOffset = expGolomb.readUE();
+            sps.confWinRightOffset = expGolomb.readUE();
+            sps.confWinTopOffset = expGolomb.readUE();
+            sps.confWinBottomOffset = expGolomb.readUE();
+        }
+        sps.bitDepthLumaMinus8 = expGolomb.readUE();
+        sps.bitDepthChromaMinus8 = expGolomb.readUE();
+        return sps;
+    }
+
+    /**
+     * Handling of profile tier level.
+     * (profile_tier_level的处理)
+     *
+     * @param sps       sps
+     * @param expGolomb 编码
+     */
+    private static void profileTierLevelHandle(H265SeqParameterSet sps, ExpGolomb expGolomb) {
+        sps.generalProfileSpace = (int) expGolomb.readNBit(2);
+        sps.generalTierFlag = expGolomb.readBoolean();
+        sps.generalProfileIdc = (int) expGolomb.readNBit(5);
+        sps.generalProfileCompatibilityFlags = expGolomb.readNBit(32);
+        sps.generalConstraintIndicatorFlags = new byte[6];
+        for (int i = 0; i < sps.generalConstraintIndicatorFlags.length; i++) {
+            sps.generalConstraintIndicatorFlags[i] = (byte) expGolomb.readNBit(8);
+        }
+        sps.generalLevelIdc = (int) expGolomb.readNBit(8);
+
+        boolean[] subLayerProfilePresent = new boolean[sps.maxSubLayersMinus1];
+        boolean[] subLayerLevelPresent = new boolean[sps.maxSubLayersMinus1];
+        for (int i = 0; i < sps.maxSubLayersMinus1; i++) {
+            subLayerProfilePresent[i] = expGolomb.readBoolean();
+            subLayerLevelPresent[i] = expGolomb.readBoolean();
+        }
+        if (sps.maxSubLayersMinus1 > 0) {
+            expGolomb.skipBit(2 * (8 - sps.maxSubLayersMinus1));
+        }
+        for (int i = 0; i < sps.maxSubLayersMinus1; i++) {
+            if (subLayerProfilePresent[i]) {
+                // profile_space, tier, profile_idc, 32位兼容标识, 48位约束标识
+                expGolomb.skipBit(8);
+                expGolomb.skipBit(32);
+                expGolomb.skipBit(32);
+                expGolomb.skipBit(16);
+            }
+            if (subLayerLevelPresent[i]) {
+                expGolomb.skipBit(8);
+            }
+        }
+    }
+
+    /**
+     * Remove the emulation prevention byte 0x03 of 0x000003.
+     * (去掉0x000003中的防竞争字节0x03)
+     *
+     * @param data 字节数组
+     * @return 去掉防竞争字节后的数组
+     */
+    public static byte[] removeEmulationPrevention(byte[] data) {
+        byte[] res = new byte[data.length];
+        int length = 0;
+        int zeroCount = 0;
+        for (byte item : data) {
+            if (zeroCount >= 2 && item == 0x03) {
+                zeroCount = 0;
+                continue;
+            }
+            res[length++] = item;
+            zeroCount = item == 0 ? zeroCount + 1 : 0;
+        }
+        return length == data.length ? res : Arrays.copyOf(res, length);
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.rtp.service;
+
+
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.AacAudioFrame;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * AAC audio parser, RFC 3640 mpeg4-generic, AAC-hbr and AAC-lbr mode, the payload is AU-headers-length(16 bits) +
+ * AU-headers + access units, an access unit larger than one rtp package is fragmented, and the fragments carry the
+ * same timestamp, the last one is marked. The interleaving is not supported, that is index-delta is always 0.
+ * (AAC的音频数据解析器，RFC 3640 mpeg4-generic，AAC-hbr和AAC-lbr模式，负载为AU头长度(16位) + AU头 + 访问单元，
+ * 超过一个rtp包的访问单元会分片，分片的时间戳相同，最后一片带marker，不支持交织，即index-delta总是0)
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class AacAudioParser implements IPayloadParser {
+
+    /**
+     * Payload number.
+     * (负载编号)
+     */
+    private final Integer payloadNumber;
+
+    /**
+     * Bit length of AU-size in AU-header, 13 for AAC-hbr, 6 for AAC-lbr.
+     * (AU头中AU-size的位长度，AAC-hbr为13，AAC-lbr为6)
+     */
+    private final int sizeLength;
+
+    /**
+     * Bit length of AU-Index in the first AU-header.
+     * (第一个AU头中AU-Index的位长度)
+     */
+    private final int indexLength;
+
+    /**
+     * Bit length of AU-Index-delta in the other AU-headers.
+     * (其他AU头中AU-Index-delta的位长度)
+     */
+    private final int indexDeltaLength;
+
+    /**
+     * Base timestamp.
+     * (基准时间戳)
+     */
+    private long baseTimestamp = 0;
+
+    /**
+     * Frame handle.
+     * （帧处理事件）
+     */
+    private Consumer<RawFrame> frameHandle;
+
+    /**
+     * RTP jitter buffer, reorder the packages, mainly for cases where UDP is received out of order.
+     * (RTP抖动缓冲区，对包重新排序，主要针对UDP接收不按顺序的情况)
+     */
+    private final RtpJitterBuffer jitterBuffer;
+
+    /**
+     * Buffer of the fragmented access unit, null means no fragment.
+     * (分片的访问单元缓存，null表示没有分片)
+     */
+    private byte[] fragment;
+
+    /**
+     * Received length of the fragmented access unit.
+     * (分片的访问单元已接收的长度)
+     */
+    private int fragmentLength;
+
+    /**
+     * Timestamp of the fragmented access unit.
+     * (分片的访问单元的时间戳)
+     */
+    private long fragmentTimestamp;
+
+    /**
+     * Sequence number of the last fragment.
+     * (上一个分片的序列号)
+     */
+    private int fragmentSequenceNumber;
+
+    public AacAudioParser(Integer payloadNumber) {
+        this(payloadNumber, 13, 3, 3);
+    }
+
+    public AacAudioParser(Integer payloadNumber, int sizeLength, int indexLength, int indexDeltaLength) {
+        this(payloadNumber, sizeLength, indexLength, indexDeltaLength, new RtpJitterBuffer());
+    }
+
+    public AacAudioParser(Integer payloadNumber, int sizeLength, int indexLength, int indexDeltaLength, RtpJitterBuffer jitterBuffer) {
+        if (sizeLength <= 0 || sizeLength > 16) {
+            throw new IllegalArgumentException("sizeLength must be in [1, 16]");
+        }
+        if (indexLength < 0 || indexDeltaLength < 0) {
+            throw new IllegalArgumentException("indexLength < 0 or indexDeltaLength < 0");
+        }
+        this.payloadNumber = payloadNumber;
+        this.sizeLength = sizeLength;
+        this.indexLength = indexLength;
+        this.indexDeltaLength = indexDeltaLength;
+        this.jitterBuffer = jitterBuffer;
+    }
+
+    public RtpJitterBuffer getJitterBuffer() {
+        return jitterBuffer;
+    }
+
+    /**
+     * Process rtp package, it is mutually exclusive with the periodic release on the timer thread.
+     * (处理RTP包，和定时线程上的周期性释放互斥)
+     *
+     * @param rtpPackage rtp package
+     */
+    @Override
+    public synchronized void processPackage(RtpPackage rtpPackage) {
+        // 过滤负载编号不一致的rtp
+        if (rtpPackage.getHeader().getPayloadType() != this.payloadNumber) {
+            log.warn("payload numbers are inconsistent, expect[{}], actual[{}], ignore this message.", this.payloadNumber, rtpPackage.getHeader().getPayloadType());
+            return;
+        }
+        this.jitterBuffer.add(rtpPackage, System.currentTimeMillis(), this::processOrderedPackage);
+    }
+
+    @Override
+    public void onFrameHandle(Consumer<RawFrame> frameHandle) {
+        this.frameHandle = frameHandle;
+    }
+
+    @Override
+    public synchronized void release(long now) {
+        this.jitterBuffer.release(now, this::processOrderedPackage);
+    }
+
+    @Override
+    public synchronized void flush() {
+        this.jitterBuffer.flush(this::processOrderedPackage);
+    }
+
+    /**
+     * Process the rtp package released by jitter buffer in order.
+     * (处理抖动缓冲区按顺序释放的RTP包)
+     *
+     * @param rtp rtp package
+     */
+    private void processOrderedPackage(RtpPackage rtp) {
+        // 第一次更新时间
+        if (this.baseTimestamp == 0) {
+            this.baseTimestamp = rtp.getHeader().getTimestamp();
+        }
+        byte[] payload = rtp.getPayload();
+        if (payload.length < 2) {
+            log.warn("The payload length of AAC is less than 2, sequence number [{}]", rtp.getHeader().getSequenceNumber());
+            return;
+        }
+        // AU头的总位数，之后的AU头按字节对齐
+        int headersLength = ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF);
+        int headersEnd = 16 + headersLength;
+        int dataIndex = 2 + (headersLength + 7) / 8;
+        if (dataIndex > payload.length) {
+            log.warn("The AU-headers-length of AAC is invalid, length [{}], sequence number [{}]", headersLength, rtp.getHeader().getSequenceNumber());
+            return;
+        }
+        if (this.fragment != null && this.fragmentTimestamp != rtp.getHeader().getTimestamp()) {
+            // 时间戳变化，分片的最后一片丢失了，丢弃之前不完整的访问单元
+            log.debug("The last fragment of AAC is lost, the incomplete access unit is discarded, timestamp [{}]", this.fragmentTimestamp);
+            this.fragment = null;
+        }
+        int bitIndex = 16;
+        int count = 0;
+        while (bitIndex + this.sizeLength <= headersEnd) {
+            int size = readBits(payload, bitIndex, this.sizeLength);
+            // 跳过AU-Index或AU-Index-delta，不支持交织
+            bitIndex += this.sizeLength + (count == 0 ? this.indexLength : this.indexDeltaLength);
+            if (this.fragment != null || dataIndex + size > payload.length) {
+                // 分片的包只包含一个AU头
+                this.processFragment(rtp, dataIndex, size);
+                return;
+            }
+            long timestamp = rtp.getHeader().getTimestamp() + (long) count * AacAudioFrame.SAMPLES_PER_FRAME;
+            this.audioFrameHandle(Arrays.copyOfRange(payload, dataIndex, dataIndex + size), timestamp);
+            dataIndex += size;
+            count++;
+        }
+    }
+
+    /**
+     * Process the fragment of access unit, the fragments are continuous and carry the same timestamp and AU-size.
+     * (处理访问单元的分片，分片连续且时间戳和AU-size相同)
+     *
+     * @param rtp    rtp package
+     * @param offset offset of fragment in payload
+     * @param size   size of the whole access unit
+     */
+    private void processFragment(RtpPackage rtp, int offset, int size) {
+        byte[] payload = rtp.getPayload();
+        long timestamp = rtp.getHeader().getTimestamp();
+        int sequenceNumber = rtp.getHeader().getSequenceNumber();
+        if (this.fragment != null && (this.fragment.length != size
+                || ((this.fragmentSequenceNumber + 1) & 0xFFFF) != sequenceNumber)) {
+            // 分片不连续，丢弃之前不完整的访问单元
+            log.debug("The fragments of AAC are discontinuous, the incomplete access unit is discarded, timestamp [{}]", this.fragmentTimestamp);
+            this.fragment = null;
+        }
+        if (this.fragment == null) {
+            this.fragment = new byte[size];
+            this.fragmentLength = 0;
+            this.fragmentTimestamp = timestamp;
+        }
+        int length = Math.min(payload.length - offset, size - this.fragmentLength);
+        System.arraycopy(payload, offset, this.fragment, this.fragmentLength, length);
+        this.fragmentLength += length;
+        this.fragmentSequenceNumber = sequenceNumber;
+        if (this.fragmentLength < size) {
+            if (rtp.getHeader().isMarker()) {
+                log.debug("The last fragment of AAC is incomplete, the access unit is discarded, timestamp [{}]", timestamp);
+                this.fragment = null;
+            }
+            return;
+        }
+        byte[] data = this.fragment;
+        this.fragment = null;
+        this.audioFrameHandle(data, timestamp);
+    }
+
+    /**
+     * Audio frame handle.
+     * (音频帧处理)
+     *
+     * @param data      access unit
+     * @param timestamp rtp timestamp
+     */
+    private void audioFrameHandle(byte[] data, long timestamp) {
+        if (data.length == 0 || this.frameHandle == null) {
+            return;
+        }
+        this.frameHandle.accept(new AacAudioFrame(timestamp - this.baseTimestamp, data));
+    }
+
+    /**
+     * Read bits in big-endian order.
+     * (按大端顺序读取位)
+     *
+     * @param data      byte array
+     * @param bitOffset bit offset
+     * @param bitLength bit length, at most 32
+     * @return value
+     */
+    private static int readBits(byte[] data, int bitOffset, int bitLength) {
+        int res = 0;
+        for (int i = bitOffset; i < bitOffset + bitLength; i++) {
+            res = (res << 1) | ((data[i >> 3] >> (7 - (i & 0x07))) & 0x01);
+        }
+        return res;
+    }
+}
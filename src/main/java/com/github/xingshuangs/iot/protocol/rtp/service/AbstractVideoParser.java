@@ -0,0 +1,580 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.service;
+
+
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Abstract video parser, the common part of H264 and H265, including the jitter buffer, aggregation package,
+ * frame assembly of single NALU and FU, packet loss handling and DTS calculation.
+ * (视频数据解析器的抽象类，H264和H265的公共部分，包括抖动缓冲区，聚合包，单NALU和FU的组帧，丢包处理和DTS计算)
+ *
+ * @param <T> video frame type
+ * @author xingshuang
+ */
+@Slf4j
+public abstract class AbstractVideoParser<T extends RawFrame> implements IPayloadParser {
+
+    /**
+     * Payload number.
+     * (负载编号)
+     */
+    private final Integer payloadNumber;
+
+    /**
+     * Base timestamp.
+     * (基准时间戳)
+     */
+    protected long baseTimestamp = 0;
+
+    /**
+     * Last frame.
+     * (上一帧)
+     */
+    private T lastFrame;
+
+    /**
+     * Cache list of video frame.
+     * (缓存帧列表)
+     */
+    private final List<T> cacheFrameList = new ArrayList<>();
+
+    /**
+     * Frame handle.
+     * （帧处理事件）
+     */
+    private Consumer<RawFrame> frameHandle;
+
+    /**
+     * RTP jitter buffer, reorder the packages, mainly for cases where UDP is received out of order.
+     * (RTP抖动缓冲区，对包重新排序，主要针对UDP接收不按顺序的情况)
+     */
+    private final RtpJitterBuffer jitterBuffer;
+
+    /**
+     * Nalu buffer, the units of aggregation packets are views of the rtp payload.
+     * (单Nalu的缓存，聚合包中的单元只是rtp负载的视图，不拷贝)
+     */
+    private final List<NaluSlice> naluBuffers = new ArrayList<>();
+
+    /**
+     * Whether there are B frames.
+     * (是否有B帧)
+     */
+    private boolean hasBFrame;
+
+    protected AbstractVideoParser(Integer payloadNumber, RtpJitterBuffer jitterBuffer) {
+        this.payloadNumber = payloadNumber;
+        this.jitterBuffer = jitterBuffer;
+    }
+
+    public RtpJitterBuffer getJitterBuffer() {
+        return jitterBuffer;
+    }
+
+    /**
+     * Length of NALU header, 1 for H264, 2 for H265, the FU header follows the payload header of the same length.
+     * (NALU头的长度，H264为1，H265为2，FU头位于相同长度的负载头之后)
+     *
+     * @return length of NALU header
+     */
+    protected abstract int getNaluHeaderLength();
+
+    /**
+     * Process the payload of rtp package released by jitter buffer, except for the aggregation package which is
+     * dispatched by {@link #processAggregationPackage}, each NALU is processed by {@link #processNalu}.
+     * (处理抖动缓冲区释放的RTP包负载，聚合包交给processAggregationPackage处理，每个NALU交给processNalu处理)
+     *
+     * @param rtp rtp package
+     */
+    protected abstract void processPayload(RtpPackage rtp);
+
+    /**
+     * Process single NALU or FU fragment, it can be the whole rtp payload or a unit of aggregation package.
+     * (处理单NALU或FU分片，可以是整个rtp负载或者聚合包中的一个单元)
+     *
+     * @param rtp       rtp package
+     * @param offset    offset of NALU in payload
+     * @param length    length of NALU
+     * @param timestamp timestamp of NALU
+     * @param marker    end of frame or not
+     */
+    protected abstract void processNalu(RtpPackage rtp, int offset, int length, long timestamp, boolean marker);
+
+    /**
+     * Whether the slice is FU fragment.
+     * (是否为FU分片)
+     *
+     * @param slice nalu slice
+     * @return true: FU fragment, false: single NALU
+     */
+    protected abstract boolean isFragment(NaluSlice slice);
+
+    /**
+     * Whether the FU fragment is the start fragment.
+     * (FU分片是否为起始分片)
+     *
+     * @param slice nalu slice
+     * @return true: start, false: not start
+     */
+    protected abstract boolean isFragmentStart(NaluSlice slice);
+
+    /**
+     * Whether the FU fragment is the end fragment.
+     * (FU分片是否为结束分片)
+     *
+     * @param slice nalu slice
+     * @return true: end, false: not end
+     */
+    protected abstract boolean isFragmentEnd(NaluSlice slice);
+
+    /**
+     * Rebuild the NALU header from the payload header and FU header of fragment.
+     * (根据分片的负载头和FU头重组NALU头)
+     *
+     * @param target target frame array
+     * @param offset offset of NALU header
+     * @param slice  the end fragment
+     */
+    protected abstract void rebuildNaluHeader(byte[] target, int offset, NaluSlice slice);
+
+    /**
+     * Whether the first slice of frame is a video slice, the FU type is the type in FU header.
+     * (帧的第一个slice是否为视频数据，FU的类型为FU头中的类型)
+     *
+     * @param slice nalu slice
+     * @return true: video slice, false: unrecognized
+     */
+    protected abstract boolean isVideoSlice(NaluSlice slice);
+
+    /**
+     * Whether the first slice of frame is a key frame slice.
+     * (帧的第一个slice是否为关键帧数据)
+     *
+     * @param slice nalu slice
+     * @return true: key frame, false: non-key frame
+     */
+    protected abstract boolean isKeyFrameSlice(NaluSlice slice);
+
+    /**
+     * Create the video frame.
+     * (创建视频帧)
+     *
+     * @param slice        the first slice of frame
+     * @param timestamp    timestamp relative to base timestamp
+     * @param frameSegment frame data
+     * @return video frame
+     */
+    protected abstract T createVideoFrame(NaluSlice slice, long timestamp, byte[] frameSegment);
+
+    /**
+     * Whether the frame is a video frame, the other frames such as SPS and PPS are notified directly.
+     * (是否为视频帧，SPS和PPS等其他帧直接通知)
+     *
+     * @param frame frame
+     * @return true: video frame, false: other frame
+     */
+    protected abstract boolean isVideoFrame(T frame);
+
+    /**
+     * Whether the frame is a key frame.
+     * (是否为关键帧)
+     *
+     * @param frame video frame
+     * @return true: key frame, false: non-key frame
+     */
+    protected abstract boolean isKeyFrame(T frame);
+
+    /**
+     * Whether the frame is a B frame.
+     * (是否为B帧)
+     *
+     * @param frame     video frame
+     * @param lastFrame last video frame, nullable
+     * @return true: B frame, false: not B frame
+     */
+    protected abstract boolean isBFrame(T frame, T lastFrame);
+
+    /**
+     * Process rtp package, it is mutually exclusive with the periodic release on the timer thread.
+     * (处理RTP包，和定时线程上的周期性释放互斥)
+     *
+     * @param rtpPackage rtp package
+     */
+    @Override
+    public synchronized void processPackage(RtpPackage rtpPackage) {
+        // 过滤负载编号不一致的rtp
+        if (rtpPackage.getHeader().getPayloadType() != this.payloadNumber) {
+            log.warn("payload numbers are inconsistent, expect[{}], actual[{}], ignore this message.", this.payloadNumber, rtpPackage.getHeader().getPayloadType());
+            return;
+        }
+        this.jitterBuffer.add(rtpPackage, System.currentTimeMillis(), this::processOrderedPackage);
+    }
+
+    @Override
+    public void onFrameHandle(Consumer<RawFrame> frameHandle) {
+        this.frameHandle = frameHandle;
+    }
+
+    @Override
+    public synchronized void release(long now) {
+        this.jitterBuffer.release(now, this::processOrderedPackage);
+    }
+
+    @Override
+    public synchronized void flush() {
+        this.jitterBuffer.flush(this::processOrderedPackage);
+    }
+
+    /**
+     * Process the rtp package released by jitter buffer in order.
+     * (处理抖动缓冲区按顺序释放的RTP包)
+     *
+     * @param rtp rtp package
+     */
+    private void processOrderedPackage(RtpPackage rtp) {
+        // 第一次更新时间
+        if (this.baseTimestamp == 0) {
+            this.baseTimestamp = rtp.getHeader().getTimestamp();
+        }
+        this.processPayload(rtp);
+    }
+
+    /**
+     * Process the aggregation package, each NAL unit is processed as single NALU.
+     * The units are processed in transmission order, the decoding order number is not used for reordering.
+     * (处理聚合包，每个NAL单元按单NALU处理，按传输顺序处理，不按解码顺序编号重排)
+     *
+     * @param rtp              rtp package
+     * @param headerLength     length of aggregation header
+     * @param unitHeaderLength length of unit header after the size, 3 for MTAP16, 4 for MTAP24, otherwise 0
+     */
+    protected void processAggregationPackage(RtpPackage rtp, int headerLength, int unitHeaderLength) {
+        byte[] payload = rtp.getPayload();
+        long timestamp = rtp.getHeader().getTimestamp();
+        int index = headerLength;
+        while (index + 2 <= payload.length) {
+            // 单元大小，MTAP中包含DOND和时间戳偏移
+            int size = ((payload[index] & 0xFF) << 8) | (payload[index + 1] & 0xFF);
+            int start = index + 2;
+            int end = start + size;
+            if (size < unitHeaderLength + this.getNaluHeaderLength() || end > payload.length) {
+                log.warn("The size of NAL unit in aggregation package is invalid, size [{}], remaining [{}], sequence number [{}]", size, payload.length - start, rtp.getHeader().getSequenceNumber());
+                return;
+            }
+            long unitTimestamp = timestamp;
+            if (unitHeaderLength == 3) {
+                unitTimestamp += ((payload[start + 1] & 0xFF) << 8) | (payload[start + 2] & 0xFF);
+            } else if (unitHeaderLength == 4) {
+                unitTimestamp += ((payload[start + 1] & 0xFF) << 16) | ((payload[start + 2] & 0xFF) << 8) | (payload[start + 3] & 0xFF);
+            }
+            // marker只作用于聚合包中的最后一个单元
+            boolean marker = end + 2 > payload.length && rtp.getHeader().isMarker();
+            this.processNalu(rtp, start + unitHeaderLength, size - unitHeaderLength, unitTimestamp, marker);
+            index = end;
+        }
+    }
+
+    /**
+     * Get the bytes of NALU, the frame needs an independent array, only the unit of aggregation package is copied.
+     * (获取NALU的字节，帧需要独立的数组，只有聚合包中的单元才拷贝)
+     *
+     * @param payload rtp payload
+     * @param offset  offset of NALU in payload
+     * @param length  length of NALU
+     * @return bytes of NALU
+     */
+    protected byte[] getNaluBytes(byte[] payload, int offset, int length) {
+        return offset == 0 && length == payload.length ? payload : Arrays.copyOfRange(payload, offset, offset + length);
+    }
+
+    /**
+     * Clear the Nalu buffer.
+     * (清空Nalu的缓存)
+     */
+    protected void resetBuffers() {
+        this.naluBuffers.clear();
+    }
+
+    /**
+     * Add video slice or FU fragment into the buffer, the frame is assembled when the marker is set or
+     * the timestamp changes.
+     * (将视频slice或FU分片加入缓存，marker置位或时间戳变化时组帧)
+     *
+     * @param rtp       rtp package
+     * @param offset    offset of NALU in payload
+     * @param length    length of NALU
+     * @param timestamp timestamp of NALU
+     * @param marker    end of frame or not
+     */
+    protected void addNaluBuffer(RtpPackage rtp, int offset, int length, long timestamp, boolean marker) {
+        // 时间戳变化表示新的一帧开始，例如MTAP中携带多帧或者丢失了marker
+        if (!this.naluBuffers.isEmpty() && this.naluBuffers.get(this.naluBuffers.size() - 1).timestamp != timestamp) {
+            this.videoFrameHandle(this.doRtpNaluBuffers());
+        }
+        this.naluBuffers.add(new NaluSlice(rtp.getPayload(), offset, length, rtp.getHeader().getSequenceNumber(), timestamp));
+        if (marker) {
+            this.videoFrameHandle(this.doRtpNaluBuffers());
+        }
+    }
+
+    /**
+     * Execute the Nalu cache and pack it into a frame.
+     * 执行Nalu的缓存，打包成一帧
+     *
+     * @return video frame
+     */
+    private T doRtpNaluBuffers() {
+        if (this.naluBuffers.isEmpty()) {
+            return null;
+        }
+        try {
+            NaluSlice first = this.naluBuffers.get(0);
+            if (!this.isVideoSlice(first)) {
+                log.debug("The data type of NALU in RTP cannot be recognized, the frame data is discarded, sequence number [{}]", first.sequenceNumber);
+                return null;
+            }
+            // 抖动缓冲区释放的包已经是有序的，不需要再排序
+            if (!this.matchLostNumber(this.isKeyFrameSlice(first))) {
+                return null;
+            }
+            // 先计算长度，再直接拷贝到帧数组中，不产生中间数组
+            int length = this.copyNaluBytes(null);
+            if (length == 0) {
+                return null;
+            }
+            byte[] frameSegment = new byte[length];
+            this.copyNaluBytes(frameSegment);
+            return this.createVideoFrame(first, first.timestamp - this.baseTimestamp, frameSegment);
+        } finally {
+            this.naluBuffers.clear();
+        }
+    }
+
+    /**
+     * Processing of data packet loss.
+     * (对数据丢包的处理)
+     *
+     * @param keyFrame key frame or not
+     * @return true；match，false：not match
+     */
+    private boolean matchLostNumber(boolean keyFrame) {
+        int lostNumber = 0;
+        for (int i = 1; i < this.naluBuffers.size(); i++) {
+            // 序列号的差值考虑65535 -> 0的回绕，同一个聚合包中的多个单元序列号相同
+            if (((this.naluBuffers.get(i).sequenceNumber - this.naluBuffers.get(i - 1).sequenceNumber) & 0xFFFF) > 1) {
+                lostNumber++;
+            }
+        }
+        int keyFrameMinNumber = 2;
+        int nonKeyFrameMinNumber = 4;
+        if (keyFrame && lostNumber > keyFrameMinNumber) {
+            log.debug("Data sequence numbers are discontinuous, resulting in key frame data loss due to packet loss. The frame data is discarded. The total number of [{}] and the number of lost [{}] exceeds [{}].", this.naluBuffers.size(), lostNumber, keyFrameMinNumber);
+            return false;
+        } else if (!keyFrame && lostNumber > nonKeyFrameMinNumber) {
+            log.debug("Data sequence numbers are discontinuous, resulting in non-key frame data loss due to packet loss. The frame data is discarded. The total number of [{}] and the number of lost [{}] exceeds [{}].", this.naluBuffers.size(), lostNumber, nonKeyFrameMinNumber);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copy the NALU bytes in buffer into the target frame array, slices are separated by start code,
+     * FU fragments are reassembled in place. If target is null, only calculate the length.
+     * (将缓存中的NALU字节拷贝到目标帧数组中，多slice之间添加分隔符，FU分片原地重组，目标为null时只计算长度)
+     *
+     * @param target target frame array, nullable
+     * @return total length
+     */
+    private int copyNaluBytes(byte[] target) {
+        // FU：负载头 + 1字节FU头
+        int naluHeaderLength = this.getNaluHeaderLength();
+        int fuHeaderLength = naluHeaderLength + 1;
+        int offset = 0;
+        int naluCount = 0;
+        int fuStartIndex = -1;
+        for (int i = 0; i < this.naluBuffers.size(); i++) {
+            NaluSlice slice = this.naluBuffers.get(i);
+            if (!this.isFragment(slice)) {
+                offset = this.copyStartCode(target, offset, naluCount++);
+                if (target != null) {
+                    System.arraycopy(slice.payload, slice.offset, target, offset, slice.length);
+                }
+                offset += slice.length;
+                continue;
+            }
+            if (this.isFragmentStart(slice) || fuStartIndex < 0) {
+                fuStartIndex = i;
+            }
+            if (!this.isFragmentEnd(slice)) {
+                continue;
+            }
+            offset = this.copyStartCode(target, offset, naluCount++);
+            if (target != null) {
+                this.rebuildNaluHeader(target, offset, slice);
+            }
+            offset += naluHeaderLength;
+            for (int j = fuStartIndex; j <= i; j++) {
+                NaluSlice fragment = this.naluBuffers.get(j);
+                if (target != null) {
+                    System.arraycopy(fragment.payload, fragment.offset + fuHeaderLength, target, offset, fragment.length - fuHeaderLength);
+                }
+                offset += fragment.length - fuHeaderLength;
+            }
+            fuStartIndex = -1;
+        }
+        return offset;
+    }
+
+    /**
+     * Copy the start code before each NALU except the first one.
+     * (多slice的NAL拼装需要添加分隔符，第一个NALU之前不加)
+     *
+     * @param target    target frame array, nullable
+     * @param offset    current offset
+     * @param naluIndex index of NALU
+     * @return offset after start code
+     */
+    private int copyStartCode(byte[] target, int offset, int naluIndex) {
+        if (naluIndex == 0) {
+            return offset;
+        }
+        if (target != null) {
+            target[offset] = 0x00;
+            target[offset + 1] = 0x00;
+            target[offset + 2] = 0x00;
+            target[offset + 3] = 0x01;
+        }
+        return offset + 4;
+    }
+
+    /**
+     * Notify the frame, the video frame is delayed by one frame to calculate the duration.
+     * (通知帧，视频帧延迟一帧输出，用于计算时长)
+     *
+     * @param frame frame
+     */
+    protected void videoFrameHandle(T frame) {
+        if (this.frameHandle == null || frame == null || frame.getPts() < 0) {
+            return;
+        }
+        T notifyFrame;
+        if (this.isVideoFrame(frame)) {
+            // 只处理视频帧的数据
+            notifyFrame = this.dtsHandle(frame);
+            this.addLastFrame(frame);
+            if (notifyFrame == null) {
+                return;
+            }
+        } else {
+            // 处理SPS, PPS等其他
+            notifyFrame = frame;
+        }
+
+        try {
+            this.frameHandle.accept(notifyFrame);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Handle DTS of frame.
+     * (处理帧的DTS)
+     *
+     * @param frame video frame
+     * @return last frame
+     */
+    private T dtsHandle(T frame) {
+        if (!this.hasBFrame && this.isBFrame(frame, this.lastFrame)) {
+            this.hasBFrame = true;
+        }
+        if (this.lastFrame == null) {
+            return null;
+        }
+        if (this.hasBFrame && !this.isKeyFrame(frame) && this.cacheFrameList.size() >= 5) {
+            long delta = (this.cacheFrameList.get(4).getPts() - this.cacheFrameList.get(0).getPts()) / 4;
+            frame.setDts(this.lastFrame.getDts() + delta);
+        }
+        this.lastFrame.setDuration((int) (frame.getDts() - this.lastFrame.getDts()));
+        if (this.lastFrame.getDuration() < 0) {
+            this.lastFrame.setDuration(0);
+            if (!this.isKeyFrame(frame)) {
+                frame.setDts(this.lastFrame.getDts());
+            } else {
+                this.lastFrame.setDts(frame.getDts());
+            }
+        }
+        return this.lastFrame;
+    }
+
+    /**
+     * Add last frame for cache, use for calculating dts.
+     *
+     * @param frame video frame
+     */
+    private void addLastFrame(T frame) {
+        this.lastFrame = frame;
+        this.cacheFrameList.add(frame);
+        this.cacheFrameList.sort((a, b) -> (int) (a.getTimestamp() - b.getTimestamp()));
+        if (this.cacheFrameList.size() > 10) {
+            this.cacheFrameList.remove(0);
+        }
+    }
+
+    /**
+     * View of a NALU in the rtp payload.
+     * (rtp负载中一个NALU的视图)
+     */
+    protected static class NaluSlice {
+
+        protected final byte[] payload;
+
+        protected final int offset;
+
+        protected final int length;
+
+        protected final int sequenceNumber;
+
+        protected final long timestamp;
+
+        private NaluSlice(byte[] payload, int offset, int length, int sequenceNumber, long timestamp) {
+            this.payload = payload;
+            this.offset = offset;
+            this.length = length;
+            this.sequenceNumber = sequenceNumber;
+            this.timestamp = timestamp;
+        }
+    }
+}
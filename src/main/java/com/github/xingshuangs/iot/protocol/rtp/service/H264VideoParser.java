@@ -22,23 +22,18 @@
  * SOFTWARE.
  */
 
+
 package com.github.xingshuangs.iot.protocol.rtp.service;
 
 
-import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.protocol.rtp.enums.EH264NaluType;
 import com.github.xingshuangs.iot.protocol.rtp.enums.EH264SliceType;
 import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
 import com.github.xingshuangs.iot.protocol.rtp.model.frame.H264VideoFrame;
-import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
-import com.github.xingshuangs.iot.protocol.rtp.model.payload.*;
+import com.github.xingshuangs.iot.protocol.rtp.model.payload.H264NaluFuHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.payload.H264NaluHeader;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.function.Consumer;
-
 /**
  * H264 video parser.
  * (H264的视频数据解析器)
@@ -46,218 +41,48 @@ import java.util.function.Consumer;
  * @author xingshuang
  */
 @Slf4j
-public class H264VideoParser implements IPayloadParser {
-
-    /**
-     * Payload number.
-     * (负载编号)
-     */
-    private final Integer payloadNumber;
-
-    /**
-     * Base timestamp.
-     * (基准时间戳)
-     */
-    private long baseTimestamp = 0;
-
-    /**
-     * Last Decoding Time Stamp
-     * (上一次解码时间戳)
-     */
-    private H264VideoFrame lastFrame;
-
-    /**
-     * Cache list of H264 video frame.
-     * (缓存帧列表)
-     */
-    private final List<H264VideoFrame> cacheFrameList = new ArrayList<>();
-
-    /**
-     * Frame handle.
-     * （帧处理事件）
-     */
-    private Consumer<RawFrame> frameHandle;
-
-    /**
-     * RTP package cache list.
-     */
-    private final List<RtpPackage> rtpPackageList = new ArrayList<>();
-
-    /**
-     * Nalu buffer.
-     * (单Nalu的缓存)
-     */
-    private final List<RtpPackage> naluBuffers = new ArrayList<>();
-
-    private RtpPackage lastRtpPackage;
-
-    /**
-     * 是否有B帧
-     */
-    private boolean hasBFrame;
+public class H264VideoParser extends AbstractVideoParser<H264VideoFrame> {
 
     public H264VideoParser(Integer payloadNumber) {
-        this.payloadNumber = payloadNumber;
+        this(payloadNumber, new RtpJitterBuffer());
     }
 
-    private void resetBuffers() {
-        this.naluBuffers.clear();
+    public H264VideoParser(Integer payloadNumber, RtpJitterBuffer jitterBuffer) {
+        super(payloadNumber, jitterBuffer);
     }
 
-    /**
-     * Execute the Nalu cache and pack it into a frame.
-     * 执行Nalu的缓存，打包成一帧
-     *
-     * @return H264VideoFrame
-     */
-    private H264VideoFrame doRtpNaluSingleBuffers() {
-        if (this.naluBuffers.isEmpty()) {
-            return null;
-        }
-        try {
-            this.naluBuffers.sort(Comparator.comparingInt(a -> a.getHeader().getSequenceNumber()));
-            boolean match = this.matchLostNumber();
-            if (!match) {
-                return null;
-            }
-            RtpPackage rtp = this.naluBuffers.get(0);
-            EH264NaluType currentNaluType = this.queryNaluType();
-            List<byte[]> naluSingleBytes = this.extractNaluSingleBytes();
-            if (naluSingleBytes.isEmpty()) {
-                return null;
-            }
-
-            int sum = naluSingleBytes.stream().mapToInt(x -> x.length).sum() + (naluSingleBytes.size() - 1) * 4;
-            ByteWriteBuff buff = new ByteWriteBuff(sum);
-            for (int i = 0; i < naluSingleBytes.size() - 1; i++) {
-                buff.putBytes(naluSingleBytes.get(i));
-                // 多slice的NAL拼装需要添加分隔符
-                buff.putBytes(new byte[]{0x00, 0x00, 0x00, 0x01});
-            }
-            buff.putBytes(naluSingleBytes.get(naluSingleBytes.size() - 1));
-
-            return new H264VideoFrame(currentNaluType, rtp.getHeader().getTimestamp() - this.baseTimestamp, buff.getData());
-        } finally {
-            this.naluBuffers.clear();
-        }
-    }
-
-    /**
-     * Query nalu type.
-     * (查询Nalu类型)
-     *
-     * @return EH264NaluType
-     */
-    private EH264NaluType queryNaluType() {
-        for (RtpPackage rtpPackage : this.naluBuffers) {
-            H264NaluHeader h264NaluHeader = H264NaluHeader.fromBytes(rtpPackage.getPayload());
-            if (h264NaluHeader.getType() == EH264NaluType.NON_IDR_SLICE || h264NaluHeader.getType() == EH264NaluType.IDR_SLICE) {
-                return h264NaluHeader.getType();
-            } else if (h264NaluHeader.getType() == EH264NaluType.FU_A) {
-                H264NaluFuA h264NaluFuA = (H264NaluFuA) H264NaluBuilder.parsePackage(rtpPackage.getPayload());
-                return h264NaluFuA.getFuHeader().getType();
-            }
-        }
-        return EH264NaluType.NON_IDR_SLICE;
-    }
-
-    /**
-     * Extract the byte data list of NALU.
-     * (提取NALU的字节数据列表)
-     *
-     * @return byte array list
-     */
-    private List<byte[]> extractNaluSingleBytes() {
-        List<byte[]> naluSingleBytes = new ArrayList<>();
-        List<H264NaluFuA> naluFuAList = new ArrayList<>();
-        for (RtpPackage rtpPackage : this.naluBuffers) {
-            H264NaluHeader h264NaluHeader = H264NaluHeader.fromBytes(rtpPackage.getPayload());
-            if (h264NaluHeader.getType() == EH264NaluType.NON_IDR_SLICE || h264NaluHeader.getType() == EH264NaluType.IDR_SLICE) {
-                naluSingleBytes.add(rtpPackage.getPayload());
-            } else if (h264NaluHeader.getType() == EH264NaluType.FU_A) {
-                H264NaluFuA h264NaluFuA = (H264NaluFuA) H264NaluBuilder.parsePackage(rtpPackage.getPayload());
-                if (h264NaluFuA.getFuHeader().isStart()) {
-                    naluFuAList.clear();
-                }
-                naluFuAList.add(h264NaluFuA);
-                if (h264NaluFuA.getFuHeader().isEnd()) {
-                    int sum = naluFuAList.stream().mapToInt(x -> x.getPayload().length).sum();
-                    ByteWriteBuff buff = new ByteWriteBuff(sum);
-                    naluFuAList.forEach(x -> buff.putBytes(x.getPayload()));
-                    H264NaluSingle single = new H264NaluSingle();
-                    single.getHeader().setForbiddenZeroBit(h264NaluFuA.getHeader().isForbiddenZeroBit());
-                    single.getHeader().setNri(h264NaluFuA.getHeader().getNri());
-                    single.getHeader().setType(h264NaluFuA.getFuHeader().getType());
-                    single.setPayload(buff.getData());
-                    naluSingleBytes.add(single.toByteArray());
-                }
-            }
-        }
-        return naluSingleBytes;
+    @Override
+    protected int getNaluHeaderLength() {
+        return 1;
     }
 
-    /**
-     * Processing of data packet loss.
-     * (对数据丢包的处理)
-     *
-     * @return true；match，false：not match
-     */
-    private boolean matchLostNumber() {
-        int lostNumber = 0;
-        for (int i = 1; i < this.naluBuffers.size(); i++) {
-            if (this.naluBuffers.get(i).getHeader().getSequenceNumber() - this.naluBuffers.get(i - 1).getHeader().getSequenceNumber() != 1) {
-                lostNumber++;
-            }
-        }
-        int idrSliceMinNumber = 2;
-        int nonIdrSliceMinNumber = 4;
-        RtpPackage rtp = this.naluBuffers.get(0);
-        H264NaluHeader naluHeader = H264NaluHeader.fromBytes(rtp.getPayload());
-        if (naluHeader.getType() == EH264NaluType.IDR_SLICE && lostNumber > idrSliceMinNumber) {
-            log.debug("When a Single NALU is processed, data sequence numbers are discontinuous, resulting in key frame data loss due to packet loss. The frame data is discarded. The total number of [{}] and the number of lost [{}] exceeds [{}].", this.naluBuffers.size(), lostNumber, idrSliceMinNumber);
-            return false;
-        } else if (naluHeader.getType() == EH264NaluType.NON_IDR_SLICE && lostNumber > nonIdrSliceMinNumber) {
-            log.debug("When a Single NALU is processed, data sequence numbers are discontinuous, resulting in non-key frame data loss due to packet loss. The frame data is discarded. The total number of [{}] and the number of lost [{}] exceeds [{}].", this.naluBuffers.size(), lostNumber, nonIdrSliceMinNumber);
-            return false;
-        } else if (naluHeader.getType() == EH264NaluType.FU_A) {
-            H264NaluFuHeader naluFuHeader = H264NaluFuHeader.fromBytes(rtp.getPayload(), 1);
-            if (naluFuHeader.getType() == EH264NaluType.IDR_SLICE && lostNumber > idrSliceMinNumber) {
-                log.debug("When processing the NALU of FUA, the data sequence number is discontinuous, resulting in the data loss of key frame data due to packet loss. The frame data is discarded. The total number of [{}] and the number of lost [{}] exceed [{}].", this.naluBuffers.size(), lostNumber, idrSliceMinNumber);
-                return false;
-            } else if (naluFuHeader.getType() == EH264NaluType.NON_IDR_SLICE && lostNumber > nonIdrSliceMinNumber) {
-                log.debug("When processing the NALU of FUA, the data sequence number is discontinuous, resulting in the data loss of non-key frame data due to packet loss. The frame data is discarded. The total number of [{}] and the number of lost [{}] exceed [{}].", this.naluBuffers.size(), lostNumber, nonIdrSliceMinNumber);
-                return false;
-            }
-        } else if (naluHeader.getType() != EH264NaluType.IDR_SLICE && naluHeader.getType() != EH264NaluType.NON_IDR_SLICE) {
-            log.error("The data type of NALU in RTP cannot be recognized, the frame data is discarded, frame type [{}]", naluHeader.getType());
-            return false;
+    @Override
+    protected void processPayload(RtpPackage rtp) {
+        byte[] payload = rtp.getPayload();
+        H264NaluHeader header = H264NaluHeader.fromBytes(payload);
+        switch (header.getType()) {
+            case STAP_A:
+                this.processAggregationPackage(rtp, 1, 0);
+                break;
+            case STAP_B:
+                this.processAggregationPackage(rtp, 3, 0);
+                break;
+            case MTAP16:
+                this.processAggregationPackage(rtp, 3, 3);
+                break;
+            case MTAP24:
+                this.processAggregationPackage(rtp, 3, 4);
+                break;
+            default:
+                this.processNalu(rtp, 0, payload.length, rtp.getHeader().getTimestamp(), rtp.getHeader().isMarker());
+                break;
         }
-        return true;
     }
 
-    /**
-     * Process rtp package.
-     * (处理RTP包)
-     *
-     * @param rtpPackage rtp package
-     */
     @Override
-    public void processPackage(RtpPackage rtpPackage) {
-        // 过滤负载编号不一致的rtp
-        if (rtpPackage.getHeader().getPayloadType() != this.payloadNumber) {
-            log.warn("payload numbers are inconsistent, expect[{}], actual[{}], ignore this message.", this.payloadNumber, rtpPackage.getHeader().getPayloadType());
-            return;
-        }
-        RtpPackage rtp = this.addLastRtpPackage(rtpPackage);
-        if (rtp == null) {
-            return;
-        }
-        // 第一次更新时间
-        if (this.baseTimestamp == 0) {
-            this.baseTimestamp = rtp.getHeader().getTimestamp();
-        }
-        H264NaluHeader header = H264NaluHeader.fromBytes(rtp.getPayload());
-        H264VideoFrame frame;
+    protected void processNalu(RtpPackage rtp, int offset, int length, long timestamp, boolean marker) {
+        byte[] payload = rtp.getPayload();
+        H264NaluHeader header = H264NaluHeader.fromBytes(payload, offset);
         switch (header.getType()) {
             case AUD:
                 this.resetBuffers();
@@ -265,119 +90,85 @@ public class H264VideoParser implements IPayloadParser {
             case SEI:
             case PPS:
             case SPS:
-                frame = new H264VideoFrame(header.getType(), rtp.getHeader().getTimestamp() - this.baseTimestamp, rtp.getPayload());
-                this.videoFrameHandle(frame);
+                byte[] frameSegment = this.getNaluBytes(payload, offset, length);
+                this.videoFrameHandle(new H264VideoFrame(header.getType(), timestamp - this.baseTimestamp, frameSegment));
                 break;
             case NON_IDR_SLICE:
             case IDR_SLICE:
             case FU_A:
-                this.naluBuffers.add(rtp);
-                if (rtp.getHeader().isMarker()) {
-                    frame = this.doRtpNaluSingleBuffers();
-                    this.videoFrameHandle(frame);
-                }
-                break;
-            case STAP_A:
-            case STAP_B:
+                this.addNaluBuffer(rtp, offset, length, timestamp, marker);
                 break;
             default:
-                log.error("RTP parsing unknown data type [{}], timestamp [{}]", header.getType(), rtp.getHeader().getTimestamp());
+                log.error("RTP parsing unknown data type [{}], timestamp [{}]", header.getType(), timestamp);
                 break;
         }
     }
 
-    /**
-     * Caching RTP packets, mainly for cases where UDP is received out of order.
-     * (缓存RTP数据包，主要针对UDP接收不按顺序的情况)
-     *
-     * @param rtp rtp package
-     * @return RtpPackage
-     */
-    private RtpPackage addLastRtpPackage(RtpPackage rtp) {
-        RtpPackage currentRtp = null;
-        this.rtpPackageList.add(rtp);
-        this.rtpPackageList.sort(Comparator.comparingInt(a -> a.getHeader().getSequenceNumber()));
-        if (this.rtpPackageList.size() > 5) {
-            currentRtp = this.rtpPackageList.remove(0);
-        }
-        if (currentRtp != null
-                && this.lastRtpPackage != null
-                && this.lastRtpPackage.getHeader().getSequenceNumber() > currentRtp.getHeader().getSequenceNumber()) {
-            log.debug("The sequence number is not always ascending when receiving RTP data");
-        }
-        this.lastRtpPackage = currentRtp;
-        return currentRtp;
+    @Override
+    protected boolean isFragment(NaluSlice slice) {
+        return H264NaluHeader.fromBytes(slice.payload, slice.offset).getType() == EH264NaluType.FU_A;
     }
 
     @Override
-    public void onFrameHandle(Consumer<RawFrame> frameHandle) {
-        this.frameHandle = frameHandle;
+    protected boolean isFragmentStart(NaluSlice slice) {
+        return H264NaluFuHeader.fromBytes(slice.payload, slice.offset + 1).isStart();
     }
 
-    private void videoFrameHandle(H264VideoFrame frame) {
-        if (this.frameHandle == null || frame == null || frame.getPts() < 0) {
-            return;
-        }
-        H264VideoFrame h264VideoFrame;
-        if (frame.getNaluType() == EH264NaluType.IDR_SLICE || frame.getNaluType() == EH264NaluType.NON_IDR_SLICE) {
-            // 只处理I帧，P帧，B帧的数据
-            h264VideoFrame = this.dtsHandle(frame);
-            this.addLastFrame(frame);
-            if (h264VideoFrame == null) {
-                return;
-            }
-        } else {
-            // 处理SPS, PPS等其他
-            h264VideoFrame = frame;
-        }
+    @Override
+    protected boolean isFragmentEnd(NaluSlice slice) {
+        return H264NaluFuHeader.fromBytes(slice.payload, slice.offset + 1).isEnd();
+    }
 
-        try {
-            this.frameHandle.accept(h264VideoFrame);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-        }
+    @Override
+    protected void rebuildNaluHeader(byte[] target, int offset, NaluSlice slice) {
+        // 重组NALU头：FU indicator的F和NRI + FU header的类型
+        target[offset] = (byte) ((slice.payload[slice.offset] & 0xE0) | (slice.payload[slice.offset + 1] & 0x1F));
     }
 
-    /**
-     * Handle DTS of frame.
-     *
-     * @param frame video frame
-     * @return last frame
-     */
-    private H264VideoFrame dtsHandle(H264VideoFrame frame) {
-        if (frame.getSliceType() == EH264SliceType.B && !this.hasBFrame) {
-            this.hasBFrame = true;
-        }
-        if (this.lastFrame == null) {
-            return null;
-        }
-        if (this.hasBFrame && frame.getSliceType() != EH264SliceType.I && this.cacheFrameList.size() >= 5) {
-            long delta = (this.cacheFrameList.get(4).getPts() - this.cacheFrameList.get(0).getPts()) / 4;
-            frame.setDts(this.lastFrame.getDts() + delta);
-        }
-        this.lastFrame.setDuration((int) (frame.getDts() - this.lastFrame.getDts()));
-        if (this.lastFrame.getDuration() < 0) {
-            this.lastFrame.setDuration(0);
-            if (frame.getSliceType() != EH264SliceType.I) {
-                frame.setDts(this.lastFrame.getDts());
-            } else {
-                this.lastFrame.setDts(frame.getDts());
-            }
-        }
-        return this.lastFrame;
+    @Override
+    protected boolean isVideoSlice(NaluSlice slice) {
+        EH264NaluType type = this.queryNaluType(slice);
+        return type == EH264NaluType.IDR_SLICE || type == EH264NaluType.NON_IDR_SLICE;
+    }
+
+    @Override
+    protected boolean isKeyFrameSlice(NaluSlice slice) {
+        return this.queryNaluType(slice) == EH264NaluType.IDR_SLICE;
+    }
+
+    @Override
+    protected H264VideoFrame createVideoFrame(NaluSlice slice, long timestamp, byte[] frameSegment) {
+        return new H264VideoFrame(this.queryNaluType(slice), timestamp, frameSegment);
+    }
+
+    @Override
+    protected boolean isVideoFrame(H264VideoFrame frame) {
+        // 只处理I帧，P帧，B帧的数据
+        return frame.getNaluType() == EH264NaluType.IDR_SLICE || frame.getNaluType() == EH264NaluType.NON_IDR_SLICE;
+    }
+
+    @Override
+    protected boolean isKeyFrame(H264VideoFrame frame) {
+        return frame.getSliceType() == EH264SliceType.I;
+    }
+
+    @Override
+    protected boolean isBFrame(H264VideoFrame frame, H264VideoFrame lastFrame) {
+        return frame.getSliceType() == EH264SliceType.B;
     }
 
     /**
-     * Add last frame for cache, use for calculating dts.
+     * Query nalu type, the FU-A type is the type in FU header.
+     * (查询Nalu类型，FU-A的类型为FU头中的类型)
      *
-     * @param frame h264 video frame
+     * @param slice nalu slice
+     * @return EH264NaluType
      */
-    private void addLastFrame(H264VideoFrame frame) {
-        this.lastFrame = frame;
-        this.cacheFrameList.add(frame);
-        this.cacheFrameList.sort((a, b) -> (int) (a.getTimestamp() - b.getTimestamp()));
-        if (this.cacheFrameList.size() > 10) {
-            this.cacheFrameList.remove(0);
+    private EH264NaluType queryNaluType(NaluSlice slice) {
+        EH264NaluType type = H264NaluHeader.fromBytes(slice.payload, slice.offset).getType();
+        if (type == EH264NaluType.FU_A) {
+            return H264NaluFuHeader.fromBytes(slice.payload, slice.offset + 1).getType();
         }
+        return type;
     }
 }
@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.service;
+
+
+import com.github.xingshuangs.iot.protocol.rtp.enums.EH265NaluType;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.H265VideoFrame;
+import com.github.xingshuangs.iot.protocol.rtp.model.payload.H265NaluFuHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.payload.H265NaluHeader;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * H265 video parser, RFC 7798, supports single NALU, AP and FU, the DONL field is not supported, that is
+ * sprop-max-don-diff is 0.
+ * (H265的视频数据解析器，RFC 7798，支持单NALU，AP和FU，不支持DONL字段，即sprop-max-don-diff为0)
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class H265VideoParser extends AbstractVideoParser<H265VideoFrame> {
+
+    public H265VideoParser(Integer payloadNumber) {
+        this(payloadNumber, new RtpJitterBuffer());
+    }
+
+    public H265VideoParser(Integer payloadNumber, RtpJitterBuffer jitterBuffer) {
+        super(payloadNumber, jitterBuffer);
+    }
+
+    @Override
+    protected int getNaluHeaderLength() {
+        return 2;
+    }
+
+    @Override
+    protected void processPayload(RtpPackage rtp) {
+        byte[] payload = rtp.getPayload();
+        if (payload.length < 3) {
+            log.warn("The payload length of H265 is less than 3, sequence number [{}]", rtp.getHeader().getSequenceNumber());
+            return;
+        }
+        int type = (payload[0] >> 1) & 0x3F;
+        if (type == EH265NaluType.AP.getCode()) {
+            // 跳过2字节的负载头
+            this.processAggregationPackage(rtp, 2, 0);
+        } else if (type == EH265NaluType.PACI.getCode()) {
+            log.debug("PACI package of H265 is not supported, ignore it, sequence number [{}]", rtp.getHeader().getSequenceNumber());
+        } else {
+            this.processNalu(rtp, 0, payload.length, rtp.getHeader().getTimestamp(), rtp.getHeader().isMarker());
+        }
+    }
+
+    @Override
+    protected void processNalu(RtpPackage rtp, int offset, int length, long timestamp, boolean marker) {
+        byte[] payload = rtp.getPayload();
+        H265NaluHeader header = H265NaluHeader.fromBytes(payload, offset);
+        if (header.getType() == null) {
+            log.debug("RTP parsing reserved H265 data type [{}], timestamp [{}]", (payload[offset] >> 1) & 0x3F, timestamp);
+            return;
+        }
+        switch (header.getType()) {
+            case AUD:
+                this.resetBuffers();
+                break;
+            case VPS:
+            case SPS:
+            case PPS:
+            case PREFIX_SEI:
+            case SUFFIX_SEI:
+                byte[] frameSegment = this.getNaluBytes(payload, offset, length);
+                this.videoFrameHandle(new H265VideoFrame(header.getType(), timestamp - this.baseTimestamp, frameSegment));
+                break;
+            case EOS:
+            case EOB:
+            case FD:
+            case AP:
+            case PACI:
+                break;
+            default:
+                this.addNaluBuffer(rtp, offset, length, timestamp, marker);
+                break;
+        }
+    }
+
+    @Override
+    protected boolean isFragment(NaluSlice slice) {
+        return ((slice.payload[slice.offset] >> 1) & 0x3F) == EH265NaluType.FU.getCode();
+    }
+
+    @Override
+    protected boolean isFragmentStart(NaluSlice slice) {
+        return H265NaluFuHeader.fromBytes(slice.payload, slice.offset + 2).isStart();
+    }
+
+    @Override
+    protected boolean isFragmentEnd(NaluSlice slice) {
+        return H265NaluFuHeader.fromBytes(slice.payload, slice.offset + 2).isEnd();
+    }
+
+    @Override
+    protected void rebuildNaluHeader(byte[] target, int offset, NaluSlice slice) {
+        // 重组NALU头：负载头的F和LayerId + FU头的类型，第二个字节不变
+        target[offset] = (byte) ((slice.payload[slice.offset] & 0x81) | ((slice.payload[slice.offset + 2] & 0x3F) << 1));
+        target[offset + 1] = slice.payload[slice.offset + 1];
+    }
+
+    @Override
+    protected boolean isVideoSlice(NaluSlice slice) {
+        EH265NaluType type = this.queryNaluType(slice);
+        return type != null && type.isVcl();
+    }
+
+    @Override
+    protected boolean isKeyFrameSlice(NaluSlice slice) {
+        return this.queryNaluType(slice).isIrap();
+    }
+
+    @Override
+    protected H265VideoFrame createVideoFrame(NaluSlice slice, long timestamp, byte[] frameSegment) {
+        return new H265VideoFrame(this.queryNaluType(slice), timestamp, frameSegment);
+    }
+
+    @Override
+    protected boolean isVideoFrame(H265VideoFrame frame) {
+        return frame.getNaluType().isVcl();
+    }
+
+    @Override
+    protected boolean isKeyFrame(H265VideoFrame frame) {
+        return frame.isKeyFrame();
+    }
+
+    @Override
+    protected boolean isBFrame(H265VideoFrame frame, H265VideoFrame lastFrame) {
+        // 不解析slice类型，通过pts乱序判断B帧
+        return lastFrame != null && frame.getPts() < lastFrame.getPts();
+    }
+
+    /**
+     * Query nalu type, the FU type is the type in FU header.
+     * (查询Nalu类型，FU的类型为FU头中的类型)
+     *
+     * @param slice nalu slice
+     * @return EH265NaluType
+     */
+    private EH265NaluType queryNaluType(NaluSlice slice) {
+        EH265NaluType type = H265NaluHeader.fromBytes(slice.payload, slice.offset).getType();
+        if (type == EH265NaluType.FU) {
+            return H265NaluFuHeader.fromBytes(slice.payload, slice.offset + 2).getType();
+        }
+        return type;
+    }
+}
@@ -52,4 +52,20 @@ public interface IPayloadParser {
      * @param frameHandle 处理事件
      */
     void onFrameHandle(Consumer<RawFrame> frameHandle);
+
+    /**
+     * Release the buffered packages which are out of the latency budget, it is called periodically by the receiver.
+     * (释放超过延迟预算的缓存包，由接收者周期性调用)
+     *
+     * @param now current time, unit ms
+     */
+    default void release(long now) {
+    }
+
+    /**
+     * Release all buffered packages, it is called when the receiver stops.
+     * (释放所有缓存的包，接收者停止时调用)
+     */
+    default void flush() {
+    }
 }
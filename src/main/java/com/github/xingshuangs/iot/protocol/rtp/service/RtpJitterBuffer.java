@@ -0,0 +1,337 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.service;
+
+
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.Consumer;
+
+/**
+ * RTP jitter buffer, a ring indexed by sequence number modulo capacity, the ordering is aware of the
+ * 65535 -> 0 wraparound. The packets are released in order as soon as they are continuous, a missing packet is
+ * waited for at most the latency budget, and then it is skipped and counted as lost. Besides adding, the owner
+ * should call {@link #release} periodically so that the packages after a gap are released even if no more package
+ * arrives, and call {@link #flush} when receiving stops. It is not thread safe.
+ * (RTP抖动缓冲区，按序列号对容量取模索引的环形缓冲，排序考虑65535 -> 0的回绕，
+ * 连续的包立即按顺序释放，缺失的包最多等待延迟预算时间，超时后跳过并计为丢包。除了添加时释放，
+ * 所有者还应该周期性调用release，这样即使没有后续的包到达，缺包之后的包也能释放，停止接收时调用flush，非线程安全)
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class RtpJitterBuffer {
+
+    /**
+     * Default capacity, power of 2.
+     * (默认容量，2的幂)
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Default latency budget, unit ms.
+     * (默认延迟预算，单位ms)
+     */
+    public static final int DEFAULT_LATENCY = 100;
+
+    /**
+     * Interval of periodic release, unit ms.
+     * (周期性释放的间隔，单位ms)
+     */
+    public static final int RELEASE_INTERVAL = 20;
+
+    /**
+     * Shared scheduler of periodic release.
+     * (周期性释放的共享调度器)
+     */
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Ring of packages.
+     * (包的环形缓冲)
+     */
+    private final RtpPackage[] packages;
+
+    /**
+     * Arrival time of packages.
+     * (包的到达时间)
+     */
+    private final long[] arrivalTimes;
+
+    /**
+     * Occupied bits of ring, one bit for each index.
+     * (环形缓冲的占用位，每个索引一位)
+     */
+    private final long[] occupied;
+
+    /**
+     * Mask of index.
+     * (索引掩码)
+     */
+    private final int mask;
+
+    /**
+     * Latency budget, unit ms.
+     * (延迟预算，单位ms)
+     */
+    private final int latency;
+
+    /**
+     * Next sequence number to release, -1 means not started.
+     * (下一个需要释放的序列号，-1表示还没开始)
+     */
+    private int nextSequenceNumber = -1;
+
+    /**
+     * The first sequence number buffered after the missing one, -1 means unknown.
+     * (缺包之后第一个已缓存的序列号，-1表示未知)
+     */
+    private int pendingSequenceNumber = -1;
+
+    /**
+     * Buffered package count.
+     * (缓存的包数量)
+     */
+    private int size = 0;
+
+    /**
+     * Late or duplicate package count.
+     * (迟到或重复的包数量)
+     */
+    private long lateCount = 0;
+
+    /**
+     * Lost package count.
+     * (丢失的包数量)
+     */
+    private long lostCount = 0;
+
+    public RtpJitterBuffer() {
+        this(DEFAULT_CAPACITY, DEFAULT_LATENCY);
+    }
+
+    public RtpJitterBuffer(int latency) {
+        this(DEFAULT_CAPACITY, latency);
+    }
+
+    public RtpJitterBuffer(int capacity, int latency) {
+        if (capacity < 2 || capacity > 32768 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be power of 2 in [2, 32768]");
+        }
+        if (latency < 0) {
+            throw new IllegalArgumentException("latency < 0");
+        }
+        this.packages = new RtpPackage[capacity];
+        this.arrivalTimes = new long[capacity];
+        this.occupied = new long[(capacity + 63) / 64];
+        this.mask = capacity - 1;
+        this.latency = latency;
+    }
+
+    /**
+     * Get the shared scheduler of periodic release.
+     * (获取周期性释放的共享调度器)
+     *
+     * @return scheduler
+     */
+    public static synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "rtp-jitter-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+
+    public int getLatency() {
+        return latency;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getLateCount() {
+        return lateCount;
+    }
+
+    public long getLostCount() {
+        return lostCount;
+    }
+
+    /**
+     * Add the package, then release the packages which are in order or out of the latency budget.
+     * (添加包，之后释放已经有序或者超过延迟预算的包)
+     *
+     * @param rtp      rtp package
+     * @param now      current time, unit ms
+     * @param consumer consumer of released package
+     */
+    public void add(RtpPackage rtp, long now, Consumer<RtpPackage> consumer) {
+        int sequenceNumber = rtp.getHeader().getSequenceNumber();
+        if (this.nextSequenceNumber < 0) {
+            this.nextSequenceNumber = sequenceNumber;
+        }
+        int distance = this.distance(sequenceNumber);
+        if (distance < -this.packages.length || distance >= this.packages.length) {
+            // 序列号跳变超过缓冲区，例如摄像头重启，清空后重新同步
+            log.debug("The sequence number jumps from [{}] to [{}], resynchronize the jitter buffer", this.nextSequenceNumber, sequenceNumber);
+            this.flush(consumer);
+            this.nextSequenceNumber = sequenceNumber;
+        } else if (distance < 0) {
+            // 已经释放或跳过的包，迟到了
+            this.lateCount++;
+            return;
+        }
+        int index = sequenceNumber & this.mask;
+        if (this.packages[index] != null) {
+            // 重复的包
+            this.lateCount++;
+            return;
+        }
+        this.packages[index] = rtp;
+        this.arrivalTimes[index] = now;
+        this.occupied[index >>> 6] |= 1L << index;
+        this.size++;
+        if (this.pendingSequenceNumber >= 0 && this.distance(sequenceNumber) < this.distance(this.pendingSequenceNumber)) {
+            this.pendingSequenceNumber = sequenceNumber;
+        }
+        this.release(now, consumer);
+    }
+
+    /**
+     * Release the packages which are in order or out of the latency budget.
+     * (释放已经有序或者超过延迟预算的包)
+     *
+     * @param now      current time, unit ms
+     * @param consumer consumer of released package
+     */
+    public void release(long now, Consumer<RtpPackage> consumer) {
+        while (this.size > 0) {
+            int index = this.nextSequenceNumber & this.mask;
+            if (this.packages[index] != null) {
+                this.pollNext(consumer);
+                continue;
+            }
+            // 缺包，第一个缓存的包等待超过延迟预算后跳过缺失的包
+            if (this.pendingSequenceNumber < 0) {
+                this.pendingSequenceNumber = this.findPending();
+            }
+            if (now - this.arrivalTimes[this.pendingSequenceNumber & this.mask] < this.latency) {
+                return;
+            }
+            this.skipToPending();
+        }
+    }
+
+    /**
+     * Release all packages in order, the missing packages are skipped.
+     * (按顺序释放所有的包，跳过缺失的包)
+     *
+     * @param consumer consumer of released package
+     */
+    public void flush(Consumer<RtpPackage> consumer) {
+        while (this.size > 0) {
+            if (this.packages[this.nextSequenceNumber & this.mask] != null) {
+                this.pollNext(consumer);
+                continue;
+            }
+            if (this.pendingSequenceNumber < 0) {
+                this.pendingSequenceNumber = this.findPending();
+            }
+            this.skipToPending();
+        }
+    }
+
+    /**
+     * Poll the next package and move forward.
+     * (取出下一个包并前移)
+     *
+     * @param consumer consumer of released package
+     */
+    private void pollNext(Consumer<RtpPackage> consumer) {
+        int index = this.nextSequenceNumber & this.mask;
+        RtpPackage rtp = this.packages[index];
+        this.packages[index] = null;
+        this.occupied[index >>> 6] &= ~(1L << index);
+        this.size--;
+        if (this.pendingSequenceNumber == this.nextSequenceNumber) {
+            this.pendingSequenceNumber = -1;
+        }
+        this.nextSequenceNumber = (this.nextSequenceNumber + 1) & 0xFFFF;
+        consumer.accept(rtp);
+    }
+
+    /**
+     * Skip the missing packages to the pending one.
+     * (跳过缺失的包，直到缓存的包)
+     */
+    private void skipToPending() {
+        this.lostCount += this.distance(this.pendingSequenceNumber);
+        this.nextSequenceNumber = this.pendingSequenceNumber;
+    }
+
+    /**
+     * Find the first buffered sequence number after the next one by the occupied bits, 64 indexes are checked at a
+     * time, only when the size is greater than 0.
+     * (根据占用位查找下一个序列号之后第一个缓存的序列号，每次检查64个索引，只在数量大于0的时候调用)
+     *
+     * @return sequence number
+     */
+    private int findPending() {
+        int start = this.nextSequenceNumber & this.mask;
+        int word = start >>> 6;
+        // 起始字中排除起始索引之前的位，绕回之后再检查
+        long bits = this.occupied[word] & (-1L << start);
+        for (int i = 0; i <= this.occupied.length; i++) {
+            if (bits != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return (this.nextSequenceNumber + ((index - start) & this.mask)) & 0xFFFF;
+            }
+            word = (word + 1) % this.occupied.length;
+            bits = this.occupied[word];
+        }
+        throw new IllegalStateException("no package is buffered");
+    }
+
+    /**
+     * Distance from the next sequence number, aware of the 65535 -> 0 wraparound.
+     * (和下一个序列号的距离，考虑65535 -> 0的回绕)
+     *
+     * @param sequenceNumber sequence number
+     * @return distance, negative means before the next one
+     */
+    private int distance(int sequenceNumber) {
+        return (short) (sequenceNumber - this.nextSequenceNumber);
+    }
+}
@@ -32,9 +32,12 @@ import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
 import com.github.xingshuangs.iot.protocol.rtsp.service.IRtspDataStream;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -45,6 +48,12 @@ import java.util.function.Consumer;
 @Slf4j
 public class RtpUdpClient extends UdpClientBasic implements IRtspDataStream {
 
+    /**
+     * Default receive buffer size of socket, a 1080p I-frame bursts hundreds of packets.
+     * (默认的socket接收缓冲区大小，1080p的I帧会突发几百个包)
+     */
+    public static final int DEFAULT_RECEIVE_BUFFER_SIZE = 4 * 1024 * 1024;
+
     /**
      * Is thread terminal.
      * (是否终止线程)
@@ -81,6 +90,12 @@ public class RtpUdpClient extends UdpClientBasic implements IRtspDataStream {
      */
     private final ExecutorService executorService;
 
+    /**
+     * Periodic release of jitter buffer.
+     * (抖动缓冲区的周期性释放)
+     */
+    private ScheduledFuture<?> releaseFuture;
+
     public void setCommCallback(Consumer<byte[]> commCallback) {
         this.commCallback = commCallback;
     }
@@ -92,11 +107,13 @@ public class RtpUdpClient extends UdpClientBasic implements IRtspDataStream {
     public RtpUdpClient(IPayloadParser iPayloadParser) {
         this.iPayloadParser = iPayloadParser;
         this.executorService = Executors.newSingleThreadExecutor();
+        this.setReceiveBufferSize(DEFAULT_RECEIVE_BUFFER_SIZE);
     }
 
     public RtpUdpClient(String ip, int port) {
         super(ip, port);
         this.executorService = Executors.newSingleThreadExecutor();
+        this.setReceiveBufferSize(DEFAULT_RECEIVE_BUFFER_SIZE);
     }
 
     @Override
@@ -113,6 +130,10 @@ public class RtpUdpClient extends UdpClientBasic implements IRtspDataStream {
 
     @Override
     public void triggerReceive() {
+        if (this.iPayloadParser != null) {
+            this.releaseFuture = RtpJitterBuffer.getScheduler().scheduleWithFixedDelay(this::releaseHandle,
+                    RtpJitterBuffer.RELEASE_INTERVAL, RtpJitterBuffer.RELEASE_INTERVAL, TimeUnit.MILLISECONDS);
+        }
         this.future = CompletableFuture.runAsync(this::waitForReceiveData, this.executorService);
     }
 
@@ -133,19 +154,7 @@ public class RtpUdpClient extends UdpClientBasic implements IRtspDataStream {
                 this.serverAddress.getAddress().getHostAddress(), this.serverAddress.getPort());
         while (!this.terminal) {
             try {
-                byte[] data = this.read();
-                if (this.commCallback != null) {
-                    this.commCallback.accept(data);
-                }
-                RtpPackage rtp = RtpPackage.fromBytes(data);
-                if (data.length > rtp.byteArrayLength()) {
-                    // rtp数据还有未处理部分，未处理字节个数[{}]
-                    log.warn("rtp data has unprocessed parts, number of unprocessed bytes [{}]", data.length - rtp.byteArrayLength());
-                }
-                if (this.rtcpUdpClient != null) {
-                    this.rtcpUdpClient.processRtpPackage(rtp);
-                }
-                this.iPayloadParser.processPackage(rtp);
+                this.receiveBatch(this::rtpHandle);
             } catch (SocketRuntimeException e) {
                 // SocketRuntimeException就是IO异常，网络断开了，结束线程
                 log.error(e.getMessage());
@@ -157,7 +166,53 @@ public class RtpUdpClient extends UdpClientBasic implements IRtspDataStream {
                 }
             }
         }
+        // 停止接收，释放抖动缓冲区中剩余的包
+        if (this.releaseFuture != null) {
+            this.releaseFuture.cancel(false);
+        }
+        if (this.iPayloadParser != null) {
+            this.iPayloadParser.flush();
+        }
         log.debug("[RTSP + UDP] RTP disables asynchronous data receiving thread, remote IP[/{}:{}]",
                 this.serverAddress.getAddress().getHostAddress(), this.serverAddress.getPort());
     }
+
+    /**
+     * Release the packages of jitter buffer which are out of the latency budget, even if no more package arrives.
+     * (释放抖动缓冲区中超过延迟预算的包，即使没有后续的包到达)
+     */
+    private void releaseHandle() {
+        try {
+            this.iPayloadParser.release(System.currentTimeMillis());
+        } catch (Exception e) {
+            // 异常不能抛出，否则周期任务被取消
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rtp data handle, the rtp package is parsed in place from the receive buffer.
+     * (处理RTP数据，直接从接收缓存中解析RTP包)
+     *
+     * @param buffer buffer of one datagram
+     */
+    private void rtpHandle(ByteBuffer buffer) {
+        try {
+            if (this.commCallback != null) {
+                byte[] data = new byte[buffer.remaining()];
+                buffer.duplicate().get(data);
+                this.commCallback.accept(data);
+            }
+            RtpPackage rtp = RtpPackage.fromByteBuffer(buffer);
+            if (this.rtcpUdpClient != null) {
+                this.rtcpUdpClient.processRtpPackage(rtp);
+            }
+            this.iPayloadParser.processPackage(rtp);
+        } catch (Exception e) {
+            // 单个数据报异常不影响同一批次的其他数据报
+            if (!this.terminal) {
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
 }
@@ -27,6 +27,7 @@ package com.github.xingshuangs.iot.protocol.rtsp.model.sdp;
 
 import com.github.xingshuangs.iot.exceptions.RtspCommException;
 import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
+import com.github.xingshuangs.iot.protocol.rtp.model.payload.H265SeqParameterSet;
 import com.github.xingshuangs.iot.protocol.rtp.model.payload.SeqParameterSet;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.attribute.RtspSdpMediaAttrDimension;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.attribute.RtspSdpMediaAttrFmtp;
@@ -61,9 +62,27 @@ public class RtspTrackInfo {
 
     private int height;
 
+    private byte[] vps;
+
     private byte[] sps;
 
     private byte[] pps;
+    // endregion
+
+    // region 音频
+    private int audioSampleRate;
+
+    private int channelCount;
+
+    private byte[] config;
+    // endregion
+
+    /**
+     * Sampling frequency index of AudioSpecificConfig.
+     * (AudioSpecificConfig的采样率索引)
+     */
+    private static final int[] AAC_SAMPLE_RATES = {96000, 88200, 64000, 48000, 44100, 32000, 24000, 22050,
+            16000, 12000, 11025, 8000, 7350};
 
     public static RtspTrackInfo createTrackInfo(RtspSdp sdp) {
         Optional<RtspSdpMedia> optional = sdp.getMedias().stream().filter(x -> x.getMediaDesc().getType().equals("video")).findFirst();
@@ -78,20 +97,33 @@ public class RtspTrackInfo {
         RtspSdpMediaAttrRtpMap rtpMap = media.getAttributeRtpMap();
         trackInfo.timescale = rtpMap.getClockFrequency();
         trackInfo.duration = rtpMap.getClockFrequency();
-        if ("H265".equalsIgnoreCase(rtpMap.getPayloadFormat())) {
-            // 暂不支持H265协议，可以自行去摄像头设置为H264协议
-            throw new RtspCommException("The H265 protocol is not currently supported. You can set the camera to H264");
-        }
         RtspSdpMediaAttrDimension dimension = media.getAttributeDimension();
         trackInfo.width = dimension == null ? 1920 : dimension.getWidth();
         trackInfo.height = dimension == null ? 1080 : dimension.getHeight();
         RtspSdpMediaAttrFmtp fmtp = media.getAttributeFmtp();
+        boolean h265 = isH265(rtpMap.getPayloadFormat());
+        if (h265) {
+            // H265的codec在拿到sps之前先给一个默认值，用于选择hvc1
+            trackInfo.codec = "hvc1";
+        }
+        if (fmtp == null) {
+            log.warn("fmtp is missing from SDP");
+            return trackInfo;
+        }
+        trackInfo.vps = fmtp.getVps();
         trackInfo.sps = fmtp.getSps();
         trackInfo.pps = fmtp.getPps();
         if (trackInfo.sps == null || trackInfo.sps.length < 4) {
             log.warn("sps is missing from SDP");
             return trackInfo;
         }
+        if (h265) {
+            H265SeqParameterSet sps = H265SeqParameterSet.createSPS(trackInfo.sps);
+            trackInfo.width = sps.getWidth();
+            trackInfo.height = sps.getHeight();
+            trackInfo.codec = sps.getCodec();
+            return trackInfo;
+        }
         SeqParameterSet sps = SeqParameterSet.createSPS(trackInfo.sps);
         trackInfo.width = sps.getWidth();
         trackInfo.height = sps.getHeight();
@@ -100,4 +132,73 @@ public class RtspTrackInfo {
         trackInfo.codec = "avc1." + HexUtil.toHexString(bytes, "", false);
         return trackInfo;
     }
+
+    /**
+     * Create audio track info, only AAC (mpeg4-generic) is supported, null if there is no supported audio.
+     * The sample rate and channel count come from AudioSpecificConfig, and the rtpmap is the fallback.
+     * (创建音频轨道信息，只支持AAC (mpeg4-generic)，没有支持的音频时返回null，采样率和声道数来自AudioSpecificConfig，rtpmap兜底)
+     *
+     * @param sdp sdp
+     * @return audio track info
+     */
+    public static RtspTrackInfo createAudioTrackInfo(RtspSdp sdp) {
+        Optional<RtspSdpMedia> optional = sdp.getMedias().stream()
+                .filter(x -> x.getMediaDesc().getType().equals("audio")
+                        && x.getAttributeRtpMap() != null && isAac(x.getAttributeRtpMap().getPayloadFormat()))
+                .findFirst();
+        if (!optional.isPresent()) {
+            return null;
+        }
+        RtspSdpMedia media = optional.get();
+        RtspSdpMediaAttrFmtp fmtp = media.getAttributeFmtp();
+        if (fmtp == null || fmtp.getConfig() == null || fmtp.getConfig().length < 2) {
+            // mp4a的esds需要AudioSpecificConfig
+            log.warn("config of AAC is missing from SDP, audio is ignored");
+            return null;
+        }
+        RtspSdpMediaAttrRtpMap rtpMap = media.getAttributeRtpMap();
+        byte[] config = fmtp.getConfig();
+        int objectType = (config[0] & 0xFF) >> 3;
+        int frequencyIndex = ((config[0] & 0x07) << 1) | ((config[1] & 0xFF) >> 7);
+        int channelConfig = ((config[1] & 0xFF) >> 3) & 0x0F;
+
+        RtspTrackInfo trackInfo = new RtspTrackInfo();
+        trackInfo.id = media.getAttributeControl().getTrackID();
+        trackInfo.type = "audio";
+        trackInfo.codec = "mp4a.40." + objectType;
+        trackInfo.config = config;
+        trackInfo.audioSampleRate = frequencyIndex < AAC_SAMPLE_RATES.length ? AAC_SAMPLE_RATES[frequencyIndex]
+                : rtpMap.getClockFrequency();
+        if (channelConfig > 0) {
+            trackInfo.channelCount = channelConfig;
+        } else {
+            trackInfo.channelCount = rtpMap.getSoundTrackNumber() == null ? 1 : rtpMap.getSoundTrackNumber();
+        }
+        // rtp时间戳的单位为rtpmap的时钟频率
+        trackInfo.timescale = rtpMap.getClockFrequency();
+        trackInfo.duration = rtpMap.getClockFrequency();
+        return trackInfo;
+    }
+
+    /**
+     * Is AAC payload format, mpeg4-generic.
+     * (是否为AAC负载格式，mpeg4-generic)
+     *
+     * @param payloadFormat payload format of rtpmap
+     * @return true：AAC，false：not AAC
+     */
+    public static boolean isAac(String payloadFormat) {
+        return "mpeg4-generic".equalsIgnoreCase(payloadFormat);
+    }
+
+    /**
+     * Is H265 payload format, H265 or HEVC.
+     * (是否为H265负载格式，H265或HEVC)
+     *
+     * @param payloadFormat payload format of rtpmap
+     * @return true：H265，false：not H265
+     */
+    public static boolean isH265(String payloadFormat) {
+        return "H265".equalsIgnoreCase(payloadFormat) || "HEVC".equalsIgnoreCase(payloadFormat);
+    }
 }
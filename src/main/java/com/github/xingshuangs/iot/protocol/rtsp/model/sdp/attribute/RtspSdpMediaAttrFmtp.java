@@ -26,6 +26,7 @@ package com.github.xingshuangs.iot.protocol.rtsp.model.sdp.attribute;
 
 
 import com.github.xingshuangs.iot.exceptions.RtspCommException;
+import com.github.xingshuangs.iot.utils.HexUtil;
 import com.github.xingshuangs.iot.utils.StringSpUtil;
 import lombok.Data;
 
@@ -37,6 +38,8 @@ import static com.github.xingshuangs.iot.protocol.rtsp.constant.RtspCommonKey.*;
 /**
  * RtspSdpMediaAttrFmtp
  * fmtp:96 profile-level-id=420029; packetization-mode=1; sprop-parameter-sets=Z00AH5Y1QKALdNwEBAQI,aO48gA==
+ * H265: fmtp:96 sprop-vps=QAEMAf//AWAAAAMAkAAAAwAAAwB4lZgJ; sprop-sps=QgEBAWAAAAMAkAAAAwAAAwB4oAPAgBDllmZpJMrgEAAAAwAQAAADAeCA; sprop-pps=RAHBcrRiQA==
+ * AAC: fmtp:97 streamtype=5; profile-level-id=15; mode=AAC-hbr; config=1408; sizelength=13; indexlength=3; indexdeltalength=3
  *
  * @author xingshuang
  */
@@ -55,6 +58,12 @@ public class RtspSdpMediaAttrFmtp {
      */
     private String spropParameterSets;
 
+    /**
+     * VPS, only H265
+     * 视频中比较重要的VPS，只有H265才有
+     */
+    private byte[] vps;
+
     /**
      * SPS
      * 视频中比较重要的SPS
@@ -67,6 +76,36 @@ public class RtspSdpMediaAttrFmtp {
      */
     private byte[] pps;
 
+    /**
+     * Mode of mpeg4-generic, such as AAC-hbr, AAC-lbr.
+     * (mpeg4-generic的模式，例如AAC-hbr，AAC-lbr)
+     */
+    private String mode;
+
+    /**
+     * AudioSpecificConfig of AAC, hex string in SDP.
+     * (AAC的AudioSpecificConfig，SDP中为十六进制字符串)
+     */
+    private byte[] config;
+
+    /**
+     * Bit length of AU-size.
+     * (AU-size的位长度)
+     */
+    private Integer sizeLength;
+
+    /**
+     * Bit length of AU-Index.
+     * (AU-Index的位长度)
+     */
+    private Integer indexLength;
+
+    /**
+     * Bit length of AU-Index-delta.
+     * (AU-Index-delta的位长度)
+     */
+    private Integer indexDeltaLength;
+
     public static RtspSdpMediaAttrFmtp fromString(String src) {
         if (src == null || src.equals("")) {
             throw new IllegalArgumentException("MediaAttrFmtp of SDP data error");
@@ -97,8 +136,36 @@ public class RtspSdpMediaAttrFmtp {
                     rtpMap.sps = decoder.decode(tmp.substring(0, i2));
                     rtpMap.pps = decoder.decode(tmp.substring(i2 + 1));
                 }
+            } else if (item.substring(0, i1).equals("sprop-vps")) {
+                rtpMap.vps = decodeFirstParameterSet(tmp);
+            } else if (item.substring(0, i1).equals("sprop-sps")) {
+                rtpMap.sps = decodeFirstParameterSet(tmp);
+            } else if (item.substring(0, i1).equals("sprop-pps")) {
+                rtpMap.pps = decodeFirstParameterSet(tmp);
+            } else if (item.substring(0, i1).equalsIgnoreCase("mode")) {
+                rtpMap.mode = tmp;
+            } else if (item.substring(0, i1).equalsIgnoreCase("config")) {
+                rtpMap.config = HexUtil.toHexArray(tmp);
+            } else if (item.substring(0, i1).equalsIgnoreCase("sizelength")) {
+                rtpMap.sizeLength = Integer.parseInt(tmp);
+            } else if (item.substring(0, i1).equalsIgnoreCase("indexlength")) {
+                rtpMap.indexLength = Integer.parseInt(tmp);
+            } else if (item.substring(0, i1).equalsIgnoreCase("indexdeltalength")) {
+                rtpMap.indexDeltaLength = Integer.parseInt(tmp);
             }
         }
         return rtpMap;
     }
+
+    /**
+     * Decode the first parameter set of H265, multiple parameter sets are separated by comma.
+     * (解码H265的第一个参数集，多个参数集用逗号分隔)
+     *
+     * @param src base64 string
+     * @return parameter set
+     */
+    private static byte[] decodeFirstParameterSet(String src) {
+        int i = src.indexOf(",");
+        return Base64.getDecoder().decode(i >= 0 ? src.substring(0, i) : src);
+    }
 }
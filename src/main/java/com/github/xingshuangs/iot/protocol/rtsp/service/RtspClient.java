@@ -52,7 +52,7 @@ public class RtspClient extends RtspNetwork {
     private ExecutorService executorService;
 
     public RtspClient(URI uri) {
-        super(uri);
+        this(uri, null, ERtspTransportProtocol.TCP);
     }
 
     public RtspClient(URI uri, ERtspTransportProtocol transportProtocol) {
@@ -0,0 +1,407 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtsp.service;
+
+
+import com.github.xingshuangs.iot.exceptions.RtspCommException;
+import com.github.xingshuangs.iot.protocol.mp4.enums.EMp4Type;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * RTSP FMp4 hub, shares one upstream RTSP session of each camera across many FMp4 subscribers.
+ * The mp4 header and the latest GOP are cached, so that a late subscriber can start playing at once, the GOP which
+ * exceeds the max fragment count or size is not cached.
+ * (RTSP FMp4分发中心，每个摄像头只建立一个RTSP会话，分发给多个FMp4订阅者，
+ * 缓存MP4的头和最近一个GOP，后加入的订阅者可以立即开始播放，超过最大片段数量或大小的GOP不缓存)
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class RtspFMp4Hub {
+
+    /**
+     * Default max fragment count of cached GOP.
+     * (默认缓存GOP的最大片段数量)
+     */
+    public static final int DEFAULT_MAX_GOP_COUNT = 300;
+
+    /**
+     * Default max size of cached GOP, unit byte.
+     * (默认缓存GOP的最大大小，单位字节)
+     */
+    public static final long DEFAULT_MAX_GOP_SIZE = 16 * 1024 * 1024L;
+
+    /**
+     * RTSP client factory, create the client by uri.
+     * (RTSP客户端工厂，根据地址创建客户端)
+     */
+    private final Function<URI, RtspClient> clientFactory;
+
+    /**
+     * Channels, key is uri.
+     * (通道，key为地址)
+     */
+    private final Map<URI, Channel> channels = new HashMap<>();
+
+    /**
+     * Max fragment count of cached GOP.
+     * (缓存GOP的最大片段数量)
+     */
+    private volatile int maxGopCount = DEFAULT_MAX_GOP_COUNT;
+
+    /**
+     * Max size of cached GOP, unit byte.
+     * (缓存GOP的最大大小，单位字节)
+     */
+    private volatile long maxGopSize = DEFAULT_MAX_GOP_SIZE;
+
+    public RtspFMp4Hub() {
+        this(RtspClient::new);
+    }
+
+    public RtspFMp4Hub(Function<URI, RtspClient> clientFactory) {
+        this.clientFactory = clientFactory;
+    }
+
+    public int getMaxGopCount() {
+        return maxGopCount;
+    }
+
+    public void setMaxGopCount(int maxGopCount) {
+        if (maxGopCount < 1) {
+            throw new IllegalArgumentException("maxGopCount < 1");
+        }
+        this.maxGopCount = maxGopCount;
+    }
+
+    public long getMaxGopSize() {
+        return maxGopSize;
+    }
+
+    public void setMaxGopSize(long maxGopSize) {
+        if (maxGopSize < 1) {
+            throw new IllegalArgumentException("maxGopSize < 1");
+        }
+        this.maxGopSize = maxGopSize;
+    }
+
+    /**
+     * Subscribe the camera with the default capacity of queue.
+     * (以默认的队列容量订阅摄像头)
+     *
+     * @param uri            uri of camera
+     * @param fmp4DataHandle FMp4 data handle
+     * @return subscriber
+     */
+    public RtspFMp4Subscriber subscribe(URI uri, Consumer<byte[]> fmp4DataHandle) {
+        RtspFMp4Subscriber subscriber = new RtspFMp4Subscriber(fmp4DataHandle);
+        this.subscribe(uri, subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Subscribe the camera, the upstream RTSP session is opened by the first subscriber.
+     * (订阅摄像头，第一个订阅者打开上游的RTSP会话)
+     *
+     * @param uri        uri of camera
+     * @param subscriber subscriber
+     */
+    public void subscribe(URI uri, RtspFMp4Subscriber subscriber) {
+        if (subscriber.isTerminal()) {
+            throw new RtspCommException("Subscriber has been closed");
+        }
+        subscriber.setUri(uri);
+        Channel channel;
+        boolean created = false;
+        synchronized (this.channels) {
+            channel = this.channels.get(uri);
+            if (channel == null) {
+                channel = new Channel(uri, this.clientFactory.apply(uri));
+                this.channels.put(uri, channel);
+                created = true;
+            }
+            channel.addSubscriber(subscriber);
+        }
+        if (!created) {
+            return;
+        }
+        // 连接放在锁外面，避免一个摄像头连接慢阻塞其他摄像头
+        try {
+            channel.start();
+        } catch (Exception e) {
+            this.removeChannel(channel);
+            channel.stop();
+            throw e;
+        }
+    }
+
+    /**
+     * Unsubscribe, the upstream RTSP session is closed when no subscriber.
+     * (取消订阅，没有订阅者的时候关闭上游的RTSP会话)
+     *
+     * @param subscriber subscriber
+     */
+    public void unsubscribe(RtspFMp4Subscriber subscriber) {
+        Channel channel;
+        synchronized (this.channels) {
+            channel = this.channels.get(subscriber.getUri());
+            if (channel == null || !channel.removeSubscriber(subscriber)) {
+                return;
+            }
+            if (channel.hasSubscriber()) {
+                channel = null;
+            } else {
+                this.channels.remove(channel.uri);
+            }
+        }
+        subscriber.close();
+        if (channel != null) {
+            channel.stop();
+        }
+    }
+
+    /**
+     * Get the subscriber count of camera.
+     * (获取摄像头的订阅者数量)
+     *
+     * @param uri uri of camera
+     * @return subscriber count
+     */
+    public int getSubscriberCount(URI uri) {
+        synchronized (this.channels) {
+            Channel channel = this.channels.get(uri);
+            return channel == null ? 0 : channel.subscribers.size();
+        }
+    }
+
+    /**
+     * Get the uris of cameras being shared.
+     * (获取正在分发的摄像头地址)
+     *
+     * @return uri list
+     */
+    public List<URI> getUris() {
+        synchronized (this.channels) {
+            return new ArrayList<>(this.channels.keySet());
+        }
+    }
+
+    /**
+     * Stop all channels and close all subscribers.
+     * (停止所有通道，关闭所有订阅者)
+     */
+    public void stop() {
+        List<Channel> list;
+        synchronized (this.channels) {
+            list = new ArrayList<>(this.channels.values());
+            this.channels.clear();
+        }
+        list.forEach(Channel::stop);
+    }
+
+    /**
+     * Remove the channel only when it is the current one.
+     * (只有是当前通道的时候才移除)
+     *
+     * @param channel channel
+     */
+    private void removeChannel(Channel channel) {
+        synchronized (this.channels) {
+            this.channels.remove(channel.uri, channel);
+        }
+    }
+
+    /**
+     * Channel of one camera, one RTSP client and one FMp4 proxy.
+     * (一个摄像头的通道，一个RTSP客户端和一个FMp4代理)
+     */
+    private class Channel {
+
+        private final URI uri;
+
+        private final RtspFMp4Proxy proxy;
+
+        private final List<RtspFMp4Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+        /**
+         * Codec.
+         * (编码)
+         */
+        private String codec;
+
+        /**
+         * Mp4 header cache.
+         * (MP4的头缓存)
+         */
+        private byte[] mp4Header;
+
+        /**
+         * The latest GOP, fragments from the key fragment.
+         * (最近一个GOP，从关键帧片段开始的片段)
+         */
+        private final List<byte[]> gop = new ArrayList<>();
+
+        /**
+         * Byte size of the latest GOP.
+         * (最近一个GOP的字节大小)
+         */
+        private long gopSize = 0;
+
+        private volatile boolean stopped = false;
+
+        Channel(URI uri, RtspClient client) {
+            this.uri = uri;
+            // 同步模式，数据在RTSP接收线程中分发到各订阅者的队列，由订阅者自己的线程发送
+            this.proxy = new RtspFMp4Proxy(client);
+            this.proxy.onCodecHandle(x -> this.codec = x);
+            this.proxy.onFmp4DataHandle(this::fmp4DataHandle);
+            this.proxy.onDestroyHandle(this::destroyHandle);
+        }
+
+        void start() {
+            log.info("Open RTSP hub channel, address [{}]", this.uri);
+            this.proxy.start().whenComplete((v, e) -> this.destroyHandle());
+        }
+
+        void stop() {
+            if (this.stopped) {
+                return;
+            }
+            this.stopped = true;
+            this.proxy.stop();
+            this.closeSubscribers();
+            log.info("Close RTSP hub channel, address [{}]", this.uri);
+        }
+
+        synchronized void addSubscriber(RtspFMp4Subscriber subscriber) {
+            // 头和GOP缓存必须和加入订阅者列表保持原子性，否则可能漏掉或重复片段
+            if (this.mp4Header != null) {
+                subscriber.offerHeader(this.codec, this.mp4Header);
+                for (int i = 0; i < this.gop.size(); i++) {
+                    subscriber.offerFragment(this.gop.get(i), i == 0);
+                }
+            }
+            this.subscribers.add(subscriber);
+        }
+
+        boolean removeSubscriber(RtspFMp4Subscriber subscriber) {
+            return this.subscribers.remove(subscriber);
+        }
+
+        boolean hasSubscriber() {
+            return !this.subscribers.isEmpty();
+        }
+
+        void closeSubscribers() {
+            this.subscribers.forEach(RtspFMp4Subscriber::close);
+            this.subscribers.clear();
+        }
+
+        private void clearGop() {
+            this.gop.clear();
+            this.gopSize = 0;
+        }
+
+        /**
+         * The upstream is destroyed, close all subscribers.
+         * (上游已经销毁，关闭所有订阅者)
+         */
+        private void destroyHandle() {
+            removeChannel(this);
+            if (!this.stopped) {
+                this.stopped = true;
+                this.closeSubscribers();
+                log.info("RTSP hub channel is destroyed, address [{}]", this.uri);
+            }
+        }
+
+        /**
+         * Dispatch FMp4 data, the proxy sends ftyp+moov first, then the fragments of moof+mdat.
+         * (分发FMp4数据，代理先发送ftyp+moov，之后发送moof+mdat的片段)
+         *
+         * @param data FMp4 data
+         */
+        private synchronized void fmp4DataHandle(byte[] data) {
+            EMp4Type type = data.length < 8 ? null : EMp4Type.from(new String(data, 4, 4, StandardCharsets.US_ASCII));
+            if (type == EMp4Type.FTYP) {
+                // 新的头之后，旧的片段不能再解码
+                this.mp4Header = data;
+                this.clearGop();
+                this.subscribers.forEach(x -> x.offerHeader(this.codec, data));
+            } else if (type == EMp4Type.MOOF) {
+                boolean keyFragment = isKeyFragment(data, this.codec != null && this.codec.startsWith("hvc1"));
+                if (keyFragment) {
+                    this.clearGop();
+                }
+                // 第一个关键帧之前的片段不缓存
+                if (!this.gop.isEmpty() || keyFragment) {
+                    if (this.gop.size() >= maxGopCount || this.gopSize + data.length > maxGopSize) {
+                        // 超过上限，放弃缓存当前GOP，直到下一个关键帧片段
+                        log.debug("The GOP of [{}] exceeds the cache limit, fragment count [{}], size [{}]", this.uri, this.gop.size(), this.gopSize);
+                        this.clearGop();
+                    } else {
+                        this.gop.add(data);
+                        this.gopSize += data.length;
+                    }
+                }
+                this.subscribers.forEach(x -> x.offerFragment(data, keyFragment));
+            }
+        }
+    }
+
+    /**
+     * Is the first sample of fragment a key frame, the sample in mdat is avc1 or hvc1 format, nalu length + nalu.
+     * (片段的第一个样本是否为关键帧，mdat中的样本为avc1或hvc1格式，nalu长度 + nalu)
+     *
+     * @param fragment moof + mdat
+     * @param h265     is H265, the key frame is IRAP
+     * @return true：key frame，false：not key frame
+     */
+    private static boolean isKeyFragment(byte[] fragment, boolean h265) {
+        int moofLength = ((fragment[0] & 0xFF) << 24) | ((fragment[1] & 0xFF) << 16)
+                | ((fragment[2] & 0xFF) << 8) | (fragment[3] & 0xFF);
+        // moof + 8字节mdat头 + 4字节nalu长度 + nalu头
+        int index = moofLength + 12;
+        if (index <= 0 || index >= fragment.length) {
+            return false;
+        }
+        if (h265) {
+            int type = (fragment[index] >> 1) & 0x3F;
+            return type >= 16 && type <= 23;
+        }
+        return (fragment[index] & 0x1F) == 5;
+    }
+}
@@ -32,13 +32,18 @@ import com.github.xingshuangs.iot.protocol.mp4.model.*;
 import com.github.xingshuangs.iot.protocol.rtp.enums.EFrameType;
 import com.github.xingshuangs.iot.protocol.rtp.enums.EH264NaluType;
 import com.github.xingshuangs.iot.protocol.rtp.enums.EH264SliceType;
+import com.github.xingshuangs.iot.protocol.rtp.enums.EH265NaluType;
 import com.github.xingshuangs.iot.protocol.rtp.model.frame.H264VideoFrame;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.H265VideoFrame;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
+import com.github.xingshuangs.iot.protocol.rtp.model.payload.H265SeqParameterSet;
 import com.github.xingshuangs.iot.protocol.rtp.model.payload.SeqParameterSet;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.RtspTrackInfo;
 import com.github.xingshuangs.iot.utils.HexUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -47,6 +52,15 @@ import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 /**
+ * Proxy of RTSP to FMp4, the video frames are cut into fragments, and the audio samples are muxed into the same
+ * fragment as video. The dts of each track starts from its own first RTP timestamp, the tracks are not aligned to a
+ * shared wall-clock origin by the NTP/RTP mapping of RTCP sender report, because the first sender report usually
+ * arrives seconds after the first fragments, so the audio may be offset from the video by the capture offset of
+ * the two streams at the start.
+ * (RTSP转FMp4的代理，视频帧切分为片段，音频采样和视频复用在同一片段中。每个轨道的dts从各自第一个RTP时间戳开始，
+ * 没有根据RTCP发送者报告的NTP/RTP映射对齐到共同的时钟起点，因为第一个发送者报告通常在最初的片段之后几秒才到达，
+ * 因此音频和视频可能存在开始时两个流采集时刻的偏差)
+ *
  * @author xingshuang
  */
 @Slf4j
@@ -54,6 +68,12 @@ public class RtspFMp4Proxy {
 
     private final Object objLock = new Object();
 
+    /**
+     * Frame lock, the video and audio frames are received by different threads in UDP mode.
+     * (帧锁，UDP模式下视频帧和音频帧由不同的线程接收)
+     */
+    private final Object frameLock = new Object();
+
     /**
      * RTSP client.
      */
@@ -83,6 +103,12 @@ public class RtspFMp4Proxy {
      */
     private Consumer<byte[]> fmp4DataHandle;
 
+    /**
+     * Fmp4 object handle, Mp4Header or Mp4Fragment, the bytes are not created, such as for recording.
+     * (FMp4对象事件，Mp4Header或Mp4Fragment，不创建字节数组，例如用于录像)
+     */
+    private Consumer<IObjectByteArray> fmp4ObjectHandle;
+
     /**
      * Codec data handle.
      * (codec的处理事件)
@@ -113,6 +139,18 @@ public class RtspFMp4Proxy {
      */
     private Mp4TrackInfo mp4TrackInfo;
 
+    /**
+     * Audio track info, null means no audio.
+     * (音频轨道信息，null表示没有音频)
+     */
+    private RtspTrackInfo audioTrackInfo;
+
+    /**
+     * Mp4 audio track info, the audio samples are muxed into the same fragment as video.
+     * (音频轨道信息，音频采样和视频复用同一个片段)
+     */
+    private Mp4TrackInfo mp4AudioTrackInfo;
+
     /**
      * Is send async.
      * (是否异步步发送)
@@ -139,10 +177,18 @@ public class RtspFMp4Proxy {
         return mp4TrackInfo;
     }
 
+    public Mp4TrackInfo getMp4AudioTrackInfo() {
+        return mp4AudioTrackInfo;
+    }
+
     public void onFmp4DataHandle(Consumer<byte[]> fmp4DataHandle) {
         this.fmp4DataHandle = fmp4DataHandle;
     }
 
+    public void onFmp4ObjectHandle(Consumer<IObjectByteArray> fmp4ObjectHandle) {
+        this.fmp4ObjectHandle = fmp4ObjectHandle;
+    }
+
     public void onCodecHandle(Consumer<String> codecHandle) {
         this.codecHandle = codecHandle;
     }
@@ -157,10 +203,7 @@ public class RtspFMp4Proxy {
 
     public RtspFMp4Proxy(RtspClient client, boolean asyncSend) {
         this.client = client;
-        this.client.onFrameHandle(x -> {
-            H264VideoFrame f = (H264VideoFrame) x;
-            this.frameHandle(f);
-        });
+        this.client.onFrameHandle(this::frameHandle);
         this.client.onDestroyHandle(() -> {
             if (this.destroyHandle != null) {
                 this.destroyHandle.run();
@@ -207,7 +250,7 @@ public class RtspFMp4Proxy {
      *
      * @param frame video frame
      */
-    private void handlePPS(H264VideoFrame frame) {
+    private void handlePPS(RawFrame frame) {
         if (this.trackInfo != null && this.trackInfo.getPps() != null) {
             return;
         }
@@ -216,6 +259,45 @@ public class RtspFMp4Proxy {
         this.trackInfo.setPps(frame.getFrameSegment());
     }
 
+    /**
+     * H265 VPS handle, do only once.
+     * (处理H265的VPS，只处理一次)
+     *
+     * @param frame video frame
+     */
+    private void handleH265VPS(H265VideoFrame frame) {
+        if (this.trackInfo != null && this.trackInfo.getVps() != null) {
+            return;
+        }
+        // 处理trackInfo
+        this.trackInfo = this.client.getTrackInfo();
+        this.trackInfo.setVps(frame.getFrameSegment());
+    }
+
+    /**
+     * H265 SPS handle, do only once.
+     * (处理H265的SPS，只处理一次)
+     *
+     * @param frame video frame
+     */
+    private void handleH265SPS(H265VideoFrame frame) {
+        if (this.trackInfo != null && this.trackInfo.getSps() != null) {
+            return;
+        }
+        byte[] spsBytes = frame.getFrameSegment();
+        if (spsBytes == null || spsBytes.length < 4) {
+            throw new RtspCommException("SPS is not exist");
+        }
+        H265SeqParameterSet sps = H265SeqParameterSet.createSPS(spsBytes);
+
+        // 处理trackInfo
+        this.trackInfo = this.client.getTrackInfo();
+        this.trackInfo.setSps(spsBytes);
+        this.trackInfo.setCodec(sps.getCodec());
+        this.trackInfo.setWidth(sps.getWidth());
+        this.trackInfo.setHeight(sps.getHeight());
+    }
+
     /**
      * Mp4 header handle, do only once.
      * (处理Mp4，只处理一次)
@@ -229,24 +311,68 @@ public class RtspFMp4Proxy {
             this.trackInfo = this.client.getTrackInfo();
         }
         this.mp4TrackInfo = this.toMp4TrackInfo(this.trackInfo);
+        this.audioTrackInfo = this.client.getAudioTrackInfo();
+        String codec = this.mp4TrackInfo.getCodec();
+        if (this.audioTrackInfo == null) {
+            this.mp4Header = new Mp4Header(this.mp4TrackInfo);
+        } else {
+            // 视频和音频两个轨道，codec用逗号分隔，例如：avc1.64002a,mp4a.40.2
+            this.mp4AudioTrackInfo = this.toMp4AudioTrackInfo(this.audioTrackInfo);
+            codec += "," + this.mp4AudioTrackInfo.getCodec();
+            this.mp4Header = new Mp4Header(Arrays.asList(this.mp4TrackInfo, this.mp4AudioTrackInfo));
+        }
         if (this.codecHandle != null) {
-            this.codecHandle.accept(this.mp4TrackInfo.getCodec());
+            this.codecHandle.accept(codec);
         }
         log.debug(this.mp4TrackInfo.toString());
-        this.mp4Header = new Mp4Header(mp4TrackInfo);
-        this.addFMp4Data(mp4Header);
+        this.addFMp4Data(this.mp4Header);
     }
 
     /**
      * Frame handle.
      * (帧处理事件)
      *
-     * @param frame video frame
+     * @param frame raw frame
+     */
+    private void frameHandle(RawFrame frame) {
+        synchronized (this.frameLock) {
+            if (frame.getFrameType() == EFrameType.AUDIO) {
+                this.audioFrameHandle(frame);
+            } else if (frame instanceof H265VideoFrame) {
+                this.h265FrameHandle((H265VideoFrame) frame);
+            } else if (frame instanceof H264VideoFrame) {
+                this.h264FrameHandle((H264VideoFrame) frame);
+            }
+        }
+    }
+
+    /**
+     * Audio frame handle, the audio samples are kept until the next video fragment is cut,
+     * the audio before mp4 header is discarded.
+     * (音频帧处理事件，音频采样保留到下一个视频片段切分时一起输出，mp4头之前的音频丢弃)
+     *
+     * @param frame audio frame
      */
-    private void frameHandle(H264VideoFrame frame) {
-        if (frame.getFrameType() == EFrameType.AUDIO) {
+    private void audioFrameHandle(RawFrame frame) {
+        if (this.mp4AudioTrackInfo == null) {
             return;
         }
+        Mp4SampleData sampleData = new Mp4SampleData();
+        sampleData.setRawData(frame.getFrameSegment());
+        sampleData.setDts(frame.getDts());
+        sampleData.getFlags().setDependedOn(2);
+        sampleData.getFlags().setIsNonSync(0);
+        sampleData.setDuration(frame.getDuration());
+        this.mp4AudioTrackInfo.getSampleData().add(sampleData);
+    }
+
+    /**
+     * H264 frame handle.
+     * (H264帧处理事件)
+     *
+     * @param frame video frame
+     */
+    private void h264FrameHandle(H264VideoFrame frame) {
         if (frame.getNaluType() == EH264NaluType.SEI
                 || frame.getNaluType() == EH264NaluType.AUD) {
             return;
@@ -262,6 +388,41 @@ public class RtspFMp4Proxy {
         this.doVideoFrameHandle(frame);
     }
 
+    /**
+     * H265 frame handle.
+     * (H265帧处理事件)
+     *
+     * @param frame video frame
+     */
+    private void h265FrameHandle(H265VideoFrame frame) {
+        if (frame.getNaluType() == EH265NaluType.VPS) {
+            this.handleH265VPS(frame);
+            return;
+        } else if (frame.getNaluType() == EH265NaluType.SPS) {
+            this.handleH265SPS(frame);
+            return;
+        } else if (frame.getNaluType() == EH265NaluType.PPS) {
+            this.handlePPS(frame);
+            return;
+        } else if (!frame.getNaluType().isVcl()) {
+            return;
+        }
+        if (this.mp4Header == null && (this.trackInfo == null
+                || this.trackInfo.getVps() == null || this.trackInfo.getSps() == null || this.trackInfo.getPps() == null)) {
+            // hvcC需要VPS，SPS和PPS，缺少的时候丢弃该帧
+            log.debug("VPS, SPS or PPS of H265 is missing, the frame is discarded");
+            return;
+        }
+        // 处理map4的header，只处理1次
+        this.handleMp4Header();
+        if (frame.isKeyFrame() && !this.mp4TrackInfo.getSampleData().isEmpty()) {
+            this.addSampleData();
+        } else if (this.mp4TrackInfo.getSampleData().size() >= 5) {
+            this.addSampleData();
+        }
+        this.addVideoSample(frame, frame.isKeyFrame());
+    }
+
     /**
      * Do video frame handle.
      * (执行处理)
@@ -276,11 +437,22 @@ public class RtspFMp4Proxy {
             this.addSampleData();
         }
 
+        this.addVideoSample(videoFrame, videoFrame.getNaluType() == EH264NaluType.IDR_SLICE);
+    }
+
+    /**
+     * Add the video frame as a sample.
+     * (将视频帧添加为一个样本)
+     *
+     * @param videoFrame video frame
+     * @param keyFrame   is key frame
+     */
+    private void addVideoSample(RawFrame videoFrame, boolean keyFrame) {
         Mp4SampleData sampleData = new Mp4SampleData();
         sampleData.setData(videoFrame.getFrameSegment());
         sampleData.setDts(videoFrame.getDts());
-        sampleData.getFlags().setDependedOn(videoFrame.getNaluType() == EH264NaluType.IDR_SLICE ? 2 : 1);
-        sampleData.getFlags().setIsNonSync(videoFrame.getNaluType() == EH264NaluType.IDR_SLICE ? 0 : 1);
+        sampleData.getFlags().setDependedOn(keyFrame ? 2 : 1);
+        sampleData.getFlags().setIsNonSync(keyFrame ? 0 : 1);
         sampleData.setDuration(videoFrame.getDuration());
         sampleData.setCts((int) (videoFrame.getPts() - videoFrame.getDts()));
         this.mp4TrackInfo.getSampleData().add(sampleData);
@@ -293,11 +465,21 @@ public class RtspFMp4Proxy {
         // chrome workaround, mark first sample as being a Random Access Point to avoid sourcebuffer append issue
         // https://code.google.com/p/chromium/issues/detail?id=229412
         Mp4SampleData first = this.mp4TrackInfo.getSampleData().get(0);
+        boolean keyFrame = first.getFlags().getIsNonSync() == 0;
         first.getFlags().setDependedOn(2);
         first.getFlags().setIsNonSync(0);
 
-        this.addFMp4Data(new Mp4MoofBox(this.sequenceNumber, first.getDts(), this.mp4TrackInfo));
-        this.addFMp4Data(new Mp4MdatBox(this.mp4TrackInfo.totalSampleData()));
+        // moof和mdat作为一个片段一次性写入，采样数据不再预先拼接
+        Mp4Fragment fragment;
+        if (this.mp4AudioTrackInfo == null) {
+            fragment = new Mp4Fragment(this.sequenceNumber, first.getDts(), this.mp4TrackInfo);
+        } else {
+            // 视频在前，音频在后，每个轨道的tfdt为各自第一个采样的dts，两个轨道的dts起点未对齐，见类注释
+            fragment = new Mp4Fragment(this.sequenceNumber, Arrays.asList(this.mp4TrackInfo, this.mp4AudioTrackInfo));
+            this.mp4AudioTrackInfo = this.toMp4AudioTrackInfo(this.audioTrackInfo);
+        }
+        fragment.setKeyFrame(keyFrame);
+        this.addFMp4Data(fragment);
 
         // 更新mp4TrackInfo，用新的数据副本
         this.mp4TrackInfo = this.toMp4TrackInfo(this.trackInfo);
@@ -320,11 +502,32 @@ public class RtspFMp4Proxy {
         info.setDuration(track.getDuration());
         info.setWidth(track.getWidth());
         info.setHeight(track.getHeight());
+        info.setVps(track.getVps());
         info.setSps(track.getSps());
         info.setPps(track.getPps());
         return info;
     }
 
+    /**
+     * Transfer to Mp4 audio track info.
+     * (数据转换，包装成Mp4需要的音频轨道信息)
+     *
+     * @param track audio track info
+     * @return Mp4TrackInfo
+     */
+    private Mp4TrackInfo toMp4AudioTrackInfo(RtspTrackInfo track) {
+        Mp4TrackInfo info = new Mp4TrackInfo();
+        info.setId(track.getId());
+        info.setType(track.getType());
+        info.setCodec(track.getCodec());
+        info.setTimescale(track.getTimescale());
+        info.setDuration(track.getDuration());
+        info.setAudioSampleRate(track.getAudioSampleRate());
+        info.setChannelCount(track.getChannelCount());
+        info.setConfig(track.getConfig());
+        return info;
+    }
+
     /**
      * Add fmp4 data.
      * (添加FMp4数据)
@@ -338,9 +541,22 @@ public class RtspFMp4Proxy {
                 this.objLock.notifyAll();
             }
         } else {
-            if (this.fmp4DataHandle != null) {
-                this.fmp4DataHandle.accept(iObjectByteArray.toByteArray());
-            }
+            this.doFMp4DataHandle(iObjectByteArray);
+        }
+    }
+
+    /**
+     * Do fmp4 data handle, the bytes are created only when the data handle exists.
+     * (执行FMp4数据事件，只有存在数据事件时才创建字节数组)
+     *
+     * @param iObjectByteArray data
+     */
+    private void doFMp4DataHandle(IObjectByteArray iObjectByteArray) {
+        if (this.fmp4ObjectHandle != null) {
+            this.fmp4ObjectHandle.accept(iObjectByteArray);
+        }
+        if (this.fmp4DataHandle != null) {
+            this.fmp4DataHandle.accept(iObjectByteArray.toByteArray());
         }
     }
 
@@ -366,9 +582,9 @@ public class RtspFMp4Proxy {
             int size = this.buffers.size();
             for (int i = 0; i < size; i++) {
                 IObjectByteArray pop = this.buffers.poll();
-                if (this.fmp4DataHandle != null && pop != null) {
+                if (pop != null) {
                     try {
-                        this.fmp4DataHandle.accept(pop.toByteArray());
+                        this.doFMp4DataHandle(pop);
                     } catch (Exception e) {
                         log.error(e.getMessage(), e);
                     }
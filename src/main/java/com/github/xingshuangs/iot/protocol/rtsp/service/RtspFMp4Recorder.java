@@ -0,0 +1,578 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.rtsp.service;
+
+
+import com.github.xingshuangs.iot.common.IObjectByteArray;
+import com.github.xingshuangs.iot.exceptions.RtspCommException;
+import com.github.xingshuangs.iot.protocol.mp4.model.Mp4Fragment;
+import com.github.xingshuangs.iot.protocol.mp4.model.Mp4Header;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Recorder of RTSP FMp4, it is the object handle of RtspFMp4Proxy, the init segment (ftyp + moov) and fragments
+ * (moof + mdat) are written straight to file through FileChannel by gathering write, the sample data is not copied.
+ * The file rolls by duration or size, always on key frame boundaries, so every file starts with init segment and a key
+ * frame, and the fragment offsets and timestamps of current file are indexed in memory.
+ * (RTSP FMp4的录像器，作为RtspFMp4Proxy的对象事件，初始化段(ftyp + moov)和片段(moof + mdat)通过FileChannel聚集写直接写入文件，
+ * 采样数据不拷贝，文件按时长或大小滚动，总是在关键帧边界，因此每个文件都以初始化段和关键帧开头，内存中索引当前文件的片段偏移和时间戳)
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class RtspFMp4Recorder implements Consumer<IObjectByteArray>, Closeable {
+
+    /**
+     * Default max duration of one file, unit ms.
+     * (默认单个文件的最大时长，单位ms)
+     */
+    public static final long DEFAULT_MAX_DURATION = 10 * 60 * 1000L;
+
+    /**
+     * Block size of preallocation.
+     * (预分配的数据块大小)
+     */
+    private static final int PREALLOCATE_BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Shared executor of preallocation, single thread.
+     * (预分配的共享线程池，单线程)
+     */
+    private static ExecutorService preallocateExecutor;
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    /**
+     * Directory of record files.
+     * (录像文件目录)
+     */
+    private final Path directory;
+
+    /**
+     * Prefix of file name, the file name is prefix_yyyyMMddHHmmssSSS.mp4.
+     * (文件名前缀，文件名为prefix_yyyyMMddHHmmssSSS.mp4)
+     */
+    private final String prefix;
+
+    /**
+     * Max duration of one file, unit ms, 0 means no limit.
+     * (单个文件的最大时长，单位ms，0表示不限制)
+     */
+    private long maxDuration = DEFAULT_MAX_DURATION;
+
+    /**
+     * Max size of one file, unit byte, 0 means no limit.
+     * (单个文件的最大大小，单位字节，0表示不限制)
+     */
+    private long maxSize = 0;
+
+    /**
+     * Preallocated size of file, unit byte, 0 means no preallocation, the blocks are filled with zero by a background
+     * task running ahead of the write position instead of a sparse file, the file is truncated to actual size when closed.
+     * (文件预分配大小，单位字节，0表示不预分配，由后台任务在写位置之前写入零填充的数据块而不是稀疏文件，关闭时截断为实际大小)
+     */
+    private long preallocateSize = 0;
+
+    /**
+     * Init segment, ftyp + moov.
+     * (初始化段，ftyp + moov)
+     */
+    private byte[] header;
+
+    /**
+     * Timescale of the first track.
+     * (第一个轨道的时间刻度)
+     */
+    private int timescale = 90000;
+
+    /**
+     * Current file channel, null means no file is open.
+     * (当前文件通道，null表示没有打开文件)
+     */
+    private FileChannel channel;
+
+    /**
+     * Preallocation of current file, null means no preallocation.
+     * (当前文件的预分配，null表示不预分配)
+     */
+    private Preallocation preallocation;
+
+    /**
+     * Current file path.
+     * (当前文件路径)
+     */
+    private Path path;
+
+    /**
+     * Write position of current file.
+     * (当前文件的写位置)
+     */
+    private long position = 0;
+
+    /**
+     * Duration of current file, unit is timescale.
+     * (当前文件的时长，单位为时间刻度)
+     */
+    private long duration = 0;
+
+    /**
+     * Fragment indexes of current file.
+     * (当前文件的片段索引)
+     */
+    private final List<FragmentIndex> indexes = new ArrayList<>();
+
+    /**
+     * Dropped fragment count, the fragments before the first key frame of file.
+     * (丢弃的片段数量，文件第一个关键帧之前的片段)
+     */
+    private long droppedCount = 0;
+
+    /**
+     * File close handle, file path and fragment indexes.
+     * (文件关闭事件，文件路径和片段索引)
+     */
+    private BiConsumer<Path, List<FragmentIndex>> fileCloseHandle;
+
+    public RtspFMp4Recorder(Path directory) {
+        this(directory, "record");
+    }
+
+    public RtspFMp4Recorder(Path directory, String prefix) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory is null");
+        }
+        if (prefix == null || prefix.isEmpty()) {
+            throw new IllegalArgumentException("prefix is empty");
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    public void setMaxDuration(long maxDuration) {
+        if (maxDuration < 0) {
+            throw new IllegalArgumentException("maxDuration < 0");
+        }
+        this.maxDuration = maxDuration;
+    }
+
+    public void setMaxSize(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize < 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public void setPreallocateSize(long preallocateSize) {
+        if (preallocateSize < 0) {
+            throw new IllegalArgumentException("preallocateSize < 0");
+        }
+        this.preallocateSize = preallocateSize;
+    }
+
+    /**
+     * Get the shared executor of preallocation.
+     * (获取预分配的共享线程池)
+     *
+     * @return executor
+     */
+    private static synchronized ExecutorService getPreallocateExecutor() {
+        if (preallocateExecutor == null) {
+            preallocateExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "fmp4-preallocate");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return preallocateExecutor;
+    }
+
+    public void onFileCloseHandle(BiConsumer<Path, List<FragmentIndex>> fileCloseHandle) {
+        this.fileCloseHandle = fileCloseHandle;
+    }
+
+    public synchronized Path getPath() {
+        return path;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Get the fragment indexes of current file.
+     * (获取当前文件的片段索引)
+     *
+     * @return fragment indexes
+     */
+    public synchronized List<FragmentIndex> getIndexes() {
+        return new ArrayList<>(this.indexes);
+    }
+
+    /**
+     * Accept the fmp4 object, Mp4Header or Mp4Fragment.
+     * (接收FMp4对象，Mp4Header或Mp4Fragment)
+     *
+     * @param data fmp4 object
+     */
+    @Override
+    public synchronized void accept(IObjectByteArray data) {
+        try {
+            if (data instanceof Mp4Header) {
+                this.headerHandle((Mp4Header) data);
+            } else if (data instanceof Mp4Fragment) {
+                this.fragmentHandle((Mp4Fragment) data);
+            }
+        } catch (IOException e) {
+            throw new RtspCommException("FMp4 record failed, " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Close the current file.
+     * (关闭当前文件)
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            this.closeFile();
+        } catch (IOException e) {
+            throw new RtspCommException("FMp4 record close failed, " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Header handle, a new header closes the current file, the next file starts with it.
+     * (头处理，新的头会关闭当前文件，下一个文件以它开头)
+     *
+     * @param mp4Header mp4 header
+     * @throws IOException IO exception
+     */
+    private void headerHandle(Mp4Header mp4Header) throws IOException {
+        this.closeFile();
+        this.header = mp4Header.toByteArray();
+        if (!mp4Header.getTrackInfos().isEmpty() && mp4Header.getTrackInfos().get(0).getTimescale() > 0) {
+            this.timescale = mp4Header.getTrackInfos().get(0).getTimescale();
+        }
+    }
+
+    /**
+     * Fragment handle, roll the file on key frame boundary if needed, then write by gathering write.
+     * (片段处理，需要时在关键帧边界滚动文件，之后聚集写入)
+     *
+     * @param fragment mp4 fragment
+     * @throws IOException IO exception
+     */
+    private void fragmentHandle(Mp4Fragment fragment) throws IOException {
+        if (this.header == null) {
+            this.droppedCount++;
+            return;
+        }
+        int length = fragment.byteArrayLength();
+        if (this.channel != null && fragment.isKeyFrame() && this.needRoll(length)) {
+            this.closeFile();
+        }
+        if (this.channel == null) {
+            if (!fragment.isKeyFrame()) {
+                // 文件必须以关键帧开头
+                this.droppedCount++;
+                return;
+            }
+            this.openFile();
+        }
+        long offset = this.position;
+        this.write(fragment.toByteBuffers(), length);
+        this.duration += fragment.getDuration();
+        this.indexes.add(new FragmentIndex(offset, length, fragment.getSequenceNumber(),
+                fragment.getBaseMediaDecodeTime(), fragment.getDuration(), fragment.isKeyFrame()));
+    }
+
+    /**
+     * Whether the current file needs to roll before writing the fragment.
+     * (写入片段之前当前文件是否需要滚动)
+     *
+     * @param length fragment length
+     * @return true：roll，false：not roll
+     */
+    private boolean needRoll(int length) {
+        if (this.maxDuration > 0 && this.duration * 1000 / this.timescale >= this.maxDuration) {
+            return true;
+        }
+        return this.maxSize > 0 && this.position + length > this.maxSize;
+    }
+
+    /**
+     * Open a new file and write the init segment.
+     * (打开新文件并写入初始化段)
+     *
+     * @throws IOException IO exception
+     */
+    private void openFile() throws IOException {
+        this.path = this.directory.resolve(this.prefix + "_" + LocalDateTime.now().format(FORMATTER) + ".mp4");
+        this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.position = 0;
+        this.duration = 0;
+        this.indexes.clear();
+        this.write(new ByteBuffer[]{ByteBuffer.wrap(this.header)}, this.header.length);
+        if (this.preallocateSize > 0) {
+            // 初始化段写入之后再开始预分配，接收线程不需要等待
+            this.preallocation = new Preallocation(this.channel, this.position, this.preallocateSize);
+            getPreallocateExecutor().execute(this.preallocation);
+        }
+        log.debug("FMp4 record opens file [{}]", this.path);
+    }
+
+    /**
+     * Close the current file, truncate it to the actual size and notify the indexes.
+     * (关闭当前文件，截断为实际大小并通知索引)
+     *
+     * @throws IOException IO exception
+     */
+    private void closeFile() throws IOException {
+        if (this.channel == null) {
+            return;
+        }
+        try {
+            if (this.preallocation != null) {
+                // 等待正在填充的数据块完成，之后再截断
+                this.preallocation.cancel();
+                this.preallocation = null;
+                this.channel.truncate(this.position);
+            }
+        } finally {
+            this.channel.close();
+            this.channel = null;
+        }
+        log.debug("FMp4 record closes file [{}], size [{}], fragment count [{}]", this.path, this.position, this.indexes.size());
+        if (this.fileCloseHandle != null) {
+            this.fileCloseHandle.accept(this.path, new ArrayList<>(this.indexes));
+        }
+        this.indexes.clear();
+    }
+
+    /**
+     * Gathering write all the buffers at the write position.
+     * (在写位置聚集写入所有缓存)
+     *
+     * @param buffers byte buffers
+     * @param length  total length
+     * @throws IOException IO exception
+     */
+    private void write(ByteBuffer[] buffers, long length) throws IOException {
+        if (this.preallocation != null) {
+            this.preallocation.beforeWrite(this.position, this.position + length);
+        }
+        this.channel.position(this.position);
+        long remain = length;
+        while (remain > 0) {
+            remain -= this.channel.write(buffers);
+        }
+        this.position += length;
+    }
+
+    /**
+     * Preallocation of one file, the zero-filled blocks are written from the write position to the preallocated size,
+     * only writing the last byte makes a sparse file whose blocks are still allocated while recording. The block being
+     * filled never overlaps the range being written, and the filling restarts from the write position if the writing
+     * gets ahead of it.
+     * (单个文件的预分配，从写位置到预分配大小写入零填充的数据块，只写最后一个字节会产生稀疏文件，录制时仍然需要分配数据块。
+     * 正在填充的数据块不会和正在写入的范围重叠，写入超过填充位置时从写位置重新开始填充)
+     */
+    private static class Preallocation implements Runnable {
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        /**
+         * End of the written range.
+         * (已写入范围的结束位置)
+         */
+        private long written;
+
+        /**
+         * End of the zero-filled range.
+         * (零填充范围的结束位置)
+         */
+        private long filled = 0;
+
+        /**
+         * Start of the block being filled, -1 means no block is being filled.
+         * (正在填充的数据块的起始位置，-1表示没有正在填充的数据块)
+         */
+        private long fillingStart = -1;
+
+        /**
+         * End of the block being filled.
+         * (正在填充的数据块的结束位置)
+         */
+        private long fillingEnd = -1;
+
+        private boolean cancelled = false;
+
+        Preallocation(FileChannel channel, long written, long size) {
+            this.channel = channel;
+            this.written = written;
+            this.size = size;
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer zero = ByteBuffer.allocateDirect((int) Math.min(PREALLOCATE_BLOCK_SIZE, this.size));
+            while (true) {
+                long start;
+                synchronized (this) {
+                    start = Math.max(this.filled, this.written);
+                    if (this.cancelled || start >= this.size) {
+                        return;
+                    }
+                    this.fillingStart = start;
+                    this.fillingEnd = Math.min(start + zero.capacity(), this.size);
+                }
+                zero.clear();
+                zero.limit((int) (this.fillingEnd - start));
+                long offset = start;
+                try {
+                    while (zero.hasRemaining()) {
+                        offset += this.channel.write(zero, offset);
+                    }
+                } catch (IOException e) {
+                    // 预分配失败不影响录制
+                    log.warn("FMp4 record preallocation failed, {}", e.getMessage());
+                    synchronized (this) {
+                        this.cancelled = true;
+                        this.fillingStart = -1;
+                        this.notifyAll();
+                    }
+                    return;
+                }
+                synchronized (this) {
+                    this.filled = this.fillingEnd;
+                    this.fillingStart = -1;
+                    this.notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Called before writing the range, wait if it overlaps the block being filled, the block is at most
+         * PREALLOCATE_BLOCK_SIZE bytes, the later filling starts after the range.
+         * (写入范围之前调用，和正在填充的数据块重叠时等待，数据块最多PREALLOCATE_BLOCK_SIZE字节，之后的填充从该范围之后开始)
+         *
+         * @param start start of range
+         * @param end   end of range
+         * @throws IOException interrupted
+         */
+        synchronized void beforeWrite(long start, long end) throws IOException {
+            while (this.fillingStart >= 0 && start < this.fillingEnd && end > this.fillingStart) {
+                this.await();
+            }
+            this.written = Math.max(this.written, end);
+        }
+
+        /**
+         * Cancel the filling and wait for the block being filled.
+         * (取消填充并等待正在填充的数据块)
+         *
+         * @throws IOException interrupted
+         */
+        synchronized void cancel() throws IOException {
+            this.cancelled = true;
+            while (this.fillingStart >= 0) {
+                this.await();
+            }
+        }
+
+        private void await() throws IOException {
+            try {
+                this.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("FMp4 record preallocation is interrupted");
+            }
+        }
+    }
+
+    /**
+     * Fragment index, the offset is from the start of file.
+     * (片段索引，偏移为距离文件开头的位置)
+     */
+    @Data
+    public static class FragmentIndex {
+
+        /**
+         * Offset from the start of file.
+         * (距离文件开头的偏移)
+         */
+        private final long offset;
+
+        /**
+         * Length of moof + mdat.
+         * (moof + mdat的长度)
+         */
+        private final int length;
+
+        /**
+         * Sequence number of moof.
+         * (moof的序列号)
+         */
+        private final long sequenceNumber;
+
+        /**
+         * Base media decode time of the first track, unit is timescale.
+         * (第一个轨道的基准解码时间，单位为时间刻度)
+         */
+        private final long baseMediaDecodeTime;
+
+        /**
+         * Duration of the first track, unit is timescale.
+         * (第一个轨道的持续时间，单位为时间刻度)
+         */
+        private final long duration;
+
+        /**
+         * Whether it starts with key frame.
+         * (是否以关键帧开头)
+         */
+        private final boolean keyFrame;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtsp.service;
+
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Subscriber of RTSP FMp4 hub, each subscriber has a bounded queue and its own sending thread,
+ * a slow consumer only drops whole fragments until the next key fragment, never affects other subscribers.
+ * (RTSP FMp4分发中心的订阅者，每个订阅者拥有有界队列和独立的发送线程，
+ * 慢消费者只会整片段丢弃直到下一个关键帧片段，不会影响其他订阅者)
+ *
+ * @author xingshuang
+ */
+@Slf4j
+public class RtspFMp4Subscriber {
+
+    /**
+     * Default max fragment count of queue.
+     * (默认队列最大片段数量)
+     */
+    public static final int DEFAULT_CAPACITY = 30;
+
+    private final Object objLock = new Object();
+
+    /**
+     * Uri of camera, assigned when subscribing.
+     * (摄像头地址，订阅时赋值)
+     */
+    private URI uri;
+
+    /**
+     * Max fragment count of queue.
+     * (队列最大片段数量)
+     */
+    private final int capacity;
+
+    /**
+     * Fmp4 data handle.
+     * (FMp4数据事件)
+     */
+    private final Consumer<byte[]> fmp4DataHandle;
+
+    /**
+     * Codec data handle.
+     * (codec的处理事件)
+     */
+    private Consumer<String> codecHandle;
+
+    /**
+     * Destroy handle.
+     * (销毁的处理事件)
+     */
+    private Runnable destroyHandle;
+
+    /**
+     * Mp4 header, ftyp + moov, send before all fragments.
+     * (MP4的头，ftyp + moov，在所有片段之前发送)
+     */
+    private byte[] mp4Header;
+
+    /**
+     * Is the header waiting for sending, a new header is sent again before the following fragments.
+     * (头是否等待发送，新的头会在之后的片段之前再次发送)
+     */
+    private boolean headerPending = false;
+
+    /**
+     * Codec.
+     * (编码)
+     */
+    private String codec;
+
+    /**
+     * Fragment queue, moof + mdat.
+     * (片段队列，moof + mdat)
+     */
+    private final LinkedList<byte[]> fragments = new LinkedList<>();
+
+    /**
+     * Is waiting for key fragment after dropping.
+     * (丢弃后是否在等待关键帧片段)
+     */
+    private boolean waitForKeyFragment = true;
+
+    /**
+     * Dropped fragment count.
+     * (丢弃的片段数量)
+     */
+    private long droppedCount = 0;
+
+    /**
+     * Is thread terminal.
+     * (是否终止)
+     */
+    private volatile boolean terminal = false;
+
+    /**
+     * Completable future.
+     * (异步执行的对象)
+     */
+    private final CompletableFuture<Void> future;
+
+    /**
+     * Executor service, single thread.
+     * (线程池执行服务，单线程)
+     */
+    private final ExecutorService executorService;
+
+    public URI getUri() {
+        return uri;
+    }
+
+    void setUri(URI uri) {
+        this.uri = uri;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public boolean isTerminal() {
+        return terminal;
+    }
+
+    public long getDroppedCount() {
+        synchronized (this.objLock) {
+            return droppedCount;
+        }
+    }
+
+    public int getQueueSize() {
+        synchronized (this.objLock) {
+            return this.fragments.size();
+        }
+    }
+
+    public void onCodecHandle(Consumer<String> codecHandle) {
+        this.codecHandle = codecHandle;
+    }
+
+    public void onDestroyHandle(Runnable destroyHandle) {
+        this.destroyHandle = destroyHandle;
+    }
+
+    public RtspFMp4Subscriber(Consumer<byte[]> fmp4DataHandle) {
+        this(DEFAULT_CAPACITY, fmp4DataHandle);
+    }
+
+    public RtspFMp4Subscriber(int capacity, Consumer<byte[]> fmp4DataHandle) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity < 1");
+        }
+        if (fmp4DataHandle == null) {
+            throw new IllegalArgumentException("fmp4DataHandle is null");
+        }
+        this.capacity = capacity;
+        this.fmp4DataHandle = fmp4DataHandle;
+        this.executorService = Executors.newSingleThreadExecutor();
+        this.future = CompletableFuture.runAsync(this::executeHandle, this.executorService);
+    }
+
+    /**
+     * Offer the mp4 header, it is sent before all fragments. When the header changes, the queued fragments of the old
+     * one are dropped, the new header is sent, and then the fragments from the next key fragment.
+     * (添加MP4的头，在所有片段之前发送，头变化时丢弃旧头的排队片段，发送新的头，之后从下一个关键帧片段开始发送)
+     *
+     * @param codec     codec
+     * @param mp4Header ftyp + moov
+     */
+    void offerHeader(String codec, byte[] mp4Header) {
+        synchronized (this.objLock) {
+            if (this.mp4Header != null) {
+                this.droppedCount += this.fragments.size();
+                this.fragments.clear();
+                this.waitForKeyFragment = true;
+            }
+            this.codec = codec;
+            this.mp4Header = mp4Header;
+            this.headerPending = true;
+            this.objLock.notifyAll();
+        }
+    }
+
+    /**
+     * Offer the fragment, the whole fragment is dropped when the queue is full, and then drop the fragments
+     * until the next key fragment, so that the decoder can recover.
+     * (添加片段，队列满时丢弃整个片段，之后一直丢弃到下一个关键帧片段，保证解码器可以恢复)
+     *
+     * @param fragment    moof + mdat
+     * @param keyFragment is first sample key frame
+     * @return true：offered，false：dropped
+     */
+    boolean offerFragment(byte[] fragment, boolean keyFragment) {
+        synchronized (this.objLock) {
+            if (this.terminal) {
+                return false;
+            }
+            if (this.fragments.size() >= this.capacity) {
+                // 队列满了，清空未发送的片段，等待下一个关键帧
+                log.debug("Subscriber of [{}] is too slow, drop [{}] fragments", this.uri, this.fragments.size() + 1);
+                this.droppedCount += this.fragments.size();
+                this.fragments.clear();
+                this.waitForKeyFragment = true;
+            }
+            if (this.waitForKeyFragment && !keyFragment) {
+                this.droppedCount++;
+                return false;
+            }
+            this.waitForKeyFragment = false;
+            this.fragments.offer(fragment);
+            this.objLock.notifyAll();
+            return true;
+        }
+    }
+
+    /**
+     * Execute handle for sending data.
+     * (事件执行)
+     */
+    private void executeHandle() {
+        while (!this.terminal) {
+            byte[] data;
+            String currentCodec = null;
+            synchronized (this.objLock) {
+                // 没数据的时候等待，头没有发送之前不发送片段
+                while (!this.terminal && (this.mp4Header == null || (!this.headerPending && this.fragments.isEmpty()))) {
+                    try {
+                        this.objLock.wait();
+                    } catch (InterruptedException e) {
+                        // NOOP
+                    }
+                }
+                if (this.terminal) {
+                    break;
+                }
+                if (this.headerPending) {
+                    data = this.mp4Header;
+                    currentCodec = this.codec;
+                    this.headerPending = false;
+                } else {
+                    data = this.fragments.poll();
+                }
+            }
+            try {
+                if (currentCodec != null && this.codecHandle != null) {
+                    this.codecHandle.accept(currentCodec);
+                }
+                this.fmp4DataHandle.accept(data);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Close the subscriber, trigger the destroy handle only once.
+     * (关闭订阅者，只触发一次销毁事件)
+     */
+    public void close() {
+        synchronized (this.objLock) {
+            if (this.terminal) {
+                return;
+            }
+            this.terminal = true;
+            this.fragments.clear();
+            this.objLock.notifyAll();
+        }
+        this.executorService.shutdown();
+        if (this.destroyHandle != null) {
+            this.destroyHandle.run();
+        }
+    }
+
+    /**
+     * Get completable future of sending thread.
+     * (获取发送线程的异步对象)
+     *
+     * @return CompletableFuture
+     */
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+}
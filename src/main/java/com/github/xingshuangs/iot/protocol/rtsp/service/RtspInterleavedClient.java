@@ -28,21 +28,23 @@ package com.github.xingshuangs.iot.protocol.rtsp.service;
 import com.github.xingshuangs.iot.exceptions.RtspCommException;
 import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
 import com.github.xingshuangs.iot.net.client.TcpClientBasic;
-import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
 import com.github.xingshuangs.iot.protocol.rtcp.model.RtcpBasePackage;
 import com.github.xingshuangs.iot.protocol.rtcp.model.RtcpPackageBuilder;
 import com.github.xingshuangs.iot.protocol.rtcp.service.RtcpDataStatistics;
 import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
 import com.github.xingshuangs.iot.protocol.rtp.service.IPayloadParser;
+import com.github.xingshuangs.iot.protocol.rtp.service.RtpJitterBuffer;
 import com.github.xingshuangs.iot.protocol.rtsp.model.interleaved.RtspInterleaved;
-import com.github.xingshuangs.iot.utils.HexUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -55,6 +57,12 @@ public class RtspInterleavedClient implements IRtspDataStream {
 
     public static final Integer BUFFER_SIZE = 4096;
 
+    /**
+     * Receive buffer size, it can hold two max interleaved frames (4 + 65535).
+     * (接收缓存大小，可容纳两个最大的交错帧)
+     */
+    public static final int RECEIVE_BUFFER_SIZE = 2 * (4 + 65535);
+
     /**
      * Is thread terminal.
      */
@@ -90,6 +98,30 @@ public class RtspInterleavedClient implements IRtspDataStream {
      */
     private int rtcpVideoChannelNumber = 1;
 
+    /**
+     * Audio payload parser, null means no audio.
+     * (音频负载解析器，null表示没有音频)
+     */
+    private IPayloadParser audioPayloadParser;
+
+    /**
+     * Data statistics of audio rtp and rtcp.
+     * (音频RTP和RTCP的数据统计)
+     */
+    private final RtcpDataStatistics audioStatistics = new RtcpDataStatistics();
+
+    /**
+     * Rtp audio channel number, -1 means no audio.
+     * (音频rtp的通道编号，-1表示没有音频)
+     */
+    private int rtpAudioChannelNumber = -1;
+
+    /**
+     * Rtcp audio channel number, -1 means no audio.
+     * (音频rtcp的通道编号，-1表示没有音频)
+     */
+    private int rtcpAudioChannelNumber = -1;
+
     /**
      * Rtsp client.
      * (连接对象)
@@ -108,6 +140,30 @@ public class RtspInterleavedClient implements IRtspDataStream {
      */
     private final ExecutorService executorService;
 
+    /**
+     * Periodic release of jitter buffer.
+     * (抖动缓冲区的周期性释放)
+     */
+    private ScheduledFuture<?> releaseFuture;
+
+    /**
+     * Receive buffer, reused for every interleaved frame, [readIndex, writeIndex) is unparsed data.
+     * (接收缓存，所有交错帧复用，[readIndex, writeIndex)为未解析的数据)
+     */
+    private final byte[] receiveBuffer = new byte[RECEIVE_BUFFER_SIZE];
+
+    /**
+     * Read index of receive buffer.
+     * (接收缓存的读索引)
+     */
+    private int readIndex = 0;
+
+    /**
+     * Write index of receive buffer.
+     * (接收缓存的写索引)
+     */
+    private int writeIndex = 0;
+
     public void setCommCallback(Consumer<byte[]> commCallback) {
         this.commCallback = commCallback;
     }
@@ -128,6 +184,37 @@ public class RtspInterleavedClient implements IRtspDataStream {
         this.rtcpVideoChannelNumber = rtcpVideoChannelNumber;
     }
 
+    public int getRtpAudioChannelNumber() {
+        return rtpAudioChannelNumber;
+    }
+
+    public int getRtcpAudioChannelNumber() {
+        return rtcpAudioChannelNumber;
+    }
+
+    public RtcpDataStatistics getStatistics() {
+        return statistics;
+    }
+
+    public RtcpDataStatistics getAudioStatistics() {
+        return audioStatistics;
+    }
+
+    /**
+     * Add the audio of the same RTSP session, the interleaved frames of video and audio share one tcp connection,
+     * so they must be received by the same client.
+     * (添加同一个RTSP会话的音频，视频和音频的交错帧共用一个tcp连接，所以必须由同一个客户端接收)
+     *
+     * @param audioPayloadParser     audio payload parser
+     * @param rtpAudioChannelNumber  rtp audio channel number
+     * @param rtcpAudioChannelNumber rtcp audio channel number
+     */
+    public void setAudio(IPayloadParser audioPayloadParser, int rtpAudioChannelNumber, int rtcpAudioChannelNumber) {
+        this.audioPayloadParser = audioPayloadParser;
+        this.rtpAudioChannelNumber = rtpAudioChannelNumber;
+        this.rtcpAudioChannelNumber = rtcpAudioChannelNumber;
+    }
+
     public RtspInterleavedClient(IPayloadParser iPayloadParser, TcpClientBasic rtspClient) {
         this.iPayloadParser = iPayloadParser;
         this.rtspClient = rtspClient;
@@ -146,6 +233,9 @@ public class RtspInterleavedClient implements IRtspDataStream {
             // 发送byte
             byte[] receiverAndByteContent = this.statistics.createReceiverAndByteContent();
             this.sendData(receiverAndByteContent);
+            if (this.audioPayloadParser != null) {
+                this.sendData(this.audioStatistics.createReceiverAndByteContent());
+            }
             this.terminal = true;
         }
     }
@@ -153,6 +243,8 @@ public class RtspInterleavedClient implements IRtspDataStream {
 
     @Override
     public void triggerReceive() {
+        this.releaseFuture = RtpJitterBuffer.getScheduler().scheduleWithFixedDelay(this::releaseHandle,
+                RtpJitterBuffer.RELEASE_INTERVAL, RtpJitterBuffer.RELEASE_INTERVAL, TimeUnit.MILLISECONDS);
         this.future = CompletableFuture.runAsync(this::waitForReceiveData, this.executorService);
     }
 
@@ -178,16 +270,22 @@ public class RtspInterleavedClient implements IRtspDataStream {
                     this.terminal = true;
                     break;
                 }
-                byte[] data = this.readFromServer();
+                int length = this.readFromServer();
+                int offset = this.readIndex;
+                this.readIndex += length;
                 if (this.commCallback != null) {
-                    this.commCallback.accept(data);
+                    this.commCallback.accept(Arrays.copyOfRange(this.receiveBuffer, offset, offset + length));
                 }
-                RtspInterleaved interleaved = RtspInterleaved.fromBytes(data);
-
-                if (interleaved.getChannelId() == this.rtpVideoChannelNumber) {
-                    this.rtpVideoHandle(interleaved);
-                } else if (interleaved.getChannelId() == this.rtcpVideoChannelNumber) {
-                    this.rtcpVideoHandle(interleaved);
+                // 交错帧头：0x24 + 通道号 + 2字节长度，负载原地解析
+                int channelId = this.receiveBuffer[offset + 1] & 0xFF;
+                if (channelId == this.rtpVideoChannelNumber) {
+                    this.rtpVideoHandle(this.receiveBuffer, offset + 4, length - 4);
+                } else if (channelId == this.rtcpVideoChannelNumber) {
+                    this.rtcpVideoHandle(this.receiveBuffer, offset + 4, length - 4);
+                } else if (this.audioPayloadParser != null && channelId == this.rtpAudioChannelNumber) {
+                    this.rtpAudioHandle(this.receiveBuffer, offset + 4, length - 4);
+                } else if (this.audioPayloadParser != null && channelId == this.rtcpAudioChannelNumber) {
+                    this.rtcpAudioHandle(this.receiveBuffer, offset + 4, length - 4);
                 }
             } catch (SocketRuntimeException e) {
                 // SocketRuntimeException就是IO异常，网络断开了，结束线程
@@ -198,46 +296,97 @@ public class RtspInterleavedClient implements IRtspDataStream {
                 log.error(e.getMessage(), e);
             }
         }
+        // 停止接收，释放抖动缓冲区中剩余的包
+        this.releaseFuture.cancel(false);
+        this.iPayloadParser.flush();
+        if (this.audioPayloadParser != null) {
+            this.audioPayloadParser.flush();
+        }
         log.debug("[RTSP + TCP] Interleaved closes asynchronous receiving thread, remote IP[/{}:{}]",
                 socketAddress.getAddress().getHostAddress(), socketAddress.getPort());
     }
 
     /**
-     * Read data from server.
-     * (获取接收的数据)
-     *
-     * @return byte array
+     * Release the packages of jitter buffer which are out of the latency budget, even if no more package arrives.
+     * (释放抖动缓冲区中超过延迟预算的包，即使没有后续的包到达)
      */
-    private byte[] readFromServer() {
-        byte[] header = new byte[4];
-        while (header[0] != RtspInterleaved.VERSION) {
-            this.rtspClient.read(header, 0, 1, 1024, 0, true);
+    private void releaseHandle() {
+        try {
+            long now = System.currentTimeMillis();
+            this.iPayloadParser.release(now);
+            if (this.audioPayloadParser != null) {
+                this.audioPayloadParser.release(now);
+            }
+        } catch (Exception e) {
+            // 异常不能抛出，否则周期任务被取消
+            log.error(e.getMessage(), e);
         }
-        int readLength = this.rtspClient.read(header, 1, 3, 1024, 0, true);
-        if (readLength != 3) {
-            throw new RtspCommException("Header read length is incorrect");
+    }
+
+    /**
+     * Read one interleaved frame from server into the receive buffer, the frame starts at readIndex.
+     * Data is read in bulk, so one socket read may serve several frames.
+     * (从服务端读取一个交错帧到接收缓存中，帧起始于readIndex，批量读取，一次socket读取可服务多个帧)
+     *
+     * @return frame length, include 4-byte header
+     */
+    private int readFromServer() {
+        // 跳过非交错帧的数据，例如RTSP的响应
+        while (true) {
+            this.ensureReadable(1);
+            if (this.receiveBuffer[this.readIndex] == RtspInterleaved.VERSION) {
+                break;
+            }
+            this.readIndex++;
         }
-        int offset = 4;
-        int length = ByteReadBuff.newInstance(header, 2).getUInt16();
-        byte[] total = new byte[length + offset];
-        System.arraycopy(header, 0, total, 0, header.length);
+        this.ensureReadable(4);
+        int length = ((this.receiveBuffer[this.readIndex + 2] & 0xFF) << 8) | (this.receiveBuffer[this.readIndex + 3] & 0xFF);
         // 存在分包的情况，循环读取，保证数据准确性
-        int read = this.rtspClient.read(total, offset, length, 1024, 0, true);
-        if (offset + read != total.length) {
-            log.error(HexUtil.toHexString(total));
-            throw new RtspCommException("The read length is incorrect，original length[" + (total.length) + "], present length[" + (offset + read) + "]");
+        this.ensureReadable(4 + length);
+        return 4 + length;
+    }
+
+    /**
+     * Make sure there are at least specified bytes after readIndex, compact and read from socket if not enough.
+     * (确保readIndex之后至少有指定数量的字节，不够时压缩缓存并从socket读取)
+     *
+     * @param length byte length
+     */
+    private void ensureReadable(int length) {
+        if (this.writeIndex - this.readIndex >= length) {
+            return;
+        }
+        if (this.readIndex == this.writeIndex) {
+            this.readIndex = 0;
+            this.writeIndex = 0;
+        }
+        if (this.readIndex + length > this.receiveBuffer.length) {
+            int remain = this.writeIndex - this.readIndex;
+            System.arraycopy(this.receiveBuffer, this.readIndex, this.receiveBuffer, 0, remain);
+            this.readIndex = 0;
+            this.writeIndex = remain;
+        }
+        while (this.writeIndex - this.readIndex < length) {
+            int read = this.rtspClient.read(this.receiveBuffer, this.writeIndex,
+                    this.receiveBuffer.length - this.writeIndex, -1, 0, false);
+            if (read <= 0) {
+                throw new RtspCommException("The read length is incorrect, expect length[" + length
+                        + "], present length[" + (this.writeIndex - this.readIndex) + "]");
+            }
+            this.writeIndex += read;
         }
-        return total;
     }
 
     /**
      * Rtcp video data handle.
      * (处理视频的RTCP)
      *
-     * @param interleaved data
+     * @param data   receive buffer
+     * @param offset payload offset
+     * @param length payload length
      */
-    private void rtcpVideoHandle(RtspInterleaved interleaved) {
-        List<RtcpBasePackage> basePackages = RtcpPackageBuilder.fromBytes(interleaved.getPayload());
+    private void rtcpVideoHandle(byte[] data, int offset, int length) {
+        List<RtcpBasePackage> basePackages = RtcpPackageBuilder.fromBytes(Arrays.copyOfRange(data, offset, offset + length));
         this.statistics.processRtcpPackage(basePackages);
     }
 
@@ -245,12 +394,41 @@ public class RtspInterleavedClient implements IRtspDataStream {
      * Rtp video data handle.
      * (处理视频RTP)
      *
-     * @param interleaved data
+     * @param data   receive buffer
+     * @param offset payload offset
+     * @param length payload length
      */
-    private void rtpVideoHandle(RtspInterleaved interleaved) {
-        RtpPackage rtp = RtpPackage.fromBytes(interleaved.getPayload());
+    private void rtpVideoHandle(byte[] data, int offset, int length) {
+        RtpPackage rtp = RtpPackage.fromBytes(data, offset, length);
 //        log.debug("数据长度[{}], 时间戳[{}], 序列号[{}]", rtp.byteArrayLength(), rtp.getHeader().getTimestamp(), rtp.getHeader().getSequenceNumber());
         this.iPayloadParser.processPackage(rtp);
         this.statistics.processRtpPackage(rtp, this::sendData);
     }
+
+    /**
+     * Rtcp audio data handle.
+     * (处理音频的RTCP)
+     *
+     * @param data   receive buffer
+     * @param offset payload offset
+     * @param length payload length
+     */
+    private void rtcpAudioHandle(byte[] data, int offset, int length) {
+        List<RtcpBasePackage> basePackages = RtcpPackageBuilder.fromBytes(Arrays.copyOfRange(data, offset, offset + length));
+        this.audioStatistics.processRtcpPackage(basePackages);
+    }
+
+    /**
+     * Rtp audio data handle.
+     * (处理音频RTP)
+     *
+     * @param data   receive buffer
+     * @param offset payload offset
+     * @param length payload length
+     */
+    private void rtpAudioHandle(byte[] data, int offset, int length) {
+        RtpPackage rtp = RtpPackage.fromBytes(data, offset, length);
+        this.audioPayloadParser.processPackage(rtp);
+        this.audioStatistics.processRtpPackage(rtp, this::sendData);
+    }
 }
@@ -27,9 +27,13 @@ package com.github.xingshuangs.iot.protocol.rtsp.service;
 
 import com.github.xingshuangs.iot.exceptions.RtspCommException;
 import com.github.xingshuangs.iot.net.client.TcpClientBasic;
+import com.github.xingshuangs.iot.protocol.rtcp.model.RtcpStatisticsSnapshot;
+import com.github.xingshuangs.iot.protocol.rtcp.service.RtcpDataStatistics;
 import com.github.xingshuangs.iot.protocol.rtcp.service.RtcpUdpClient;
 import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
+import com.github.xingshuangs.iot.protocol.rtp.service.AacAudioParser;
 import com.github.xingshuangs.iot.protocol.rtp.service.H264VideoParser;
+import com.github.xingshuangs.iot.protocol.rtp.service.H265VideoParser;
 import com.github.xingshuangs.iot.protocol.rtp.service.IPayloadParser;
 import com.github.xingshuangs.iot.protocol.rtp.service.RtpUdpClient;
 import com.github.xingshuangs.iot.protocol.rtsp.authentication.DigestAuthenticator;
@@ -42,6 +46,7 @@ import com.github.xingshuangs.iot.protocol.rtsp.model.base.*;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.RtspSdp;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.RtspSdpMedia;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.RtspTrackInfo;
+import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.attribute.RtspSdpMediaAttrFmtp;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.attribute.RtspSdpMediaAttrRtpMap;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -127,6 +132,18 @@ public class RtspNetwork extends TcpClientBasic {
      */
     protected RtspTrackInfo trackInfo;
 
+    /**
+     * Audio track info, null means no audio.
+     * (音频轨道信息，null表示没有音频)
+     */
+    protected RtspTrackInfo audioTrackInfo;
+
+    /**
+     * Enable audio, only AAC (mpeg4-generic) is supported, the audio is setup in the same session as video.
+     * (是否启用音频，只支持AAC (mpeg4-generic)，音频和视频在同一个会话中setup)
+     */
+    protected boolean audioEnable = false;
+
     /**
      * Communication callback.
      * (数据收发前自定义处理接口)
@@ -163,6 +180,10 @@ public class RtspNetwork extends TcpClientBasic {
         this.destroyHandle = destroyHandle;
     }
 
+    public void setAudioEnable(boolean audioEnable) {
+        this.audioEnable = audioEnable;
+    }
+
     public RtspNetwork(URI uri) {
         this(uri, ERtspTransportProtocol.TCP);
     }
@@ -351,6 +372,7 @@ public class RtspNetwork extends TcpClientBasic {
         }
         this.sdp = response.getSdp();
         this.trackInfo = RtspTrackInfo.createTrackInfo(this.sdp);
+        this.audioTrackInfo = this.audioEnable ? RtspTrackInfo.createAudioTrackInfo(this.sdp) : null;
     }
 
     /**
@@ -369,16 +391,15 @@ public class RtspNetwork extends TcpClientBasic {
      */
     private void setupUdp() {
         for (RtspSdpMedia media : this.sdp.getMedias()) {
-            if (!media.getMediaDesc().getType().equals("video")) {
+            if (!media.getMediaDesc().getType().equals("video") && media != this.getAudioMedia()) {
                 continue;
             }
-            // TODO: 这里可能存在不同的负载解析器
-            RtspSdpMediaAttrRtpMap rtpMap = media.getAttributeRtpMap();
-            IPayloadParser iPayloadParser = new H264VideoParser(rtpMap.getPayloadNumber());
+            IPayloadParser iPayloadParser = this.createPayloadParser(media);
             iPayloadParser.onFrameHandle(this::doFrameHandle);
             URI actualUri = URI.create(this.uri.toString() + "/" + media.getAttributeControl().getUri());
             RtpUdpClient rtpClient = new RtpUdpClient(iPayloadParser);
             RtcpUdpClient rtcpClient = new RtcpUdpClient();
+            rtcpClient.getStatistics().setClockRate(this.getClockRate(media));
             rtpClient.setRtcpUdpClient(rtcpClient);
             RtspTransport reqTransport = new RtspClientPortTransport(rtpClient.getLocalPort(), rtcpClient.getLocalPort());
 
@@ -401,11 +422,11 @@ public class RtspNetwork extends TcpClientBasic {
      */
     private void setupTcp() {
         int interleavedCount = 0;
+        RtspInterleavedClient rtspInterleavedClient = null;
         for (RtspSdpMedia media : this.sdp.getMedias()) {
             if (!media.getMediaDesc().getType().equals("video")) {
                 continue;
             }
-            // TODO: 这里可能存在不同的负载解析器
             int rtpChannelNumber = interleavedCount++;
             int rtcpChannelNumber = interleavedCount++;
             RtspTransport reqTransport = new RtspInterleavedTransport(rtpChannelNumber, rtcpChannelNumber);
@@ -413,15 +434,108 @@ public class RtspNetwork extends TcpClientBasic {
 
             this.doSetup(actualUri, reqTransport, media);
 
-            RtspSdpMediaAttrRtpMap rtpMap = media.getAttributeRtpMap();
-            IPayloadParser iPayloadParser = new H264VideoParser(rtpMap.getPayloadNumber());
+            IPayloadParser iPayloadParser = this.createPayloadParser(media);
             iPayloadParser.onFrameHandle(this::doFrameHandle);
             RtspInterleavedTransport ackTransport = (RtspInterleavedTransport) this.transport;
-            RtspInterleavedClient rtspInterleavedClient = new RtspInterleavedClient(iPayloadParser, this);
+            rtspInterleavedClient = new RtspInterleavedClient(iPayloadParser, this);
             rtspInterleavedClient.setRtpVideoChannelNumber(ackTransport.getInterleaved1());
             rtspInterleavedClient.setRtcpVideoChannelNumber(ackTransport.getInterleaved2());
+            rtspInterleavedClient.getStatistics().setClockRate(this.getClockRate(media));
             this.socketClients.put(rtspInterleavedClient.getRtpVideoChannelNumber(), rtspInterleavedClient);
         }
+        RtspSdpMedia audioMedia = this.getAudioMedia();
+        if (audioMedia == null || rtspInterleavedClient == null) {
+            return;
+        }
+        // 音频的交错帧和视频共用一个tcp连接，由同一个交错客户端接收，不需要额外的RTSP会话
+        int rtpChannelNumber = interleavedCount++;
+        int rtcpChannelNumber = interleavedCount;
+        RtspTransport reqTransport = new RtspInterleavedTransport(rtpChannelNumber, rtcpChannelNumber);
+        URI actualUri = URI.create(this.uri.toString() + "/" + audioMedia.getAttributeControl().getUri());
+
+        this.doSetup(actualUri, reqTransport, audioMedia);
+
+        IPayloadParser iPayloadParser = this.createPayloadParser(audioMedia);
+        iPayloadParser.onFrameHandle(this::doFrameHandle);
+        RtspInterleavedTransport ackTransport = (RtspInterleavedTransport) this.transport;
+        rtspInterleavedClient.setAudio(iPayloadParser, ackTransport.getInterleaved1(), ackTransport.getInterleaved2());
+        rtspInterleavedClient.getAudioStatistics().setClockRate(this.getClockRate(audioMedia));
+    }
+
+    /**
+     * Get the clock rate of media, default 90000 if rtpmap is absent.
+     * (获取媒体的时钟频率，没有rtpmap时默认90000)
+     *
+     * @param media media
+     * @return clock rate
+     */
+    private int getClockRate(RtspSdpMedia media) {
+        RtspSdpMediaAttrRtpMap rtpMap = media.getAttributeRtpMap();
+        if (rtpMap == null || rtpMap.getClockFrequency() == null || rtpMap.getClockFrequency() <= 0) {
+            return RtcpDataStatistics.DEFAULT_CLOCK_RATE;
+        }
+        return rtpMap.getClockFrequency();
+    }
+
+    /**
+     * Get the statistics snapshots of all received streams, the rates are measured since the previous snapshot.
+     * (获取所有接收流的统计快照，速率从上一次快照开始计算)
+     *
+     * @return statistics snapshots
+     */
+    public List<RtcpStatisticsSnapshot> getStatisticsSnapshots() {
+        List<RtcpStatisticsSnapshot> res = new ArrayList<>();
+        for (IRtspDataStream stream : this.socketClients.values()) {
+            if (stream instanceof RtspInterleavedClient) {
+                RtspInterleavedClient client = (RtspInterleavedClient) stream;
+                res.add(client.getStatistics().snapshot());
+                if (client.getRtpAudioChannelNumber() >= 0) {
+                    res.add(client.getAudioStatistics().snapshot());
+                }
+            } else if (stream instanceof RtcpUdpClient) {
+                res.add(((RtcpUdpClient) stream).getStatistics().snapshot());
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get the audio media to setup, null if audio is not enabled or not supported.
+     * (获取需要setup的音频媒体，音频未启用或不支持时返回null)
+     *
+     * @return audio media
+     */
+    private RtspSdpMedia getAudioMedia() {
+        if (this.audioTrackInfo == null) {
+            return null;
+        }
+        return this.sdp.getMedias().stream()
+                .filter(x -> x.getMediaDesc().getType().equals("audio")
+                        && x.getAttributeControl().getTrackID() == this.audioTrackInfo.getId())
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Create the payload parser according to the encoding name of rtpmap, H264 by default.
+     * (根据rtpmap的编码名称创建负载解析器，默认H264)
+     *
+     * @param media media info
+     * @return payload parser
+     */
+    private IPayloadParser createPayloadParser(RtspSdpMedia media) {
+        RtspSdpMediaAttrRtpMap rtpMap = media.getAttributeRtpMap();
+        if (RtspTrackInfo.isAac(rtpMap.getPayloadFormat())) {
+            RtspSdpMediaAttrFmtp fmtp = media.getAttributeFmtp();
+            return new AacAudioParser(rtpMap.getPayloadNumber(),
+                    fmtp.getSizeLength() == null ? 13 : fmtp.getSizeLength(),
+                    fmtp.getIndexLength() == null ? 3 : fmtp.getIndexLength(),
+                    fmtp.getIndexDeltaLength() == null ? 3 : fmtp.getIndexDeltaLength());
+        }
+        if (RtspTrackInfo.isH265(rtpMap.getPayloadFormat())) {
+            return new H265VideoParser(rtpMap.getPayloadNumber());
+        }
+        return new H264VideoParser(rtpMap.getPayloadNumber());
     }
 
     /**
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EArea;
+import com.github.xingshuangs.iot.protocol.s7.enums.EParamVariableType;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contiguous address coalescing algorithm.
+ * 连续地址合并算法
+ * 示例：
+ * 间隙阀值：4
+ * DB1.0(2), DB1.2(4), DB1.10.3(bit), DB1.100(2), M0(1)
+ * |DB1.0(11)|DB1.100(2)|M0(1)|
+ * 第一       第二        第三
+ *
+ * @author xingshuang
+ */
+public class S7CoalesceAlg {
+
+    private S7CoalesceAlg() {
+        // NOOP
+    }
+
+    /**
+     * Coalesce the request items of the same area and db number into ranged byte reads,
+     * if the gap between neighbouring items is not greater than the threshold.
+     * (将同一区域同一DB块中相邻间隙不超过阀值的请求项合并为连续字节读取)
+     *
+     * @param requestItems raw request items 原始请求项
+     * @param gap          max gap byte size, less than 0 means disabled 最大间隙字节数，小于0表示不合并
+     * @return coalesce plan
+     */
+    public static S7CoalescePlan coalesce(List<RequestItem> requestItems, int gap) {
+        S7CoalescePlan plan = new S7CoalescePlan();
+        plan.setRawItems(requestItems);
+        S7CoalesceItem[] items = new S7CoalesceItem[requestItems.size()];
+        // 按区域和DB块编号分组，保持首次出现的顺序
+        Map<String, List<Integer>> segments = new LinkedHashMap<>();
+        for (int i = 0; i < requestItems.size(); i++) {
+            RequestItem item = requestItems.get(i);
+            if (gap < 0 || !isCoalescible(item)) {
+                items[i] = new S7CoalesceItem(plan.getRequestItems().size(), 0, item.getCount(), 0, false, true);
+                plan.getRequestItems().add(item);
+                continue;
+            }
+            String key = item.getArea().name() + "_" + item.getDbNumber();
+            segments.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+
+        for (List<Integer> indexes : segments.values()) {
+            indexes.sort(Comparator.comparingInt(i -> requestItems.get(i).getByteAddress()));
+            int begin = 0;
+            while (begin < indexes.size()) {
+                RequestItem first = requestItems.get(indexes.get(begin));
+                int start = first.getByteAddress();
+                int end = start + byteCount(first);
+                int stop = begin + 1;
+                while (stop < indexes.size()) {
+                    RequestItem next = requestItems.get(indexes.get(stop));
+                    if (next.getByteAddress() > end + gap) {
+                        break;
+                    }
+                    end = Math.max(end, next.getByteAddress() + byteCount(next));
+                    stop++;
+                }
+
+                int index = plan.getRequestItems().size();
+                plan.getRequestItems().add(RequestItem.createByParams(EParamVariableType.BYTE, end - start,
+                        first.getArea(), first.getDbNumber(), start, 0));
+                for (int j = begin; j < stop; j++) {
+                    RequestItem item = requestItems.get(indexes.get(j));
+                    boolean bit = item.getVariableType() == EParamVariableType.BIT;
+                    items[indexes.get(j)] = new S7CoalesceItem(index, item.getByteAddress() - start,
+                            byteCount(item), item.getBitAddress(), bit, false);
+                }
+                begin = stop;
+            }
+        }
+        plan.getItems().addAll(Arrays.asList(items));
+        return plan;
+    }
+
+    /**
+     * Whether the request item can be coalesced, only byte and bit of the byte addressable area.
+     * (请求项是否可合并，仅支持按字节寻址区域的字节和位)
+     *
+     * @param item request item
+     * @return true: yes, false: no
+     */
+    private static boolean isCoalescible(RequestItem item) {
+        if (item.getVariableType() != EParamVariableType.BYTE && item.getVariableType() != EParamVariableType.BIT) {
+            return false;
+        }
+        EArea area = item.getArea();
+        return area == EArea.INPUTS || area == EArea.OUTPUTS || area == EArea.FLAGS
+                || area == EArea.DATA_BLOCKS || area == EArea.INSTANCE_DATA_BLOCKS;
+    }
+
+    /**
+     * Byte count of the request item, bit occupies one byte.
+     * (请求项占用的字节数，位占用一个字节)
+     *
+     * @param item request item
+     * @return byte count
+     */
+    private static int byteCount(RequestItem item) {
+        return item.getVariableType() == EParamVariableType.BIT ? 1 : item.getCount();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Coalesce item, it describes where the data of a raw request item is in the coalesced request items.
+ * (合并映射项，描述原始请求项的数据位于合并后请求项中的位置)
+ *
+ * @author xingshuang
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class S7CoalesceItem {
+
+    /**
+     * Index of the coalesced request item.
+     * (合并后请求项的索引)
+     */
+    private int index;
+
+    /**
+     * Byte offset in the coalesced data.
+     * (在合并后数据中的字节偏移)
+     */
+    private int offset;
+
+    /**
+     * Byte count of the raw request item.
+     * (原始请求项的字节数量)
+     */
+    private int count;
+
+    /**
+     * Bit address, only used when the raw request item is bit.
+     * (位地址，仅原始请求项为位时有效)
+     */
+    private int bitAddress;
+
+    /**
+     * Whether the raw request item is bit.
+     * (原始请求项是否为位)
+     */
+    private boolean bit;
+
+    /**
+     * Whether the raw request item is sent as it is.
+     * (原始请求项是否原样发送，不参与合并)
+     */
+    private boolean passThrough;
+}
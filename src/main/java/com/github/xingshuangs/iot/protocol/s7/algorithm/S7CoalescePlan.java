@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EDataVariableType;
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Coalesce plan of read request items.
+ * (读取请求项的合并计划)
+ *
+ * @author xingshuang
+ */
+@Data
+public class S7CoalescePlan {
+
+    /**
+     * Raw request items.
+     * (原始请求项)
+     */
+    private List<RequestItem> rawItems = new ArrayList<>();
+
+    /**
+     * Coalesced request items, they are sent to PLC.
+     * (合并后的请求项，实际发送给PLC)
+     */
+    private List<RequestItem> requestItems = new ArrayList<>();
+
+    /**
+     * Coalesce items, one per raw request item in the same order.
+     * (合并映射项，与原始请求项一一对应)
+     */
+    private List<S7CoalesceItem> items = new ArrayList<>();
+
+    /**
+     * Whether any request item is coalesced.
+     * (是否存在被合并的请求项)
+     *
+     * @return true: coalesced, false: not coalesced
+     */
+    public boolean isCoalesced() {
+        return this.requestItems.size() < this.items.size();
+    }
+
+    /**
+     * Split the data items of coalesced request items back to the data items of raw request items.
+     * (将合并后请求项的响应数据拆分回原始请求项的响应数据)
+     *
+     * @param dataItems data items of coalesced request items
+     * @return data items of raw request items
+     */
+    public List<DataItem> split(List<DataItem> dataItems) {
+        List<DataItem> res = new ArrayList<>(this.items.size());
+        for (S7CoalesceItem item : this.items) {
+            DataItem src = dataItems.get(item.getIndex());
+            if (item.isPassThrough()) {
+                res.add(src);
+                continue;
+            }
+            EDataVariableType variableType = item.isBit() ? EDataVariableType.BIT : EDataVariableType.BYTE_WORD_DWORD;
+            DataItem des;
+            if (src.getData() == null) {
+                // 非严格读取时，合并项读取失败，其中的每个原始项都返回相同的错误码
+                des = DataItem.createReq(new byte[0], variableType);
+                des.setData(null);
+            } else if (item.isBit()) {
+                byte value = (byte) ((src.getData()[item.getOffset()] >> item.getBitAddress()) & 0x01);
+                des = DataItem.createReq(new byte[]{value}, variableType);
+            } else {
+                byte[] data = Arrays.copyOfRange(src.getData(), item.getOffset(), item.getOffset() + item.getCount());
+                des = DataItem.createReq(data, variableType);
+            }
+            des.setReturnCode(src.getReturnCode());
+            res.add(des);
+        }
+        return res;
+    }
+
+    /**
+     * Get the indexes of raw request items which are coalesced but failed, they should be read item by item again,
+     * so that one bad item does not fail its healthy neighbours.
+     * (获取被合并且读取失败的原始请求项索引，需要逐项重新读取，避免单个错误项导致相邻正常项一起失败)
+     *
+     * @param dataItems data items of raw request items
+     * @return indexes of raw request items
+     */
+    public List<Integer> getFailedIndexes(List<DataItem> dataItems) {
+        // 每个合并后请求项包含的原始请求项数量，只包含一项的无需重新读取
+        int[] counts = new int[this.requestItems.size()];
+        this.items.forEach(x -> counts[x.getIndex()]++);
+        List<Integer> res = new ArrayList<>();
+        for (int i = 0; i < this.items.size(); i++) {
+            S7CoalesceItem item = this.items.get(i);
+            // 读取失败的数据项没有数据内容
+            if (!item.isPassThrough() && counts[item.getIndex()] > 1 && dataItems.get(i).getData() == null) {
+                res.add(i);
+            }
+        }
+        return res;
+    }
+}
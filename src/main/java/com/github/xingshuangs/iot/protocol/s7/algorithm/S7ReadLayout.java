@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Read layout, the coalesce plan and the group result of the request items, it can be reused as long as
+ * the pdu length and the coalesce gap are unchanged.
+ * (读取布局，包含请求项的合并计划和分组结果，只要pdu长度和合并间隙不变即可重复使用)
+ *
+ * @author xingshuang
+ */
+@Data
+public class S7ReadLayout {
+
+    /**
+     * PDU length used to create the groups.
+     * (创建分组时的pdu长度)
+     */
+    private int pduLength;
+
+    /**
+     * Coalesce gap used to create the coalesce plan.
+     * (创建合并计划时的合并间隙)
+     */
+    private int coalesceGap;
+
+    /**
+     * Coalesce plan.
+     * (合并计划)
+     */
+    private S7CoalescePlan plan;
+
+    /**
+     * Request items actually sent, they are the coalesced items if coalesced, otherwise the raw items.
+     * (实际发送的请求项，有合并时为合并后的请求项，否则为原始请求项)
+     */
+    private List<RequestItem> sendItems;
+
+    /**
+     * Groups of the send items.
+     * (发送请求项的分组结果)
+     */
+    private List<S7ComGroup> groups;
+}
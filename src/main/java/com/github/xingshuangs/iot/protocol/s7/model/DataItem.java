@@ -226,4 +226,19 @@ public class DataItem extends ReturnItem implements IObjectByteArray {
         dataItem.setData(data);
         return dataItem;
     }
+
+    /**
+     * Create the failed ack data item of read, it has no data.
+     * (创建读取失败的响应数据项，没有数据内容)
+     *
+     * @param returnCode return code
+     * @return DataItem
+     */
+    public static DataItem createAckByError(EReturnCode returnCode) {
+        DataItem dataItem = new DataItem();
+        dataItem.setReturnCode(returnCode);
+        dataItem.setVariableType(EDataVariableType.NULL);
+        dataItem.setCount(0);
+        return dataItem;
+    }
 }
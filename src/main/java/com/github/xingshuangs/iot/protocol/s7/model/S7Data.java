@@ -214,11 +214,23 @@ public class S7Data implements IObjectByteArray {
      * @return s7data
      */
     public static S7Data createConnectDtData(int pduLength) {
+        return createConnectDtData(pduLength, 1);
+    }
+
+    /**
+     * Create connect dt data request with max parallel jobs.
+     * (创建连接setup，指定最大并行作业数量)
+     *
+     * @param pduLength PDU length
+     * @param maxAmq    max parallel jobs
+     * @return s7data
+     */
+    public static S7Data createConnectDtData(int pduLength, int maxAmq) {
         S7Data s7Data = new S7Data();
         s7Data.tpkt = new TPKT();
         s7Data.cotp = COTPData.createDefault();
         s7Data.header = Header.createDefault();
-        s7Data.parameter = SetupComParameter.createDefault(pduLength);
+        s7Data.parameter = SetupComParameter.createDefault(pduLength, maxAmq);
         s7Data.selfCheck();
         return s7Data;
     }
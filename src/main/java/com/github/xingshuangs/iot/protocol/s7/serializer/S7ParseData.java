@@ -30,6 +30,7 @@ import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
 import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
 import lombok.Data;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 
 /**
@@ -59,6 +60,18 @@ public class S7ParseData {
      */
     private Field field;
 
+    /**
+     * Setter of field, type is (Object,Object)void.
+     * (字段的赋值句柄，类型为(Object,Object)void)
+     */
+    private MethodHandle setter;
+
+    /**
+     * Getter of field, type is (Object)Object.
+     * (字段的取值句柄，类型为(Object)Object)
+     */
+    private MethodHandle getter;
+
     /**
      * Request item.
      * (请求项)
@@ -70,4 +83,21 @@ public class S7ParseData {
      * (数据项)
      */
     private DataItem dataItem;
+
+    /**
+     * Copy, the request item is copied too, data item is not copied.
+     * (复制一个新对象，请求项同时复制，数据项不复制)
+     *
+     * @return S7ParseData
+     */
+    public S7ParseData copy() {
+        S7ParseData s7ParseData = new S7ParseData();
+        s7ParseData.dataType = this.dataType;
+        s7ParseData.count = this.count;
+        s7ParseData.field = this.field;
+        s7ParseData.setter = this.setter;
+        s7ParseData.getter = this.getter;
+        s7ParseData.requestItem = this.requestItem.copy();
+        return s7ParseData;
+    }
 }
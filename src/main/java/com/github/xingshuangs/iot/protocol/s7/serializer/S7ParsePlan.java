@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.serializer;
+
+
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7ReadLayout;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+import lombok.Data;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+
+/**
+ * Compiled parse plan of a class, it is created once and reused by every read and write.
+ * (类的解析计划，只编译一次，每次读写时重复使用)
+ *
+ * @author xingshuang
+ */
+@Data
+public class S7ParsePlan {
+
+    /**
+     * Constructor without parameters, type is ()Object, null if the class has no default constructor.
+     * (无参构造句柄，类型为()Object，类没有无参构造时为null)
+     */
+    private MethodHandle constructor;
+
+    /**
+     * Parse data templates, they are not modified when reading or writing.
+     * (解析数据模板，读写时不修改)
+     */
+    private List<S7ParseData> parseDataList;
+
+    /**
+     * Pre-parsed request items.
+     * (预解析的请求项)
+     */
+    private List<RequestItem> requestItems;
+
+    /**
+     * Read layout of the latest read, reused if it is still valid.
+     * (最近一次读取的布局，仍有效时重复使用)
+     */
+    private volatile S7ReadLayout readLayout;
+}
@@ -30,19 +30,27 @@ import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
 import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.common.enums.EDataType;
 import com.github.xingshuangs.iot.common.serializer.IPLCSerializable;
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7ReadLayout;
 import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
 import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
 import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
 import com.github.xingshuangs.iot.protocol.s7.service.S7PLC;
 import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.nio.charset.Charset;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -53,6 +61,16 @@ import java.util.stream.Collectors;
  */
 public class S7Serializer implements IPLCSerializable {
 
+    private static final Charset GB2312 = Charset.forName("GB2312");
+
+    /**
+     * Compiled parse plans of classes, the string address of S200 smart is different from others.
+     * (类的解析计划缓存，S200 smart的字符串地址和其他PLC不同，因此单独缓存)
+     */
+    private static final Map<Class<?>, S7ParsePlan> PLAN_CACHE = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, S7ParsePlan> SMART_PLAN_CACHE = new ConcurrentHashMap<>();
+
     private final S7PLC s7PLC;
 
     public S7Serializer(S7PLC s7PLC) {
@@ -70,6 +88,69 @@ public class S7Serializer implements IPLCSerializable {
         return new S7Serializer(s7PLC);
     }
 
+    /**
+     * Get the compiled parse plan of class, it is compiled for the first time and cached.
+     * (获取类的解析计划，首次编译后缓存)
+     *
+     * @param targetClass target object class
+     * @return parse plan
+     */
+    private S7ParsePlan getParsePlan(final Class<?> targetClass) {
+        Map<Class<?>, S7ParsePlan> cache = this.s7PLC.getPlcType() == EPlcType.S200_SMART ? SMART_PLAN_CACHE : PLAN_CACHE;
+        S7ParsePlan plan = cache.get(targetClass);
+        if (plan == null) {
+            plan = cache.computeIfAbsent(targetClass, this::compileBean);
+        }
+        return plan;
+    }
+
+    /**
+     * Compile the class into parse plan, fields are accessed by method handles.
+     * (将类编译为解析计划，字段通过方法句柄访问)
+     *
+     * @param targetClass target object class
+     * @return parse plan
+     */
+    private S7ParsePlan compileBean(final Class<?> targetClass) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<S7ParseData> s7ParseDataList = this.parseBean(targetClass);
+        try {
+            for (S7ParseData item : s7ParseDataList) {
+                item.getField().setAccessible(true);
+                item.setSetter(lookup.unreflectSetter(item.getField())
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                item.setGetter(lookup.unreflectGetter(item.getField())
+                        .asType(MethodType.methodType(Object.class, Object.class)));
+            }
+        } catch (IllegalAccessException e) {
+            throw new S7CommException(e);
+        }
+        S7ParsePlan plan = new S7ParsePlan();
+        plan.setConstructor(this.findConstructor(lookup, targetClass));
+        plan.setParseDataList(Collections.unmodifiableList(s7ParseDataList));
+        plan.setRequestItems(Collections.unmodifiableList(s7ParseDataList.stream()
+                .map(S7ParseData::getRequestItem).collect(Collectors.toList())));
+        return plan;
+    }
+
+    /**
+     * Find the constructor without parameters.
+     * (查找无参构造函数)
+     *
+     * @param lookup      lookup
+     * @param targetClass target object class
+     * @return constructor handle, null if not found
+     */
+    private MethodHandle findConstructor(MethodHandles.Lookup lookup, final Class<?> targetClass) {
+        try {
+            Constructor<?> constructor = targetClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
     /**
      * Convert to parsed data according to the S7Variable annotation.
      * 将类根据S7Variable注解转换为解析数据
@@ -148,26 +229,52 @@ public class S7Serializer implements IPLCSerializable {
      * Read the data according to the condition.
      * (根据条件读取数据)
      *
-     * @param s7ParseDataList condition
+     * @param requestItems request items
+     * @return data items
      */
-    private void readDataByCondition(List<S7ParseData> s7ParseDataList) {
-        if (s7ParseDataList.isEmpty()) {
+    private List<DataItem> readDataByCondition(List<RequestItem> requestItems) {
+        if (requestItems.isEmpty()) {
             // 解析出的注解数据个数为空，无法读取数据
             throw new S7CommException("The number of parsed annotation data is empty, and the data cannot be read");
         }
-
-        // 读取PLC数据
-        List<RequestItem> requestItems = s7ParseDataList.stream().map(S7ParseData::getRequestItem).collect(Collectors.toList());
         List<DataItem> dataItems = this.s7PLC.readS7Data(requestItems);
+        this.checkDataItemSize(requestItems, dataItems);
+        return dataItems;
+    }
 
-        if (s7ParseDataList.size() != dataItems.size()) {
-            // 所需的字段解析项个数与返回的数据项数量不一致，错误
-            throw new S7CommException("The number of field parsing items required is inconsistent with the number of data items returned");
+    /**
+     * Read the data according to the parse plan, the read layout is reused if it is still valid.
+     * (根据解析计划读取数据，读取布局仍有效时重复使用)
+     *
+     * @param plan parse plan
+     * @return data items
+     */
+    private List<DataItem> readDataByCondition(S7ParsePlan plan) {
+        if (plan.getRequestItems().isEmpty()) {
+            // 解析出的注解数据个数为空，无法读取数据
+            throw new S7CommException("The number of parsed annotation data is empty, and the data cannot be read");
+        }
+        S7ReadLayout layout = plan.getReadLayout();
+        if (!this.s7PLC.isReadLayoutValid(layout)) {
+            layout = this.s7PLC.createReadLayout(plan.getRequestItems());
+            plan.setReadLayout(layout);
         }
+        List<DataItem> dataItems = this.s7PLC.readS7Data(layout);
+        this.checkDataItemSize(plan.getRequestItems(), dataItems);
+        return dataItems;
+    }
 
-        // 提取数据
-        for (int i = 0; i < dataItems.size(); i++) {
-            s7ParseDataList.get(i).setDataItem(dataItems.get(i));
+    /**
+     * Check the size of data items.
+     * (校验返回数据项的数量)
+     *
+     * @param requestItems request items
+     * @param dataItems    data items
+     */
+    private void checkDataItemSize(List<RequestItem> requestItems, List<DataItem> dataItems) {
+        if (requestItems.size() != dataItems.size()) {
+            // 所需的字段解析项个数与返回的数据项数量不一致，错误
+            throw new S7CommException("The number of field parsing items required is inconsistent with the number of data items returned");
         }
     }
 
@@ -206,9 +313,9 @@ public class S7Serializer implements IPLCSerializable {
 
     @Override
     public <T> T read(Class<T> targetClass) {
-        List<S7ParseData> s7ParseDataList = this.parseBean(targetClass);
-        this.readDataByCondition(s7ParseDataList);
-        return this.fillData(targetClass, s7ParseDataList);
+        S7ParsePlan plan = this.getParsePlan(targetClass);
+        List<DataItem> dataItems = this.readDataByCondition(plan);
+        return this.fillData(targetClass, plan, dataItems);
     }
 
     /**
@@ -220,8 +327,9 @@ public class S7Serializer implements IPLCSerializable {
      */
     public List<S7Parameter> read(List<S7Parameter> parameters) {
         List<S7ParseData> s7ParseDataList = this.parseBean(parameters);
-        this.readDataByCondition(s7ParseDataList);
-        this.fillData(parameters, s7ParseDataList);
+        List<RequestItem> requestItems = s7ParseDataList.stream().map(S7ParseData::getRequestItem).collect(Collectors.toList());
+        List<DataItem> dataItems = this.readDataByCondition(requestItems);
+        this.fillData(parameters, s7ParseDataList, dataItems);
         return parameters;
     }
 
@@ -229,20 +337,29 @@ public class S7Serializer implements IPLCSerializable {
      * Fill value of field.
      * (提取数据)
      *
-     * @param targetClass     target class
-     * @param s7ParseDataList S7ParseData list
-     * @param <T>             type
+     * @param targetClass target class
+     * @param plan        parse plan
+     * @param dataItems   data items
+     * @param <T>         type
      * @return target object.
      */
-    private <T> T fillData(Class<T> targetClass, List<S7ParseData> s7ParseDataList) {
+    @SuppressWarnings("unchecked")
+    private <T> T fillData(Class<T> targetClass, S7ParsePlan plan, List<DataItem> dataItems) {
+        if (plan.getConstructor() == null) {
+            throw new S7CommException("Serialization fetch data error: no default constructor in " + targetClass.getName());
+        }
         try {
-            final T result = targetClass.newInstance();
-            for (S7ParseData item : s7ParseDataList) {
-                this.fillField(result, item);
+            final T result = (T) plan.getConstructor().invokeExact();
+            List<S7ParseData> s7ParseDataList = plan.getParseDataList();
+            for (int i = 0; i < s7ParseDataList.size(); i++) {
+                S7ParseData item = s7ParseDataList.get(i);
+                item.getSetter().invokeExact((Object) result, this.extractValue(item, dataItems.get(i)));
             }
             return result;
-
-        } catch (Exception e) {
+        } catch (Error | S7CommException e) {
+            // Error和本身的异常不包装，直接抛出
+            throw e;
+        } catch (Throwable e) {
             throw new S7CommException("Serialization fetch data error:" + e.getMessage(), e);
         }
     }
@@ -253,13 +370,12 @@ public class S7Serializer implements IPLCSerializable {
      *
      * @param parameters      parameter list
      * @param s7ParseDataList List<S7ParseData>
+     * @param dataItems       data items
      */
-    private void fillData(final List<S7Parameter> parameters, final List<S7ParseData> s7ParseDataList) {
+    private void fillData(final List<S7Parameter> parameters, final List<S7ParseData> s7ParseDataList, List<DataItem> dataItems) {
         try {
             for (int i = 0; i < s7ParseDataList.size(); i++) {
-                S7ParseData item = s7ParseDataList.get(i);
-                S7Parameter parameter = parameters.get(i);
-                this.fillField(parameter, item);
+                parameters.get(i).setValue(this.extractValue(s7ParseDataList.get(i), dataItems.get(i)));
             }
         } catch (Exception e) {
             throw new S7CommException("Serialization fetch data error:" + e.getMessage(), e);
@@ -267,58 +383,42 @@ public class S7Serializer implements IPLCSerializable {
     }
 
     /**
-     * Fill value of field.
-     * 填充字段数据
+     * Extract value of field from data item.
+     * 从数据项中提取字段数据
      *
-     * @param result target object
-     * @param item   S7ParseData
-     * @param <T>    type
-     * @throws IllegalAccessException IllegalAccessException
+     * @param item     S7ParseData
+     * @param dataItem data item
+     * @return value
      */
-    private <T> void fillField(T result, S7ParseData item) throws IllegalAccessException {
-        ByteReadBuff buff = new ByteReadBuff(item.getDataItem().getData());
-        item.getField().setAccessible(true);
+    private Object extractValue(S7ParseData item, DataItem dataItem) {
+        ByteReadBuff buff = new ByteReadBuff(dataItem.getData());
         switch (item.getDataType()) {
             case BOOL:
-                item.getField().set(result, buff.getBoolean(0));
-                break;
+                return buff.getBoolean(0);
             case BYTE:
-                item.getField().set(result, buff.getBytes(item.getCount()));
-                break;
+                return buff.getBytes(item.getCount());
             case UINT16:
-                item.getField().set(result, buff.getUInt16());
-                break;
+                return buff.getUInt16();
             case INT16:
-                item.getField().set(result, buff.getInt16());
-                break;
+                return buff.getInt16();
             case TIME:
             case UINT32:
-                item.getField().set(result, buff.getUInt32());
-                break;
+                return buff.getUInt32();
             case INT32:
-                item.getField().set(result, buff.getInt32());
-                break;
+                return buff.getInt32();
             case INT64:
-                item.getField().set(result, buff.getInt64());
-                break;
+                return buff.getInt64();
             case FLOAT32:
-                item.getField().set(result, buff.getFloat32());
-                break;
+                return buff.getFloat32();
             case FLOAT64:
-                item.getField().set(result, buff.getFloat64());
-                break;
+                return buff.getFloat64();
             case STRING:
                 int length = buff.getByteToInt(0);
-                item.getField().set(result, buff.getString(1, Math.min(length, item.getCount()), Charset.forName("GB2312")));
-                break;
+                return buff.getString(1, Math.min(length, item.getCount()), GB2312);
             case DATE:
-                LocalDate date = LocalDate.of(1990, 1, 1).plusDays(buff.getUInt16());
-                item.getField().set(result, date);
-                break;
+                return LocalDate.of(1990, 1, 1).plusDays(buff.getUInt16());
             case TIME_OF_DAY:
-                LocalTime time = LocalTime.ofSecondOfDay(buff.getUInt32() / 1000);
-                item.getField().set(result, time);
-                break;
+                return LocalTime.ofSecondOfDay(buff.getUInt32() / 1000);
             case DTL:
                 int year = buff.getUInt16();
                 int month = buff.getByteToInt();
@@ -328,9 +428,7 @@ public class S7Serializer implements IPLCSerializable {
                 int minute = buff.getByteToInt();
                 int second = buff.getByteToInt();
                 long nanoOfSecond = buff.getUInt32();
-                LocalDateTime dateTime = LocalDateTime.of(year, month, dayOfMonth, hour, minute, second, (int) nanoOfSecond);
-                item.getField().set(result, dateTime);
-                break;
+                return LocalDateTime.of(year, month, dayOfMonth, hour, minute, second, (int) nanoOfSecond);
             default:
                 throw new S7CommException("Data type can not be recognized");
         }
@@ -342,7 +440,8 @@ public class S7Serializer implements IPLCSerializable {
     @Override
     public <T> void write(T targetBean) {
         // 解析参数
-        List<S7ParseData> s7ParseDataList = this.parseBean(targetBean.getClass());
+        S7ParsePlan plan = this.getParsePlan(targetBean.getClass());
+        List<S7ParseData> s7ParseDataList = plan.getParseDataList();
 
         if (s7ParseDataList.isEmpty()) {
             // 解析出的注解数据个数为空，无法读取数据
@@ -393,16 +492,22 @@ public class S7Serializer implements IPLCSerializable {
      */
     private <T> List<S7ParseData> extractData(T targetBean, List<S7ParseData> s7ParseDataList) {
         try {
-            for (S7ParseData item : s7ParseDataList) {
-                item.getField().setAccessible(true);
-                Object data = item.getField().get(targetBean);
+            List<S7ParseData> res = new ArrayList<>(s7ParseDataList.size());
+            for (S7ParseData template : s7ParseDataList) {
+                Object data = template.getGetter().invokeExact((Object) targetBean);
                 if (data == null) {
                     continue;
                 }
+                // 模板是缓存共享的，复制后再填充数据
+                S7ParseData item = template.copy();
                 this.extractField(item, data);
+                res.add(item);
             }
-            return s7ParseDataList.stream().filter(x -> x.getDataItem() != null).collect(Collectors.toList());
-        } catch (Exception e) {
+            return res;
+        } catch (Error | S7CommException e) {
+            // Error和本身的异常不包装，直接抛出
+            throw e;
+        } catch (Throwable e) {
             // 序列化填充字节数据错误
             throw new S7CommException("Serialized fill byte data error:" + e.getMessage(), e);
         }
@@ -479,7 +584,7 @@ public class S7Serializer implements IPLCSerializable {
                         .putDouble((Double) data).getData()));
                 break;
             case STRING:
-                byte[] bytes = ((String) data).getBytes(Charset.forName("GB2312"));
+                byte[] bytes = ((String) data).getBytes(GB2312);
                 int actualLength = Math.min(bytes.length, item.getCount());
                 byte[] targetBytes = new byte[1 + actualLength];
                 targetBytes[0] = (byte) actualLength;
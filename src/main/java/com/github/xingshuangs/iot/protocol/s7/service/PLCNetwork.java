@@ -29,19 +29,29 @@ import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
 import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
 import com.github.xingshuangs.iot.common.constant.GeneralConst;
 import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.net.client.TcpAsyncClientBasic;
 import com.github.xingshuangs.iot.net.client.TcpClientBasic;
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7CoalesceAlg;
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7CoalescePlan;
 import com.github.xingshuangs.iot.protocol.s7.algorithm.S7ComGroup;
 import com.github.xingshuangs.iot.protocol.s7.algorithm.S7ComItem;
+import com.github.xingshuangs.iot.protocol.s7.algorithm.S7ReadLayout;
 import com.github.xingshuangs.iot.protocol.s7.algorithm.S7SequentialGroupAlg;
 import com.github.xingshuangs.iot.protocol.s7.constant.ErrorCode;
 import com.github.xingshuangs.iot.protocol.s7.enums.*;
 import com.github.xingshuangs.iot.protocol.s7.model.*;
+import com.github.xingshuangs.iot.utils.FutureUtil;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
@@ -93,18 +103,43 @@ public class PLCNetwork extends TcpClientBasic {
      */
     protected int pduLength;
 
+    /**
+     * Max parallel jobs proposed in setup communication, 1 means no pipelining, the final value is decided by PLC.
+     * (setup通信时请求的最大并行作业数量，1表示不启用管道化，最终值以PLC响应为准)
+     */
+    protected int maxAmq = 1;
+
+    /**
+     * Max parallel jobs negotiated with PLC, multiple requests can be sent before receiving responses.
+     * (与PLC协商后的最大并行作业数量，可在未收到响应前连续发送多个请求)
+     */
+    protected int negotiatedAmq = 1;
+
     /**
      * Persistence, true: long connection, false: short connection.
      * (是否持久化，默认是持久化，对应长连接，true：长连接，false：短连接)
      */
     private boolean persistence = true;
 
+    /**
+     * Max gap byte size when coalescing neighbouring read request items of the same area, less than 0 means disabled,
+     * 0 means only contiguous or overlapping items are coalesced, disabled by default.
+     * (读取时合并同一区域相邻请求项所允许的最大间隙字节数，小于0表示不合并，0表示只合并连续或重叠的请求项，默认不合并)
+     */
+    private int readCoalesceGap = -1;
+
     /**
      * Communication callback, first parameter is tag, second is package content.
      * (通信回调，第一个参数是tag标签，指示该报文含义；第二个参数是具体报文内容)
      */
     private BiConsumer<String, byte[]> comCallback;
 
+    /**
+     * Asynchronous client, created when the asynchronous methods are used for the first time, it keeps a long connection.
+     * (异步客户端，首次使用异步方法时创建，保持长连接)
+     */
+    private S7AsyncClient asyncClient;
+
     public PLCNetwork() {
         super();
     }
@@ -120,11 +155,19 @@ public class PLCNetwork extends TcpClientBasic {
             super.connect();
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
 
+    @Override
+    public void close() {
+        super.close();
+        if (this.asyncClient != null) {
+            this.asyncClient.close();
+        }
+    }
+
     //region socket连接后握手操作
 
     /**
@@ -135,8 +178,10 @@ public class PLCNetwork extends TcpClientBasic {
     protected void doAfterConnected() {
         this.connectionRequest();
         // 存在设置的PDULength != 实际PLC的PDULength，因此以PLC的为准
-        this.pduLength = this.connectDtData();
-        log.debug("PLC[{}] handshake success, rack[{}]，slot[{}]，PDULength[{}]", this.plcType, this.rack, this.slot, this.pduLength);
+        S7Negotiation negotiation = this.connectDtData();
+        this.pduLength = negotiation.pduLength;
+        this.negotiatedAmq = negotiation.maxAmq;
+        log.debug("PLC[{}] handshake success, rack[{}]，slot[{}]，PDULength[{}]，MaxAmq[{}]", this.plcType, this.rack, this.slot, this.pduLength, this.negotiatedAmq);
     }
 
     /**
@@ -156,6 +201,17 @@ public class PLCNetwork extends TcpClientBasic {
      * 0x0300	0x0300	0x0302	0x0303	0x4d57	0x0300
      */
     private void connectionRequest() {
+        S7Data ack = this.readFromServer(this.createConnectionRequest());
+        this.checkConnectionConfirm(ack);
+    }
+
+    /**
+     * Create connection request by PLC type, rack and slot.
+     * (根据PLC类型、机架号和槽号创建连接请求)
+     *
+     * @return connection request
+     */
+    private S7Data createConnectionRequest() {
         // 对应0xC1
         int local = 0x0100;
         // 对应0xC2 | 经测试：S1200支持0x0100、0x0200、0x0300，S200Smart支持0x0200、0x0300
@@ -182,8 +238,16 @@ public class PLCNetwork extends TcpClientBasic {
                 remote = 0x0D04;
                 break;
         }
-        S7Data req = S7Data.createConnectRequest(local, remote);
-        S7Data ack = this.readFromServer(req);
+        return S7Data.createConnectRequest(local, remote);
+    }
+
+    /**
+     * Check the response of connection request.
+     * (校验连接请求的响应)
+     *
+     * @param ack ack data
+     */
+    private void checkConnectionConfirm(S7Data ack) {
         if (ack.getCotp().getPduType() != EPduType.CONNECT_CONFIRM) {
             // 连接请求被拒绝
             throw new S7CommException("The connection request was denied");
@@ -194,11 +258,23 @@ public class PLCNetwork extends TcpClientBasic {
      * Connection setup.
      * (连接setup)
      *
-     * @return pduLength pdu长度
+     * @return negotiated pdu length and max parallel jobs
      */
-    private int connectDtData() {
-        S7Data req = S7Data.createConnectDtData(this.pduLength);
+    private S7Negotiation connectDtData() {
+        S7Data req = S7Data.createConnectDtData(this.pduLength, Math.max(1, this.maxAmq));
         S7Data ack = this.readFromServer(req);
+        return this.checkConnectDtData(ack);
+    }
+
+    /**
+     * Check the response of connection setup, the instance state is not changed, because the synchronous and
+     * asynchronous connections negotiate separately.
+     * (校验连接setup的响应，不修改实例状态，因为同步连接和异步连接分别协商)
+     *
+     * @param ack ack data
+     * @return negotiated pdu length and max parallel jobs
+     */
+    private S7Negotiation checkConnectDtData(S7Data ack) {
         if (ack.getCotp().getPduType() != EPduType.DT_DATA) {
             // 连接Setup响应错误
             throw new S7CommException("Connection Setup response error");
@@ -207,12 +283,39 @@ public class PLCNetwork extends TcpClientBasic {
             // 连接Setup响应错误，缺失响应头header或响应头长度不够[12]
             throw new S7CommException("Connection Setup response error, missing response header or insufficient response header length [12]");
         }
-        int length = ((SetupComParameter) ack.getParameter()).getPduLength();
+        SetupComParameter parameter = (SetupComParameter) ack.getParameter();
+        int length = parameter.getPduLength();
         if (length <= 0) {
             // PDU的最大长度小于0
             throw new S7CommException("The maximum length of a PDU is less than 0");
         }
-        return length;
+        // 并行作业数量取请求值和PLC响应值中的最小值
+        int amq = Math.min(parameter.getMaxAmqCaller(), parameter.getMaxAmqCallee());
+        return new S7Negotiation(length, Math.max(1, Math.min(Math.max(1, this.maxAmq), amq)));
+    }
+
+    /**
+     * Negotiated result of connection setup.
+     * (连接setup的协商结果)
+     */
+    private static final class S7Negotiation {
+
+        /**
+         * PDU length.
+         * (PDU长度)
+         */
+        private final int pduLength;
+
+        /**
+         * Max parallel jobs.
+         * (最大并行作业数量)
+         */
+        private final int maxAmq;
+
+        private S7Negotiation(int pduLength, int maxAmq) {
+            this.pduLength = pduLength;
+            this.maxAmq = maxAmq;
+        }
     }
     //endregion
 
@@ -252,6 +355,24 @@ public class PLCNetwork extends TcpClientBasic {
      * @return byte array of response
      */
     private byte[] readFromServer(byte[] sendData) {
+        byte[] total;
+        try {
+            this.locker.lock();
+            this.writeToServer(sendData);
+            total = this.readFrameFromServer();
+        } finally {
+            this.locker.unlock();
+        }
+        return total;
+    }
+
+    /**
+     * Write one request frame to server, the locker must be held by caller.
+     * (向服务器写入一帧请求数据，调用方需持有锁)
+     *
+     * @param sendData byte array of request
+     */
+    private void writeToServer(byte[] sendData) {
         if (this.comCallback != null) {
             this.comCallback.accept(GeneralConst.PACKAGE_REQ, sendData);
         }
@@ -261,27 +382,26 @@ public class PLCNetwork extends TcpClientBasic {
             // 发送请求的字节数过长[%d]，已经大于最大的PDU长度[%d]
             throw new S7CommException(String.format("The number of bytes sent for the request is too long [%d], which is larger than the maximum PDU length [%d].", sendData.length, this.pduLength));
         }
+        this.write(sendData);
+    }
 
-        TPKT tpkt;
-        int len;
-        byte[] total;
-        try {
-            this.locker.lock();
-            this.write(sendData);
-
-            byte[] data = new byte[TPKT.BYTE_LENGTH];
-            len = this.read(data);
-            if (len < TPKT.BYTE_LENGTH) {
-                // TPKT 无效，长度不一致
-                throw new S7CommException("The TPKT is invalid and the length is inconsistent");
-            }
-            tpkt = TPKT.fromBytes(data);
-            total = new byte[tpkt.getLength()];
-            System.arraycopy(data, 0, total, 0, data.length);
-            len = this.read(total, TPKT.BYTE_LENGTH, tpkt.getLength() - TPKT.BYTE_LENGTH);
-        } finally {
-            this.locker.unlock();
+    /**
+     * Read one complete response frame from server according to TPKT length, the locker must be held by caller.
+     * (根据TPKT长度从服务器读取一帧完整的响应数据，调用方需持有锁)
+     *
+     * @return byte array of response
+     */
+    private byte[] readFrameFromServer() {
+        byte[] data = new byte[TPKT.BYTE_LENGTH];
+        int len = this.read(data, 0, data.length, true);
+        if (len < TPKT.BYTE_LENGTH) {
+            // TPKT 无效，长度不一致
+            throw new S7CommException("The TPKT is invalid and the length is inconsistent");
         }
+        TPKT tpkt = TPKT.fromBytes(data);
+        byte[] total = new byte[tpkt.getLength()];
+        System.arraycopy(data, 0, total, 0, data.length);
+        len = this.read(total, TPKT.BYTE_LENGTH, tpkt.getLength() - TPKT.BYTE_LENGTH, true);
         if (len < total.length - TPKT.BYTE_LENGTH) {
             // TPKT后面的数据长度，长度不一致
             throw new S7CommException("The length of the data after TPKT is inconsistent");
@@ -292,6 +412,66 @@ public class PLCNetwork extends TcpClientBasic {
         return total;
     }
 
+    /**
+     * Read data from server in pipelined mode, up to negotiatedAmq requests are in flight at the same time,
+     * responses are matched by pdu reference and returned in the order of requests.
+     * (管道化方式从服务器读取数据，最多同时发送negotiatedAmq个请求，根据pdu引用编号匹配响应，按请求顺序返回)
+     *
+     * @param reqs                   req data list
+     * @param enableStrictlySafeRead strictly safe read or not
+     * @return ack data list
+     */
+    private List<S7Data> readFromServerPipelined(List<S7Data> reqs, boolean enableStrictlySafeRead) {
+        if (reqs.size() == 1 || this.maxAmq <= 1) {
+            return reqs.stream().map(x -> enableStrictlySafeRead ? this.readFromServer(x) : this.readFromServerUnsafe(x))
+                    .collect(Collectors.toList());
+        }
+
+        // key：pdu引用编号，value：请求索引
+        Map<Integer, Integer> inFlight = new HashMap<>();
+        S7Data[] acks = new S7Data[reqs.size()];
+        RuntimeException firstError = null;
+        int sent = 0;
+        try {
+            this.locker.lock();
+            while (sent < reqs.size() || !inFlight.isEmpty()) {
+                // 窗口未满且没有发生错误时继续发送，首次发送可能触发握手，之后窗口大小才为协商值
+                while (firstError == null && sent < reqs.size() && inFlight.size() < this.negotiatedAmq) {
+                    S7Data req = reqs.get(sent);
+                    this.writeToServer(req.toByteArray());
+                    inFlight.put(req.getHeader().getPduReference(), sent);
+                    sent++;
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                S7Data ack = S7Data.fromBytes(this.readFrameFromServer());
+                Integer index = ack.getHeader() == null ? null : inFlight.remove(ack.getHeader().getPduReference());
+                if (index == null) {
+                    // 无法匹配的pdu引用编号，后续数据无法保证正确，需要重新建立连接
+                    this.socketError.set(true);
+                    // pdu引用编号不一致，数据有误
+                    throw new S7CommException("The PDU references are inconsistent, causing incorrect data");
+                }
+                try {
+                    this.doCheckPostedCom(reqs.get(index), ack, enableStrictlySafeRead);
+                    acks[index] = ack;
+                } catch (RuntimeException e) {
+                    // 记录首个错误，继续接收已发送请求的响应，保证连接上没有残留数据
+                    if (firstError == null) {
+                        firstError = e;
+                    }
+                }
+            }
+        } finally {
+            this.locker.unlock();
+        }
+        if (firstError != null) {
+            throw firstError;
+        }
+        return Arrays.asList(acks);
+    }
+
     /**
      * Contains persistent reads from the server, external inheritance uses this method for interaction, not internal use.
      * (包含持久化的从服务器读取数据，外部继承使用该方法进行交互，内部不使用)
@@ -304,7 +484,7 @@ public class PLCNetwork extends TcpClientBasic {
             return this.readFromServer(req);
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -321,7 +501,7 @@ public class PLCNetwork extends TcpClientBasic {
             return this.readFromServer(req);
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -438,58 +618,211 @@ public class PLCNetwork extends TcpClientBasic {
      * @return ack data items
      */
     private List<DataItem> doReadS7Data(List<RequestItem> requestItems, boolean enableStrictlySafeRead) {
+        return this.doReadS7Data(this.createReadLayout(requestItems), enableStrictlySafeRead);
+    }
+
+    /**
+     * Read S7 data by read layout.
+     * (根据读取布局读取S7协议数据)
+     *
+     * @param layout                 read layout
+     * @param enableStrictlySafeRead strictly safe read or not
+     * @return ack data items
+     */
+    private List<DataItem> doReadS7Data(S7ReadLayout layout, boolean enableStrictlySafeRead) {
+        try {
+            List<S7Data> reqs = this.createReadRequests(layout.getSendItems(), layout.getGroups());
+            // S7数据请求，若PLC支持多个并行作业则管道化发送
+            List<S7Data> acks = this.readFromServerPipelined(reqs, enableStrictlySafeRead);
+            List<DataItem> dataItems = this.assembleReadResult(layout, acks, enableStrictlySafeRead);
+            List<Integer> failedIndexes = layout.getPlan().getFailedIndexes(dataItems);
+            if (!failedIndexes.isEmpty()) {
+                // 合并项读取失败时逐项重新读取，避免单个错误项导致相邻正常项一起失败
+                S7ReadLayout retry = this.createReadLayout(this.getRawItems(layout, failedIndexes), -1, this.pduLength);
+                List<S7Data> retryAcks = this.readFromServerPipelined(this.createReadRequests(retry.getSendItems(), retry.getGroups()), false);
+                this.replaceFailedItems(dataItems, failedIndexes, this.assembleReadResult(retry, retryAcks, false));
+            }
+            return dataItems;
+        } finally {
+            if (!this.persistence) {
+                this.closeSocket();
+            }
+        }
+    }
+
+    /**
+     * Read S7 data by read layout, the layout is recreated if it is not valid any more.
+     * (根据读取布局读取S7协议数据，布局失效时重新创建)
+     *
+     * @param layout read layout
+     * @return ack data items
+     */
+    public List<DataItem> readS7Data(S7ReadLayout layout) {
+        S7ReadLayout actual = this.isReadLayoutValid(layout) ? layout : this.createReadLayout(layout.getPlan().getRawItems());
+        return this.doReadS7Data(actual, true);
+    }
+
+    /**
+     * Create read layout, the request items are coalesced and grouped by current pdu length.
+     * (创建读取布局，按当前pdu长度对请求项进行合并和分组，可缓存后重复使用)
+     *
+     * @param requestItems request items
+     * @return read layout
+     */
+    public S7ReadLayout createReadLayout(List<RequestItem> requestItems) {
+        return this.createReadLayout(requestItems, this.readCoalesceGap, this.pduLength);
+    }
+
+    /**
+     * Create read layout by the coalesce gap.
+     * (根据合并间隙创建读取布局)
+     *
+     * @param requestItems request items
+     * @param coalesceGap  max gap byte size, less than 0 means disabled
+     * @param pduLength    pdu length of the connection
+     * @return read layout
+     */
+    private S7ReadLayout createReadLayout(List<RequestItem> requestItems, int coalesceGap, int pduLength) {
         if (requestItems == null || requestItems.isEmpty()) {
             // 请求项缺失，无法获取数据
             throw new S7CommException("The request item is missing and the data cannot be retrieved");
         }
+        // 合并相邻地址的请求项，减少请求项和PDU数量
+        S7CoalescePlan plan = S7CoalesceAlg.coalesce(requestItems, coalesceGap);
+        List<RequestItem> sendItems = plan.isCoalesced() ? plan.getRequestItems() : requestItems;
+        S7ReadLayout layout = new S7ReadLayout();
+        layout.setPduLength(pduLength);
+        layout.setCoalesceGap(coalesceGap);
+        layout.setPlan(plan);
+        layout.setSendItems(sendItems);
+        layout.setGroups(this.createReadGroups(sendItems, pduLength));
+        return layout;
+    }
+
+    /**
+     * Whether the read layout is still valid, it is invalid if the pdu length or the coalesce gap changes.
+     * (读取布局是否仍然有效，pdu长度或合并间隙变化后失效)
+     *
+     * @param layout read layout
+     * @return true: valid, false: invalid
+     */
+    public boolean isReadLayoutValid(S7ReadLayout layout) {
+        return layout != null && layout.getPduLength() == this.pduLength && layout.getCoalesceGap() == this.readCoalesceGap;
+    }
+
+    /**
+     * Create read groups by the sequential group algorithm.
+     * (根据顺序分组算法得出读取分组结果)
+     *
+     * @param requestItems request items
+     * @param pduLength    pdu length of the connection
+     * @return group list
+     */
+    private List<S7ComGroup> createReadGroups(List<RequestItem> requestItems, int pduLength) {
         // 根据原始请求列表提取每个请求数据大小
         List<Integer> rawNumbers = requestItems.stream().map(RequestItem::getCount).collect(Collectors.toList());
+        // 根据顺序分组算法得出分组结果，
+        // 发送： 12=10(header)+2(parameter前),12(parameter后)
+        // 接收： 14=12(header)+2(parameter),5(DataItem)，dataItem可能4或5，统一采用5
+        return S7SequentialGroupAlg.readRecombination(rawNumbers, pduLength - 14, 5, 12);
+    }
+
+    /**
+     * Create read requests by groups.
+     * (根据分组构建对应的读取请求列表)
+     *
+     * @param requestItems request items
+     * @param s7ComGroups  group list
+     * @return req data list
+     */
+    private List<S7Data> createReadRequests(List<RequestItem> requestItems, List<S7ComGroup> s7ComGroups) {
+        return s7ComGroups.stream().map(x -> {
+            List<RequestItem> newRequestItems = x.getItems().stream().map(i -> {
+                RequestItem item = requestItems.get(i.getIndex()).copy();
+                item.setCount(i.getRipeSize());
+                item.setByteAddress(item.getByteAddress() + i.getSplitOffset());
+                return item;
+            }).collect(Collectors.toList());
+            return S7Data.createReadRequest(newRequestItems);
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the raw request items by indexes.
+     * (根据索引获取原始请求项)
+     *
+     * @param layout  read layout
+     * @param indexes indexes of raw request items
+     * @return request items
+     */
+    private List<RequestItem> getRawItems(S7ReadLayout layout, List<Integer> indexes) {
+        return indexes.stream().map(i -> layout.getPlan().getRawItems().get(i)).collect(Collectors.toList());
+    }
+
+    /**
+     * Replace the failed data items with the data items read again.
+     * (用重新读取的数据项替换失败的数据项)
+     *
+     * @param dataItems     data items of raw request items
+     * @param failedIndexes indexes of failed data items
+     * @param retryItems    data items read again
+     */
+    private void replaceFailedItems(List<DataItem> dataItems, List<Integer> failedIndexes, List<DataItem> retryItems) {
+        for (int i = 0; i < failedIndexes.size(); i++) {
+            dataItems.set(failedIndexes.get(i), retryItems.get(i));
+        }
+    }
+
+    /**
+     * Assemble the ack data into the result list in order of raw request items by read layout.
+     * (根据读取布局将响应数据按原始请求顺序重装为结果列表)
+     *
+     * @param layout                 read layout
+     * @param acks                   ack data list
+     * @param enableStrictlySafeRead strictly safe read or not
+     * @return data items
+     */
+    private List<DataItem> assembleReadResult(S7ReadLayout layout, List<S7Data> acks, boolean enableStrictlySafeRead) {
+        List<DataItem> dataItems = this.assembleReadResult(layout.getSendItems(), layout.getGroups(), acks, enableStrictlySafeRead);
+        return layout.getPlan().isCoalesced() ? layout.getPlan().split(dataItems) : dataItems;
+    }
+
+    /**
+     * Assemble the ack data of groups into the result list in order of request items.
+     * (将各分组的响应数据按原始请求顺序重装为结果列表)
+     *
+     * @param requestItems           request items
+     * @param s7ComGroups            group list
+     * @param acks                   ack data list
+     * @param enableStrictlySafeRead strictly safe read or not
+     * @return data items
+     */
+    private List<DataItem> assembleReadResult(List<RequestItem> requestItems, List<S7ComGroup> s7ComGroups,
+                                              List<S7Data> acks, boolean enableStrictlySafeRead) {
         // 根据原始请求列表构建最终结果列表
         List<DataItem> resultList = requestItems.stream().map(x -> DataItem.createReq(new byte[x.getCount()],
                         x.getVariableType() == EParamVariableType.BIT ? EDataVariableType.BIT : EDataVariableType.BYTE_WORD_DWORD))
                 .collect(Collectors.toList());
+        for (int g = 0; g < s7ComGroups.size(); g++) {
+            List<S7ComItem> comItemList = s7ComGroups.get(g).getItems();
+            ReadWriteDatum datum = (ReadWriteDatum) acks.get(g).getDatum();
+            List<DataItem> dataItems = datum.getReturnItems().stream().map(DataItem.class::cast).collect(Collectors.toList());
 
-        // 根据顺序分组算法得出分组结果，
-        // 发送： 12=10(header)+2(parameter前),12(parameter后)
-        // 接收： 14=12(header)+2(parameter),5(DataItem)，dataItem可能4或5，统一采用5
-        List<S7ComGroup> s7ComGroups = S7SequentialGroupAlg.readRecombination(rawNumbers, this.pduLength - 14, 5, 12);
-        try {
-            s7ComGroups.forEach(x -> {
-                // 根据分组构建对应的请求列表
-                List<S7ComItem> comItemList = x.getItems();
-                List<RequestItem> newRequestItems = comItemList.stream().map(i -> {
-                    RequestItem item = requestItems.get(i.getIndex()).copy();
-                    item.setCount(i.getRipeSize());
-                    item.setByteAddress(item.getByteAddress() + i.getSplitOffset());
-                    return item;
-                }).collect(Collectors.toList());
-
-                // S7数据请求
-                S7Data req = S7Data.createReadRequest(newRequestItems);
-                S7Data ack = enableStrictlySafeRead ? this.readFromServer(req) : this.readFromServerUnsafe(req);
-                ReadWriteDatum datum = (ReadWriteDatum) ack.getDatum();
-                List<DataItem> dataItems = datum.getReturnItems().stream().map(DataItem.class::cast).collect(Collectors.toList());
-
-                // 将获取的数据重装实际结果列表中
-                for (int i = 0; i < comItemList.size(); i++) {
-                    S7ComItem comItem = comItemList.get(i);
-                    if (!enableStrictlySafeRead && !EReturnCode.SUCCESS.equals(dataItems.get(i).getReturnCode())) {
-                        // 关闭了严格安全读取的情况下，对于非SUCC的读取，返回错误码给调用方自行处理
-                        resultList.get(comItem.getIndex()).setReturnCode(dataItems.get(i).getReturnCode());
-                        resultList.get(comItem.getIndex()).setData(null);
-                        continue;
-                    }
-                    byte[] src = dataItems.get(i).getData();
-                    byte[] des = resultList.get(comItem.getIndex()).getData();
-                    System.arraycopy(src, 0, des, comItem.getSplitOffset(), src.length);
+            // 将获取的数据重装实际结果列表中
+            for (int i = 0; i < comItemList.size(); i++) {
+                S7ComItem comItem = comItemList.get(i);
+                if (!enableStrictlySafeRead && !EReturnCode.SUCCESS.equals(dataItems.get(i).getReturnCode())) {
+                    // 关闭了严格安全读取的情况下，对于非SUCC的读取，返回错误码给调用方自行处理
+                    resultList.get(comItem.getIndex()).setReturnCode(dataItems.get(i).getReturnCode());
+                    resultList.get(comItem.getIndex()).setData(null);
+                    continue;
                 }
-            });
-            return resultList;
-        } finally {
-            if (!this.persistence) {
-                this.close();
+                byte[] src = dataItems.get(i).getData();
+                byte[] des = resultList.get(comItem.getIndex()).getData();
+                System.arraycopy(src, 0, des, comItem.getSplitOffset(), src.length);
             }
         }
+        return resultList;
     }
 
     /**
@@ -527,39 +860,289 @@ public class PLCNetwork extends TcpClientBasic {
             throw new S7CommException("During the write operation, the number of requestItems and dataItems is inconsistent. Procedure");
         }
 
+        List<S7ComGroup> s7ComGroups = this.createWriteGroups(requestItems, this.pduLength);
+        try {
+            List<S7Data> reqs = this.createWriteRequests(requestItems, dataItems, s7ComGroups);
+            // S7数据请求，若PLC支持多个并行作业则管道化发送
+            this.readFromServerPipelined(reqs, true);
+        } finally {
+            if (!this.persistence) {
+                this.closeSocket();
+            }
+        }
+    }
+
+    /**
+     * Create write groups by the sequential group algorithm.
+     * (根据顺序分组算法得出写入分组结果)
+     *
+     * @param requestItems request items
+     * @param pduLength    pdu length of the connection
+     * @return group list
+     */
+    private List<S7ComGroup> createWriteGroups(List<RequestItem> requestItems, int pduLength) {
         // 根据原始请求列表提取每个请求数据大小
         List<Integer> rawNumbers = requestItems.stream().map(RequestItem::getCount).collect(Collectors.toList());
 
         // 根据顺序分组算法得出分组结果
         // 发送：12=10(header)+2(parameter前),17=12(parameter后)+5(dataItem)，dataItem可能4或5，统一采用5
         // 接收：14=12(header)+2(parameter),1(DataItem)
-        List<S7ComGroup> s7ComGroups = S7SequentialGroupAlg.writeRecombination(rawNumbers, this.pduLength - 12, 17);
-        try {
-            s7ComGroups.forEach(x -> {
-                // 根据分组构建对应的请求列表
-                List<S7ComItem> comItemList = x.getItems();
-                List<RequestItem> newRequestItems = comItemList.stream().map(i -> {
-                    RequestItem item = requestItems.get(i.getIndex()).copy();
-                    item.setCount(i.getRipeSize());
-                    item.setByteAddress(item.getByteAddress() + i.getSplitOffset());
-                    return item;
-                }).collect(Collectors.toList());
-                // 根据分组构建对应的数据列表
-                List<DataItem> newDataItems = comItemList.stream().map(i -> {
-                    DataItem item = dataItems.get(i.getIndex()).copy();
-                    item.setCount(i.getRipeSize());
-                    item.setData(ByteReadBuff.newInstance(item.getData()).getBytes(i.getSplitOffset(), i.getRipeSize()));
-                    return item;
-                }).collect(Collectors.toList());
-
-                // S7数据请求
-                S7Data req = S7Data.createWriteRequest(newRequestItems, newDataItems);
-                this.readFromServer(req);
+        return S7SequentialGroupAlg.writeRecombination(rawNumbers, pduLength - 12, 17);
+    }
+
+    /**
+     * Create write requests by groups.
+     * (根据分组构建对应的写入请求列表)
+     *
+     * @param requestItems request items
+     * @param dataItems    data items
+     * @param s7ComGroups  group list
+     * @return req data list
+     */
+    private List<S7Data> createWriteRequests(List<RequestItem> requestItems, List<DataItem> dataItems, List<S7ComGroup> s7ComGroups) {
+        return s7ComGroups.stream().map(x -> {
+            // 根据分组构建对应的请求列表
+            List<S7ComItem> comItemList = x.getItems();
+            List<RequestItem> newRequestItems = comItemList.stream().map(i -> {
+                RequestItem item = requestItems.get(i.getIndex()).copy();
+                item.setCount(i.getRipeSize());
+                item.setByteAddress(item.getByteAddress() + i.getSplitOffset());
+                return item;
+            }).collect(Collectors.toList());
+            // 根据分组构建对应的数据列表
+            List<DataItem> newDataItems = comItemList.stream().map(i -> {
+                DataItem item = dataItems.get(i.getIndex()).copy();
+                item.setCount(i.getRipeSize());
+                item.setData(ByteReadBuff.newInstance(item.getData()).getBytes(i.getSplitOffset(), i.getRipeSize()));
+                return item;
+            }).collect(Collectors.toList());
+
+            return S7Data.createWriteRequest(newRequestItems, newDataItems);
+        }).collect(Collectors.toList());
+    }
+
+    //endregion
+
+    //region S7数据异步读写部分
+
+    /**
+     * Get the asynchronous client, create it if not exist.
+     * (获取异步客户端，不存在则创建)
+     *
+     * @return asynchronous client
+     */
+    public TcpAsyncClientBasic getAsyncClient() {
+        return this.getS7AsyncClient();
+    }
+
+    /**
+     * Get the S7 asynchronous client, create it if not exist.
+     * (获取S7异步客户端，不存在则创建)
+     *
+     * @return S7 asynchronous client
+     */
+    private synchronized S7AsyncClient getS7AsyncClient() {
+        if (this.asyncClient == null) {
+            this.asyncClient = new S7AsyncClient();
+            this.asyncClient.setConnectTimeout(this.connectTimeout);
+            this.asyncClient.setReceiveTimeout(this.receiveTimeout);
+        }
+        return this.asyncClient;
+    }
+
+    /**
+     * Read data from server asynchronously, requests are matched by pdu reference.
+     * (异步从服务器读取数据，根据pdu引用编号匹配请求)
+     *
+     * @param req                    req data
+     * @param enableStrictlySafeRead strictly safe read or not
+     * @return ack data future
+     */
+    private CompletableFuture<S7Data> readFromServerAsync(S7Data req, boolean enableStrictlySafeRead) {
+        byte[] sendData = req.toByteArray();
+        S7AsyncClient client = this.getS7AsyncClient();
+        // 将报文中的TPKT和COTP减掉，剩下PDU的内容，7=4(tpkt)+3(cotp)
+        if (client.pduLength > 0 && sendData.length - 7 > client.pduLength) {
+            // 发送请求的字节数过长[%d]，已经大于最大的PDU长度[%d]
+            return FutureUtil.failed(new S7CommException(String.format("The number of bytes sent for the request is too long [%d], which is larger than the maximum PDU length [%d].", sendData.length, client.pduLength)));
+        }
+        return client.sendAsync(sendData, req.getHeader().getPduReference()).thenApply(total -> {
+            S7Data ack = S7Data.fromBytes(total);
+            this.doCheckPostedCom(req, ack, enableStrictlySafeRead);
+            return ack;
+        });
+    }
+
+    /**
+     * Read data from server asynchronously, all requests are sent at once, up to the MaxAmq negotiated by the asynchronous connection are in flight.
+     * (异步从服务器读取数据，所有请求一次性提交，最多同时发送异步连接协商的MaxAmq个请求)
+     *
+     * @param reqs                   req data list
+     * @param enableStrictlySafeRead strictly safe read or not
+     * @return ack data list future, in order of requests
+     */
+    private CompletableFuture<List<S7Data>> readFromServerAsync(List<S7Data> reqs, boolean enableStrictlySafeRead) {
+        List<CompletableFuture<S7Data>> futures = reqs.stream().map(x -> this.readFromServerAsync(x, enableStrictlySafeRead))
+                .collect(Collectors.toList());
+        return FutureUtil.allOf(futures);
+    }
+
+    /**
+     * Read S7 data asynchronously.
+     * (异步读取S7协议数据)
+     *
+     * @param requestItems request items
+     * @return ack data items future
+     */
+    public CompletableFuture<List<DataItem>> readS7DataAsync(List<RequestItem> requestItems) {
+        return this.doReadS7DataAsync(requestItems, true);
+    }
+
+    /**
+     * Read S7 data asynchronously. Unsafe mode. 谨慎使用！
+     * (异步读取S7协议数据)
+     *
+     * @param requestItems request items
+     * @return ack data items future
+     */
+    public CompletableFuture<List<DataItem>> readS7DataUnsafeAsync(List<RequestItem> requestItems) {
+        return this.doReadS7DataAsync(requestItems, false);
+    }
+
+    /**
+     * Read S7 data asynchronously.
+     * (异步读取S7协议数据)
+     *
+     * @param requestItem request item
+     * @return ack data item future
+     */
+    public CompletableFuture<DataItem> readS7DataAsync(RequestItem requestItem) {
+        return this.readS7DataAsync(Collections.singletonList(requestItem)).thenApply(x -> x.get(0));
+    }
+
+    /**
+     * Read S7 data asynchronously, the groups are created after the handshake because pdu length is decided by PLC.
+     * (异步读取S7协议数据，由于pdu长度以PLC为准，分组在握手之后创建)
+     *
+     * @param requestItems           request items
+     * @param enableStrictlySafeRead strictly safe read or not
+     * @return ack data items future
+     */
+    private CompletableFuture<List<DataItem>> doReadS7DataAsync(List<RequestItem> requestItems, boolean enableStrictlySafeRead) {
+        if (requestItems == null || requestItems.isEmpty()) {
+            // 请求项缺失，无法获取数据
+            throw new S7CommException("The request item is missing and the data cannot be retrieved");
+        }
+        return this.getAsyncClient().connectAsync().thenCompose(v -> {
+            // 异步连接单独协商pdu长度，按异步连接的pdu长度分组
+            int asyncPduLength = this.asyncClient.pduLength;
+            S7ReadLayout layout = this.createReadLayout(requestItems, this.readCoalesceGap, asyncPduLength);
+            List<S7Data> reqs = this.createReadRequests(layout.getSendItems(), layout.getGroups());
+            return this.readFromServerAsync(reqs, enableStrictlySafeRead).thenCompose(acks -> {
+                List<DataItem> dataItems = this.assembleReadResult(layout, acks, enableStrictlySafeRead);
+                List<Integer> failedIndexes = layout.getPlan().getFailedIndexes(dataItems);
+                if (failedIndexes.isEmpty()) {
+                    return CompletableFuture.completedFuture(dataItems);
+                }
+                // 合并项读取失败时逐项重新读取，避免单个错误项导致相邻正常项一起失败
+                S7ReadLayout retry = this.createReadLayout(this.getRawItems(layout, failedIndexes), -1, asyncPduLength);
+                return this.readFromServerAsync(this.createReadRequests(retry.getSendItems(), retry.getGroups()), false)
+                        .thenApply(retryAcks -> {
+                            this.replaceFailedItems(dataItems, failedIndexes, this.assembleReadResult(retry, retryAcks, false));
+                            return dataItems;
+                        });
             });
-        } finally {
-            if (!this.persistence) {
-                this.close();
+        });
+    }
+
+    /**
+     * Write S7 data asynchronously.
+     * (异步写S7协议数据)
+     *
+     * @param requestItem request item
+     * @param dataItem    data item
+     * @return future
+     */
+    public CompletableFuture<Void> writeS7DataAsync(RequestItem requestItem, DataItem dataItem) {
+        return this.writeS7DataAsync(Collections.singletonList(requestItem), Collections.singletonList(dataItem));
+    }
+
+    /**
+     * Write S7 data asynchronously.
+     * (异步写S7协议数据)
+     *
+     * @param requestItems request items
+     * @param dataItems    data items
+     * @return future
+     */
+    public CompletableFuture<Void> writeS7DataAsync(List<RequestItem> requestItems, List<DataItem> dataItems) {
+        if (requestItems.size() != dataItems.size()) {
+            // 写操作过程中，requestItems和dataItems数据个数不一致
+            throw new S7CommException("During the write operation, the number of requestItems and dataItems is inconsistent. Procedure");
+        }
+        return this.getAsyncClient().connectAsync().thenCompose(v -> {
+            List<S7ComGroup> s7ComGroups = this.createWriteGroups(requestItems, this.asyncClient.pduLength);
+            List<S7Data> reqs = this.createWriteRequests(requestItems, dataItems, s7ComGroups);
+            return this.readFromServerAsync(reqs, true).thenApply(acks -> null);
+        });
+    }
+
+    /**
+     * Asynchronous client of S7, the handshake is the same as the synchronous one.
+     * (S7异步客户端，握手过程与同步方式一致)
+     */
+    private class S7AsyncClient extends TcpAsyncClientBasic {
+
+        /**
+         * PDU length negotiated by the asynchronous connection.
+         * (异步连接协商后的PDU长度)
+         */
+        private volatile int pduLength;
+
+        private S7AsyncClient() {
+            super(PLCNetwork.this.socketAddress.getHostString(), PLCNetwork.this.socketAddress.getPort());
+            this.tag = "S7";
+        }
+
+        @Override
+        public BiConsumer<String, byte[]> getComCallback() {
+            // 跟随所属对象当前的通信回调
+            return PLCNetwork.this.comCallback;
+        }
+
+        @Override
+        protected CompletableFuture<Void> doAfterConnectedAsync() {
+            S7Data connectReq = PLCNetwork.this.createConnectionRequest();
+            return this.doSendAsync(connectReq.toByteArray(), -1).thenCompose(connectAck -> {
+                PLCNetwork.this.checkConnectionConfirm(S7Data.fromBytes(connectAck));
+                S7Data setupReq = S7Data.createConnectDtData(PLCNetwork.this.pduLength, Math.max(1, PLCNetwork.this.maxAmq));
+                return this.doSendAsync(setupReq.toByteArray(), setupReq.getHeader().getPduReference()).thenAccept(setupAck -> {
+                    S7Data ack = S7Data.fromBytes(setupAck);
+                    PLCNetwork.this.checkPostedCom(setupReq, ack);
+                    // 存在设置的PDULength != 实际PLC的PDULength，因此以PLC的为准，协商结果只保存在异步客户端
+                    S7Negotiation negotiation = PLCNetwork.this.checkConnectDtData(ack);
+                    this.pduLength = negotiation.pduLength;
+                    this.maxInFlight = negotiation.maxAmq;
+                    log.debug("PLC[{}] asynchronous handshake success, PDULength[{}]，MaxAmq[{}]", PLCNetwork.this.plcType, this.pduLength, negotiation.maxAmq);
+                });
+            });
+        }
+
+        @Override
+        protected int getFrameLength(ByteBuffer buffer) {
+            if (buffer.remaining() < TPKT.BYTE_LENGTH) {
+                return -1;
+            }
+            return buffer.getShort(2) & 0xFFFF;
+        }
+
+        @Override
+        protected int getFrameKey(byte[] frame) {
+            // 只有DT_DATA且带有S7头的报文才有pdu引用编号，7=4(tpkt)+3(cotp)
+            if (frame.length < 7 + Header.BYTE_LENGTH || (frame[5] & 0xFF) != 0xF0 || frame[7] != (byte) 0x32) {
+                return -1;
             }
+            return ((frame[11] & 0xFF) << 8) | (frame[12] & 0xFF);
         }
     }
 
@@ -593,7 +1176,7 @@ public class PLCNetwork extends TcpClientBasic {
             return datum.getReturnItems().stream().map(DataItem.class::cast).collect(Collectors.toList());
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -630,7 +1213,7 @@ public class PLCNetwork extends TcpClientBasic {
             this.readFromServer(reqEndDownload);
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
@@ -671,7 +1254,7 @@ public class PLCNetwork extends TcpClientBasic {
             return buff.getData();
         } finally {
             if (!this.persistence) {
-                this.close();
+                this.closeSocket();
             }
         }
     }
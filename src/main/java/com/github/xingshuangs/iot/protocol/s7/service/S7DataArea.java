@@ -0,0 +1,223 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+
+import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.utils.BooleanUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Data area of S7 plc server, such as DB1, M, I, Q, backed by a heap buffer or a memory-mapped file,
+ * each area has its own read write lock.
+ * (S7服务端的数据区，例如DB1, M, I, Q，数据存放在堆内存或者内存映射文件中，每个区域有自己的读写锁)
+ *
+ * @author xingshuang
+ */
+public class S7DataArea {
+
+    /**
+     * Area size, 64KB.
+     * (区域大小，64KB)
+     */
+    public static final int AREA_SIZE = 65536;
+
+    /**
+     * File suffix of mapped area.
+     * (映射文件的后缀)
+     */
+    public static final String FILE_SUFFIX = ".bin";
+
+    /**
+     * Area name, such as DB1, M.
+     * (区域名称，例如DB1, M)
+     */
+    private final String name;
+
+    /**
+     * Data buffer, the position and limit are never changed.
+     * (数据缓存，位置和限制不会改变)
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Write and read lock.
+     * (读写锁)
+     */
+    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+    private S7DataArea(String name, ByteBuffer buffer) {
+        this.name = name;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Create area in heap memory.
+     * (创建堆内存中的区域)
+     *
+     * @param name area name
+     * @return S7DataArea
+     */
+    public static S7DataArea createInMemory(String name) {
+        return new S7DataArea(name, ByteBuffer.allocate(AREA_SIZE));
+    }
+
+    /**
+     * Create area mapped to the file "name.bin" in the directory, the file is created when it does not exist,
+     * otherwise the data in it is kept.
+     * (创建映射到目录中"name.bin"文件的区域，文件不存在则创建，否则保留其中的数据)
+     *
+     * @param name      area name
+     * @param directory data directory
+     * @return S7DataArea
+     */
+    public static S7DataArea createMapped(String name, Path directory) {
+        Path path = directory.resolve(name + FILE_SUFFIX);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 文件不足时映射会自动扩展，通道关闭后映射依然有效
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, AREA_SIZE);
+            return new S7DataArea(name, mapped);
+        } catch (IOException e) {
+            throw new S7CommException("Failed to map data area file: " + path, e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Whether the area is mapped to file.
+     * (是否映射到文件)
+     *
+     * @return true: mapped, false: heap memory
+     */
+    public boolean isMapped() {
+        return this.buffer instanceof MappedByteBuffer;
+    }
+
+    /**
+     * Read bytes.
+     * (读取字节)
+     *
+     * @param offset byte offset
+     * @param count  byte count
+     * @return byte array
+     */
+    public byte[] readBytes(int offset, int count) {
+        this.checkRange(offset, count);
+        byte[] res = new byte[count];
+        try {
+            this.rwLock.readLock().lock();
+            ByteBuffer dup = this.buffer.duplicate();
+            dup.position(offset);
+            dup.get(res);
+            return res;
+        } finally {
+            this.rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read bit.
+     * (读取位)
+     *
+     * @param offset    byte offset
+     * @param bitOffset bit offset
+     * @return bit value
+     */
+    public boolean readBit(int offset, int bitOffset) {
+        this.checkRange(offset, 1);
+        try {
+            this.rwLock.readLock().lock();
+            return BooleanUtil.getValue(this.buffer.get(offset), bitOffset);
+        } finally {
+            this.rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write bytes.
+     * (写入字节)
+     *
+     * @param offset byte offset
+     * @param data   byte array
+     */
+    public void writeBytes(int offset, byte[] data) {
+        this.checkRange(offset, data.length);
+        try {
+            this.rwLock.writeLock().lock();
+            ByteBuffer dup = this.buffer.duplicate();
+            dup.position(offset);
+            dup.put(data);
+        } finally {
+            this.rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write bit.
+     * (写入位)
+     *
+     * @param offset    byte offset
+     * @param bitOffset bit offset
+     * @param value     bit value
+     */
+    public void writeBit(int offset, int bitOffset, boolean value) {
+        this.checkRange(offset, 1);
+        try {
+            this.rwLock.writeLock().lock();
+            this.buffer.put(offset, BooleanUtil.setBit(this.buffer.get(offset), bitOffset, value));
+        } finally {
+            this.rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Force the changes to the file, only works for mapped area.
+     * (将修改强制写入文件，只对映射区域有效)
+     */
+    public void force() {
+        if (this.buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) this.buffer).force();
+        }
+    }
+
+    private void checkRange(int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count > AREA_SIZE) {
+            throw new IndexOutOfBoundsException(String.format("area[%s], offset[%d], count[%d] out of range", this.name, offset, count));
+        }
+    }
+}
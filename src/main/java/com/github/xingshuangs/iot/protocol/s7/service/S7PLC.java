@@ -41,6 +41,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -841,6 +842,345 @@ public class S7PLC extends PLCNetwork {
 
     //endregion
 
+    //region 异步读写数据
+
+    /**
+     * Multi-address reads byte data asynchronously.
+     * (异步多地址读取字节数据)
+     *
+     * @param addressRead address wrapper list
+     * @return byte array list future
+     */
+    public CompletableFuture<List<byte[]>> readMultiByteAsync(MultiAddressRead addressRead) {
+        return this.readS7DataAsync(addressRead.getRequestItems())
+                .thenApply(x -> x.stream().map(DataItem::getData).collect(Collectors.toList()));
+    }
+
+    /**
+     * Read byte asynchronously.
+     * (异步单地址字节数据读取)
+     *
+     * @param address address string
+     * @param count   byte count
+     * @return byte array future
+     */
+    public CompletableFuture<byte[]> readByteAsync(String address, int count) {
+        return this.readS7DataAsync(AddressUtil.parseByte(address, count)).thenApply(DataItem::getData);
+    }
+
+    /**
+     * Read boolean asynchronously.
+     * (异步读取一个boolean)
+     *
+     * @param address address string
+     * @return boolean future
+     */
+    public CompletableFuture<Boolean> readBooleanAsync(String address) {
+        return this.readS7DataAsync(AddressUtil.parseBit(address)).thenApply(x -> BooleanUtil.getValue(x.getData()[0], 0));
+    }
+
+    /**
+     * Read boolean list asynchronously.
+     * (异步读取boolean列表)
+     *
+     * @param addresses address strings
+     * @return boolean list future
+     */
+    public CompletableFuture<List<Boolean>> readBooleanAsync(List<String> addresses) {
+        List<RequestItem> requestItems = addresses.stream().map(AddressUtil::parseBit).collect(Collectors.toList());
+        return this.readS7DataAsync(requestItems)
+                .thenApply(x -> x.stream().map(i -> BooleanUtil.getValue(i.getData()[0], 0)).collect(Collectors.toList()));
+    }
+
+    /**
+     * Read int16, 2-bytes asynchronously.
+     * (异步读取一个Int16的数据)
+     *
+     * @param address address string
+     * @return Int16 future
+     */
+    public CompletableFuture<Short> readInt16Async(String address) {
+        return this.readS7DataAsync(AddressUtil.parseByte(address, 2)).thenApply(x -> ShortUtil.toInt16(x.getData()));
+    }
+
+    /**
+     * Read int16, 2-bytes asynchronously.
+     * (异步读取多个Int16的数据)
+     *
+     * @param addresses address strings
+     * @return Int16 list future
+     */
+    public CompletableFuture<List<Short>> readInt16Async(List<String> addresses) {
+        List<RequestItem> requestItems = addresses.stream().map(x -> AddressUtil.parseByte(x, 2)).collect(Collectors.toList());
+        return this.readS7DataAsync(requestItems)
+                .thenApply(x -> x.stream().map(i -> ShortUtil.toInt16(i.getData())).collect(Collectors.toList()));
+    }
+
+    /**
+     * Read uint16, 2-bytes asynchronously.
+     * (异步读取一个UInt16的数据)
+     *
+     * @param address address string
+     * @return UInt16 future
+     */
+    public CompletableFuture<Integer> readUInt16Async(String address) {
+        return this.readS7DataAsync(AddressUtil.parseByte(address, 2)).thenApply(x -> ShortUtil.toUInt16(x.getData()));
+    }
+
+    /**
+     * Read uint16, 2-bytes asynchronously.
+     * (异步读取多个UInt16的数据)
+     *
+     * @param addresses address strings
+     * @return UInt16 list future
+     */
+    public CompletableFuture<List<Integer>> readUInt16Async(List<String> addresses) {
+        List<RequestItem> requestItems = addresses.stream().map(x -> AddressUtil.parseByte(x, 2)).collect(Collectors.toList());
+        return this.readS7DataAsync(requestItems)
+                .thenApply(x -> x.stream().map(i -> ShortUtil.toUInt16(i.getData())).collect(Collectors.toList()));
+    }
+
+    /**
+     * Read int32, 4-bytes asynchronously.
+     * (异步读取一个Int32的数据)
+     *
+     * @param address address string
+     * @return Int32 future
+     */
+    public CompletableFuture<Integer> readInt32Async(String address) {
+        return this.readS7DataAsync(AddressUtil.parseByte(address, 4)).thenApply(x -> IntegerUtil.toInt32(x.getData()));
+    }
+
+    /**
+     * Read int32, 4-bytes asynchronously.
+     * (异步读取多个Int32的数据)
+     *
+     * @param addresses address strings
+     * @return Int32 list future
+     */
+    public CompletableFuture<List<Integer>> readInt32Async(List<String> addresses) {
+        List<RequestItem> requestItems = addresses.stream().map(x -> AddressUtil.parseByte(x, 4)).collect(Collectors.toList());
+        return this.readS7DataAsync(requestItems)
+                .thenApply(x -> x.stream().map(i -> IntegerUtil.toInt32(i.getData())).collect(Collectors.toList()));
+    }
+
+    /**
+     * Read uint32, 4-bytes asynchronously.
+     * (异步读取一个UInt32的数据)
+     *
+     * @param address address string
+     * @return UInt32 future
+     */
+    public CompletableFuture<Long> readUInt32Async(String address) {
+        return this.readS7DataAsync(AddressUtil.parseByte(address, 4)).thenApply(x -> IntegerUtil.toUInt32(x.getData()));
+    }
+
+    /**
+     * Read uint32, 4-bytes asynchronously.
+     * (异步读取多个UInt32的数据)
+     *
+     * @param addresses address strings
+     * @return UInt32 list future
+     */
+    public CompletableFuture<List<Long>> readUInt32Async(List<String> addresses) {
+        List<RequestItem> requestItems = addresses.stream().map(x -> AddressUtil.parseByte(x, 4)).collect(Collectors.toList());
+        return this.readS7DataAsync(requestItems)
+                .thenApply(x -> x.stream().map(i -> IntegerUtil.toUInt32(i.getData())).collect(Collectors.toList()));
+    }
+
+    /**
+     * Read int64, 8-bytes asynchronously.
+     * (异步读取一个Int64的数据)
+     *
+     * @param address address string
+     * @return Int64 future
+     */
+    public CompletableFuture<Long> readInt64Async(String address) {
+        return this.readS7DataAsync(AddressUtil.parseByte(address, 8)).thenApply(x -> LongUtil.toInt64(x.getData()));
+    }
+
+    /**
+     * Read int64, 8-bytes asynchronously.
+     * (异步读取多个Int64的数据)
+     *
+     * @param addresses address strings
+     * @return Int64 list future
+     */
+    public CompletableFuture<List<Long>> readInt64Async(List<String> addresses) {
+        List<RequestItem> requestItems = addresses.stream().map(x -> AddressUtil.parseByte(x, 8)).collect(Collectors.toList());
+        return this.readS7DataAsync(requestItems)
+                .thenApply(x -> x.stream().map(i -> LongUtil.toInt64(i.getData())).collect(Collectors.toList()));
+    }
+
+    /**
+     * Read float32, 4-bytes asynchronously.
+     * (异步读取一个Float32的数据)
+     *
+     * @param address address string
+     * @return Float32 future
+     */
+    public CompletableFuture<Float> readFloat32Async(String address) {
+        return this.readS7DataAsync(AddressUtil.parseByte(address, 4)).thenApply(x -> FloatUtil.toFloat32(x.getData()));
+    }
+
+    /**
+     * Read float32, 4-bytes asynchronously.
+     * (异步读取多个Float32的数据)
+     *
+     * @param addresses address strings
+     * @return Float32 list future
+     */
+    public CompletableFuture<List<Float>> readFloat32Async(List<String> addresses) {
+        List<RequestItem> requestItems = addresses.stream().map(x -> AddressUtil.parseByte(x, 4)).collect(Collectors.toList());
+        return this.readS7DataAsync(requestItems)
+                .thenApply(x -> x.stream().map(i -> FloatUtil.toFloat32(i.getData())).collect(Collectors.toList()));
+    }
+
+    /**
+     * Read float64, 8-bytes asynchronously.
+     * (异步读取一个Float64的数据)
+     *
+     * @param address address string
+     * @return Float64 future
+     */
+    public CompletableFuture<Double> readFloat64Async(String address) {
+        return this.readS7DataAsync(AddressUtil.parseByte(address, 8)).thenApply(x -> FloatUtil.toFloat64(x.getData()));
+    }
+
+    /**
+     * Read float64, 8-bytes asynchronously.
+     * (异步读取多个Float64的数据)
+     *
+     * @param addresses address strings
+     * @return Float64 list future
+     */
+    public CompletableFuture<List<Double>> readFloat64Async(List<String> addresses) {
+        List<RequestItem> requestItems = addresses.stream().map(x -> AddressUtil.parseByte(x, 8)).collect(Collectors.toList());
+        return this.readS7DataAsync(requestItems)
+                .thenApply(x -> x.stream().map(i -> FloatUtil.toFloat64(i.getData())).collect(Collectors.toList()));
+    }
+
+    /**
+     * Write boolean asynchronously.
+     * (异步写入boolean数据)
+     *
+     * @param address address string
+     * @param data    boolean
+     * @return future
+     */
+    public CompletableFuture<Void> writeBooleanAsync(String address, boolean data) {
+        return this.writeS7DataAsync(AddressUtil.parseBit(address), DataItem.createReqByBoolean(data));
+    }
+
+    /**
+     * Write byte asynchronously.
+     * (异步写入字节列表数据)
+     *
+     * @param address address string
+     * @param data    byte array
+     * @return future
+     */
+    public CompletableFuture<Void> writeByteAsync(String address, byte[] data) {
+        return this.writeS7DataAsync(AddressUtil.parseByte(address, data.length), DataItem.createReqByByte(data));
+    }
+
+    /**
+     * Write uint16 asynchronously.
+     * (异步写入UInt16数据)
+     *
+     * @param address address string
+     * @param data    UInt16
+     * @return future
+     */
+    public CompletableFuture<Void> writeUInt16Async(String address, int data) {
+        return this.writeByteAsync(address, ShortUtil.toByteArray(data));
+    }
+
+    /**
+     * Write int16 asynchronously.
+     * (异步写入Int16数据)
+     *
+     * @param address address string
+     * @param data    Int16
+     * @return future
+     */
+    public CompletableFuture<Void> writeInt16Async(String address, short data) {
+        return this.writeByteAsync(address, ShortUtil.toByteArray(data));
+    }
+
+    /**
+     * Write uint32 asynchronously.
+     * (异步写入UInt32数据)
+     *
+     * @param address address string
+     * @param data    UInt32
+     * @return future
+     */
+    public CompletableFuture<Void> writeUInt32Async(String address, long data) {
+        return this.writeByteAsync(address, IntegerUtil.toByteArray(data));
+    }
+
+    /**
+     * Write int32 asynchronously.
+     * (异步写入Int32数据)
+     *
+     * @param address address string
+     * @param data    Int32
+     * @return future
+     */
+    public CompletableFuture<Void> writeInt32Async(String address, int data) {
+        return this.writeByteAsync(address, IntegerUtil.toByteArray(data));
+    }
+
+    /**
+     * Write int64 asynchronously.
+     * (异步写入Int64数据)
+     *
+     * @param address address string
+     * @param data    Int64
+     * @return future
+     */
+    public CompletableFuture<Void> writeInt64Async(String address, long data) {
+        return this.writeByteAsync(address, LongUtil.toByteArray(data));
+    }
+
+    /**
+     * Write float32 asynchronously.
+     * (异步写入Float32数据)
+     *
+     * @param address address string
+     * @param data    Float32
+     * @return future
+     */
+    public CompletableFuture<Void> writeFloat32Async(String address, float data) {
+        return this.writeByteAsync(address, FloatUtil.toByteArray(data));
+    }
+
+    /**
+     * Write float64 asynchronously.
+     * (异步写入Float64数据)
+     *
+     * @param address address string
+     * @param data    Float64
+     * @return future
+     */
+    public CompletableFuture<Void> writeFloat64Async(String address, double data) {
+        return this.writeByteAsync(address, FloatUtil.toByteArray(data));
+    }
+
+    /**
+     * Write data to multiple addresses asynchronously.
+     * (异步多地址写入数据)
+     *
+     * @param addressWrite addresses for writing
+     * @return future
+     */
+    public CompletableFuture<Void> writeMultiDataAsync(MultiAddressWrite addressWrite) {
+        return this.writeS7DataAsync(addressWrite.getRequestItems(), addressWrite.getDataItems());
+    }
+
+    //endregion
+
     //region 控制部分
 
     /**
@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+
+import com.github.xingshuangs.iot.common.pool.ClientPool;
+import com.github.xingshuangs.iot.common.pool.ClientPoolConfig;
+import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
+
+import java.util.function.Supplier;
+
+import static com.github.xingshuangs.iot.common.constant.GeneralConst.S7_PORT;
+
+/**
+ * S7 PLC client pool, the COTP connection request and the setup communication are done once per connection.
+ * The probe reads one byte of the probe address, it is M0 by default, which exists in all series.
+ * (S7 PLC客户端连接池，每个连接只做一次COTP连接请求和通信参数设置，探活读取探活地址的一个字节，默认为所有系列都有的M0)
+ *
+ * @author xingshuang
+ */
+public class S7PLCPool extends ClientPool<S7PLC> {
+
+    /**
+     * Default probe address.
+     * (默认探活地址)
+     */
+    public static final String DEFAULT_PROBE_ADDRESS = "M0";
+
+    public S7PLCPool(EPlcType plcType, String ip) {
+        this(plcType, ip, S7_PORT, new ClientPoolConfig());
+    }
+
+    public S7PLCPool(EPlcType plcType, String ip, int port, ClientPoolConfig config) {
+        this(plcType, ip, port, plcType.getRack(), plcType.getSlot(), config);
+    }
+
+    public S7PLCPool(EPlcType plcType, String ip, int port, int rack, int slot, ClientPoolConfig config) {
+        this(config, () -> new S7PLC(plcType, ip, port, rack, slot), DEFAULT_PROBE_ADDRESS);
+    }
+
+    public S7PLCPool(ClientPoolConfig config, Supplier<S7PLC> creator, String probeAddress) {
+        super(config, () -> {
+            S7PLC plc = creator.get();
+            plc.setPersistence(true);
+            return plc;
+        }, plc -> plc.readByte(probeAddress));
+    }
+}
@@ -25,67 +25,85 @@
 package com.github.xingshuangs.iot.protocol.s7.service;
 
 
-import com.github.xingshuangs.iot.common.buff.ByteReadBuff;
-import com.github.xingshuangs.iot.exceptions.SocketRuntimeException;
-import com.github.xingshuangs.iot.net.SocketUtils;
-import com.github.xingshuangs.iot.net.server.TcpServerBasic;
+import com.github.xingshuangs.iot.exceptions.S7CommException;
+import com.github.xingshuangs.iot.net.server.NioClientSession;
+import com.github.xingshuangs.iot.net.server.TcpNioServerBasic;
 import com.github.xingshuangs.iot.protocol.s7.enums.*;
 import com.github.xingshuangs.iot.protocol.s7.model.*;
 import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
-import com.github.xingshuangs.iot.utils.BooleanUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
- * S7 plc server class.
- * S7的PLC服务端
+ * S7 plc server class, the data areas are kept in heap memory by default, or mapped to files in the data directory
+ * so that the data survives restarts, each area has its own read write lock.
+ * S7的PLC服务端，数据区默认存放在堆内存中，或者映射到数据目录中的文件使数据在重启后保留，每个区域有自己的读写锁
  *
  * @author xingshuang
  */
 @Slf4j
-public class S7PLCServer extends TcpServerBasic {
+public class S7PLCServer extends TcpNioServerBasic {
 
     /**
-     * Locker.
-     * (数据Map操作锁)
+     * Data directory of mapped areas, null means heap memory.
+     * (映射区域的数据目录，null表示堆内存)
      */
-    private final ReentrantLock locker = new ReentrantLock();
-
-    /**
-     * Write and read lock.
-     * (读写锁)
-     */
-    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+    private final Path directory;
 
     /**
      * All data for operating.
      * (所有数据)
      */
-    protected final HashMap<String, byte[]> dataMap = new HashMap<>();
+    protected final ConcurrentHashMap<String, S7DataArea> dataMap = new ConcurrentHashMap<>();
 
     public S7PLCServer() {
         this(102);
     }
 
     public S7PLCServer(int port) {
+        this(port, null);
+    }
+
+    /**
+     * Server with data directory, every area is mapped to the file "area.bin", such as "DB1.bin",
+     * the DB files already in the directory are loaded.
+     * (带数据目录的服务端，每个区域映射到文件"区域.bin"，例如"DB1.bin"，目录中已有的DB文件会被加载)
+     *
+     * @param port      port
+     * @param directory data directory, null means heap memory
+     */
+    public S7PLCServer(int port, Path directory) {
         this.port = port;
-        this.dataMap.put("DB1", new byte[65536]);
-        this.dataMap.put("M", new byte[65536]);
-        this.dataMap.put("I", new byte[65536]);
-        this.dataMap.put("Q", new byte[65536]);
-        this.dataMap.put("T", new byte[65536]);
-        this.dataMap.put("C", new byte[65536]);
+        this.directory = directory;
+        if (directory != null) {
+            this.loadDirectory();
+        }
+        this.addArea("DB1");
+        this.addArea("M");
+        this.addArea("I");
+        this.addArea("Q");
+        this.addArea("T");
+        this.addArea("C");
+    }
+
+    /**
+     * Gets the data directory.
+     * (获取数据目录)
+     *
+     * @return data directory, null means heap memory
+     */
+    public Path getDirectory() {
+        return directory;
     }
 
     /**
@@ -95,12 +113,7 @@ public class S7PLCServer extends TcpServerBasic {
      * @return data areas
      */
     public Set<String> getAvailableAreas() {
-        try {
-            this.locker.lock();
-            return this.dataMap.keySet();
-        } finally {
-            this.locker.unlock();
-        }
+        return this.dataMap.keySet();
     }
 
     /**
@@ -111,69 +124,140 @@ public class S7PLCServer extends TcpServerBasic {
      */
     public void addDBArea(int... dbNumbers) {
         log.debug("Add DB{} to server data area", dbNumbers);
+        for (int x : dbNumbers) {
+            this.addArea(String.format("DB%s", x));
+        }
+    }
+
+    /**
+     * Force the changes of mapped areas to the files.
+     * (将映射区域的修改强制写入文件)
+     */
+    public void flush() {
+        this.dataMap.values().forEach(S7DataArea::force);
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        this.flush();
+    }
+
+    /**
+     * Add area if absent.
+     * (区域不存在则添加)
+     *
+     * @param name area name
+     */
+    private void addArea(String name) {
+        this.dataMap.computeIfAbsent(name, key -> this.directory == null
+                ? S7DataArea.createInMemory(key)
+                : S7DataArea.createMapped(key, this.directory));
+    }
+
+    /**
+     * Load the DB files in the data directory.
+     * (加载数据目录中的DB文件)
+     */
+    private void loadDirectory() {
         try {
-            this.locker.lock();
-            for (int x : dbNumbers) {
-                String name = String.format("DB%s", x);
-                this.dataMap.computeIfAbsent(name, key -> new byte[65536]);
+            Files.createDirectories(this.directory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "DB*" + S7DataArea.FILE_SUFFIX)) {
+                for (Path path : stream) {
+                    String fileName = path.getFileName().toString();
+                    String name = fileName.substring(0, fileName.length() - S7DataArea.FILE_SUFFIX.length());
+                    if (name.substring(2).matches("\\d+")) {
+                        this.addArea(name);
+                    }
+                }
             }
-        } finally {
-            this.locker.unlock();
+        } catch (IOException e) {
+            throw new S7CommException("Failed to load data directory: " + this.directory, e);
         }
+        log.debug("Load {} DB areas from data directory [{}]", this.dataMap.size(), this.directory);
     }
 
-    @Override
-    protected boolean checkHandshake(Socket socket) {
+    /**
+     * Check handshake, the connect request is followed by the setup communication.
+     * (握手校验，先连接请求，再设置通信参数)
+     *
+     * @param session client session
+     * @param s7Data  request data
+     */
+    private void checkHandshake(NioClientSession session, S7Data s7Data) {
         // 校验connect request
-        S7Data s7Data = this.readS7DataFromClient(socket);
-        if (!(s7Data.getCotp() instanceof COTPConnection)
-                || s7Data.getCotp().getPduType() != EPduType.CONNECT_REQUEST) {
-            // 客户端[{}]握手失败，不是连接请求
-            log.error("Client [{}] Handshake failed, not connection request", socket.getRemoteSocketAddress());
-            return false;
+        if (s7Data.getCotp() instanceof COTPConnection) {
+            if (s7Data.getCotp().getPduType() != EPduType.CONNECT_REQUEST) {
+                // 客户端[{}]握手失败，不是连接请求
+                log.error("Client [{}] Handshake failed, not connection request", session.getRemoteAddress());
+                this.closeSession(session);
+                return;
+            }
+            S7Data connectConfirm = S7Data.createConnectConfirm(s7Data);
+            this.write(session, connectConfirm.toByteArray());
+            return;
         }
-        S7Data connectConfirm = S7Data.createConnectConfirm(s7Data);
-        this.write(socket, connectConfirm.toByteArray());
 
         // 校验setup
-        s7Data = this.readS7DataFromClient(socket);
         if (!(s7Data.getCotp() instanceof COTPData)
-                || s7Data.getCotp().getPduType() != EPduType.DT_DATA) {
+                || s7Data.getCotp().getPduType() != EPduType.DT_DATA
+                || !(s7Data.getParameter() instanceof SetupComParameter)) {
             // 客户端[{}]握手失败，不是参数设置
-            log.error("Client [{}] handshake failed, not parameter setting", socket.getRemoteSocketAddress());
-            return false;
+            log.error("Client [{}] handshake failed, not parameter setting", session.getRemoteAddress());
+            this.closeSession(session);
+            return;
         }
         S7Data connectAckDtData = S7Data.createConnectAckDtData(s7Data);
-        this.write(socket, connectAckDtData.toByteArray());
-        log.debug("The client [{}] handshake succeeded", socket.getRemoteSocketAddress());
-        return true;
+        this.write(session, connectAckDtData.toByteArray());
+        session.setHandshake(true);
+        log.debug("The client [{}] handshake succeeded", session.getRemoteAddress());
+    }
+
+    /**
+     * Get frame length from TPKT.
+     * (根据TPKT获取帧长度)
+     *
+     * @param buffer data buffer
+     * @return total frame length, -1: need more data
+     */
+    @Override
+    protected int getFrameLength(ByteBuffer buffer) {
+        if (buffer.remaining() < TPKT.BYTE_LENGTH) {
+            return -1;
+        }
+        return buffer.getShort(2) & 0xFFFF;
     }
 
     @Override
-    protected void doClientHandle(Socket socket) {
-        S7Data req = this.readS7DataFromClient(socket);
+    protected void doClientHandle(NioClientSession session, byte[] data) {
+        S7Data req = S7Data.fromBytes(data);
+        if (!session.isHandshake()) {
+            this.checkHandshake(session, req);
+            return;
+        }
         if (!(req.getCotp() instanceof COTPData)
                 || req.getCotp().getPduType() != EPduType.DT_DATA
                 || req.getHeader().getMessageType() != EMessageType.JOB) {
             S7Data response = S7Data.createErrorResponse(req, EErrorClass.ERROR_ON_SUPPLIES, 0x8500);
-            this.write(socket, response.toByteArray());
+            this.write(session, response.toByteArray());
+            return;
         }
 
         try {
             switch (req.getParameter().getFunctionCode()) {
                 case READ_VARIABLE:
-                    this.readVariableHandle(socket, req);
+                    this.readVariableHandle(session, req);
                     return;
                 case WRITE_VARIABLE:
-                    this.writeVariableHandle(socket, req);
+                    this.writeVariableHandle(session, req);
                     return;
                 default:
                     S7Data response = S7Data.createErrorResponse(req, EErrorClass.ERROR_ON_SUPPLIES, 0x8500);
-                    this.write(socket, response.toByteArray());
+                    this.write(session, response.toByteArray());
             }
         } catch (Exception e) {
             S7Data response = S7Data.createErrorResponse(req, EErrorClass.ERROR_ON_SERVICE_PROCESSING, 0x8404);
-            this.write(socket, response.toByteArray());
+            this.write(session, response.toByteArray());
         }
     }
 
@@ -181,135 +265,95 @@ public class S7PLCServer extends TcpServerBasic {
      * Read data handler.
      * (读数据处理)
      *
-     * @param socket socket object
-     * @param req    request data
+     * @param session client session
+     * @param req     request data
      */
-    private void readVariableHandle(Socket socket, S7Data req) {
+    private void readVariableHandle(NioClientSession session, S7Data req) {
         ReadWriteParameter parameter = (ReadWriteParameter) req.getParameter();
         List<ReturnItem> returnItems = new ArrayList<>();
-        try {
-            this.rwLock.readLock().lock();
-            parameter.getRequestItems().forEach(p1 -> {
-                RequestItem p = (RequestItem) p1;
-                // 判定该区域的数据是否存在
-                String area = AddressUtil.parseArea(p);
-                if (!this.dataMap.containsKey(area)) {
-                    // 客户端[{}]读取[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，无该区域地址数据
-                    log.error("Client[{}] read [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], no the address data",
-                            socket.getRemoteSocketAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount());
-                    returnItems.add(ReturnItem.createDefault(EReturnCode.OBJECT_DOES_NOT_EXIST));
-                    return;
-                }
-                // 提取指定地址的字节数据
-                byte[] bytes = this.dataMap.get(area);
-                ByteReadBuff buff = new ByteReadBuff(bytes);
-                byte[] data;
+        parameter.getRequestItems().forEach(p1 -> {
+            RequestItem p = (RequestItem) p1;
+            // 判定该区域的数据是否存在
+            String area = AddressUtil.parseArea(p);
+            S7DataArea dataArea = this.dataMap.get(area);
+            if (dataArea == null) {
+                // 客户端[{}]读取[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，无该区域地址数据
+                log.error("Client[{}] read [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], no the address data",
+                        session.getRemoteAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount());
+                returnItems.add(DataItem.createAckByError(EReturnCode.OBJECT_DOES_NOT_EXIST));
+                return;
+            }
+            // 提取指定地址的字节数据，只锁定该区域
+            byte[] data;
+            try {
                 if (p.getVariableType() == EParamVariableType.BYTE) {
-                    data = buff.getBytes(p.getByteAddress(), p.getCount());
+                    data = dataArea.readBytes(p.getByteAddress(), p.getCount());
                 } else {
-                    byte oldData = buff.getByte(p.getByteAddress());
-                    data = BooleanUtil.getValue(oldData, p.getBitAddress()) ? new byte[]{(byte) 0x01} : new byte[]{(byte) 0x00};
+                    data = dataArea.readBit(p.getByteAddress(), p.getBitAddress()) ? new byte[]{(byte) 0x01} : new byte[]{(byte) 0x00};
                 }
-                // 客户端[{}]读取[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，区域地址数据{}
-                log.debug("Client[{}] read [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], address data{}",
-                        socket.getRemoteSocketAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount(), data);
-                DataItem dataItem = DataItem.createAckBy(data, p.getVariableType() == EParamVariableType.BYTE ? EDataVariableType.BYTE_WORD_DWORD : EDataVariableType.BIT);
-                returnItems.add(dataItem);
-            });
-        } finally {
-            this.rwLock.readLock().unlock();
-        }
+            } catch (IndexOutOfBoundsException e) {
+                // 客户端[{}]读取[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，地址超出范围
+                log.error("Client[{}] read [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], address out of range",
+                        session.getRemoteAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount());
+                returnItems.add(DataItem.createAckByError(EReturnCode.INVALID_ADDRESS));
+                return;
+            }
+            // 客户端[{}]读取[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，区域地址数据{}
+            log.debug("Client[{}] read [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], address data{}",
+                    session.getRemoteAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount(), data);
+            DataItem dataItem = DataItem.createAckBy(data, p.getVariableType() == EParamVariableType.BYTE ? EDataVariableType.BYTE_WORD_DWORD : EDataVariableType.BIT);
+            returnItems.add(dataItem);
+        });
         S7Data ack = S7Data.createReadWriteResponse(req, returnItems);
-        this.write(socket, ack.toByteArray());
+        this.write(session, ack.toByteArray());
     }
 
     /**
      * Write data handler.
      * (写入数据处理)
      *
-     * @param socket socket object
-     * @param req    request data
+     * @param session client session
+     * @param req     request data
      */
-    private void writeVariableHandle(Socket socket, S7Data req) {
+    private void writeVariableHandle(NioClientSession session, S7Data req) {
         ReadWriteParameter parameter = (ReadWriteParameter) req.getParameter();
         ReadWriteDatum datum = (ReadWriteDatum) req.getDatum();
         List<DataItem> dataItems = datum.getReturnItems().stream().map(DataItem.class::cast).collect(Collectors.toList());
         List<ReturnItem> returnItems = new ArrayList<>();
-        try {
-            this.rwLock.writeLock().lock();
-            for (int i = 0; i < parameter.getItemCount(); i++) {
-                RequestItem p = (RequestItem) (parameter.getRequestItems().get(i));
-                DataItem d = dataItems.get(i);
-                // 判定该区域的数据是否存在
-                String area = AddressUtil.parseArea(p);
-                if (!this.dataMap.containsKey(area)) {
-                    // 客户端[{}]写入[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，无该区域地址
-                    log.error("Client[{}] write [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], no the address data",
-                            socket.getRemoteSocketAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount());
-                    returnItems.add(ReturnItem.createDefault(EReturnCode.OBJECT_DOES_NOT_EXIST));
-                    continue;
-                }
-                // 写入指定地址的数据
-                byte[] bytes = this.dataMap.get(area);
+        for (int i = 0; i < parameter.getItemCount(); i++) {
+            RequestItem p = (RequestItem) (parameter.getRequestItems().get(i));
+            DataItem d = dataItems.get(i);
+            // 判定该区域的数据是否存在
+            String area = AddressUtil.parseArea(p);
+            S7DataArea dataArea = this.dataMap.get(area);
+            if (dataArea == null) {
+                // 客户端[{}]写入[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，无该区域地址
+                log.error("Client[{}] write [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], no the address data",
+                        session.getRemoteAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount());
+                returnItems.add(ReturnItem.createDefault(EReturnCode.OBJECT_DOES_NOT_EXIST));
+                continue;
+            }
+            // 写入指定地址的数据，只锁定该区域
+            try {
                 if (p.getVariableType() == EParamVariableType.BYTE) {
-                    System.arraycopy(d.getData(), 0, bytes, p.getByteAddress(), d.getData().length);
+                    dataArea.writeBytes(p.getByteAddress(), d.getData());
                 } else {
-                    byte newData = BooleanUtil.setBit(bytes[p.getByteAddress()], p.getBitAddress(), d.getData()[0] == 1);
-                    System.arraycopy(new byte[]{newData}, 0, bytes, p.getByteAddress(), 1);
+                    dataArea.writeBit(p.getByteAddress(), p.getBitAddress(), d.getData()[0] == 1);
                 }
-                // 客户端[{}]写入[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，区域地址数据{}
-                log.debug("Client[{}] write [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], address data{}",
-                        socket.getRemoteSocketAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount(), d.getData());
-                returnItems.add(ReturnItem.createDefault(EReturnCode.SUCCESS));
+            } catch (IndexOutOfBoundsException e) {
+                // 客户端[{}]写入[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，地址超出范围
+                log.error("Client[{}] write [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], address out of range",
+                        session.getRemoteAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount());
+                returnItems.add(ReturnItem.createDefault(EReturnCode.INVALID_ADDRESS));
+                continue;
             }
-        } finally {
-            this.rwLock.writeLock().unlock();
+            // 客户端[{}]写入[{}]数据，区域[{}]，字节索引[{}]，位索引[{}]，长度[{}]，区域地址数据{}
+            log.debug("Client[{}] write [{}] data, area[{}], byte index[{}], bit index[{}], length[{}], address data{}",
+                    session.getRemoteAddress(), p.getVariableType(), area, p.getByteAddress(), p.getBitAddress(), p.getCount(), d.getData());
+            returnItems.add(ReturnItem.createDefault(EReturnCode.SUCCESS));
         }
 
         S7Data ack = S7Data.createReadWriteResponse(req, returnItems);
-        this.write(socket, ack.toByteArray());
-    }
-
-    /**
-     * Read S7 data from client.
-     * (读取S7协议的数据)
-     *
-     * @param socket socket object
-     * @return S7Data
-     */
-    private S7Data readS7DataFromClient(Socket socket) {
-        byte[] data = this.readClientData(socket);
-        return S7Data.fromBytes(data);
-    }
-
-    /**
-     * Rewrite read client data, sticky packet data processing
-     * (重写读取客户端数据，针对粘包的数据处理)
-     *
-     * @param socket client socket object
-     * @return byte array
-     */
-    @Override
-    protected byte[] readClientData(Socket socket) {
-        try {
-            InputStream in = socket.getInputStream();
-            int firstByte = in.read();
-            if (firstByte == -1) {
-                SocketUtils.close(socket);
-                throw new SocketRuntimeException("The client is disconnected.");
-            }
-            // 先获取TPKT
-            byte[] tpktData = new byte[4];
-            tpktData[0] = (byte) firstByte;
-            this.read(socket, tpktData, 1, 3, 1024, 0, true);
-            TPKT tpkt = TPKT.fromBytes(tpktData);
-            // 根据内部的长度获取剩余部分内容
-            byte[] data = new byte[tpkt.getLength()];
-            System.arraycopy(tpktData, 0, data, 0, tpktData.length);
-            this.read(socket, data, 4, data.length - 4, 1024, 0, true);
-            return data;
-        } catch (IOException e) {
-            throw new SocketRuntimeException(e);
-        }
+        this.write(session, ack.toByteArray());
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+
+import com.github.xingshuangs.iot.common.poll.IPollReader;
+import com.github.xingshuangs.iot.common.poll.PollTag;
+import com.github.xingshuangs.iot.protocol.s7.serializer.S7Parameter;
+import com.github.xingshuangs.iot.protocol.s7.serializer.S7Serializer;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * S7 poll reader, all tags are read by one readS7Data, so neighbouring addresses are coalesced and grouped by pdu.
+ * The tag address is the S7 address, such as DB1.0, M1.2.
+ * (S7轮询读取器，所有点位通过一次readS7Data读取，相邻地址会被合并，并按pdu分组；点位地址为S7地址，例如DB1.0，M1.2)
+ *
+ * @author xingshuang
+ */
+public class S7PollReader implements IPollReader {
+
+    private final S7Serializer serializer;
+
+    public S7PollReader(S7PLC s7PLC) {
+        this.serializer = S7Serializer.newInstance(s7PLC);
+    }
+
+    @Override
+    public List<Object> read(List<PollTag> tags) {
+        List<S7Parameter> parameters = tags.stream()
+                .map(x -> new S7Parameter(x.getAddress(), x.getDataType(), x.getCount()))
+                .collect(Collectors.toList());
+        return this.serializer.read(parameters).stream().map(S7Parameter::getValue).collect(Collectors.toList());
+    }
+}
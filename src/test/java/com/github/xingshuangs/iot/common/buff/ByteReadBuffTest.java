@@ -24,6 +24,9 @@
 
 package com.github.xingshuangs.iot.common.buff;
 
+import com.github.xingshuangs.iot.utils.FloatUtil;
+import com.github.xingshuangs.iot.utils.IntegerUtil;
+import com.github.xingshuangs.iot.utils.LongUtil;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -124,6 +127,38 @@ public class ByteReadBuffTest {
         ByteReadBuff buff = new ByteReadBuff(new byte[]{(byte) 0x15, (byte) 0x55, (byte) 0x56, (byte) 0x89, (byte) 0x8A, (byte) 0x9B, (byte) 0x56, (byte) 0x58});
         long actual = buff.getInt64();
         assertEquals(1537229996552836696L, actual);
+        assertEquals(8, buff.getOffset());
+    }
+
+    @Test
+    public void getInt64Sequence() {
+        ByteReadBuff buff = new ByteReadBuff(new byte[]{
+                (byte) 0x15, (byte) 0x55, (byte) 0x56, (byte) 0x89, (byte) 0x8A, (byte) 0x9B, (byte) 0x56, (byte) 0x58,
+                (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x20, (byte) 0x37, (byte) 0x36});
+        assertEquals(1537229996552836696L, buff.getInt64());
+        assertEquals(2111286L, buff.getInt64());
+        assertEquals(0, buff.getRemainSize());
+    }
+
+    @Test
+    public void getByFormat() {
+        byte[] data = new byte[]{(byte) 0x15, (byte) 0x55, (byte) 0x56, (byte) 0x89, (byte) 0x8A, (byte) 0x9B, (byte) 0x56, (byte) 0x58};
+        for (EByteBuffFormat format : EByteBuffFormat.values()) {
+            for (boolean littleEndian : new boolean[]{false, true}) {
+                ByteReadBuff buff = new ByteReadBuff(data, 0, littleEndian, format);
+                assertEquals(IntegerUtil.toInt32(format.formatIn4Bytes(data), 0, littleEndian), buff.getInt32(0));
+                assertEquals(IntegerUtil.toUInt32(format.formatIn4Bytes(data, 4), 0, littleEndian), buff.getUInt32(4));
+                assertEquals(LongUtil.toInt64(format.formatIn8Bytes(data), 0, littleEndian), buff.getInt64(0));
+                assertEquals(FloatUtil.toFloat32(format.formatIn4Bytes(data), 0, littleEndian), buff.getFloat32(0), 0);
+                assertEquals(FloatUtil.toFloat64(format.formatIn8Bytes(data), 0, littleEndian), buff.getFloat64(0), 0);
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getInt32OutOfBounds() {
+        ByteReadBuff buff = new ByteReadBuff(new byte[]{(byte) 0x15, (byte) 0x55, (byte) 0x56});
+        buff.getInt32();
     }
 
     @Test
@@ -24,10 +24,14 @@
 
 package com.github.xingshuangs.iot.common.buff;
 
+import com.github.xingshuangs.iot.utils.FloatUtil;
+import com.github.xingshuangs.iot.utils.IntegerUtil;
+import com.github.xingshuangs.iot.utils.LongUtil;
 import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 
 public class ByteWriteBuffTest {
@@ -132,6 +136,33 @@ public class ByteWriteBuffTest {
         assertEquals(8, buff.getOffset());
     }
 
+    @Test
+    public void putByFormat() {
+        for (EByteBuffFormat format : EByteBuffFormat.values()) {
+            for (boolean littleEndian : new boolean[]{false, true}) {
+                ByteWriteBuff buff = new ByteWriteBuff(24, littleEndian, format);
+                buff.putInteger(0x15555689)
+                        .putLong(0x158A9B5658203736L)
+                        .putFloat(33.16f)
+                        .putDouble(156665.35455556);
+                assertEquals(24, buff.getOffset());
+                byte[] expect = ByteWriteBuff.newInstance(24)
+                        .putBytes(format.formatIn4Bytes(IntegerUtil.toByteArray(0x15555689, littleEndian)))
+                        .putBytes(format.formatIn8Bytes(LongUtil.toByteArray(0x158A9B5658203736L, littleEndian)))
+                        .putBytes(format.formatIn4Bytes(FloatUtil.toByteArray(33.16f, littleEndian)))
+                        .putBytes(format.formatIn8Bytes(FloatUtil.toByteArray(156665.35455556, littleEndian)))
+                        .getData();
+                assertArrayEquals(expect, buff.getData());
+
+                ByteReadBuff read = new ByteReadBuff(buff.getData(), 0, littleEndian, format);
+                assertEquals(0x15555689, read.getInt32());
+                assertEquals(0x158A9B5658203736L, read.getInt64());
+                assertEquals(33.16f, read.getFloat32(), 0);
+                assertEquals(156665.35455556, read.getFloat64(), 0);
+            }
+        }
+    }
+
     @Test
     public void putString() {
         ByteWriteBuff buff = new ByteWriteBuff(4);
@@ -139,4 +170,14 @@ public class ByteWriteBuffTest {
         assertArrayEquals(new byte[]{(byte) 0x30, (byte) 0x31, (byte) 0x32, (byte) 0x33}, buff.getData());
         assertEquals(4, buff.getOffset());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void wrapArray() {
+        byte[] data = new byte[8];
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(data, 2);
+        buff.putShort(0x0102).putByte(3);
+        assertEquals(5, buff.getOffset());
+        assertSame(data, buff.getData());
+        assertArrayEquals(new byte[]{0, 0, 1, 2, 3, 0, 0, 0}, data);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.common.poll;
+
+import com.github.xingshuangs.iot.common.enums.EDataType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+
+public class PollEngineTest {
+
+    @Test
+    public void isChanged() {
+        assertTrue(PollEngine.isChanged(null, 1, 0));
+        assertFalse(PollEngine.isChanged(1, 1, 0));
+        assertTrue(PollEngine.isChanged(1, 2, 0));
+        assertFalse(PollEngine.isChanged(1.0f, 1.4f, 0.5));
+        assertTrue(PollEngine.isChanged(1.0f, 1.6f, 0.5));
+        assertFalse(PollEngine.isChanged(new byte[]{1, 2}, new byte[]{1, 2}, 0));
+        assertTrue(PollEngine.isChanged(new byte[]{1, 2}, new byte[]{1, 3}, 0));
+        assertTrue(PollEngine.isChanged(false, true, 0));
+    }
+
+    @Test
+    public void changeOnlyAndDeduplicate() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        IPollReader reader = tags -> {
+            int value = counter.incrementAndGet();
+            batches.add(tags.stream().map(PollTag::getAddress).collect(Collectors.toList()));
+            List<Object> res = new ArrayList<>();
+            for (PollTag tag : tags) {
+                // A的值每3次变化一次，B的值每次加0.1
+                res.add(tag.getAddress().equals("A") ? (value + 2) / 3 : value * 0.1);
+            }
+            return res;
+        };
+        PollEngine engine = new PollEngine(reader);
+        engine.setTickInterval(10);
+
+        CountDownLatch latch = new CountDownLatch(6);
+        List<PollEvent> events1 = new CopyOnWriteArrayList<>();
+        List<PollEvent> events2 = new CopyOnWriteArrayList<>();
+        engine.addGroup(new PollGroup("g1", 10, x -> {
+            events1.addAll(x);
+            latch.countDown();
+        }).addTag(new PollTag("A", EDataType.INT32)));
+        engine.addGroup(new PollGroup("g2", 10, events2::addAll)
+                .addTag(new PollTag("A", EDataType.INT32))
+                .addTag(new PollTag("B", EDataType.FLOAT64, 1, 0.25)));
+        engine.start();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        engine.stop();
+
+        // 两个分组关注的相同点位只读取一次
+        assertTrue(batches.stream().allMatch(x -> x.size() <= 2));
+        assertEquals(2, batches.get(0).size());
+        // 只有变化的数据才通知
+        for (int i = 1; i < events1.size(); i++) {
+            assertNotEquals(events1.get(i - 1).getNewValue(), events1.get(i).getNewValue());
+            assertEquals(events1.get(i - 1).getNewValue(), events1.get(i).getOldValue());
+        }
+        // 死区内的变化不通知
+        List<PollEvent> bEvents = events2.stream().filter(x -> x.getTag().getAddress().equals("B")).collect(Collectors.toList());
+        for (int i = 1; i < bEvents.size(); i++) {
+            double diff = (double) bEvents.get(i).getNewValue() - (double) bEvents.get(i).getOldValue();
+            assertTrue(diff > 0.25);
+        }
+    }
+
+    @Test
+    public void readError() throws InterruptedException {
+        PollEngine engine = new PollEngine(tags -> {
+            throw new IllegalStateException("offline");
+        });
+        CountDownLatch latch = new CountDownLatch(1);
+        PollGroup group = new PollGroup("g1", 10, x -> fail());
+        group.setOnError(e -> latch.countDown());
+        engine.addGroup(group.addTag(new PollTag("A", EDataType.INT16)));
+        engine.start();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        engine.stop();
+        assertFalse(engine.isRunning());
+    }
+
+    @Test
+    public void restartNotOverlap() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PollEngine engine = new PollEngine(tags -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            entered.countDown();
+            try {
+                // 阻塞第一次读取，期间重启引擎
+                release.await(5, TimeUnit.SECONDS);
+                return tags.stream().map(x -> (Object) 1).collect(Collectors.toList());
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        engine.addGroup(new PollGroup("g1", 1, x -> {
+        }).addTag(new PollTag("A", EDataType.INT16)));
+        engine.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        engine.setTickInterval(5);
+        Thread.sleep(100);
+        release.countDown();
+        Thread.sleep(100);
+        engine.stop();
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addDuplicateGroup() {
+        PollEngine engine = new PollEngine(tags -> new ArrayList<>());
+        engine.addGroup(new PollGroup("g1", 10, x -> {
+        }).addTag(new PollTag("A", EDataType.INT16)));
+        engine.addGroup(new PollGroup("g1", 10, x -> {
+        }).addTag(new PollTag("A", EDataType.INT16)));
+    }
+}
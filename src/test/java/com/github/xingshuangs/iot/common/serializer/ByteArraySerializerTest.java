@@ -25,6 +25,7 @@
 package com.github.xingshuangs.iot.common.serializer;
 
 import com.github.xingshuangs.iot.common.enums.EDataType;
+import com.github.xingshuangs.iot.exceptions.ByteArrayParseException;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -269,4 +270,26 @@ public class ByteArraySerializerTest {
         assertArrayEquals(expect, actual);
         bean.getInt32Data().byteValue();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void noDefaultConstructor() {
+        ByteArraySerializer serializer = ByteArraySerializer.newInstance();
+        try {
+            serializer.toObject(NoDefaultConstructorBean.class, new byte[]{0x01});
+            fail();
+        } catch (ByteArrayParseException e) {
+            // 本身的异常不再二次包装
+            assertNull(e.getCause());
+        }
+    }
+
+    public static class NoDefaultConstructorBean {
+
+        @ByteArrayVariable(byteOffset = 0, count = 1, type = EDataType.BOOL)
+        private Boolean boolData;
+
+        public NoDefaultConstructorBean(Boolean boolData) {
+            this.boolData = boolData;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.melsec.service;
+
+import com.github.xingshuangs.iot.common.constant.GeneralConst;
+import com.github.xingshuangs.iot.exceptions.McCommException;
+import com.github.xingshuangs.iot.exceptions.SocketTimeoutException;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcDeviceCode;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcFrameType;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcSeries;
+import com.github.xingshuangs.iot.protocol.melsec.model.McDeviceAddress;
+import com.github.xingshuangs.iot.protocol.melsec.model.McDeviceContent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pipelining of 4E frame by serial number.
+ * (4E帧根据序列号管道化发送)
+ */
+public class McNetworkPipelineTest {
+
+    private McPLCServer server;
+
+    private ServerSocket stubSocket;
+
+    private Thread stub;
+
+    @Before
+    public void init() throws Exception {
+        this.server = new McPLCServer(6002);
+        this.server.start();
+        this.stubSocket = new ServerSocket(0);
+    }
+
+    @After
+    public void destroy() throws Exception {
+        this.server.stop();
+        this.stubSocket.close();
+        if (this.stub != null) {
+            this.stub.join(3000);
+        }
+    }
+
+    private McPLC createMultiplexed(int port, int maxInFlight) {
+        McPLC mcPLC = new McPLC(EMcSeries.Q_L, EMcFrameType.FRAME_4E, "127.0.0.1", port);
+        mcPLC.setMultiplexed(true);
+        mcPLC.setMaxInFlight(maxInFlight);
+        return mcPLC;
+    }
+
+    private static byte[] words(int head, int count) {
+        byte[] res = new byte[count * 2];
+        for (int i = 0; i < count; i++) {
+            res[i * 2] = (byte) (head + i);
+            res[i * 2 + 1] = (byte) ((head + i) >> 8);
+        }
+        return res;
+    }
+
+    /**
+     * Start the stub of PLC, it reads the 4E requests of batch read in word, and replies them in the reverse order,
+     * the words are the device numbers, the serial number of ack is increased by the offset.
+     * (启动PLC桩，读取按字批量读取的4E请求，倒序回复，字的值为软元件编号，响应序列号加上偏移量)
+     *
+     * @param batch        request count of each reply batch
+     * @param serialOffset offset of serial number
+     */
+    private void startStub(int batch, int serialOffset) {
+        this.stub = new Thread(() -> {
+            try (Socket socket = this.stubSocket.accept()) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                while (true) {
+                    List<byte[]> acks = new ArrayList<>();
+                    for (int i = 0; i < batch; i++) {
+                        byte[] header = new byte[13];
+                        in.readFully(header);
+                        byte[] body = new byte[(header[11] & 0xFF) | ((header[12] & 0xFF) << 8)];
+                        in.readFully(body);
+                        // 监视定时器2 + 指令2 + 子指令2 + 起始软元件3 + 软元件代码1 + 点数2
+                        int head = (body[6] & 0xFF) | ((body[7] & 0xFF) << 8) | ((body[8] & 0xFF) << 16);
+                        int points = (body[10] & 0xFF) | ((body[11] & 0xFF) << 8);
+                        byte[] ack = new byte[15 + points * 2];
+                        System.arraycopy(header, 0, ack, 0, 11);
+                        ack[0] = (byte) 0xD4;
+                        int serial = ((header[2] & 0xFF) | ((header[3] & 0xFF) << 8)) + serialOffset;
+                        ack[2] = (byte) serial;
+                        ack[3] = (byte) (serial >> 8);
+                        ack[11] = (byte) (2 + points * 2);
+                        ack[12] = (byte) ((2 + points * 2) >> 8);
+                        System.arraycopy(words(head, points), 0, ack, 15, points * 2);
+                        acks.add(ack);
+                    }
+                    Collections.reverse(acks);
+                    for (byte[] ack : acks) {
+                        out.write(ack);
+                    }
+                    out.flush();
+                }
+            } catch (Exception e) {
+                // 客户端关闭，测试结束
+            }
+        });
+        this.stub.start();
+    }
+
+    @Test
+    public void chunksInFlight() {
+        McPLC mcPLC = this.createMultiplexed(6002, 4);
+        AtomicInteger reqCount = new AtomicInteger();
+        AtomicInteger ackCount = new AtomicInteger();
+        mcPLC.setComCallback((tag, bytes) -> {
+            if (GeneralConst.PACKAGE_REQ.equals(tag)) {
+                reqCount.incrementAndGet();
+            } else {
+                ackCount.incrementAndGet();
+            }
+        });
+        // 3000个字按960点拆分为4个分组同时在途
+        byte[] expect = words(0, 3000);
+        mcPLC.writeDeviceBatchInWord(new McDeviceContent(EMcDeviceCode.D, 0, 3000, expect));
+        McDeviceContent actual = mcPLC.readDeviceBatchInWord(new McDeviceAddress(EMcDeviceCode.D, 0, 3000));
+        assertArrayEquals(expect, actual.getData());
+        assertEquals(8, reqCount.get());
+        assertEquals(8, ackCount.get());
+        mcPLC.close();
+    }
+
+    @Test
+    public void concurrentCallers() {
+        McPLC mcPLC = this.createMultiplexed(6002, 8);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int head = 1000 + i * 100;
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 20; j++) {
+                    mcPLC.writeInt16("D" + head, (short) (head + j));
+                    assertEquals(head + j, mcPLC.readInt16("D" + head));
+                }
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+        mcPLC.close();
+    }
+
+    @Test
+    public void outOfOrderAcks() {
+        this.startStub(2, 0);
+        McPLC mcPLC = this.createMultiplexed(this.stubSocket.getLocalPort(), 2);
+        // 1920个字拆分为2个分组，桩倒序回复，根据序列号匹配后顺序不变
+        McDeviceContent actual = mcPLC.readDeviceBatchInWord(new McDeviceAddress(EMcDeviceCode.D, 0, 1920));
+        assertArrayEquals(words(0, 1920), actual.getData());
+        mcPLC.close();
+    }
+
+    @Test
+    public void wrongSerialRejected() {
+        this.startStub(1, 1);
+        McPLC mcPLC = new McPLC(EMcSeries.Q_L, EMcFrameType.FRAME_4E, "127.0.0.1", this.stubSocket.getLocalPort());
+        try {
+            mcPLC.readInt16("D0");
+            fail();
+        } catch (McCommException e) {
+            assertTrue(e.getMessage().contains("serial number"));
+        }
+        mcPLC.close();
+    }
+
+    @Test
+    public void wrongSerialMultiplexed() {
+        this.startStub(1, 1);
+        McPLC mcPLC = this.createMultiplexed(this.stubSocket.getLocalPort(), 2);
+        mcPLC.setReceiveTimeout(500);
+        // 序列号无法匹配的响应被丢弃，请求超时
+        try {
+            mcPLC.readInt16("D0");
+            fail();
+        } catch (SocketTimeoutException e) {
+            assertTrue(e.getMessage().contains("timeout"));
+        }
+        mcPLC.close();
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.melsec.service;
+
+import com.github.xingshuangs.iot.common.constant.GeneralConst;
+import com.github.xingshuangs.iot.exceptions.McCommException;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcCommand;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcDeviceCode;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcFrameType;
+import com.github.xingshuangs.iot.protocol.melsec.enums.EMcSeries;
+import com.github.xingshuangs.iot.protocol.melsec.model.McDeviceAddress;
+import com.github.xingshuangs.iot.protocol.melsec.model.McDeviceContent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class McPLCServerTest {
+
+    private McPLCServer server;
+
+    @Before
+    public void init() {
+        this.server = new McPLCServer(6001);
+        this.server.start();
+    }
+
+    @After
+    public void destroy() {
+        this.server.stop();
+    }
+
+    private McPLC create(EMcSeries series, EMcFrameType frameType) {
+        return new McPLC(series, frameType, "127.0.0.1", 6001);
+    }
+
+    @Test
+    public void batchInWord3E() {
+        McPLC mcPLC = this.create(EMcSeries.Q_L, EMcFrameType.FRAME_3E);
+        mcPLC.writeInt16("D100", (short) -123);
+        assertEquals(-123, mcPLC.readInt16("D100"));
+        mcPLC.writeInt32("D102", 123456789);
+        assertEquals(123456789, mcPLC.readInt32("D102"));
+        mcPLC.writeFloat32("W1A", 3.25f);
+        assertEquals(3.25f, mcPLC.readFloat32("W1A"), 0.0001);
+        mcPLC.writeString("R0", "hello");
+        assertEquals("hello", mcPLC.readString("R0", 5));
+        mcPLC.close();
+    }
+
+    @Test
+    public void batchInBit3E() {
+        McPLC mcPLC = this.create(EMcSeries.Q_L, EMcFrameType.FRAME_3E);
+        mcPLC.writeBoolean("M100", true, false, true);
+        assertEquals(Arrays.asList(true, false, true), mcPLC.readBoolean("M100", 3));
+        mcPLC.writeBoolean("X1F", true);
+        assertTrue(mcPLC.readBoolean("X1F"));
+        assertFalse(mcPLC.readBoolean("X1E"));
+
+        // 位软元件按字访问，每个字16个点
+        mcPLC.writeUInt16("M16", 0x8001);
+        assertEquals(Arrays.asList(true, false, false), mcPLC.readBoolean("M16", 3));
+        assertTrue(mcPLC.readBoolean("M31"));
+        mcPLC.writeBoolean("M33", true);
+        assertEquals(0x0001, mcPLC.readUInt16("M33"));
+        mcPLC.close();
+    }
+
+    @Test
+    public void randomAndMultiBlocks() {
+        McPLC mcPLC = this.create(EMcSeries.Q_L, EMcFrameType.FRAME_3E);
+        McMultiAddressWrite write = new McMultiAddressWrite();
+        write.addInt16("D200", 11).addUInt16("D201", 22).addInt32("D210", -33).addFloat32("D220", 1.5f);
+        mcPLC.writeMultiAddress(write);
+        assertEquals(Arrays.asList((short) 11, (short) 22), mcPLC.readInt16("D200", "D201"));
+        assertEquals(-33, mcPLC.readInt32("D210"));
+        assertEquals(1.5f, mcPLC.readFloat32("D220"), 0.0001);
+
+        mcPLC.writeDeviceRandomInBit(Arrays.asList(
+                new McDeviceContent(EMcDeviceCode.M, 200, new byte[]{0x01}),
+                new McDeviceContent(EMcDeviceCode.M, 202, new byte[]{0x01})));
+        assertEquals(Arrays.asList(true, false, true), mcPLC.readBoolean("M200", 3));
+        mcPLC.close();
+
+        // 客户端只在4E帧下支持多块批量读写
+        mcPLC = this.create(EMcSeries.Q_L, EMcFrameType.FRAME_4E);
+        mcPLC.writeDeviceBatchMultiBlocks(
+                Collections.singletonList(new McDeviceContent(EMcDeviceCode.D, 300, 2, new byte[]{0x01, 0x00, 0x02, 0x00})),
+                Collections.singletonList(new McDeviceContent(EMcDeviceCode.M, 320, 1, new byte[]{0x05, 0x00})));
+        List<McDeviceContent> contents = mcPLC.readDeviceBatchMultiBlocks(
+                Collections.singletonList(new McDeviceAddress(EMcDeviceCode.D, 300, 2)),
+                Collections.singletonList(new McDeviceAddress(EMcDeviceCode.M, 320, 1)));
+        assertArrayEquals(new byte[]{0x01, 0x00, 0x02, 0x00}, contents.get(0).getData());
+        assertArrayEquals(new byte[]{0x05, 0x00}, contents.get(1).getData());
+        assertEquals(Arrays.asList(true, false, true), mcPLC.readBoolean("M320", 3));
+        mcPLC.close();
+    }
+
+    @Test
+    public void frame4EAndIqr() {
+        McPLC mcPLC = this.create(EMcSeries.Q_L, EMcFrameType.FRAME_4E);
+        mcPLC.writeInt16("D10", (short) 10);
+        assertEquals(10, mcPLC.readInt16("D10"));
+        mcPLC.close();
+
+        McPLC iqr = this.create(EMcSeries.IQ_R, EMcFrameType.FRAME_3E);
+        assertEquals(10, iqr.readInt16("D10"));
+        iqr.writeBoolean("B1F", true, true);
+        assertEquals(Arrays.asList(true, true), iqr.readBoolean("B1F", 2));
+        iqr.writeInt32("ZR100", 7);
+        assertEquals(Arrays.asList(7, 7), iqr.readInt32("ZR100", "ZR100"));
+        iqr.close();
+    }
+
+    @Test
+    public void frame1E() {
+        McPLC mcPLC = this.create(EMcSeries.A, EMcFrameType.FRAME_1E);
+        mcPLC.writeInt16("D100", (short) 1234);
+        assertEquals(1234, mcPLC.readInt16("D100"));
+        mcPLC.writeBoolean("Y10", true, false, true);
+        assertEquals(Arrays.asList(true, false, true), mcPLC.readBoolean("Y10", 3));
+        mcPLC.writeDeviceRandomInWord(Collections.singletonList(new McDeviceContent(EMcDeviceCode.D, 110, new byte[]{0x34, 0x12})),
+                new ArrayList<>());
+        assertEquals(0x1234, mcPLC.readUInt16("D110"));
+        mcPLC.close();
+
+        // 3E帧和1E帧共享存储区
+        McPLC mcPLC3E = this.create(EMcSeries.Q_L, EMcFrameType.FRAME_3E);
+        assertEquals(1234, mcPLC3E.readInt16("D100"));
+        mcPLC3E.close();
+    }
+
+    @Test
+    public void frame1EAsync() {
+        this.server.addDeviceArea(EMcDeviceCode.D, 200);
+        McPLC mcPLC = this.create(EMcSeries.A, EMcFrameType.FRAME_1E);
+        mcPLC.writeInt16Async("D100", (short) 1234).join();
+        // 异步客户端创建之后再设置回调，仍然能够收到报文
+        AtomicInteger reqCount = new AtomicInteger();
+        AtomicInteger ackCount = new AtomicInteger();
+        mcPLC.setComCallback((tag, bytes) -> {
+            if (GeneralConst.PACKAGE_REQ.equals(tag)) {
+                reqCount.incrementAndGet();
+            } else {
+                ackCount.incrementAndGet();
+            }
+        });
+        CompletableFuture<Void> writeBits = mcPLC.writeBooleanAsync("Y10", Arrays.asList(true, false, true));
+        CompletableFuture<Short> word = mcPLC.readInt16Async("D100");
+        CompletableFuture<List<Boolean>> bits = mcPLC.readBooleanAsync("Y10", 3);
+        // 超范围读取，异常响应带1个字节的异常代码
+        CompletableFuture<Integer> error = mcPLC.readInt32Async("D199");
+        writeBits.join();
+        assertEquals(1234, word.join().shortValue());
+        assertEquals(Arrays.asList(true, false, true), bits.join());
+        try {
+            error.join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof McCommException);
+        }
+        // 异常响应之后连接仍然可用
+        assertEquals(1234, mcPLC.readInt16Async("D100").join().shortValue());
+        assertEquals(5, reqCount.get());
+        assertEquals(5, ackCount.get());
+        mcPLC.close();
+    }
+
+    @Test
+    public void errorResponse() {
+        this.server.addDeviceArea(EMcDeviceCode.D, 100);
+        McPLC mcPLC = this.create(EMcSeries.Q_L, EMcFrameType.FRAME_3E);
+        mcPLC.writeInt16("D99", (short) 1);
+        try {
+            mcPLC.readInt32("D99");
+            fail();
+        } catch (McCommException e) {
+            assertTrue(e.getMessage().contains("49238"));
+        }
+        try {
+            // 对字软元件按位读取
+            mcPLC.readDeviceBatchRaw(EMcCommand.DEVICE_ACCESS_BATCH_READ_IN_UNITS, 0x0001, EMcDeviceCode.D, 0, 1);
+            fail();
+        } catch (McCommException e) {
+            assertTrue(e.getMessage().contains("49244"));
+        }
+        // 错误之后连接仍然可用
+        assertEquals(1, mcPLC.readInt16("D99"));
+        mcPLC.close();
+
+        McPLC mcPLC1E = this.create(EMcSeries.A, EMcFrameType.FRAME_1E);
+        try {
+            mcPLC1E.readInt16("D100");
+            fail();
+        } catch (McCommException e) {
+            assertTrue(e.getMessage().contains("88"));
+        }
+        mcPLC1E.close();
+    }
+
+    @Test
+    public void concurrentClients() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int index = i;
+            futures.add(CompletableFuture.runAsync(() -> {
+                McPLC mcPLC = this.create(EMcSeries.Q_L, EMcFrameType.FRAME_3E);
+                for (int j = 0; j < 50; j++) {
+                    mcPLC.writeInt32("D" + (1000 + index * 2), j);
+                    assertEquals(j, mcPLC.readInt32("D" + (1000 + index * 2)));
+                }
+                mcPLC.close();
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+}
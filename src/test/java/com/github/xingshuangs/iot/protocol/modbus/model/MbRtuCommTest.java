@@ -56,4 +56,14 @@ public class MbRtuCommTest {
                 (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00};
         assertArrayEquals(expectData, holdRegister.getRegister());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void responseLengthTest() {
+        assertEquals(6, MbPdu.getResponseLength(new byte[]{(byte) 0x03, (byte) 0x04}, 0));
+        assertEquals(3, MbPdu.getResponseLength(new byte[]{(byte) 0x01, (byte) 0x03, (byte) 0x01}, 1));
+        assertEquals(5, MbPdu.getResponseLength(new byte[]{(byte) 0x10, (byte) 0x00}, 0));
+        assertEquals(5, MbPdu.getResponseLength(new byte[]{(byte) 0x05, (byte) 0x00}, 0));
+        assertEquals(2, MbPdu.getResponseLength(new byte[]{(byte) 0x83, (byte) 0x02}, 0));
+        assertEquals(257, MbPdu.getResponseLength(new byte[]{(byte) 0x04, (byte) 0xFF}, 0));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.modbus.service;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+
+public class ModbusDataStoreTest {
+
+    @Test
+    public void coils() {
+        ModbusDataStore store = new ModbusDataStore();
+        assertEquals(65536, store.getSize());
+        // 跨越long边界和分段边界
+        store.writeCoils(1020, 10, new byte[]{(byte) 0xA5, 0x03});
+        assertArrayEquals(new byte[]{(byte) 0xA5, 0x03}, store.readCoils(1020, 10));
+        assertArrayEquals(new byte[]{0x29}, store.readCoils(1022, 6));
+        assertArrayEquals(new byte[]{0x00}, store.readCoils(1019, 1));
+        store.writeCoil(1021, true);
+        assertArrayEquals(new byte[]{(byte) 0xA7}, store.readCoils(1020, 8));
+
+        store.writeCoil(65535, true);
+        assertArrayEquals(new byte[]{0x01}, store.readCoils(65535, 1));
+        assertArrayEquals(new byte[]{(byte) 0x80}, store.readCoils(65528, 8));
+        assertArrayEquals(new byte[]{0x00}, store.readDiscreteInputs(65535, 1));
+    }
+
+    @Test
+    public void registers() {
+        ModbusDataStore store = new ModbusDataStore(2000);
+        store.writeHoldRegisters(1022, new byte[]{0x01, 0x02, 0x03, 0x04, (byte) 0xFF, (byte) 0xFE});
+        assertArrayEquals(new byte[]{0x03, 0x04, (byte) 0xFF, (byte) 0xFE}, store.readHoldRegisters(1023, 2));
+        store.writeHoldRegister(1999, 0xABCD);
+        assertArrayEquals(new byte[]{(byte) 0xAB, (byte) 0xCD}, store.readHoldRegisters(1999, 1));
+        assertArrayEquals(new byte[]{0x00, 0x00}, store.readInputRegisters(1999, 1));
+
+        assertTrue(store.checkRange(0, 2000));
+        assertFalse(store.checkRange(1999, 2));
+        assertFalse(store.checkRange(-1, 1));
+        assertFalse(store.checkRange(0, 0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfRange() {
+        ModbusDataStore store = new ModbusDataStore(100);
+        store.readHoldRegisters(99, 2);
+    }
+
+    @Test
+    public void atomicPerRequest() {
+        ModbusDataStore store = new ModbusDataStore();
+        AtomicBoolean running = new AtomicBoolean(true);
+        // 每次写入跨越3个分段的寄存器，读取时所有寄存器必须一致
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            byte[] data = new byte[2400 * 2];
+            for (int i = 0; running.get(); i++) {
+                for (int j = 0; j < data.length; j += 2) {
+                    data[j] = (byte) (i >> 8);
+                    data[j + 1] = (byte) i;
+                }
+                store.writeHoldRegisters(1000, data);
+            }
+        });
+        try {
+            for (int i = 0; i < 2000; i++) {
+                byte[] res = store.readHoldRegisters(1000, 2400);
+                for (int j = 2; j < res.length; j += 2) {
+                    assertEquals(res[0], res[j]);
+                    assertEquals(res[1], res[j + 1]);
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.modbus.service;
+
+import com.github.xingshuangs.iot.common.constant.GeneralConst;
+import com.github.xingshuangs.iot.exceptions.ModbusCommException;
+import com.github.xingshuangs.iot.utils.CRCUtil;
+import com.github.xingshuangs.iot.utils.HexUtil;
+import com.github.xingshuangs.iot.utils.LRCUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Framing of rtu and ascii over tcp, the gateway splits the response into segments or sends frames back-to-back.
+ * (RTU和ASCII over tcp的分帧，网关将响应拆成多段或者连续发送多帧)
+ */
+public class ModbusSerialOverTcpFrameTest {
+
+    private ServerSocket serverSocket;
+
+    private Thread gateway;
+
+    @Before
+    public void before() throws Exception {
+        this.serverSocket = new ServerSocket(0);
+    }
+
+    @After
+    public void after() throws Exception {
+        this.serverSocket.close();
+        if (this.gateway != null) {
+            this.gateway.join(3000);
+        }
+    }
+
+    /**
+     * Start the gateway, each reply is written in segments after receiving a request, the later requests are drained.
+     * (启动网关，每收到一个请求分段写入一个回复，之后的请求全部丢弃)
+     *
+     * @param replies segments of replies
+     */
+    private void startGateway(List<byte[][]> replies) {
+        this.gateway = new Thread(() -> {
+            try (Socket socket = this.serverSocket.accept()) {
+                InputStream in = socket.getInputStream();
+                OutputStream out = socket.getOutputStream();
+                byte[] buff = new byte[1024];
+                for (byte[][] reply : replies) {
+                    if (in.read(buff) < 0) {
+                        return;
+                    }
+                    for (byte[] segment : reply) {
+                        out.write(segment);
+                        out.flush();
+                        Thread.sleep(50);
+                    }
+                }
+                while (in.read(buff) >= 0) {
+                    // 丢弃后续请求，直到客户端关闭
+                }
+            } catch (Exception e) {
+                // 测试结束，关闭连接
+            }
+        });
+        this.gateway.start();
+    }
+
+    /**
+     * Start the gateway, one reply for each connection, the connection is kept until the client closes it.
+     * (启动网关，每个连接一个回复，连接保持到客户端关闭)
+     *
+     * @param replies reply of each connection
+     */
+    private void startReconnectGateway(List<byte[]> replies) {
+        this.gateway = new Thread(() -> {
+            try {
+                for (byte[] reply : replies) {
+                    try (Socket socket = this.serverSocket.accept()) {
+                        InputStream in = socket.getInputStream();
+                        byte[] buff = new byte[1024];
+                        if (in.read(buff) < 0) {
+                            return;
+                        }
+                        socket.getOutputStream().write(reply);
+                        socket.getOutputStream().flush();
+                        while (in.read(buff) >= 0) {
+                            // 丢弃后续请求，直到客户端关闭
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // 测试结束，关闭连接
+            }
+        });
+        this.gateway.start();
+    }
+
+    /**
+     * Start the gateway which echoes the requests of every connection, the write single register response is the same
+     * as the request.
+     * (启动网关，回显每个连接的请求，写单个寄存器的响应和请求相同)
+     */
+    private void startEchoGateway() {
+        this.gateway = new Thread(() -> {
+            try {
+                while (true) {
+                    try (Socket socket = this.serverSocket.accept()) {
+                        InputStream in = socket.getInputStream();
+                        OutputStream out = socket.getOutputStream();
+                        byte[] buff = new byte[1024];
+                        int len;
+                        while ((len = in.read(buff)) >= 0) {
+                            out.write(buff, 0, len);
+                            out.flush();
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // 测试结束，关闭连接
+            }
+        });
+        this.gateway.start();
+    }
+
+    private static byte[] rtuFrame(byte[] unitAndPdu) {
+        byte[] res = Arrays.copyOf(unitAndPdu, unitAndPdu.length + 2);
+        System.arraycopy(CRCUtil.crc16ToByteArray(unitAndPdu), 0, res, unitAndPdu.length, 2);
+        return res;
+    }
+
+    private static byte[] asciiFrame(byte[] unitAndPdu) {
+        byte[] res = Arrays.copyOf(unitAndPdu, unitAndPdu.length + 1);
+        res[unitAndPdu.length] = LRCUtil.lrc(unitAndPdu);
+        return (":" + HexUtil.toHexString(res, "") + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] res = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, res, a.length, b.length);
+        return res;
+    }
+
+    @Test
+    public void rtuSegmentedResponse() {
+        byte[] frame = rtuFrame(new byte[]{0x01, 0x03, 0x04, 0x00, 0x0A, 0x00, 0x14});
+        this.startGateway(Arrays.<byte[][]>asList(
+                new byte[][]{Arrays.copyOfRange(frame, 0, 1), Arrays.copyOfRange(frame, 1, 4), Arrays.copyOfRange(frame, 4, frame.length)}));
+        ModbusRtuOverTcp plc = new ModbusRtuOverTcp("127.0.0.1", this.serverSocket.getLocalPort());
+        plc.setReceiveTimeout(3000);
+        long start = System.currentTimeMillis();
+        assertArrayEquals(new byte[]{0x00, 0x0A, 0x00, 0x14}, plc.readHoldRegister(0, 2));
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        plc.close();
+    }
+
+    @Test
+    public void rtuBackToBackResponses() {
+        byte[] frame1 = rtuFrame(new byte[]{0x01, 0x03, 0x04, 0x00, 0x0A, 0x00, 0x14});
+        byte[] frame2 = rtuFrame(new byte[]{0x01, 0x06, 0x00, 0x01, 0x00, 0x07});
+        byte[] frame3 = rtuFrame(new byte[]{0x01, (byte) 0x83, 0x02});
+        this.startGateway(Arrays.<byte[][]>asList(new byte[][]{concat(concat(frame1, frame2), frame3)}));
+        ModbusRtuOverTcp plc = new ModbusRtuOverTcp("127.0.0.1", this.serverSocket.getLocalPort());
+        plc.setReceiveTimeout(3000);
+        assertArrayEquals(new byte[]{0x00, 0x0A, 0x00, 0x14}, plc.readHoldRegister(0, 2));
+        plc.writeHoldRegister(1, 7);
+        try {
+            // 异常响应只有5个字节
+            plc.readHoldRegister(0, 2);
+            fail();
+        } catch (ModbusCommException e) {
+            assertTrue(e.getMessage().contains("exception"));
+        }
+        plc.close();
+    }
+
+    @Test
+    public void asciiSegmentedResponse() {
+        byte[] frame = asciiFrame(new byte[]{0x01, 0x03, 0x04, 0x00, 0x0A, 0x00, 0x14});
+        this.startGateway(Arrays.<byte[][]>asList(
+                new byte[][]{Arrays.copyOfRange(frame, 0, 3), Arrays.copyOfRange(frame, 3, 10), Arrays.copyOfRange(frame, 10, frame.length)}));
+        ModbusAsciiOverTcp plc = new ModbusAsciiOverTcp("127.0.0.1", this.serverSocket.getLocalPort());
+        plc.setReceiveTimeout(3000);
+        long start = System.currentTimeMillis();
+        assertArrayEquals(new byte[]{0x00, 0x0A, 0x00, 0x14}, plc.readHoldRegister(0, 2));
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        plc.close();
+    }
+
+    @Test
+    public void asciiBackToBackResponses() {
+        byte[] frame1 = asciiFrame(new byte[]{0x01, 0x03, 0x04, 0x00, 0x0A, 0x00, 0x14});
+        byte[] frame2 = asciiFrame(new byte[]{0x01, 0x06, 0x00, 0x01, 0x00, 0x07});
+        this.startGateway(Arrays.<byte[][]>asList(new byte[][]{concat(frame1, frame2)}));
+        ModbusAsciiOverTcp plc = new ModbusAsciiOverTcp("127.0.0.1", this.serverSocket.getLocalPort());
+        plc.setReceiveTimeout(3000);
+        assertArrayEquals(new byte[]{0x00, 0x0A, 0x00, 0x14}, plc.readHoldRegister(0, 2));
+        plc.writeHoldRegister(1, 7);
+        plc.close();
+    }
+
+    @Test
+    public void rtuAsyncSegmentedResponses() {
+        byte[] frame1 = rtuFrame(new byte[]{0x01, 0x03, 0x04, 0x00, 0x0A, 0x00, 0x14});
+        byte[] frame2 = rtuFrame(new byte[]{0x01, (byte) 0x83, 0x02});
+        byte[] frame3 = rtuFrame(new byte[]{0x01, 0x06, 0x00, 0x01, 0x00, 0x07});
+        this.startGateway(Arrays.<byte[][]>asList(
+                new byte[][]{Arrays.copyOfRange(frame1, 0, 2), Arrays.copyOfRange(frame1, 2, frame1.length)},
+                new byte[][]{frame2},
+                new byte[][]{Arrays.copyOfRange(frame3, 0, 5), Arrays.copyOfRange(frame3, 5, frame3.length)}));
+        ModbusRtuOverTcp plc = new ModbusRtuOverTcp("127.0.0.1", this.serverSocket.getLocalPort());
+        plc.setReceiveTimeout(3000);
+        plc.getAsyncClient();
+        // 异步客户端创建之后再设置回调，仍然能够收到报文
+        AtomicInteger ackCount = new AtomicInteger();
+        plc.setComCallback((tag, bytes) -> {
+            if (GeneralConst.PACKAGE_ACK.equals(tag)) {
+                ackCount.incrementAndGet();
+            }
+        });
+        CompletableFuture<byte[]> read = plc.readHoldRegisterAsync(0, 2);
+        CompletableFuture<byte[]> error = plc.readHoldRegisterAsync(0, 2);
+        CompletableFuture<Void> write = plc.writeHoldRegisterAsync(1, 7);
+        assertArrayEquals(new byte[]{0x00, 0x0A, 0x00, 0x14}, read.join());
+        try {
+            // 异常响应只有5个字节
+            error.join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause().getMessage().contains("exception"));
+        }
+        write.join();
+        assertEquals(3, ackCount.get());
+        plc.close();
+    }
+
+    @Test
+    public void rtuAsyncOrderWhileConnecting() {
+        this.startEchoGateway();
+        for (int i = 0; i < 20; i++) {
+            ModbusRtuOverTcp plc = new ModbusRtuOverTcp("127.0.0.1", this.serverSocket.getLocalPort());
+            plc.setReceiveTimeout(3000);
+            // 连接过程中提交的请求也必须按提交顺序发送，否则按顺序匹配的响应会错位
+            List<byte[]> requests = new ArrayList<>();
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                byte[] req = rtuFrame(new byte[]{0x01, 0x06, 0x00, (byte) j, 0x00, (byte) i});
+                requests.add(req);
+                futures.add(plc.getAsyncClient().sendAsync(req, -1));
+            }
+            for (int j = 0; j < requests.size(); j++) {
+                assertArrayEquals(requests.get(j), futures.get(j).join());
+            }
+            plc.close();
+        }
+    }
+
+    @Test
+    public void asciiAsyncSegmentedResponses() {
+        byte[] frame1 = asciiFrame(new byte[]{0x01, 0x03, 0x04, 0x00, 0x0A, 0x00, 0x14});
+        byte[] frame2 = asciiFrame(new byte[]{0x01, 0x06, 0x00, 0x01, 0x00, 0x07});
+        this.startGateway(Arrays.<byte[][]>asList(
+                new byte[][]{Arrays.copyOfRange(frame1, 0, 3), Arrays.copyOfRange(frame1, 3, frame1.length)},
+                new byte[][]{Arrays.copyOfRange(frame2, 0, frame2.length - 1), Arrays.copyOfRange(frame2, frame2.length - 1, frame2.length)}));
+        ModbusAsciiOverTcp plc = new ModbusAsciiOverTcp("127.0.0.1", this.serverSocket.getLocalPort());
+        plc.setReceiveTimeout(3000);
+        CompletableFuture<byte[]> read = plc.readHoldRegisterAsync(0, 2);
+        CompletableFuture<Void> write = plc.writeHoldRegisterAsync(1, 7);
+        assertArrayEquals(new byte[]{0x00, 0x0A, 0x00, 0x14}, read.join());
+        write.join();
+        plc.close();
+    }
+
+    @Test
+    public void rtuUnknownFunctionCodeReconnect() {
+        // 无法识别的功能码，剩余的字节留在通道中
+        byte[] bad = new byte[]{0x01, 0x55, 0x04, 0x00, 0x0A, 0x00, 0x14, 0x00, 0x00};
+        byte[] good = rtuFrame(new byte[]{0x01, 0x03, 0x04, 0x00, 0x0B, 0x00, 0x15});
+        this.startReconnectGateway(Arrays.asList(bad, good));
+        ModbusRtuOverTcp plc = new ModbusRtuOverTcp("127.0.0.1", this.serverSocket.getLocalPort());
+        plc.setReceiveTimeout(1000);
+        try {
+            plc.readHoldRegister(0, 2);
+            fail();
+        } catch (ModbusCommException e) {
+            assertTrue(e.getMessage().contains("Function code"));
+        }
+        assertFalse(plc.checkConnected());
+        assertArrayEquals(new byte[]{0x00, 0x0B, 0x00, 0x15}, plc.readHoldRegister(0, 2));
+        plc.close();
+    }
+
+    @Test
+    public void asciiMissingCrLfReconnect() {
+        // 帧尾不是CR LF，剩余的字节留在通道中
+        byte[] frame = asciiFrame(new byte[]{0x01, 0x03, 0x04, 0x00, 0x0A, 0x00, 0x14});
+        byte[] bad = Arrays.copyOf(frame, frame.length + 4);
+        bad[frame.length - 2] = 'X';
+        bad[frame.length - 1] = 'X';
+        bad[frame.length] = 'Y';
+        bad[frame.length + 1] = 'Y';
+        bad[frame.length + 2] = '\r';
+        bad[frame.length + 3] = '\n';
+        byte[] good = asciiFrame(new byte[]{0x01, 0x03, 0x04, 0x00, 0x0B, 0x00, 0x15});
+        this.startReconnectGateway(Arrays.asList(bad, good));
+        ModbusAsciiOverTcp plc = new ModbusAsciiOverTcp("127.0.0.1", this.serverSocket.getLocalPort());
+        plc.setReceiveTimeout(1000);
+        try {
+            plc.readHoldRegister(0, 2);
+            fail();
+        } catch (ModbusCommException e) {
+            assertTrue(e.getMessage().contains("incorrect"));
+        }
+        assertFalse(plc.checkConnected());
+        assertArrayEquals(new byte[]{0x00, 0x0B, 0x00, 0x15}, plc.readHoldRegister(0, 2));
+        plc.close();
+    }
+}
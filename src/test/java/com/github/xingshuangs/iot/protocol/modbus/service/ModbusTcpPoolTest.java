@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.modbus.service;
+
+import com.github.xingshuangs.iot.common.pool.ClientPoolConfig;
+import com.github.xingshuangs.iot.exceptions.SocketTimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+
+public class ModbusTcpPoolTest {
+
+    private ModbusTcpServer server;
+
+    private ModbusTcpPool pool;
+
+    @Before
+    public void init() {
+        this.server = new ModbusTcpServer();
+        this.server.start(504);
+    }
+
+    @After
+    public void destroy() {
+        if (this.pool != null) {
+            this.pool.close();
+        }
+        this.server.stop();
+    }
+
+    private ClientPoolConfig createConfig() {
+        ClientPoolConfig config = new ClientPoolConfig();
+        config.setMinSize(1);
+        config.setMaxSize(2);
+        config.setBorrowTimeout(200);
+        config.setMaintenanceInterval(50);
+        config.setMaxIdleTime(0);
+        config.setProbeInterval(0);
+        return config;
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void reuseAndSpread() throws InterruptedException {
+        this.pool = new ModbusTcpPool(1, "127.0.0.1", 504, this.createConfig());
+        // 后台补足到最小数量
+        this.waitFor(() -> this.pool.getIdleSize() == 1);
+
+        ModbusTcp first = this.pool.borrow();
+        ModbusTcp second = this.pool.borrow();
+        assertNotSame(first, second);
+        assertEquals(2, this.pool.getTotalSize());
+        this.pool.release(first);
+        this.pool.release(second);
+
+        // 空闲连接先进先出，请求分散到所有连接上
+        List<ModbusTcp> used = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            this.pool.run(x -> {
+                x.writeUInt16(0, 10);
+                used.add(x);
+            });
+        }
+        assertSame(first, used.get(0));
+        assertSame(second, used.get(1));
+        assertSame(first, used.get(2));
+        assertSame(second, used.get(3));
+        assertEquals(10, this.pool.execute(x -> x.readUInt16(0)).intValue());
+        assertEquals(2, this.pool.getTotalSize());
+        assertEquals(2, this.server.getClientCount());
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void borrowTimeout() {
+        ClientPoolConfig config = this.createConfig();
+        config.setMaxSize(1);
+        this.pool = new ModbusTcpPool(1, "127.0.0.1", 504, config);
+        this.pool.borrow();
+        this.pool.borrow();
+    }
+
+    @Test
+    public void idleEviction() throws InterruptedException {
+        ClientPoolConfig config = this.createConfig();
+        config.setMaxIdleTime(100);
+        this.pool = new ModbusTcpPool(1, "127.0.0.1", 504, config);
+        ModbusTcp first = this.pool.borrow();
+        ModbusTcp second = this.pool.borrow();
+        this.pool.release(first);
+        this.pool.release(second);
+        assertEquals(2, this.pool.getTotalSize());
+        // 超过最小数量的空闲连接被回收
+        this.waitFor(() -> this.pool.getTotalSize() == 1);
+        this.waitFor(() -> this.server.getClientCount() == 1);
+    }
+
+    @Test
+    public void probeRemovesDeadClient() throws InterruptedException {
+        ClientPoolConfig config = this.createConfig();
+        config.setProbeInterval(50);
+        this.pool = new ModbusTcpPool(1, "127.0.0.1", 504, config);
+        this.waitFor(() -> this.pool.getIdleSize() == 1);
+        ModbusTcp client = this.pool.borrow();
+        this.pool.release(client);
+
+        this.server.stop();
+        // 探活失败的连接被关闭，服务端不可用时也补不回来
+        this.waitFor(() -> this.pool.getTotalSize() == 0);
+
+        this.server = new ModbusTcpServer();
+        this.server.start(504);
+        this.waitFor(() -> this.pool.getIdleSize() == 1);
+        assertNotSame(client, this.pool.borrow());
+    }
+}
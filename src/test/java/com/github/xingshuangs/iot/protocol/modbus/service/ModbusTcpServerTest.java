@@ -25,6 +25,9 @@
 package com.github.xingshuangs.iot.protocol.modbus.service;
 
 import com.github.xingshuangs.iot.common.buff.EByteBuffFormat;
+import com.github.xingshuangs.iot.common.constant.GeneralConst;
+import com.github.xingshuangs.iot.common.enums.EDataType;
+import com.github.xingshuangs.iot.common.poll.PollTag;
 import com.github.xingshuangs.iot.exceptions.ModbusCommException;
 import com.github.xingshuangs.iot.utils.HexUtil;
 import org.junit.After;
@@ -32,8 +35,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -229,4 +235,117 @@ public class ModbusTcpServerTest {
         String s = this.modbusTcp.readString(14, 4, StandardCharsets.UTF_8);
         assertEquals("pppp", s);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void multiClientConnect() throws InterruptedException {
+        // 客户端数量大于CPU核数，所有客户端同时保持连接
+        int clientNumber = Runtime.getRuntime().availableProcessors() * 4;
+        List<ModbusTcp> clients = new ArrayList<>();
+        for (int i = 0; i < clientNumber; i++) {
+            ModbusTcp client = new ModbusTcp("127.0.0.1", 503);
+            client.writeUInt16(i, i);
+            clients.add(client);
+        }
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(clientNumber, this.server.getClientCount());
+        for (int i = 0; i < clientNumber; i++) {
+            assertEquals(i, clients.get(i).readUInt16(i));
+            clients.get(i).close();
+        }
+    }
+
+    @Test
+    public void asyncReadWrite() {
+        this.modbusTcp.writeCoilAsync(0, Arrays.asList(true, false, true)).join();
+        assertArrayEquals(new Boolean[]{true, false, true}, this.modbusTcp.readCoilAsync(0, 3).join().toArray(new Boolean[0]));
+
+        this.modbusTcp.writeHoldRegisterAsync(2, 1234).join();
+        assertEquals(1234, this.modbusTcp.readUInt16Async(2).join().intValue());
+        this.modbusTcp.writeFloat32(4, 23.45f);
+        assertEquals(23.45f, this.modbusTcp.readFloat32Async(4).join(), 0.001);
+
+        byte[] expect = new byte[600];
+        for (int i = 0; i < expect.length; i++) {
+            expect[i] = (byte) i;
+        }
+        this.modbusTcp.writeHoldRegisterAsync(100, expect).join();
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(this.modbusTcp.readHoldRegisterAsync(100, 300));
+        }
+        futures.forEach(x -> assertArrayEquals(expect, x.join()));
+    }
+
+    @Test
+    public void multiplexedDefaultMaxInFlight() {
+        assertEquals(1, this.modbusTcp.getMaxInFlight());
+        this.modbusTcp.readHoldRegisterAsync(0, 1).join();
+        assertEquals(1, this.modbusTcp.getAsyncClient().getMaxInFlight());
+        // 多路复用模式下未设置时使用默认值
+        this.modbusTcp.setMultiplexed(true);
+        assertEquals(ModbusTcp.DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT, this.modbusTcp.getMaxInFlight());
+        assertEquals(ModbusTcp.DEFAULT_MULTIPLEXED_MAX_IN_FLIGHT, this.modbusTcp.getAsyncClient().getMaxInFlight());
+        // 显式设置的值优先
+        this.modbusTcp.setMaxInFlight(2);
+        this.modbusTcp.setMultiplexed(false);
+        assertEquals(2, this.modbusTcp.getAsyncClient().getMaxInFlight());
+    }
+
+    @Test
+    public void multiplexedReadWrite() throws InterruptedException {
+        this.modbusTcp.setMultiplexed(true);
+        this.modbusTcp.setMaxInFlight(8);
+        byte[] expect = new byte[1000];
+        for (int i = 0; i < expect.length; i++) {
+            expect[i] = (byte) (i * 3);
+        }
+        this.modbusTcp.writeHoldRegister(0, expect);
+
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 20; j++) {
+                        assertArrayEquals(expect, this.modbusTcp.readHoldRegister(0, 500));
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void pollReader() {
+        this.modbusTcp.writeInt16(10, (short) 12);
+        this.modbusTcp.writeFloat32(14, 3.5f);
+        this.modbusTcp.writeUInt16(100, 65535);
+        this.modbusTcp.writeCoil(3, true);
+        List<String> reqs = new ArrayList<>();
+        this.modbusTcp.setComCallback((tag, bytes) -> reqs.add(tag));
+        ModbusPollReader reader = new ModbusPollReader(this.modbusTcp);
+        List<PollTag> tags = Arrays.asList(
+                new PollTag("14", EDataType.FLOAT32),
+                new PollTag("10", EDataType.INT16),
+                new PollTag("100", EDataType.UINT16),
+                new PollTag("3", EDataType.BOOL),
+                new PollTag("0", EDataType.BOOL));
+        List<Object> values = reader.read(tags);
+        assertEquals(3.5f, (float) values.get(0), 0.001);
+        assertEquals((short) 12, values.get(1));
+        assertEquals(65535, values.get(2));
+        assertEquals(true, values.get(3));
+        assertEquals(false, values.get(4));
+        // 线圈1次，寄存器10~15一次，寄存器100一次
+        assertEquals(3, reqs.stream().filter(GeneralConst.PACKAGE_REQ::equals).count());
+    }
+}
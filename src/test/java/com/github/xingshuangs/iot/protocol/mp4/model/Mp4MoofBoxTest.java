@@ -29,10 +29,13 @@ import com.github.xingshuangs.iot.utils.HexUtil;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 
 public class Mp4MoofBoxTest {
@@ -248,4 +251,124 @@ public class Mp4MoofBoxTest {
         Mp4MdatBox box = new Mp4MdatBox(new byte[4]);
         assertArrayEquals(expect, box.toByteArray());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void mp4MdatBoxWithSamples() {
+        byte[] expect = new Mp4MdatBox(this.trackInfo.totalSampleData()).toByteArray();
+        Mp4MdatBox box = new Mp4MdatBox(this.samples);
+        assertEquals(expect.length, box.byteArrayLength());
+        assertArrayEquals(expect, box.toByteArray());
+    }
+
+    @Test
+    public void mp4Fragment() {
+        this.samples.get(0).setData(new byte[]{0x65, 0x01, 0x02});
+        this.samples.get(1).setData(new byte[]{0x41, 0x03});
+        byte[] moof = new Mp4MoofBox(1, 0, this.trackInfo).toByteArray();
+        byte[] mdat = new Mp4MdatBox(this.trackInfo.totalSampleData()).toByteArray();
+        byte[] expect = new byte[moof.length + mdat.length];
+        System.arraycopy(moof, 0, expect, 0, moof.length);
+        System.arraycopy(mdat, 0, expect, moof.length, mdat.length);
+
+        Mp4Fragment fragment = new Mp4Fragment(1, 0, this.trackInfo);
+        assertEquals(expect.length, fragment.byteArrayLength());
+        assertArrayEquals(expect, fragment.toByteArray());
+
+        // 写入调用方提供的数组
+        byte[] dst = new byte[expect.length + 10];
+        assertEquals(expect.length, fragment.writeTo(dst, 10));
+        byte[] actual = new byte[expect.length];
+        System.arraycopy(dst, 10, actual, 0, expect.length);
+        assertArrayEquals(expect, actual);
+
+        // 写入直接内存和堆内存的ByteBuffer
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocateDirect(1024), ByteBuffer.allocate(1024)}) {
+            buffer.position(3);
+            assertEquals(expect.length, fragment.writeTo(buffer));
+            assertEquals(3 + expect.length, buffer.position());
+            buffer.flip();
+            buffer.position(3);
+            actual = new byte[expect.length];
+            buffer.get(actual);
+            assertArrayEquals(expect, actual);
+        }
+
+        // 聚集写，采样数据只包装不拷贝
+        ByteBuffer[] buffers = fragment.toByteBuffers();
+        assertEquals(4, buffers.length);
+        assertEquals(true, buffers[1].array() == this.samples.get(0).getFrame());
+        ByteBuffer gather = ByteBuffer.allocate(expect.length);
+        for (ByteBuffer buffer : buffers) {
+            gather.put(buffer);
+        }
+        assertArrayEquals(expect, gather.array());
+    }
+
+    @Test
+    public void mp4FragmentWithAudio() {
+        this.samples.get(0).setData(new byte[]{0x65, 0x01, 0x02});
+        this.samples.get(0).setDts(3600);
+        this.samples.get(1).setData(new byte[]{0x41, 0x03});
+        this.samples.get(1).setDts(7200);
+
+        Mp4TrackInfo audio = new Mp4TrackInfo();
+        audio.setId(2);
+        audio.setType("audio");
+        audio.setCodec("mp4a.40.2");
+        audio.setTimescale(16000);
+        for (int i = 0; i < 2; i++) {
+            Mp4SampleData data = new Mp4SampleData();
+            data.setRawData(new byte[]{0x21, (byte) i, 0x22});
+            data.setDts(2048 + 1024L * i);
+            data.setDuration(1024);
+            audio.getSampleData().add(data);
+        }
+        // 没有采样的轨道跳过
+        Mp4TrackInfo empty = new Mp4TrackInfo();
+        empty.setId(3);
+
+        Mp4Fragment fragment = new Mp4Fragment(1, Arrays.asList(this.trackInfo, audio, empty));
+        byte[] actual = fragment.toByteArray();
+        int moofLength = readInt(actual, 0);
+        // moof头 + mfhd + 2个traf，视频traf = 8 + 16 + 16 + (20 + 16 * 2) + (12 + 2) = 106
+        assertEquals(8 + 16 + 106 + 106, moofLength);
+        // 视频traf：default-base-is-moof，tfdt为第一个采样的dts，数据偏移 = moof + mdat头
+        assertArrayEquals(new byte[]{0x02, 0x00, 0x00}, Arrays.copyOfRange(actual, 41, 44));
+        assertEquals(1, readInt(actual, 44));
+        assertEquals(3600, readInt(actual, 60));
+        assertEquals(moofLength + 8, readInt(actual, 80));
+        // 音频traf：数据偏移在视频采样之后，视频采样带4字节长度
+        assertEquals(2, readInt(actual, 150));
+        assertEquals(2048, readInt(actual, 166));
+        assertEquals(moofLength + 8 + 13, readInt(actual, 186));
+        // 音频的采样大小不包含长度
+        assertEquals(3, readInt(actual, 186 + 8));
+
+        // mdat：视频为长度 + nalu，音频为原始数据
+        byte[] mdat = Arrays.copyOfRange(actual, moofLength, actual.length);
+        assertArrayEquals(new byte[]{0x00, 0x00, 0x00, 0x1B, 'm', 'd', 'a', 't',
+                0x00, 0x00, 0x00, 0x03, 0x65, 0x01, 0x02, 0x00, 0x00, 0x00, 0x02, 0x41, 0x03,
+                0x21, 0x00, 0x22, 0x21, 0x01, 0x22}, mdat);
+        assertEquals(actual.length, fragment.byteArrayLength());
+
+        // 直接内存和聚集写的结果一致
+        ByteBuffer direct = ByteBuffer.allocateDirect(actual.length);
+        fragment.writeTo(direct);
+        direct.flip();
+        byte[] directBytes = new byte[actual.length];
+        direct.get(directBytes);
+        assertArrayEquals(actual, directBytes);
+
+        ByteBuffer[] buffers = fragment.toByteBuffers();
+        assertEquals(6, buffers.length);
+        ByteBuffer gather = ByteBuffer.allocate(actual.length);
+        for (ByteBuffer buffer : buffers) {
+            gather.put(buffer);
+        }
+        assertArrayEquals(actual, gather.array());
+    }
+
+    private static int readInt(byte[] src, int offset) {
+        return ByteBuffer.wrap(src, offset, 4).getInt();
+    }
+}
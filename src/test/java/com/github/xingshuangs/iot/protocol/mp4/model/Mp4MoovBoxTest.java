@@ -29,11 +29,15 @@ import com.github.xingshuangs.iot.utils.HexUtil;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 
 public class Mp4MoovBoxTest {
@@ -717,4 +721,55 @@ public class Mp4MoovBoxTest {
         Mp4TrexBox box = new Mp4TrexBox(1);
         assertArrayEquals(expect, box.toByteArray());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void mp4HvcCBox() {
+        Mp4TrackInfo info = new Mp4TrackInfo();
+        info.setCodec("hvc1.1.6.L120.90");
+        info.setVps(HexUtil.toHexArray("40010C01FFFF016000000300900000030000030078959809"));
+        info.setSps(HexUtil.toHexArray("420101016000000300900000030000030078A003C08010E596666924CAE010000003001000000301E080"));
+        info.setPps(HexUtil.toHexArray("4401C172B46240"));
+        byte[] expect = HexUtil.toHexArray("00000077" + "68766343" + "01" + "01" + "60000000" + "900000000000" + "78"
+                + "F000" + "FC" + "FD" + "F8" + "F8" + "0000" + "0F" + "03"
+                + "A0" + "0001" + "0018" + "40010C01FFFF016000000300900000030000030078959809"
+                + "A1" + "0001" + "002A" + "420101016000000300900000030000030078A003C08010E596666924CAE010000003001000000301E080"
+                + "A2" + "0001" + "0007" + "4401C172B46240");
+        Mp4HvcCBox box = new Mp4HvcCBox(info);
+        assertArrayEquals(expect, box.toByteArray());
+
+        // stsd根据codec选择hvc1
+        Mp4StsdBox stsdBox = new Mp4StsdBox(info);
+        byte[] stsd = stsdBox.toByteArray();
+        assertArrayEquals(EMp4Type.HVC1.getByteArray(), Arrays.copyOfRange(stsd, 20, 24));
+        assertEquals(16 + 86 + expect.length + 20, stsd.length);
+    }
+
+    @Test
+    public void mp4HeaderWithAudio() {
+        Mp4TrackInfo audio = new Mp4TrackInfo();
+        audio.setId(2);
+        audio.setType("audio");
+        audio.setCodec("mp4a.40.2");
+        audio.setTimescale(16000);
+        audio.setDuration(16000);
+        audio.setAudioSampleRate(16000);
+        audio.setChannelCount(1);
+        audio.setConfig(new byte[]{0x14, 0x08});
+        Mp4Header header = new Mp4Header(Arrays.asList(this.trackInfo, audio));
+        byte[] actual = header.toByteArray();
+        assertEquals(header.byteArrayLength(), actual.length);
+
+        String text = new String(actual, StandardCharsets.ISO_8859_1);
+        assertEquals(2, text.split("trak", -1).length - 1);
+        assertEquals(2, text.split("trex", -1).length - 1);
+        assertTrue(text.contains("smhd"));
+        assertTrue(text.contains("soun"));
+        // mp4a：声道数，采样大小，采样率
+        int mp4a = text.indexOf("mp4a");
+        assertArrayEquals(new byte[]{0x00, 0x01, 0x00, 0x10, 0x00, 0x00, 0x00, 0x00, 0x3E, (byte) 0x80},
+                Arrays.copyOfRange(actual, mp4a + 20, mp4a + 30));
+        // esds中的AudioSpecificConfig
+        int esds = text.indexOf("esds");
+        assertArrayEquals(new byte[]{0x05, 0x02, 0x14, 0x08}, Arrays.copyOfRange(actual, esds + 28, esds + 32));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.rtcp.service;
+
+import com.github.xingshuangs.iot.protocol.rtcp.model.RtcpReceiverReport;
+import com.github.xingshuangs.iot.protocol.rtcp.model.RtcpReportBlock;
+import com.github.xingshuangs.iot.protocol.rtcp.model.RtcpStatisticsSnapshot;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class RtcpDataStatisticsTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final List<byte[]> sent = new ArrayList<>();
+
+    private RtpPackage createRtp(int sequenceNumber, long timestamp) {
+        RtpHeader header = new RtpHeader();
+        header.setVersion(2);
+        header.setPayloadType(96);
+        header.setSequenceNumber(sequenceNumber & 0xFFFF);
+        header.setTimestamp(timestamp & 0xFFFFFFFFL);
+        header.setSsrc(1);
+        RtpPackage rtp = new RtpPackage();
+        rtp.setHeader(header);
+        rtp.setPayload(new byte[88]);
+        return rtp;
+    }
+
+    private void add(RtcpDataStatistics statistics, int sequenceNumber, long timestamp, long now) {
+        statistics.processRtpPackage(this.createRtp(sequenceNumber, timestamp), now, this.sent::add);
+    }
+
+    @Test
+    public void probationAndLoss() {
+        RtcpDataStatistics statistics = new RtcpDataStatistics();
+        for (int i = 0; i < 10; i++) {
+            if (i == 4 || i == 7) {
+                continue;
+            }
+            this.add(statistics, i, i * 3000L, i * 33 * MS);
+        }
+        // 第一个包在校验期，第二个包开始统计
+        assertEquals(1, statistics.getBaseSequenceNumber());
+        assertEquals(7, statistics.getPacketsReceived());
+        assertEquals(2, statistics.getCumulativePacketLost());
+        assertEquals(9, statistics.getExtHighestSequenceNumber());
+
+        RtcpReceiverReport report = statistics.createReceiverReport();
+        RtcpReportBlock block = report.getReportBlocks().get(0);
+        assertEquals(1, block.getSourceId());
+        assertEquals(2 * 256 / 9, block.getFractionLost());
+        assertEquals(2, block.getCumulativePacketLost());
+        assertEquals(9, block.getExtHighestSequenceNumberReceived());
+
+        // 没有新的丢包，区间丢包率为0，累计丢包不变
+        this.add(statistics, 10, 30000, 330 * MS);
+        block = statistics.createReceiverReport().getReportBlocks().get(0);
+        assertEquals(0, block.getFractionLost());
+        assertEquals(2, block.getCumulativePacketLost());
+    }
+
+    @Test
+    public void sequenceNumberWraparound() {
+        RtcpDataStatistics statistics = new RtcpDataStatistics();
+        for (int i = 0; i < 12; i++) {
+            this.add(statistics, 65530 + i, i * 3000L, i * 33 * MS);
+        }
+        assertEquals(1, statistics.getSequenceNumberCycles());
+        assertEquals(65536 + 5, statistics.getExtHighestSequenceNumber());
+        assertEquals(0, statistics.getCumulativePacketLost());
+
+        // 乱序和重复的包不是回绕
+        this.add(statistics, 3, 3000 * 9, 400 * MS);
+        this.add(statistics, 5, 3000 * 11, 401 * MS);
+        assertEquals(1, statistics.getSequenceNumberCycles());
+        assertEquals(65536 + 5, statistics.getExtHighestSequenceNumber());
+        assertEquals(-2, statistics.getCumulativePacketLost());
+    }
+
+    @Test
+    public void sequenceNumberJumpAndRestart() {
+        RtcpDataStatistics statistics = new RtcpDataStatistics();
+        for (int i = 100; i <= 110; i++) {
+            this.add(statistics, i, i * 3000L, i * 33 * MS);
+        }
+        // 单个大跳变的包被忽略
+        this.add(statistics, 40000, 111 * 3000L, 111 * 33 * MS);
+        this.add(statistics, 111, 112 * 3000L, 112 * 33 * MS);
+        assertEquals(111, statistics.getHighestSequenceNumber());
+        assertEquals(0, statistics.getCumulativePacketLost());
+
+        // 连续两个大跳变的包，认为发送端重启了
+        this.add(statistics, 30000, 113 * 3000L, 113 * 33 * MS);
+        this.add(statistics, 30001, 114 * 3000L, 114 * 33 * MS);
+        assertEquals(30001, statistics.getBaseSequenceNumber());
+        assertEquals(30001, statistics.getExtHighestSequenceNumber());
+        assertEquals(1, statistics.getPacketsReceived());
+        assertEquals(0, statistics.getCumulativePacketLost());
+    }
+
+    @Test
+    public void interarrivalJitter() {
+        RtcpDataStatistics statistics = new RtcpDataStatistics(90000);
+        long now = 0;
+        for (int i = 0; i < 100; i++) {
+            // 3000个时间戳为33.333ms，到达间隔交替为23.333ms和43.333ms，传输时间差为900
+            now += i == 0 ? 0 : (i % 2 == 0 ? 23_333_333L : 43_333_333L);
+            this.add(statistics, i, i * 3000L, now);
+        }
+        RtcpStatisticsSnapshot snapshot = statistics.snapshot(now);
+        assertEquals(900, snapshot.getJitter(), 10);
+        assertEquals(10.0, snapshot.getJitterMs(), 0.2);
+        assertEquals(snapshot.getJitter(), statistics.createReceiverReport().getReportBlocks().get(0).getJitter());
+
+        // 时间戳回绕不影响抖动
+        RtcpDataStatistics wrap = new RtcpDataStatistics(90000);
+        long start = 0xFFFFFFFFL - 3000 * 5;
+        for (int i = 0; i < 10; i++) {
+            this.add(wrap, i, start + i * 3000L, i * 33_333_333L);
+        }
+        assertEquals(0, wrap.snapshot().getJitter());
+    }
+
+    @Test
+    public void snapshotRates() {
+        RtcpDataStatistics statistics = new RtcpDataStatistics();
+        // 25帧，每帧2个包，每个包100字节，1秒
+        int sequenceNumber = 0;
+        for (int i = 0; i < 25; i++) {
+            this.add(statistics, sequenceNumber++, i * 3600L, i * 40 * MS);
+            this.add(statistics, sequenceNumber++, i * 3600L, i * 40 * MS + MS);
+        }
+        RtcpStatisticsSnapshot snapshot = statistics.snapshot(1000 * MS);
+        assertEquals(1000, snapshot.getDuration());
+        assertEquals(25.0, snapshot.getFrameRate(), 0.001);
+        assertEquals(50 * 100 * 8, snapshot.getBitrate(), 0.001);
+        assertEquals(0.0, snapshot.getFractionLost(), 0.0);
+
+        // 下一个区间丢了1个包
+        for (int i = 25; i < 50; i++) {
+            if (i != 30) {
+                this.add(statistics, sequenceNumber, i * 3600L, i * 40 * MS);
+            }
+            sequenceNumber++;
+            this.add(statistics, sequenceNumber++, i * 3600L, i * 40 * MS + MS);
+        }
+        snapshot = statistics.snapshot(2000 * MS);
+        assertEquals(25.0, snapshot.getFrameRate(), 0.001);
+        assertEquals(49 * 100 * 8, snapshot.getBitrate(), 0.001);
+        assertEquals(1.0 / 50, snapshot.getFractionLost(), 0.0001);
+        assertEquals(1, snapshot.getPacketsLost());
+        // 超过5s才发送RR
+        assertTrue(this.sent.isEmpty());
+        this.add(statistics, sequenceNumber, 50 * 3600L, 5001 * MS);
+        assertEquals(1, this.sent.size());
+    }
+}
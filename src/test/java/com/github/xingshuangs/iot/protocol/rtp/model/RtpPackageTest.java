@@ -26,6 +26,8 @@ package com.github.xingshuangs.iot.protocol.rtp.model;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 import static org.junit.Assert.*;
 
 
@@ -82,4 +84,53 @@ public class RtpPackageTest {
         assertArrayEquals(payload, rtp.getPayload());
         assertEquals(3, rtp.getIgnoreLength());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void fromBytesWithOffset() {
+        byte[] data = new byte[]{
+                (byte) 0x24, (byte) 0x00, (byte) 0x00, (byte) 0x14,
+                (byte) 0xA0, (byte) 0x60, (byte) 0x80, (byte) 0x3A, (byte) 0xE0, (byte) 0xE6, (byte) 0x24, (byte) 0xFA,
+                (byte) 0x3A, (byte) 0x64, (byte) 0xE1, (byte) 0xBA, (byte) 0x06, (byte) 0xE5, (byte) 0x01, (byte) 0x34,
+                (byte) 0x80, (byte) 0x00, (byte) 0x00, (byte) 0x03,
+                (byte) 0x24, (byte) 0x01, (byte) 0x00, (byte) 0x00
+        };
+        byte[] payload = new byte[]{(byte) 0x06, (byte) 0xE5, (byte) 0x01, (byte) 0x34, (byte) 0x80};
+        RtpPackage rtp = RtpPackage.fromBytes(data, 4, 20);
+        assertEquals(32826, rtp.getHeader().getSequenceNumber());
+        assertEquals(3773179130L, rtp.getHeader().getTimestamp());
+        assertArrayEquals(payload, rtp.getPayload());
+        assertEquals(3, rtp.getIgnoreLength());
+    }
+
+    @Test
+    public void fromByteBuffer() {
+        byte[] data = new byte[]{
+                (byte) 0x24, (byte) 0x00, (byte) 0x00, (byte) 0x14,
+                (byte) 0xB1, (byte) 0xE0, (byte) 0x80, (byte) 0x3A, (byte) 0xE0, (byte) 0xE6, (byte) 0x24, (byte) 0xFA,
+                (byte) 0x3A, (byte) 0x64, (byte) 0xE1, (byte) 0xBA, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x07,
+                (byte) 0xBE, (byte) 0xDE, (byte) 0x00, (byte) 0x01, (byte) 0x10, (byte) 0x20, (byte) 0x30, (byte) 0x40,
+                (byte) 0x06, (byte) 0xE5, (byte) 0x01, (byte) 0x34, (byte) 0x80, (byte) 0x00, (byte) 0x00, (byte) 0x03,
+                (byte) 0x24, (byte) 0x01, (byte) 0x00, (byte) 0x00
+        };
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.limit(36).position(4);
+        RtpPackage rtp = RtpPackage.fromByteBuffer(buffer);
+        assertEquals(4, buffer.position());
+        assertTrue(rtp.getHeader().isPadding());
+        assertTrue(rtp.getHeader().isExtension());
+        assertTrue(rtp.getHeader().isMarker());
+        assertEquals(1, rtp.getHeader().getCsrcCount());
+        assertEquals(7L, rtp.getHeader().getCsrcList().get(0).longValue());
+        assertEquals(96, rtp.getHeader().getPayloadType());
+        assertEquals(32826, rtp.getHeader().getSequenceNumber());
+        assertEquals(3773179130L, rtp.getHeader().getTimestamp());
+        assertEquals(979689914, rtp.getHeader().getSsrc());
+        assertEquals(0xBEDE, rtp.getHeader().getExtensionHeaderId());
+        assertEquals(4, rtp.getHeader().getExtensionHeaderLength());
+        assertArrayEquals(new byte[]{0x10, 0x20, 0x30, 0x40}, rtp.getHeader().getExtensionHeaderContent());
+        assertArrayEquals(new byte[]{(byte) 0x06, (byte) 0xE5, (byte) 0x01, (byte) 0x34, (byte) 0x80}, rtp.getPayload());
+        assertEquals(3, rtp.getIgnoreLength());
+        assertEquals(32, rtp.byteArrayLength());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.model.payload;
+
+import com.github.xingshuangs.iot.utils.HexUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class H265SeqParameterSetTest {
+
+    @Test
+    public void createSPS() {
+        byte[] data = HexUtil.toHexArray("420101016000000300900000030000030078A003C08010E596666924CAE010000003001000000301E080");
+        H265SeqParameterSet sps = H265SeqParameterSet.createSPS(data);
+        assertEquals(0, sps.getVideoParameterSetId());
+        assertEquals(0, sps.getMaxSubLayersMinus1());
+        assertTrue(sps.isTemporalIdNestingFlag());
+        assertEquals(0, sps.getGeneralProfileSpace());
+        assertFalse(sps.isGeneralTierFlag());
+        assertEquals(1, sps.getGeneralProfileIdc());
+        assertEquals(0x60000000L, sps.getGeneralProfileCompatibilityFlags());
+        assertArrayEquals(new byte[]{(byte) 0x90, 0, 0, 0, 0, 0}, sps.getGeneralConstraintIndicatorFlags());
+        assertEquals(120, sps.getGeneralLevelIdc());
+        assertEquals(0, sps.getSeqParameterSetId());
+        assertEquals(1, sps.getChromaFormatIdc());
+        assertEquals(1920, sps.getPicWidthInLumaSamples());
+        assertEquals(1080, sps.getPicHeightInLumaSamples());
+        assertFalse(sps.isConformanceWindowFlag());
+        assertEquals(0, sps.getBitDepthLumaMinus8());
+        assertEquals(0, sps.getBitDepthChromaMinus8());
+        assertEquals(1920, sps.getWidth());
+        assertEquals(1080, sps.getHeight());
+        assertEquals("hvc1.1.6.L120.90", sps.getCodec());
+    }
+
+    @Test
+    public void removeEmulationPrevention() {
+        byte[] data = HexUtil.toHexArray("0000030100000300000003");
+        assertArrayEquals(HexUtil.toHexArray("0000010000000000"), H265SeqParameterSet.removeEmulationPrevention(data));
+        data = HexUtil.toHexArray("01020304");
+        assertArrayEquals(data, H265SeqParameterSet.removeEmulationPrevention(data));
+    }
+}
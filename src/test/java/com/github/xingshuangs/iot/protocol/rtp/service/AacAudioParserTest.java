@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.rtp.service;
+
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.rtp.enums.EFrameType;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class AacAudioParserTest {
+
+    private final List<RawFrame> frames = new ArrayList<>();
+
+    private AacAudioParser parser;
+
+    private int sequenceNumber = 100;
+
+    @Before
+    public void before() {
+        this.parser = new AacAudioParser(97);
+        this.parser.onFrameHandle(this.frames::add);
+    }
+
+    private void process(byte[] payload, long timestamp, boolean marker) {
+        RtpHeader header = new RtpHeader();
+        header.setVersion(2);
+        header.setPayloadType(97);
+        header.setMarker(marker);
+        header.setSequenceNumber(this.sequenceNumber++);
+        header.setTimestamp(timestamp);
+        header.setSsrc(2);
+        RtpPackage rtp = new RtpPackage();
+        rtp.setHeader(header);
+        rtp.setPayload(payload);
+        this.parser.processPackage(rtp);
+    }
+
+    /**
+     * AAC-hbr payload, 13 bits AU-size + 3 bits AU-Index per AU header.
+     *
+     * @param auSizes  AU-size of each header
+     * @param fragment data after AU headers
+     * @return payload
+     */
+    private byte[] payload(int[] auSizes, byte[] fragment) {
+        ByteWriteBuff buff = ByteWriteBuff.newInstance(2 + 2 * auSizes.length + fragment.length)
+                .putShort(16 * auSizes.length);
+        for (int auSize : auSizes) {
+            buff.putShort(auSize << 3);
+        }
+        return buff.putBytes(fragment).getData();
+    }
+
+    private byte[] au(int size, int value) {
+        byte[] res = new byte[size];
+        Arrays.fill(res, (byte) value);
+        return res;
+    }
+
+    @Test
+    public void multiAccessUnits() {
+        byte[] au1 = this.au(300, 0x21);
+        byte[] au2 = this.au(280, 0x22);
+        byte[] data = ByteWriteBuff.newInstance(au1.length + au2.length).putBytes(au1).putBytes(au2).getData();
+        this.process(this.payload(new int[]{au1.length, au2.length}, data), 1000, true);
+        this.process(this.payload(new int[]{10}, this.au(10, 0x23)), 3048, true);
+
+        assertEquals(3, this.frames.size());
+        assertEquals(EFrameType.AUDIO, this.frames.get(0).getFrameType());
+        assertArrayEquals(au1, this.frames.get(0).getFrameSegment());
+        assertArrayEquals(au2, this.frames.get(1).getFrameSegment());
+        // 第二个AU的时间戳加1024，相对于第一个包
+        assertEquals(0, this.frames.get(0).getDts());
+        assertEquals(1024, this.frames.get(1).getDts());
+        assertEquals(2048, this.frames.get(2).getDts());
+        assertEquals(1024, this.frames.get(2).getDuration());
+    }
+
+    @Test
+    public void fragmentedAccessUnit() {
+        byte[] au = this.au(3000, 0x31);
+        this.process(this.payload(new int[]{3000}, Arrays.copyOfRange(au, 0, 1400)), 1000, false);
+        this.process(this.payload(new int[]{3000}, Arrays.copyOfRange(au, 1400, 2800)), 1000, false);
+        assertTrue(this.frames.isEmpty());
+        this.process(this.payload(new int[]{3000}, Arrays.copyOfRange(au, 2800, 3000)), 1000, true);
+        this.process(this.payload(new int[]{10}, this.au(10, 0x32)), 2024, true);
+
+        assertEquals(2, this.frames.size());
+        assertArrayEquals(au, this.frames.get(0).getFrameSegment());
+        assertEquals(1024, this.frames.get(1).getDts());
+    }
+
+    @Test
+    public void fragmentLost() {
+        // 延迟预算为0，缺包立即跳过
+        this.parser = new AacAudioParser(97, 13, 3, 3, new RtpJitterBuffer(0));
+        this.parser.onFrameHandle(this.frames::add);
+        byte[] au = this.au(3000, 0x41);
+        this.process(this.payload(new int[]{3000}, Arrays.copyOfRange(au, 0, 1400)), 1000, false);
+        // 第二个分片丢失，最后一片不完整
+        this.sequenceNumber++;
+        this.process(this.payload(new int[]{3000}, Arrays.copyOfRange(au, 2800, 3000)), 1000, true);
+        assertEquals(1, this.parser.getJitterBuffer().getLostCount());
+        this.process(this.payload(new int[]{10}, this.au(10, 0x42)), 2024, true);
+
+        assertEquals(1, this.frames.size());
+        assertArrayEquals(this.au(10, 0x42), this.frames.get(0).getFrameSegment());
+    }
+
+    @Test
+    public void invalidHeadersLength() {
+        this.process(new byte[]{0x00, 0x40, 0x00, 0x50}, 1000, true);
+        assertTrue(this.frames.isEmpty());
+    }
+}
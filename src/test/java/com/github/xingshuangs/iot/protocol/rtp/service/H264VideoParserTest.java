@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.service;
+
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.rtp.enums.EH264NaluType;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.H264VideoFrame;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class H264VideoParserTest {
+
+    private final byte[] sps = new byte[]{0x67, 0x4D, 0x00, 0x1F, (byte) 0x96, 0x35, 0x40, (byte) 0xA0, 0x0B, 0x74, (byte) 0xDC, 0x04, 0x04, 0x04, 0x08};
+
+    private final byte[] pps = new byte[]{0x68, (byte) 0xEE, 0x3C, (byte) 0x80};
+
+    private final List<H264VideoFrame> frames = new ArrayList<>();
+
+    private H264VideoParser parser;
+
+    private int sequenceNumber = 100;
+
+    @Before
+    public void before() {
+        this.parser = new H264VideoParser(96);
+        this.parser.onFrameHandle((RawFrame x) -> this.frames.add((H264VideoFrame) x));
+    }
+
+    private void process(byte[] payload, long timestamp, boolean marker) {
+        RtpHeader header = new RtpHeader();
+        header.setVersion(2);
+        header.setPayloadType(96);
+        header.setMarker(marker);
+        header.setSequenceNumber(this.sequenceNumber++);
+        header.setTimestamp(timestamp);
+        header.setSsrc(1);
+        RtpPackage rtp = new RtpPackage();
+        rtp.setHeader(header);
+        rtp.setPayload(payload);
+        this.parser.processPackage(rtp);
+    }
+
+    private byte[] slice(int type, int index) {
+        return new byte[]{(byte) (0x60 | type), (byte) 0x88, (byte) index, (byte) index};
+    }
+
+    @Test
+    public void stapA() {
+        byte[] idr = this.slice(5, 0);
+        byte[] stapA = ByteWriteBuff.newInstance(1 + 2 + this.sps.length + 2 + this.pps.length + 2 + idr.length)
+                .putByte(0x78)
+                .putShort(this.sps.length).putBytes(this.sps)
+                .putShort(this.pps.length).putBytes(this.pps)
+                .putShort(idr.length).putBytes(idr)
+                .getData();
+        this.process(stapA, 3600, true);
+        this.process(this.slice(1, 1), 7200, true);
+
+        // 最后一个I帧延迟一帧输出
+        assertEquals(3, this.frames.size());
+        assertEquals(EH264NaluType.SPS, this.frames.get(0).getNaluType());
+        assertArrayEquals(this.sps, this.frames.get(0).getFrameSegment());
+        assertEquals(EH264NaluType.PPS, this.frames.get(1).getNaluType());
+        assertArrayEquals(this.pps, this.frames.get(1).getFrameSegment());
+        assertEquals(EH264NaluType.IDR_SLICE, this.frames.get(2).getNaluType());
+        assertArrayEquals(idr, this.frames.get(2).getFrameSegment());
+        assertEquals(3600, this.frames.get(2).getDuration());
+    }
+
+    @Test
+    public void stapAWithMultiSlices() {
+        byte[] slice0 = this.slice(5, 0);
+        byte[] slice1 = this.slice(5, 1);
+        // 两个slice的聚合包，marker在最后一个包上
+        byte[] stapA = ByteWriteBuff.newInstance(1 + 2 + slice0.length + 2 + slice1.length)
+                .putByte(0x78)
+                .putShort(slice0.length).putBytes(slice0)
+                .putShort(slice1.length).putBytes(slice1)
+                .getData();
+        this.process(stapA, 3600, false);
+        byte[] slice2 = this.slice(5, 2);
+        this.process(slice2, 3600, true);
+        this.process(this.slice(1, 3), 7200, true);
+
+        assertEquals(1, this.frames.size());
+        byte[] expect = ByteWriteBuff.newInstance(4 * 3 + 4 * 2)
+                .putBytes(slice0).putBytes(H264VideoFrame.START_MARKER)
+                .putBytes(slice1).putBytes(H264VideoFrame.START_MARKER)
+                .putBytes(slice2)
+                .getData();
+        assertArrayEquals(expect, this.frames.get(0).getFrameSegment());
+    }
+
+    @Test
+    public void stapBAndMtap16() {
+        byte[] stapB = ByteWriteBuff.newInstance(3 + 2 + this.sps.length + 2 + this.pps.length)
+                .putByte(0x79).putShort(0)
+                .putShort(this.sps.length).putBytes(this.sps)
+                .putShort(this.pps.length).putBytes(this.pps)
+                .getData();
+        this.process(stapB, 3600, false);
+        byte[] slice0 = this.slice(5, 0);
+        byte[] slice1 = this.slice(1, 1);
+        // MTAP16的单元大小包含DOND和时间戳偏移
+        byte[] mtap16 = ByteWriteBuff.newInstance(3 + 5 + slice0.length + 5 + slice1.length)
+                .putByte(0x7A).putShort(1)
+                .putShort(3 + slice0.length).putByte(0).putShort(0).putBytes(slice0)
+                .putShort(3 + slice1.length).putByte(1).putShort(3600).putBytes(slice1)
+                .getData();
+        this.process(mtap16, 3600, true);
+        this.process(this.slice(1, 2), 10800, true);
+
+        assertEquals(4, this.frames.size());
+        assertArrayEquals(this.sps, this.frames.get(0).getFrameSegment());
+        assertArrayEquals(this.pps, this.frames.get(1).getFrameSegment());
+        assertArrayEquals(slice0, this.frames.get(2).getFrameSegment());
+        assertEquals(EH264NaluType.IDR_SLICE, this.frames.get(2).getNaluType());
+        assertArrayEquals(slice1, this.frames.get(3).getFrameSegment());
+        assertEquals(3600, this.frames.get(3).getDts() - this.frames.get(2).getDts());
+    }
+
+    @Test
+    public void aggregationWithInvalidSize() {
+        byte[] stapA = ByteWriteBuff.newInstance(1 + 2 + this.sps.length + 2 + 2)
+                .putByte(0x78)
+                .putShort(this.sps.length).putBytes(this.sps)
+                .putShort(100).putShort(0)
+                .getData();
+        this.process(stapA, 3600, false);
+        assertEquals(1, this.frames.size());
+        assertArrayEquals(this.sps, this.frames.get(0).getFrameSegment());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.service;
+
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.rtp.enums.EH265NaluType;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.H265VideoFrame;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
+import com.github.xingshuangs.iot.utils.HexUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class H265VideoParserTest {
+
+    private final byte[] vps = HexUtil.toHexArray("40010C01FFFF016000000300900000030000030078959809");
+
+    private final byte[] sps = HexUtil.toHexArray("420101016000000300900000030000030078A003C08010E596666924CAE010000003001000000301E080");
+
+    private final byte[] pps = HexUtil.toHexArray("4401C172B46240");
+
+    private final List<H265VideoFrame> frames = new ArrayList<>();
+
+    private H265VideoParser parser;
+
+    private int sequenceNumber = 100;
+
+    @Before
+    public void before() {
+        this.parser = new H265VideoParser(96);
+        this.parser.onFrameHandle((RawFrame x) -> this.frames.add((H265VideoFrame) x));
+    }
+
+    private void process(byte[] payload, long timestamp, boolean marker) {
+        RtpHeader header = new RtpHeader();
+        header.setVersion(2);
+        header.setPayloadType(96);
+        header.setMarker(marker);
+        header.setSequenceNumber(this.sequenceNumber++);
+        header.setTimestamp(timestamp);
+        header.setSsrc(1);
+        RtpPackage rtp = new RtpPackage();
+        rtp.setHeader(header);
+        rtp.setPayload(payload);
+        this.parser.processPackage(rtp);
+    }
+
+    @Test
+    public void aggregationAndFragmentation() {
+        // AP：VPS + SPS + PPS
+        byte[] ap = ByteWriteBuff.newInstance(2 + 6 + this.vps.length + this.sps.length + this.pps.length)
+                .putByte(0x60).putByte(0x01)
+                .putShort(this.vps.length).putBytes(this.vps)
+                .putShort(this.sps.length).putBytes(this.sps)
+                .putShort(this.pps.length).putBytes(this.pps)
+                .getData();
+        this.process(ap, 3600, false);
+        // FU：IDR_W_RADL分成3片
+        this.process(new byte[]{0x62, 0x01, (byte) 0x93, (byte) 0xAF, 0x01}, 3600, false);
+        this.process(new byte[]{0x62, 0x01, 0x13, 0x02, 0x03}, 3600, false);
+        this.process(new byte[]{0x62, 0x01, 0x53, 0x04}, 3600, true);
+        // 单NALU：TRAIL_R
+        byte[] trail = new byte[]{0x02, 0x01, (byte) 0xD0, 0x05};
+        this.process(trail, 7200, true);
+        this.process(new byte[]{0x02, 0x01, (byte) 0xD0, 0x06}, 10800, true);
+
+        assertEquals(5, this.frames.size());
+        assertEquals(EH265NaluType.VPS, this.frames.get(0).getNaluType());
+        assertArrayEquals(this.vps, this.frames.get(0).getFrameSegment());
+        assertEquals(EH265NaluType.SPS, this.frames.get(1).getNaluType());
+        assertArrayEquals(this.sps, this.frames.get(1).getFrameSegment());
+        assertEquals(EH265NaluType.PPS, this.frames.get(2).getNaluType());
+        assertArrayEquals(this.pps, this.frames.get(2).getFrameSegment());
+
+        H265VideoFrame idr = this.frames.get(3);
+        assertEquals(EH265NaluType.IDR_W_RADL, idr.getNaluType());
+        assertTrue(idr.isKeyFrame());
+        assertArrayEquals(new byte[]{0x26, 0x01, (byte) 0xAF, 0x01, 0x02, 0x03, 0x04}, idr.getFrameSegment());
+        assertEquals(3600, idr.getDuration());
+
+        H265VideoFrame frame = this.frames.get(4);
+        assertEquals(EH265NaluType.TRAIL_R, frame.getNaluType());
+        assertFalse(frame.isKeyFrame());
+        assertArrayEquals(trail, frame.getFrameSegment());
+        assertEquals(3600, frame.getDts() - idr.getDts());
+    }
+
+    @Test
+    public void multiSlicesWithoutMarker() {
+        byte[] slice0 = new byte[]{0x26, 0x01, (byte) 0xAF, 0x00};
+        byte[] slice1 = new byte[]{0x26, 0x01, 0x2F, 0x01};
+        this.process(slice0, 3600, false);
+        this.process(slice1, 3600, false);
+        // 丢失marker，时间戳变化时输出上一帧
+        this.process(new byte[]{0x02, 0x01, (byte) 0xD0, 0x02}, 7200, false);
+        this.process(new byte[]{0x02, 0x01, (byte) 0xD0, 0x03}, 10800, true);
+
+        assertEquals(2, this.frames.size());
+        byte[] expect = ByteWriteBuff.newInstance(12)
+                .putBytes(slice0).putBytes(new byte[]{0x00, 0x00, 0x00, 0x01}).putBytes(slice1)
+                .getData();
+        assertArrayEquals(expect, this.frames.get(0).getFrameSegment());
+        assertEquals(EH265NaluType.TRAIL_R, this.frames.get(1).getNaluType());
+    }
+}
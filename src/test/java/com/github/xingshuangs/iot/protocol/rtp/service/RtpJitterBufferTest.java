@@ -0,0 +1,252 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtp.service;
+
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.H264VideoFrame;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+
+public class RtpJitterBufferTest {
+
+    private final List<Integer> released = new ArrayList<>();
+
+    private RtpPackage createRtp(int sequenceNumber) {
+        return this.createRtp(sequenceNumber, 0, false, new byte[]{0x41, (byte) 0x9A});
+    }
+
+    private RtpPackage createRtp(int sequenceNumber, long timestamp, boolean marker, byte[] payload) {
+        RtpHeader header = new RtpHeader();
+        header.setVersion(2);
+        header.setPayloadType(96);
+        header.setMarker(marker);
+        header.setSequenceNumber(sequenceNumber & 0xFFFF);
+        header.setTimestamp(timestamp);
+        header.setSsrc(1);
+        RtpPackage rtp = new RtpPackage();
+        rtp.setHeader(header);
+        rtp.setPayload(payload);
+        return rtp;
+    }
+
+    private void add(RtpJitterBuffer buffer, int sequenceNumber, long now) {
+        buffer.add(this.createRtp(sequenceNumber), now, x -> this.released.add(x.getHeader().getSequenceNumber()));
+    }
+
+    @Test
+    public void inOrderReleasedAtOnce() {
+        RtpJitterBuffer buffer = new RtpJitterBuffer(16, 100);
+        for (int i = 0; i < 40; i++) {
+            this.add(buffer, i, 0);
+            assertEquals(i + 1, this.released.size());
+        }
+        assertEquals(0, buffer.getSize());
+        assertEquals(0, buffer.getLostCount());
+        assertEquals(0, buffer.getLateCount());
+    }
+
+    @Test
+    public void reorderAcrossWraparound() {
+        RtpJitterBuffer buffer = new RtpJitterBuffer(16, 100);
+        for (int sequenceNumber : new int[]{65533, 65535, 65534, 1, 0, 2}) {
+            this.add(buffer, sequenceNumber, 0);
+        }
+        assertEquals(Arrays.asList(65533, 65534, 65535, 0, 1, 2), this.released);
+        assertEquals(0, buffer.getSize());
+        assertEquals(0, buffer.getLostCount());
+    }
+
+    @Test
+    public void lostSkippedAfterLatency() {
+        RtpJitterBuffer buffer = new RtpJitterBuffer(16, 100);
+        this.add(buffer, 10, 0);
+        // 11和12丢失
+        this.add(buffer, 13, 10);
+        this.add(buffer, 14, 20);
+        assertEquals(Arrays.asList(10), this.released);
+        assertEquals(2, buffer.getSize());
+        // 延迟预算之内继续等待
+        buffer.release(109, x -> this.released.add(x.getHeader().getSequenceNumber()));
+        assertEquals(1, this.released.size());
+        buffer.release(110, x -> this.released.add(x.getHeader().getSequenceNumber()));
+        assertEquals(Arrays.asList(10, 13, 14), this.released);
+        assertEquals(2, buffer.getLostCount());
+
+        // 跳过之后才到的包计为迟到
+        this.add(buffer, 11, 120);
+        assertEquals(1, buffer.getLateCount());
+        // 重复的包也计为迟到
+        this.add(buffer, 16, 130);
+        this.add(buffer, 16, 130);
+        assertEquals(2, buffer.getLateCount());
+        this.add(buffer, 15, 140);
+        assertEquals(Arrays.asList(10, 13, 14, 15, 16), this.released);
+    }
+
+    @Test
+    public void earlierPendingPackage() {
+        RtpJitterBuffer buffer = new RtpJitterBuffer(16, 100);
+        this.add(buffer, 0, 0);
+        this.add(buffer, 5, 0);
+        // 3比5更早，跳过的时候只跳过1和2
+        this.add(buffer, 3, 50);
+        buffer.release(100, x -> this.released.add(x.getHeader().getSequenceNumber()));
+        assertEquals(Arrays.asList(0), this.released);
+        buffer.release(149, x -> this.released.add(x.getHeader().getSequenceNumber()));
+        assertEquals(Arrays.asList(0), this.released);
+        // 3等待超时之后，5也已经等待超时
+        buffer.release(150, x -> this.released.add(x.getHeader().getSequenceNumber()));
+        assertEquals(Arrays.asList(0, 3, 5), this.released);
+        assertEquals(3, buffer.getLostCount());
+        this.add(buffer, 4, 160);
+        assertEquals(1, buffer.getLateCount());
+    }
+
+    @Test
+    public void resyncWhenSequenceJumps() {
+        RtpJitterBuffer buffer = new RtpJitterBuffer(16, 100);
+        this.add(buffer, 100, 0);
+        this.add(buffer, 102, 0);
+        // 序列号跳变超过容量，按顺序清空后重新同步
+        this.add(buffer, 30000, 0);
+        this.add(buffer, 30001, 0);
+        assertEquals(Arrays.asList(100, 102, 30000, 30001), this.released);
+        assertEquals(1, buffer.getLostCount());
+        assertEquals(0, buffer.getSize());
+    }
+
+    @Test
+    public void pendingAcrossWordsAndRing() {
+        RtpJitterBuffer buffer = new RtpJitterBuffer(256, 100);
+        this.add(buffer, 250, 0);
+        // 251到260丢失，261的索引绕回到环形缓冲的开头
+        this.add(buffer, 261, 0);
+        this.add(buffer, 400, 0);
+        buffer.release(100, x -> this.released.add(x.getHeader().getSequenceNumber()));
+        assertEquals(Arrays.asList(250, 261, 400), this.released);
+        assertEquals(148, buffer.getLostCount());
+        assertEquals(0, buffer.getSize());
+
+        // 缺包之后再到达更早的包
+        this.add(buffer, 465, 200);
+        this.add(buffer, 402, 250);
+        buffer.release(349, x -> this.released.add(x.getHeader().getSequenceNumber()));
+        assertEquals(3, this.released.size());
+        buffer.release(350, x -> this.released.add(x.getHeader().getSequenceNumber()));
+        assertEquals(Arrays.asList(250, 261, 400, 402, 465), this.released);
+    }
+
+    @Test
+    public void parserReleaseAndFlush() {
+        List<RawFrame> frames = new ArrayList<>();
+        H264VideoParser parser = new H264VideoParser(96, new RtpJitterBuffer(16, 100));
+        parser.onFrameHandle(frames::add);
+        parser.processPackage(this.createRtp(0, 3600, true, new byte[]{0x41, (byte) 0x9A, 0}));
+        // 1丢失，没有后续的包到达
+        parser.processPackage(this.createRtp(2, 7200, true, new byte[]{0x41, (byte) 0x9A, 2}));
+        parser.release(System.currentTimeMillis() + 100);
+        assertEquals(0, parser.getJitterBuffer().getSize());
+        // 解析器延迟一帧输出
+        assertEquals(1, frames.size());
+
+        parser.processPackage(this.createRtp(4, 10800, true, new byte[]{0x41, (byte) 0x9A, 4}));
+        parser.flush();
+        assertEquals(0, parser.getJitterBuffer().getSize());
+        assertEquals(2, frames.size());
+        assertEquals(2, parser.getJitterBuffer().getLostCount());
+    }
+
+    @Test
+    public void udpClientReleaseWithoutNewPackages() throws Exception {
+        List<RawFrame> frames = new CopyOnWriteArrayList<>();
+        H264VideoParser parser = new H264VideoParser(96, new RtpJitterBuffer(16, 50));
+        parser.onFrameHandle(frames::add);
+        RtpUdpClient client = new RtpUdpClient(parser);
+        int port = client.getLocalPort();
+        client.triggerReceive();
+        try (DatagramSocket socket = new DatagramSocket()) {
+            // 1丢失，2之后没有包到达，只能由周期性释放跳过缺包
+            for (int sequenceNumber : new int[]{0, 2}) {
+                byte[] data = this.createRtp(sequenceNumber, 3600L * (sequenceNumber + 1), true, new byte[]{0x41, (byte) 0x9A}).toByteArray();
+                socket.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), port));
+            }
+            long deadline = System.currentTimeMillis() + 2000;
+            while (frames.isEmpty() && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertEquals(1, frames.size());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void h264VideoParserWithReorder() {
+        List<RtpPackage> packages = new ArrayList<>();
+        int sequenceNumber = 65530;
+        long timestamp = 3600;
+        for (int i = 0; i < 4; i++, timestamp += 3600) {
+            // FU-A分片跨越65535 -> 0的回绕
+            for (int j = 0; j < 3; j++) {
+                byte[] payload = new byte[]{0x5C, (byte) ((j == 0 ? 0x80 : 0) | (j == 2 ? 0x40 : 0) | 1), (byte) 0x9A, (byte) i, (byte) j};
+                packages.add(this.createRtp(sequenceNumber++, timestamp, j == 2, payload));
+            }
+        }
+        // 第一个包之后相邻的包交换顺序
+        for (int i = 1; i + 1 < packages.size(); i += 2) {
+            RtpPackage tmp = packages.get(i);
+            packages.set(i, packages.get(i + 1));
+            packages.set(i + 1, tmp);
+        }
+
+        List<H264VideoFrame> frames = new ArrayList<>();
+        H264VideoParser parser = new H264VideoParser(96);
+        parser.onFrameHandle((RawFrame x) -> frames.add((H264VideoFrame) x));
+        packages.forEach(parser::processPackage);
+
+        // 解析器延迟一帧输出
+        assertEquals(3, frames.size());
+        for (int i = 0; i < frames.size(); i++) {
+            assertArrayEquals(new byte[]{0x41, (byte) 0x9A, (byte) i, 0, (byte) 0x9A, (byte) i, 1, (byte) 0x9A, (byte) i, 2}, frames.get(i).getFrameSegment());
+        }
+        assertEquals(0, parser.getJitterBuffer().getLostCount());
+        assertEquals(Arrays.asList(3600L, 3600L, 3600L), frames.stream().map(x -> (long) x.getDuration()).collect(Collectors.toList()));
+    }
+}
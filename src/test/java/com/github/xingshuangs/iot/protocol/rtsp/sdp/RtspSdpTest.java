@@ -27,6 +27,7 @@ package com.github.xingshuangs.iot.protocol.rtsp.sdp;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.RtspSdp;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.RtspSdpMedia;
 import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.RtspSdpSession;
+import com.github.xingshuangs.iot.protocol.rtsp.model.sdp.RtspTrackInfo;
 import com.github.xingshuangs.iot.utils.HexUtil;
 import org.junit.Test;
 
@@ -104,6 +105,68 @@ public class RtspSdpTest {
         assertEquals("494D4B48010200000400000100000000000000000000000000000000000000000000000000000000", media.getAttributeHeader().getMediaInfo());
     }
 
+    @Test
+    public void fromStringH265() {
+        String src = "v=0\r\n" +
+                "o=- 1517245007527432 1517245007527432 IN IP4 10.3.8.202\r\n" +
+                "s=Media Presentation\r\n" +
+                "t=0 0\r\n" +
+                "m=video 0 RTP/AVP 96\r\n" +
+                "a=control:trackID=1\r\n" +
+                "a=rtpmap:96 H265/90000\r\n" +
+                "a=fmtp:96 sprop-vps=QAEMAf//AWAAAAMAkAAAAwAAAwB4lZgJ; sprop-sps=QgEBAWAAAAMAkAAAAwAAAwB4oAPAgBDllmZpJMrgEAAAAwAQAAADAeCA; sprop-pps=RAHBcrRiQA==\r\n";
+
+        RtspSdp sdp = RtspSdp.fromString(src);
+        RtspSdpMedia media = sdp.getMedias().get(0);
+        assertEquals("H265", media.getAttributeRtpMap().getPayloadFormat());
+        assertEquals(24, media.getAttributeFmtp().getVps().length);
+        assertEquals(42, media.getAttributeFmtp().getSps().length);
+        assertArrayEquals(new byte[]{0x44, 0x01, (byte) 0xC1, 0x72, (byte) 0xB4, 0x62, 0x40}, media.getAttributeFmtp().getPps());
+
+        RtspTrackInfo trackInfo = RtspTrackInfo.createTrackInfo(sdp);
+        assertEquals("hvc1.1.6.L120.90", trackInfo.getCodec());
+        assertEquals(1920, trackInfo.getWidth());
+        assertEquals(1080, trackInfo.getHeight());
+        assertEquals(90000, trackInfo.getTimescale());
+    }
+
+    @Test
+    public void fromStringAac() {
+        String src = "v=0\r\n" +
+                "o=- 1517245007527432 1517245007527432 IN IP4 10.3.8.202\r\n" +
+                "s=Media Presentation\r\n" +
+                "t=0 0\r\n" +
+                "m=video 0 RTP/AVP 96\r\n" +
+                "a=control:trackID=1\r\n" +
+                "a=rtpmap:96 H264/90000\r\n" +
+                "a=fmtp:96 profile-level-id=420029; packetization-mode=1; sprop-parameter-sets=Z00AH5Y1QKALdNwEBAQI,aO48gA==\r\n" +
+                "m=audio 0 RTP/AVP 97\r\n" +
+                "a=control:trackID=2\r\n" +
+                "a=rtpmap:97 mpeg4-generic/16000/1\r\n" +
+                "a=fmtp:97 streamtype=5; profile-level-id=15; mode=AAC-hbr; config=1408; sizeLength=13; indexLength=3; indexDeltaLength=3\r\n";
+
+        RtspSdp sdp = RtspSdp.fromString(src);
+        RtspSdpMedia media = sdp.getMedias().get(1);
+        assertEquals("mpeg4-generic", media.getAttributeRtpMap().getPayloadFormat());
+        assertEquals("AAC-hbr", media.getAttributeFmtp().getMode());
+        assertArrayEquals(new byte[]{0x14, 0x08}, media.getAttributeFmtp().getConfig());
+        assertEquals(13, media.getAttributeFmtp().getSizeLength().intValue());
+        assertEquals(3, media.getAttributeFmtp().getIndexLength().intValue());
+        assertEquals(3, media.getAttributeFmtp().getIndexDeltaLength().intValue());
+
+        RtspTrackInfo trackInfo = RtspTrackInfo.createAudioTrackInfo(sdp);
+        assertNotNull(trackInfo);
+        assertEquals(2, trackInfo.getId());
+        assertEquals("audio", trackInfo.getType());
+        assertEquals("mp4a.40.2", trackInfo.getCodec());
+        assertEquals(16000, trackInfo.getAudioSampleRate());
+        assertEquals(1, trackInfo.getChannelCount());
+        assertEquals(16000, trackInfo.getTimescale());
+
+        // 只有视频的时候没有音频轨道
+        assertNull(RtspTrackInfo.createAudioTrackInfo(RtspSdp.fromString(src.substring(0, src.indexOf("m=audio")))));
+    }
+
     @Test
     public void base64() {
         Base64.Decoder decoder = Base64.getDecoder();
@@ -0,0 +1,380 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtsp.service;
+
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class RtspFMp4HubTest {
+
+    private static final byte[] SPS = new byte[]{0x67, 0x4D, 0x00, 0x1F, (byte) 0x96, 0x35, 0x40, (byte) 0xA0, 0x0B, 0x74, (byte) 0xDC, 0x04, 0x04, 0x04, 0x08};
+
+    private static final byte[] PPS = new byte[]{0x68, (byte) 0xEE, 0x3C, (byte) 0x80};
+
+    @Test
+    public void shareOneUpstreamSession() throws Exception {
+        try (StandInRtspServer server = new StandInRtspServer()) {
+            URI uri = URI.create("rtsp://127.0.0.1:" + server.getPort() + "/live");
+            RtspFMp4Hub hub = new RtspFMp4Hub();
+            try {
+                List<byte[]> list1 = Collections.synchronizedList(new ArrayList<>());
+                List<byte[]> list2 = Collections.synchronizedList(new ArrayList<>());
+                CountDownLatch latch1 = new CountDownLatch(10);
+                CountDownLatch latch2 = new CountDownLatch(10);
+                RtspFMp4Subscriber subscriber1 = hub.subscribe(uri, x -> {
+                    list1.add(x);
+                    latch1.countDown();
+                });
+                RtspFMp4Subscriber subscriber2 = hub.subscribe(uri, x -> {
+                    list2.add(x);
+                    latch2.countDown();
+                });
+                assertTrue(latch1.await(10, TimeUnit.SECONDS));
+                assertTrue(latch2.await(10, TimeUnit.SECONDS));
+                assertEquals(2, hub.getSubscriberCount(uri));
+
+                // 后加入的订阅者从缓存的头和GOP立即开始
+                List<byte[]> list3 = Collections.synchronizedList(new ArrayList<>());
+                CountDownLatch latch3 = new CountDownLatch(2);
+                RtspFMp4Subscriber subscriber3 = new RtspFMp4Subscriber(x -> {
+                    list3.add(x);
+                    latch3.countDown();
+                });
+                List<String> codecs = new ArrayList<>();
+                subscriber3.onCodecHandle(codecs::add);
+                hub.subscribe(uri, subscriber3);
+                assertTrue(latch3.await(10, TimeUnit.SECONDS));
+                assertEquals(3, hub.getSubscriberCount(uri));
+                assertEquals(1, server.getConnectionCount());
+                assertEquals(Collections.singletonList("avc1.4d001f"), codecs);
+
+                for (List<byte[]> list : new List[]{list1, list2, list3}) {
+                    assertEquals("ftyp", this.boxType(list.get(0), 0));
+                    assertTrue(this.isKeyFragment(list.get(1)));
+                    for (int i = 1; i < list.size(); i++) {
+                        byte[] fragment = list.get(i);
+                        assertEquals("moof", this.boxType(fragment, 0));
+                        assertEquals("mdat", this.boxType(fragment, this.boxSize(fragment, 0)));
+                    }
+                }
+
+                hub.unsubscribe(subscriber1);
+                hub.unsubscribe(subscriber2);
+                assertEquals(1, hub.getSubscriberCount(uri));
+                assertTrue(subscriber1.isTerminal());
+                // 最后一个订阅者离开后关闭上游会话
+                hub.unsubscribe(subscriber3);
+                assertEquals(0, hub.getSubscriberCount(uri));
+                assertTrue(hub.getUris().isEmpty());
+                assertTrue(server.awaitClosed(10, TimeUnit.SECONDS));
+            } finally {
+                hub.stop();
+            }
+        }
+    }
+
+    @Test
+    public void slowSubscriberDropsWholeFragments() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        List<byte[]> received = Collections.synchronizedList(new ArrayList<>());
+        RtspFMp4Subscriber subscriber = new RtspFMp4Subscriber(2, x -> {
+            received.add(x);
+            if (x[0] == 10) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            done.countDown();
+        });
+        subscriber.offerHeader("avc1.4d001f", new byte[]{0});
+        // 关键帧之前的片段无法解码，直接丢弃
+        assertFalse(subscriber.offerFragment(new byte[]{9}, false));
+        assertTrue(subscriber.offerFragment(new byte[]{10}, true));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.offerFragment(new byte[]{11}, false));
+        assertTrue(subscriber.offerFragment(new byte[]{12}, false));
+        // 队列满了，整片段丢弃直到下一个关键帧
+        assertFalse(subscriber.offerFragment(new byte[]{13}, false));
+        assertFalse(subscriber.offerFragment(new byte[]{14}, false));
+        assertTrue(subscriber.offerFragment(new byte[]{20}, true));
+        assertEquals(1, subscriber.getQueueSize());
+        assertEquals(5, subscriber.getDroppedCount());
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        subscriber.close();
+
+        assertEquals(3, received.size());
+        assertEquals(0, received.get(0)[0]);
+        assertEquals(10, received.get(1)[0]);
+        assertEquals(20, received.get(2)[0]);
+    }
+
+    @Test
+    public void newHeaderResentToSubscriber() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        List<byte[]> received = Collections.synchronizedList(new ArrayList<>());
+        List<String> codecs = Collections.synchronizedList(new ArrayList<>());
+        RtspFMp4Subscriber subscriber = new RtspFMp4Subscriber(x -> {
+            received.add(x);
+            if (x[0] == 10) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            done.countDown();
+        });
+        subscriber.onCodecHandle(codecs::add);
+        subscriber.offerHeader("avc1.4d001f", new byte[]{0});
+        assertTrue(subscriber.offerFragment(new byte[]{10}, true));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.offerFragment(new byte[]{11}, false));
+        // 新的头，旧头的排队片段丢弃，等待下一个关键帧片段
+        subscriber.offerHeader("hvc1.1.6.L93.B0", new byte[]{1});
+        assertFalse(subscriber.offerFragment(new byte[]{12}, false));
+        assertTrue(subscriber.offerFragment(new byte[]{20}, true));
+        assertEquals(2, subscriber.getDroppedCount());
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        subscriber.close();
+
+        assertEquals(4, received.size());
+        assertEquals(0, received.get(0)[0]);
+        assertEquals(10, received.get(1)[0]);
+        assertEquals(1, received.get(2)[0]);
+        assertEquals(20, received.get(3)[0]);
+        assertEquals(2, codecs.size());
+        assertEquals("hvc1.1.6.L93.B0", codecs.get(1));
+    }
+
+    private int boxSize(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    private String boxType(byte[] data, int offset) {
+        return new String(data, offset + 4, 4, StandardCharsets.US_ASCII);
+    }
+
+    private boolean isKeyFragment(byte[] fragment) {
+        int mdatOffset = this.boxSize(fragment, 0);
+        return (fragment[mdatOffset + 12] & 0x1F) == 5;
+    }
+
+    /**
+     * Local stand-in RTSP server, TCP interleaved, sends H264 GOPs continuously after PLAY.
+     * (本地替身RTSP服务端，TCP交织模式，PLAY之后持续发送H264的GOP)
+     */
+    private static class StandInRtspServer implements AutoCloseable {
+
+        private static final int GOP_SIZE = 12;
+
+        private final ServerSocket serverSocket;
+
+        private final AtomicInteger connectionCount = new AtomicInteger();
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        private final Thread thread;
+
+        StandInRtspServer() throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.thread = new Thread(this::acceptLoop);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        int getPort() {
+            return this.serverSocket.getLocalPort();
+        }
+
+        int getConnectionCount() {
+            return this.connectionCount.get();
+        }
+
+        boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException {
+            return this.closed.await(timeout, unit);
+        }
+
+        private void acceptLoop() {
+            while (!this.serverSocket.isClosed()) {
+                try (Socket socket = this.serverSocket.accept()) {
+                    this.connectionCount.incrementAndGet();
+                    this.session(socket);
+                } catch (IOException e) {
+                    // 客户端断开
+                } finally {
+                    this.closed.countDown();
+                }
+            }
+        }
+
+        private void session(Socket socket) throws IOException {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            String base = "rtsp://127.0.0.1:" + this.getPort() + "/live";
+            while (true) {
+                String request = this.readRequest(in);
+                if (request == null) {
+                    return;
+                }
+                String method = request.substring(0, request.indexOf(' '));
+                String cSeq = request.replaceAll("(?s).*CSeq: *(\\d+).*", "$1");
+                String header = "RTSP/1.0 200 OK\r\nCSeq: " + cSeq + "\r\n";
+                switch (method) {
+                    case "OPTIONS":
+                        this.write(out, header + "Public: OPTIONS, DESCRIBE, SETUP, TEARDOWN, PLAY\r\n\r\n");
+                        break;
+                    case "DESCRIBE":
+                        String sdp = "v=0\r\n" +
+                                "o=- 1 1 IN IP4 127.0.0.1\r\n" +
+                                "s=Stand In\r\n" +
+                                "t=0 0\r\n" +
+                                "a=control:" + base + "\r\n" +
+                                "m=video 0 RTP/AVP 96\r\n" +
+                                "c=IN IP4 0.0.0.0\r\n" +
+                                "a=control:trackID=1\r\n" +
+                                "a=rtpmap:96 H264/90000\r\n" +
+                                "a=fmtp:96 profile-level-id=4D001F; packetization-mode=1; sprop-parameter-sets=Z00AH5Y1QKALdNwEBAQI,aO48gA==\r\n";
+                        this.write(out, header + "Content-Type: application/sdp\r\nContent-Base: " + base + "/\r\n"
+                                + "Content-Length: " + sdp.length() + "\r\n\r\n" + sdp);
+                        break;
+                    case "SETUP":
+                        this.write(out, header + "Session: 12345678;timeout=60\r\nTransport: RTP/AVP/TCP;unicast;interleaved=0-1\r\n\r\n");
+                        break;
+                    case "PLAY":
+                        this.write(out, header + "Session: 12345678\r\n\r\n");
+                        this.stream(out);
+                        return;
+                    default:
+                        return;
+                }
+            }
+        }
+
+        private void stream(OutputStream out) throws IOException {
+            int sequenceNumber = 0;
+            for (int i = 0; ; i++) {
+                long timestamp = 3600L * i;
+                if (i % GOP_SIZE == 0) {
+                    out.write(this.interleaved(sequenceNumber++, timestamp, false, SPS));
+                    out.write(this.interleaved(sequenceNumber++, timestamp, false, PPS));
+                    out.write(this.interleaved(sequenceNumber++, timestamp, true, this.slice(0x65, (byte) 0x88, i)));
+                } else {
+                    out.write(this.interleaved(sequenceNumber++, timestamp, true, this.slice(0x41, (byte) 0x9A, i)));
+                }
+                out.flush();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private byte[] slice(int naluHeader, byte sliceHeader, int index) {
+            byte[] data = new byte[200];
+            data[0] = (byte) naluHeader;
+            data[1] = sliceHeader;
+            data[2] = (byte) 0x84;
+            data[data.length - 1] = (byte) index;
+            return data;
+        }
+
+        private byte[] interleaved(int sequenceNumber, long timestamp, boolean marker, byte[] payload) {
+            RtpHeader header = new RtpHeader();
+            header.setVersion(2);
+            header.setMarker(marker);
+            header.setPayloadType(96);
+            header.setSequenceNumber(sequenceNumber & 0xFFFF);
+            header.setTimestamp(timestamp);
+            header.setSsrc(1);
+            RtpPackage rtp = new RtpPackage();
+            rtp.setHeader(header);
+            rtp.setPayload(payload);
+            byte[] rtpBytes = rtp.toByteArray();
+            return ByteWriteBuff.newInstance(4 + rtpBytes.length)
+                    .putByte(0x24)
+                    .putByte(0x00)
+                    .putShort(rtpBytes.length)
+                    .putBytes(rtpBytes)
+                    .getData();
+        }
+
+        private String readRequest(InputStream in) throws IOException {
+            ByteArrayOutputStream buff = new ByteArrayOutputStream();
+            int matched = 0;
+            while (matched < 4) {
+                int b = in.read();
+                if (b < 0) {
+                    return null;
+                }
+                buff.write(b);
+                matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+            }
+            return buff.toString("US-ASCII");
+        }
+
+        private void write(OutputStream out, String response) throws IOException {
+            out.write(response.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.xingshuangs.iot.protocol.rtsp.service;
+
+import com.github.xingshuangs.iot.protocol.mp4.model.Mp4Fragment;
+import com.github.xingshuangs.iot.protocol.mp4.model.Mp4Header;
+import com.github.xingshuangs.iot.protocol.mp4.model.Mp4SampleData;
+import com.github.xingshuangs.iot.protocol.mp4.model.Mp4TrackInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class RtspFMp4RecorderTest {
+
+    private Path directory;
+
+    private long sequenceNumber = 1;
+
+    private long dts = 0;
+
+    @Before
+    public void before() throws Exception {
+        this.directory = Files.createTempDirectory("fmp4-record");
+    }
+
+    @After
+    public void after() {
+        File[] files = this.directory.toFile().listFiles();
+        if (files != null) {
+            Arrays.stream(files).forEach(File::delete);
+        }
+        this.directory.toFile().delete();
+    }
+
+    private Mp4TrackInfo trackInfo() {
+        Mp4TrackInfo info = new Mp4TrackInfo();
+        info.setId(1);
+        info.setTimescale(90000);
+        info.setDuration(90000);
+        info.setWidth(1920);
+        info.setHeight(1080);
+        info.setSps(new byte[]{0x67, 0x64, 0x00, 0x2A, (byte) 0xAC, 0x2B, 0x50, 0x3C, 0x01, 0x13, (byte) 0xF2, (byte) 0xCD, (byte) 0xC0, 0x40, 0x40, 0x40, (byte) 0x80});
+        info.setPps(new byte[]{0x68, (byte) 0xEE, 0x3C, (byte) 0xB0});
+        return info;
+    }
+
+    /**
+     * Fragment of 5 samples, 0.2 second.
+     */
+    private Mp4Fragment fragment(boolean keyFrame) {
+        Mp4TrackInfo info = this.trackInfo();
+        long first = this.dts;
+        for (int i = 0; i < 5; i++) {
+            Mp4SampleData sample = new Mp4SampleData();
+            sample.setData(new byte[]{(byte) (keyFrame && i == 0 ? 0x65 : 0x41), (byte) this.sequenceNumber, (byte) i});
+            sample.setDts(this.dts);
+            sample.setDuration(3600);
+            info.getSampleData().add(sample);
+            this.dts += 3600;
+        }
+        Mp4Fragment fragment = new Mp4Fragment(this.sequenceNumber++, first, info);
+        fragment.setKeyFrame(keyFrame);
+        return fragment;
+    }
+
+    @Test
+    public void rollByDurationOnKeyFrame() throws Exception {
+        RtspFMp4Recorder recorder = new RtspFMp4Recorder(this.directory, "cam1");
+        recorder.setMaxDuration(1000);
+        List<Path> paths = new ArrayList<>();
+        List<List<RtspFMp4Recorder.FragmentIndex>> indexes = new ArrayList<>();
+        recorder.onFileCloseHandle((p, i) -> {
+            paths.add(p);
+            indexes.add(i);
+        });
+
+        // 头之前的片段丢弃
+        recorder.accept(this.fragment(true));
+        Mp4Header header = new Mp4Header(this.trackInfo());
+        recorder.accept(header);
+        // 文件以关键帧开头
+        recorder.accept(this.fragment(false));
+        assertNull(recorder.getPath());
+        assertEquals(2, recorder.getDroppedCount());
+
+        ByteArrayOutputStream expect = new ByteArrayOutputStream();
+        expect.write(header.toByteArray());
+        List<Mp4Fragment> fragments = new ArrayList<>();
+        fragments.add(this.fragment(true));
+        for (int i = 0; i < 6; i++) {
+            fragments.add(this.fragment(false));
+        }
+        for (Mp4Fragment fragment : fragments) {
+            recorder.accept(fragment);
+            expect.write(fragment.toByteArray());
+        }
+        // 超过时长但不是关键帧，不滚动
+        assertTrue(paths.isEmpty());
+        assertEquals(7, recorder.getIndexes().size());
+
+        Mp4Fragment key = this.fragment(true);
+        recorder.accept(key);
+        assertEquals(1, paths.size());
+        assertArrayEquals(expect.toByteArray(), Files.readAllBytes(paths.get(0)));
+        List<RtspFMp4Recorder.FragmentIndex> first = indexes.get(0);
+        assertEquals(7, first.size());
+        assertEquals(header.byteArrayLength(), first.get(0).getOffset());
+        assertEquals(first.get(0).getOffset() + first.get(0).getLength(), first.get(1).getOffset());
+        assertTrue(first.get(0).isKeyFrame());
+        assertFalse(first.get(1).isKeyFrame());
+        assertEquals(18000, first.get(1).getBaseMediaDecodeTime() - first.get(0).getBaseMediaDecodeTime());
+        assertEquals(18000, first.get(0).getDuration());
+
+        // 新文件以头和关键帧开头
+        Path second = recorder.getPath();
+        assertNotEquals(paths.get(0), second);
+        recorder.close();
+        assertEquals(2, paths.size());
+        byte[] bytes = Files.readAllBytes(second);
+        byte[] keyBytes = key.toByteArray();
+        assertEquals(header.byteArrayLength() + keyBytes.length, bytes.length);
+        assertArrayEquals(keyBytes, Arrays.copyOfRange(bytes, header.byteArrayLength(), bytes.length));
+        assertTrue(recorder.getIndexes().isEmpty());
+    }
+
+    @Test
+    public void rollBySizeWithPreallocation() throws Exception {
+        RtspFMp4Recorder recorder = new RtspFMp4Recorder(this.directory, "cam2");
+        recorder.setMaxDuration(0);
+        recorder.setPreallocateSize(1024 * 1024);
+        Mp4Header header = new Mp4Header(this.trackInfo());
+        Mp4Fragment fragment = this.fragment(true);
+        recorder.setMaxSize(header.byteArrayLength() + 2L * fragment.byteArrayLength());
+        List<Path> paths = new ArrayList<>();
+        recorder.onFileCloseHandle((p, i) -> paths.add(p));
+
+        recorder.accept(header);
+        recorder.accept(fragment);
+        recorder.accept(this.fragment(true));
+        assertTrue(paths.isEmpty());
+        recorder.accept(this.fragment(true));
+        // 预分配的文件关闭时截断为实际大小
+        assertEquals(1, paths.size());
+        assertEquals(header.byteArrayLength() + 2L * fragment.byteArrayLength(), Files.size(paths.get(0)));
+        recorder.close();
+        assertEquals(header.byteArrayLength() + fragment.byteArrayLength(), Files.size(paths.get(1)));
+    }
+
+    @Test
+    public void preallocationKeepsWrittenData() throws Exception {
+        RtspFMp4Recorder recorder = new RtspFMp4Recorder(this.directory, "cam3");
+        recorder.setMaxDuration(0);
+        recorder.setPreallocateSize(4 * 1024 * 1024);
+        Mp4Header header = new Mp4Header(this.trackInfo());
+        ByteArrayOutputStream expect = new ByteArrayOutputStream();
+        expect.write(header.toByteArray());
+        recorder.accept(header);
+        // 后台填充和写入同时进行，零填充不能覆盖已写入的数据
+        for (int i = 0; i < 3000; i++) {
+            Mp4Fragment fragment = this.fragment(i % 50 == 0);
+            expect.write(fragment.toByteArray());
+            recorder.accept(fragment);
+        }
+        Path path = recorder.getPath();
+        recorder.close();
+        assertArrayEquals(expect.toByteArray(), Files.readAllBytes(path));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.rtsp.service;
+
+import com.github.xingshuangs.iot.common.buff.ByteWriteBuff;
+import com.github.xingshuangs.iot.net.client.TcpClientBasic;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpHeader;
+import com.github.xingshuangs.iot.protocol.rtp.model.RtpPackage;
+import com.github.xingshuangs.iot.protocol.rtp.model.frame.RawFrame;
+import com.github.xingshuangs.iot.protocol.rtp.service.IPayloadParser;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+
+public class RtspInterleavedClientTest {
+
+    private static final int PACKAGE_COUNT = 200;
+
+    @Test
+    public void receiveInterleaved() throws Exception {
+        List<RtpPackage> received = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(PACKAGE_COUNT);
+        IPayloadParser parser = new IPayloadParser() {
+            @Override
+            public void processPackage(RtpPackage rtp) {
+                received.add(rtp);
+                latch.countDown();
+            }
+
+            @Override
+            public void onFrameHandle(Consumer<RawFrame> frameHandle) {
+                // NOOP
+            }
+        };
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            CompletableFuture<Void> server = CompletableFuture.runAsync(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    OutputStream out = socket.getOutputStream();
+                    // 夹杂RTSP的响应，需要被跳过
+                    out.write("RTSP/1.0 200 OK\r\nCSeq: 5\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                    for (int i = 0; i < PACKAGE_COUNT; i++) {
+                        byte[] frame = this.createInterleaved(i, 100 + (i * 331) % 4000);
+                        // 分成两段发送，模拟分包
+                        int half = frame.length / 2;
+                        out.write(frame, 0, half);
+                        out.flush();
+                        out.write(frame, half, frame.length - half);
+                    }
+                    out.flush();
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            TcpClientBasic tcpClient = new TcpClientBasic("127.0.0.1", serverSocket.getLocalPort());
+            tcpClient.connect();
+            RtspInterleavedClient client = new RtspInterleavedClient(parser, tcpClient);
+            client.triggerReceive();
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            server.join();
+            // 服务端断开后接收线程结束
+            client.getFuture().get(10, TimeUnit.SECONDS);
+            client.close();
+            tcpClient.close();
+        }
+
+        assertEquals(PACKAGE_COUNT, received.size());
+        for (int i = 0; i < PACKAGE_COUNT; i++) {
+            RtpPackage rtp = received.get(i);
+            assertEquals(i, rtp.getHeader().getSequenceNumber());
+            assertEquals(100 + (i * 331) % 4000, rtp.getPayload().length);
+            assertEquals((byte) i, rtp.getPayload()[rtp.getPayload().length - 1]);
+        }
+    }
+
+    private byte[] createInterleaved(int sequenceNumber, int payloadLength) {
+        RtpHeader header = new RtpHeader();
+        header.setVersion(2);
+        header.setPayloadType(96);
+        header.setSequenceNumber(sequenceNumber);
+        header.setTimestamp(3600L * sequenceNumber);
+        header.setSsrc(1);
+        byte[] payload = new byte[payloadLength];
+        payload[payloadLength - 1] = (byte) sequenceNumber;
+        RtpPackage rtp = new RtpPackage();
+        rtp.setHeader(header);
+        rtp.setPayload(payload);
+        byte[] rtpBytes = rtp.toByteArray();
+        return ByteWriteBuff.newInstance(4 + rtpBytes.length)
+                .putByte(0x24)
+                .putByte(0x00)
+                .putShort(rtpBytes.length)
+                .putBytes(rtpBytes)
+                .getData();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.algorithm;
+
+import com.github.xingshuangs.iot.protocol.s7.enums.EArea;
+import com.github.xingshuangs.iot.protocol.s7.enums.EDataVariableType;
+import com.github.xingshuangs.iot.protocol.s7.enums.EReturnCode;
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
+import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class S7CoalesceAlgTest {
+
+    @Test
+    public void coalesce() {
+        List<RequestItem> src = Arrays.asList(
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseByte("DB1.100", 2),
+                AddressUtil.parseBit("DB1.10.3"),
+                AddressUtil.parseByte("M0", 1),
+                AddressUtil.parseByte("DB1.2", 4));
+        S7CoalescePlan plan = S7CoalesceAlg.coalesce(src, 4);
+        assertTrue(plan.isCoalesced());
+        assertEquals(3, plan.getRequestItems().size());
+
+        RequestItem db1 = plan.getRequestItems().get(0);
+        assertEquals(EArea.DATA_BLOCKS, db1.getArea());
+        assertEquals(0, db1.getByteAddress());
+        assertEquals(11, db1.getCount());
+        assertEquals(100, plan.getRequestItems().get(1).getByteAddress());
+        assertEquals(EArea.FLAGS, plan.getRequestItems().get(2).getArea());
+
+        assertEquals(new S7CoalesceItem(0, 0, 2, 0, false, false), plan.getItems().get(0));
+        assertEquals(new S7CoalesceItem(1, 0, 2, 0, false, false), plan.getItems().get(1));
+        assertEquals(new S7CoalesceItem(0, 10, 1, 3, true, false), plan.getItems().get(2));
+        assertEquals(new S7CoalesceItem(2, 0, 1, 0, false, false), plan.getItems().get(3));
+        assertEquals(new S7CoalesceItem(0, 2, 4, 0, false, false), plan.getItems().get(4));
+    }
+
+    @Test
+    public void coalesceDisabled() {
+        List<RequestItem> src = Arrays.asList(
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseByte("DB1.2", 2));
+        S7CoalescePlan plan = S7CoalesceAlg.coalesce(src, -1);
+        assertFalse(plan.isCoalesced());
+        assertEquals(2, plan.getRequestItems().size());
+
+        plan = S7CoalesceAlg.coalesce(src, 0);
+        assertTrue(plan.isCoalesced());
+        assertEquals(4, plan.getRequestItems().get(0).getCount());
+
+        plan = S7CoalesceAlg.coalesce(Arrays.asList(
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseByte("DB1.3", 2)), 0);
+        assertFalse(plan.isCoalesced());
+    }
+
+    @Test
+    public void split() {
+        List<RequestItem> src = Arrays.asList(
+                AddressUtil.parseByte("DB1.2", 2),
+                AddressUtil.parseBit("DB1.1.7"),
+                AddressUtil.parseByte("DB1.0", 1));
+        S7CoalescePlan plan = S7CoalesceAlg.coalesce(src, 0);
+        assertEquals(1, plan.getRequestItems().size());
+        DataItem ack = DataItem.createReq(new byte[]{(byte) 0x11, (byte) 0x80, (byte) 0x22, (byte) 0x33}, EDataVariableType.BYTE_WORD_DWORD);
+        List<DataItem> actual = plan.split(Collections.singletonList(ack));
+        assertEquals(3, actual.size());
+        assertArrayEquals(new byte[]{(byte) 0x22, (byte) 0x33}, actual.get(0).getData());
+        assertArrayEquals(new byte[]{(byte) 0x01}, actual.get(1).getData());
+        assertEquals(EDataVariableType.BIT, actual.get(1).getVariableType());
+        assertArrayEquals(new byte[]{(byte) 0x11}, actual.get(2).getData());
+    }
+
+    @Test
+    public void failedIndexes() {
+        List<RequestItem> src = Arrays.asList(
+                AddressUtil.parseByte("DB1.0", 2),
+                AddressUtil.parseByte("DB1.2", 2),
+                AddressUtil.parseByte("DB2.0", 2),
+                AddressUtil.parseByte("DB3.0", 2));
+        S7CoalescePlan plan = S7CoalesceAlg.coalesce(src, 0);
+        assertEquals(3, plan.getRequestItems().size());
+        DataItem failed = DataItem.createReq(new byte[0], EDataVariableType.BYTE_WORD_DWORD);
+        failed.setData(null);
+        failed.setReturnCode(EReturnCode.INVALID_ADDRESS);
+        DataItem success = DataItem.createReq(new byte[]{0x01, 0x02}, EDataVariableType.BYTE_WORD_DWORD);
+        success.setReturnCode(EReturnCode.SUCCESS);
+        List<DataItem> actual = plan.split(Arrays.asList(failed, failed, success));
+        // 合并项失败的需要逐项重新读取，单独的项失败无需重新读取
+        assertEquals(Arrays.asList(0, 1), plan.getFailedIndexes(actual));
+        assertEquals(Collections.emptyList(), S7CoalesceAlg.coalesce(src, -1).getFailedIndexes(Arrays.asList(failed, failed, failed, success)));
+    }
+}
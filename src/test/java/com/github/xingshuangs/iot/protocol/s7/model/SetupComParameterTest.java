@@ -51,6 +51,14 @@ public class SetupComParameterTest {
         assertArrayEquals(expect, actual);
     }
 
+    @Test
+    public void createDefault() {
+        SetupComParameter setupComParameter = SetupComParameter.createDefault(480, 3);
+        byte[] actual = setupComParameter.toByteArray();
+        byte[] expect = {(byte) 0xF0, (byte) 0x00, (byte) 0x00, (byte) 0x03, (byte) 0x00, (byte) 0x03, (byte) 0x01, (byte) 0xE0};
+        assertArrayEquals(expect, actual);
+    }
+
     @Test
     public void parameter() {
         Parameter parameter = new SetupComParameter();
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021-2099 Oscura (xingshuang) <xingshuang_cool@163.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.github.xingshuangs.iot.protocol.s7.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+
+public class S7DataAreaTest {
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        this.directory = Files.createTempDirectory("s7-area");
+    }
+
+    @After
+    public void after() {
+        File[] files = this.directory.toFile().listFiles();
+        if (files != null) {
+            Arrays.stream(files).forEach(File::delete);
+        }
+        this.directory.toFile().delete();
+    }
+
+    @Test
+    public void readWriteInMemory() {
+        S7DataArea area = S7DataArea.createInMemory("M");
+        assertFalse(area.isMapped());
+        area.writeBytes(10, new byte[]{0x01, 0x02, 0x03});
+        assertArrayEquals(new byte[]{0x00, 0x01, 0x02, 0x03, 0x00}, area.readBytes(9, 5));
+        area.writeBit(20, 3, true);
+        assertTrue(area.readBit(20, 3));
+        assertFalse(area.readBit(20, 2));
+        assertArrayEquals(new byte[]{0x08}, area.readBytes(20, 1));
+        area.writeBit(20, 3, false);
+        assertArrayEquals(new byte[]{0x00}, area.readBytes(20, 1));
+        area.writeBytes(S7DataArea.AREA_SIZE - 2, new byte[]{0x11, 0x22});
+        assertArrayEquals(new byte[]{0x11, 0x22}, area.readBytes(S7DataArea.AREA_SIZE - 2, 2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void readOutOfRange() {
+        S7DataArea.createInMemory("M").readBytes(S7DataArea.AREA_SIZE - 1, 2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void writeOutOfRange() {
+        S7DataArea.createInMemory("M").writeBytes(-1, new byte[]{0x01});
+    }
+
+    @Test
+    public void mappedPersistence() {
+        S7DataArea area = S7DataArea.createMapped("DB5", this.directory);
+        assertTrue(area.isMapped());
+        assertEquals(S7DataArea.AREA_SIZE, this.directory.resolve("DB5.bin").toFile().length());
+        area.writeBytes(100, new byte[]{0x55, 0x66});
+        area.writeBit(200, 7, true);
+        area.force();
+
+        S7DataArea reopen = S7DataArea.createMapped("DB5", this.directory);
+        assertArrayEquals(new byte[]{0x55, 0x66}, reopen.readBytes(100, 2));
+        assertTrue(reopen.readBit(200, 7));
+    }
+}
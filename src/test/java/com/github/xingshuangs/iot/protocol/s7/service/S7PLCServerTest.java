@@ -25,23 +25,39 @@
 package com.github.xingshuangs.iot.protocol.s7.service;
 
 import com.github.xingshuangs.iot.common.enums.EDataType;
+import com.github.xingshuangs.iot.common.poll.PollEngine;
+import com.github.xingshuangs.iot.common.poll.PollEvent;
+import com.github.xingshuangs.iot.common.poll.PollGroup;
+import com.github.xingshuangs.iot.common.poll.PollTag;
 import com.github.xingshuangs.iot.protocol.s7.enums.EPlcType;
+import com.github.xingshuangs.iot.protocol.s7.enums.EReturnCode;
+import com.github.xingshuangs.iot.protocol.s7.model.DataItem;
+import com.github.xingshuangs.iot.protocol.s7.model.RequestItem;
 import com.github.xingshuangs.iot.protocol.s7.serializer.DemoBean;
 import com.github.xingshuangs.iot.protocol.s7.serializer.DemoLargeBean;
 import com.github.xingshuangs.iot.protocol.s7.serializer.S7Parameter;
 import com.github.xingshuangs.iot.protocol.s7.serializer.S7Serializer;
+import com.github.xingshuangs.iot.protocol.s7.utils.AddressUtil;
 import com.github.xingshuangs.iot.utils.HexUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -100,6 +116,21 @@ public class S7PLCServerTest {
         assertEquals((short) 33, shorts.get(1).shortValue());
     }
 
+    @Test
+    public void pipelineReadWriteTest() {
+        S7PLC plc = new S7PLC(EPlcType.S1200, "127.0.0.1", 8888);
+        plc.setMaxAmq(4);
+        byte[] expect = new byte[3000];
+        for (int i = 0; i < expect.length; i++) {
+            expect[i] = (byte) i;
+        }
+        plc.writeByte("DB2.0", expect);
+        assertEquals(4, plc.getNegotiatedAmq());
+        byte[] actual = plc.readByte("DB2.0", expect.length);
+        assertArrayEquals(expect, actual);
+        plc.close();
+    }
+
     @Test
     public void serializerTest() {
         S7Serializer s7Serializer = S7Serializer.newInstance(this.s7PLC);
@@ -137,6 +168,28 @@ public class S7PLCServerTest {
         assertEquals(LocalDateTime.of(2023, 5, 27, 12, 11, 22, 333225555), bean.getDateTimeData());
     }
 
+    @Test
+    public void serializerPlanReuseTest() {
+        S7Serializer s7Serializer = S7Serializer.newInstance(this.s7PLC);
+        DemoBean bean = new DemoBean();
+        bean.setUint16Data(42767);
+        bean.setStringData("abc");
+        bean.setDateTimeData(LocalDateTime.of(2023, 5, 27, 12, 11, 22));
+        s7Serializer.write(bean);
+        for (int i = 0; i < 3; i++) {
+            bean = S7Serializer.newInstance(this.s7PLC).read(DemoBean.class);
+            assertEquals(42767, bean.getUint16Data().intValue());
+            assertEquals("abc", bean.getStringData());
+        }
+        // 合并间隙变化后读取布局重新创建
+        this.s7PLC.setReadCoalesceGap(0);
+        bean.setUint16Data(1234);
+        s7Serializer.write(bean);
+        bean = s7Serializer.read(DemoBean.class);
+        assertEquals(1234, bean.getUint16Data().intValue());
+        assertEquals("abc", bean.getStringData());
+    }
+
     @Test
     public void serializerTest1() {
         S7Serializer s7Serializer = S7Serializer.newInstance(s7PLC);
@@ -257,4 +310,143 @@ public class S7PLCServerTest {
         write.addUInt16("DB1.12", 1);
         s7PLC.writeMultiData(write);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void coalesceReadTest() {
+        this.s7PLC.writeInt16("DB1.0", (short) 22);
+        this.s7PLC.writeInt16("DB1.2", (short) 33);
+        this.s7PLC.writeInt16("DB1.8", (short) 44);
+        this.s7PLC.writeBoolean("DB1.5.3", true);
+        this.s7PLC.writeInt16("DB2.0", (short) 55);
+        this.s7PLC.setReadCoalesceGap(4);
+        MultiAddressRead read = new MultiAddressRead();
+        read.addData("DB1.8", 2)
+                .addData("DB1.0", 2)
+                .addData("DB1.2", 2)
+                .addData("DB2.0", 2)
+                .addData("DB1.1", 3);
+        List<byte[]> actual = this.s7PLC.readMultiByte(read);
+        assertArrayEquals(new byte[]{0x00, 0x2C}, actual.get(0));
+        assertArrayEquals(new byte[]{0x00, 0x16}, actual.get(1));
+        assertArrayEquals(new byte[]{0x00, 0x21}, actual.get(2));
+        assertArrayEquals(new byte[]{0x00, 0x37}, actual.get(3));
+        assertArrayEquals(new byte[]{0x16, 0x00, 0x21}, actual.get(4));
+        List<Boolean> booleans = this.s7PLC.readBoolean("DB1.5.3", "DB1.5.2", "DB1.0.0");
+        assertEquals(true, booleans.get(0));
+        assertEquals(false, booleans.get(1));
+        assertEquals(false, booleans.get(2));
+        assertEquals(true, this.s7PLC.readBooleanAsync("DB1.5.3").join());
+    }
+
+    @Test
+    public void pollEngineTest() throws InterruptedException {
+        this.s7PLC.writeInt16("DB1.0", (short) 22);
+        this.s7PLC.writeFloat32("DB1.4", 1.5f);
+        PollEngine engine = new PollEngine(new S7PollReader(this.s7PLC));
+        BlockingQueue<PollEvent> events = new LinkedBlockingQueue<>();
+        engine.addGroup(new PollGroup("g1", 50, events::addAll)
+                .addTag(new PollTag("DB1.0", EDataType.INT16))
+                .addTag(new PollTag("DB1.4", EDataType.FLOAT32, 1, 0.5)));
+        engine.start();
+        assertEquals((short) 22, events.poll(5, TimeUnit.SECONDS).getNewValue());
+        assertEquals(1.5f, events.poll(5, TimeUnit.SECONDS).getNewValue());
+        this.s7PLC.writeFloat32("DB1.4", 1.7f);
+        this.s7PLC.writeInt16("DB1.0", (short) 23);
+        PollEvent event = events.poll(5, TimeUnit.SECONDS);
+        assertEquals("DB1.0", event.getTag().getAddress());
+        assertEquals((short) 22, event.getOldValue());
+        assertEquals((short) 23, event.getNewValue());
+        engine.stop();
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void asyncReadWriteTest() {
+        s7PLC.setMaxAmq(4);
+        s7PLC.writeFloat32Async("DB1.20", 12.5f).join();
+        s7PLC.writeInt16Async("DB1.24", (short) -32).join();
+        assertEquals(12.5f, s7PLC.readFloat32Async("DB1.20").join(), 0.001);
+        assertEquals(-32, s7PLC.readInt16Async("DB1.24").join().intValue());
+        assertEquals(4, s7PLC.getAsyncClient().getMaxInFlight());
+
+        byte[] expect = new byte[3000];
+        for (int i = 0; i < expect.length; i++) {
+            expect[i] = (byte) i;
+        }
+        s7PLC.writeByteAsync("DB2.0", expect).join();
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(s7PLC.readByteAsync("DB2.0", 3000));
+        }
+        futures.forEach(x -> assertArrayEquals(expect, x.join()));
+    }
+
+    @Test
+    public void asyncShortConnectionTest() {
+        this.s7PLC.setPersistence(false);
+        this.s7PLC.writeInt16Async("DB1.30", (short) 21).join();
+        assertTrue(this.s7PLC.getAsyncClient().checkConnected());
+        // 短连接模式下同步通信结束只关闭阻塞式socket，异步客户端不受影响
+        List<CompletableFuture<Short>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(this.s7PLC.readInt16Async("DB1.30"));
+            assertEquals(21, this.s7PLC.readInt16("DB1.30"));
+        }
+        assertTrue(this.s7PLC.getAsyncClient().checkConnected());
+        futures.forEach(x -> assertEquals(21, x.join().intValue()));
+        this.s7PLC.close();
+        assertFalse(this.s7PLC.getAsyncClient().checkConnected());
+    }
+
+    @Test
+    public void coalesceFailedNeighbourTest() {
+        this.s7PLC.writeInt16("DB1.65530", (short) 77);
+        List<RequestItem> items = Arrays.asList(
+                AddressUtil.parseByte("DB1.65530", 2),
+                AddressUtil.parseByte("DB1.65534", 4));
+        // 默认不合并
+        List<DataItem> actual = this.s7PLC.readS7DataUnsafe(items);
+        assertArrayEquals(new byte[]{0x00, 0x4D}, actual.get(0).getData());
+        assertEquals(EReturnCode.INVALID_ADDRESS, actual.get(1).getReturnCode());
+        // 合并后的读取失败，逐项重新读取，相邻的正常项依然有值
+        this.s7PLC.setReadCoalesceGap(0);
+        actual = this.s7PLC.readS7DataUnsafe(items);
+        assertArrayEquals(new byte[]{0x00, 0x4D}, actual.get(0).getData());
+        assertEquals(EReturnCode.INVALID_ADDRESS, actual.get(1).getReturnCode());
+        assertNull(actual.get(1).getData());
+        actual = this.s7PLC.readS7DataUnsafeAsync(items).join();
+        assertArrayEquals(new byte[]{0x00, 0x4D}, actual.get(0).getData());
+        assertEquals(EReturnCode.INVALID_ADDRESS, actual.get(1).getReturnCode());
+    }
+
+    @Test
+    public void mappedDataDirectoryTest() throws Exception {
+        Path directory = Files.createTempDirectory("s7-server");
+        try {
+            S7PLCServer mapped = new S7PLCServer(8889, directory);
+            mapped.addDBArea(300);
+            mapped.start();
+            S7PLC plc = new S7PLC(EPlcType.S1200, "127.0.0.1", 8889);
+            plc.writeInt32("DB300.4", 123456);
+            plc.writeBoolean("M1.2", true);
+            plc.close();
+            mapped.stop();
+
+            // 重启后从数据目录加载DB300
+            S7PLCServer restart = new S7PLCServer(8889, directory);
+            assertTrue(restart.getAvailableAreas().contains("DB300"));
+            restart.start();
+            plc = new S7PLC(EPlcType.S1200, "127.0.0.1", 8889);
+            assertEquals(123456, plc.readInt32("DB300.4"));
+            assertTrue(plc.readBoolean("M1.2"));
+            plc.close();
+            restart.stop();
+        } finally {
+            File[] files = directory.toFile().listFiles();
+            if (files != null) {
+                Arrays.stream(files).forEach(File::delete);
+            }
+            directory.toFile().delete();
+        }
+    }
+}